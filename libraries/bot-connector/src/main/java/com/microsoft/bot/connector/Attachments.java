@@ -17,6 +17,9 @@ import com.microsoft.rest.ServiceFuture;
 import com.microsoft.rest.ServiceResponse;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import rx.Observable;
 
 /**
@@ -67,6 +70,16 @@ public interface Attachments {
      */
     Observable<ServiceResponse<AttachmentInfo>> getAttachmentInfoWithServiceResponseAsync(String attachmentId);
 
+    /**
+     * GetAttachmentInfo.
+     * Get AttachmentInfo structure describing the attachment views.
+     *
+     * @param attachmentId attachment id
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the AttachmentInfo object
+     */
+    CompletableFuture<AttachmentInfo> getAttachmentInfoFuture(String attachmentId);
+
     /**
      * GetAttachment.
      * Get the named view as binary content.
@@ -114,4 +127,52 @@ public interface Attachments {
      */
     Observable<ServiceResponse<InputStream>> getAttachmentWithServiceResponseAsync(String attachmentId, String viewId);
 
+    /**
+     * GetAttachmentTo.
+     * Stream the named view into a channel, without holding it in memory.
+     *
+     * @param attachmentId attachment id
+     * @param viewId View id from attachmentInfo
+     * @param target the channel to write the content to; it is not closed
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws IOException thrown if the content cannot be read or written to the channel
+     * @return the number of bytes written.
+     */
+    long getAttachmentTo(String attachmentId, String viewId, WritableByteChannel target) throws IOException;
+
+    /**
+     * GetAttachmentTo.
+     * Stream the named view into a channel from an offset, without holding it in memory.
+     * The bytes before the offset are requested with a Range header, or skipped when the
+     * server sends the whole view.
+     *
+     * @param attachmentId attachment id
+     * @param viewId View id from attachmentInfo
+     * @param offset the number of bytes at the start of the view to leave out
+     * @param target the channel to write the content to; it is not closed
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws IOException thrown if the content cannot be read or written to the channel
+     * @return the number of bytes written, 0 when the offset is at or past the end of the view.
+     */
+    long getAttachmentTo(String attachmentId, String viewId, long offset, WritableByteChannel target) throws IOException;
+
+    /**
+     * GetAttachmentTo.
+     * Download the named view to a file, without holding it in memory. If the file exists,
+     * the download resumes after its last byte; if the server cannot resume, the file is
+     * written again from the start. A download that fails leaves the bytes received so far,
+     * so calling this again continues it.
+     *
+     * @param attachmentId attachment id
+     * @param viewId View id from attachmentInfo
+     * @param file the file to write the content to
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws IOException thrown if the content cannot be read or written to the file
+     * @return the length of the file.
+     */
+    long getAttachmentTo(String attachmentId, String viewId, Path file) throws IOException;
+
 }
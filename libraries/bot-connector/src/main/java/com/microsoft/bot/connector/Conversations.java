@@ -22,7 +22,10 @@ import com.microsoft.rest.ServiceCallback;
 import com.microsoft.rest.ServiceFuture;
 import com.microsoft.rest.ServiceResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import rx.Observable;
 
 /**
@@ -84,6 +87,19 @@ public interface Conversations {
      * @return the observable to the ConversationsResult object
      */
     Observable<ServiceResponse<ConversationsResult>> getConversationsWithServiceResponseAsync();
+
+    /**
+     * GetConversations.
+     * List the Conversations in which this bot has participated.
+     GET from this method with a skip token
+     The return value is a ConversationsResult, which contains an array of ConversationMembers and a skip token.  If the skip token is not empty, then
+     there are further values to be returned. Call this method again with the returned token to get more values.
+     Each ConversationMembers object contains the ID of the conversation and an array of ChannelAccounts that describe the members of the conversation.
+     *
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ConversationsResult object
+     */
+    CompletableFuture<ConversationsResult> getConversationsFuture();
     /**
      * GetConversations.
      * List the Conversations in which this bot has participated.
@@ -143,6 +159,20 @@ public interface Conversations {
      */
     Observable<ServiceResponse<ConversationsResult>> getConversationsWithServiceResponseAsync(String continuationToken);
 
+    /**
+     * GetConversations.
+     * List the Conversations in which this bot has participated.
+     GET from this method with a skip token
+     The return value is a ConversationsResult, which contains an array of ConversationMembers and a skip token.  If the skip token is not empty, then
+     there are further values to be returned. Call this method again with the returned token to get more values.
+     Each ConversationMembers object contains the ID of the conversation and an array of ChannelAccounts that describe the members of the conversation.
+     *
+     * @param continuationToken skip or continuation token
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ConversationsResult object
+     */
+    CompletableFuture<ConversationsResult> getConversationsFuture(String continuationToken);
+
     /**
      * CreateConversation.
      * Create a new Conversation.
@@ -230,6 +260,27 @@ public interface Conversations {
      */
     Observable<ServiceResponse<ConversationResourceResponse>> createConversationWithServiceResponseAsync(ConversationParameters parameters);
 
+    /**
+     * CreateConversation.
+     * Create a new Conversation.
+     POST to this method with a
+     * Bot being the bot creating the conversation
+     * IsGroup set to true if this is not a direct message (default is false)
+     * Members array contining the members you want to have be in the conversation.
+     The return value is a ResourceResponse which contains a conversation id which is suitable for use
+     in the message payload and REST API uris.
+     Most channels only support the semantics of bots initiating a direct message conversation.  An example of how to do that would be:
+     ```
+     var resource = await connector.conversations.CreateConversation(new ConversationParameters(){ Bot = bot, members = new ChannelAccount[] { new ChannelAccount("user1") } );
+     await connect.Conversations.SendToConversationAsync(resource.Id, new Activity() ... ) ;
+     ```.
+     *
+     * @param parameters Parameters to create the conversation from
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ConversationResourceResponse object
+     */
+    CompletableFuture<ConversationResourceResponse> createConversationFuture(ConversationParameters parameters);
+
     /**
      * SendToConversation.
      * This method allows you to send an activity to the end of a conversation.
@@ -297,6 +348,22 @@ public interface Conversations {
      */
     Observable<ServiceResponse<ResourceResponse>> sendToConversationWithServiceResponseAsync(String conversationId, Activity activity);
 
+    /**
+     * SendToConversation.
+     * This method allows you to send an activity to the end of a conversation.
+     This is slightly different from ReplyToActivity().
+     * SendToConverstion(conversationId) - will append the activity to the end of the conversation according to the timestamp or semantics of the channel.
+     * ReplyToActivity(conversationId,ActivityId) - adds the activity as a reply to another activity, if the channel supports it. If the channel does not support nested replies, ReplyToActivity falls back to SendToConversation.
+     Use ReplyToActivity when replying to a specific activity in the conversation.
+     Use SendToConversation in all other cases.
+     *
+     * @param conversationId Conversation ID
+     * @param activity Activity to send
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    CompletableFuture<ResourceResponse> sendToConversationFuture(String conversationId, Activity activity);
+
     /**
      * UpdateActivity.
      * Edit an existing activity.
@@ -356,6 +423,20 @@ public interface Conversations {
      */
     Observable<ServiceResponse<ResourceResponse>> updateActivityWithServiceResponseAsync(String conversationId, String activityId, Activity activity);
 
+    /**
+     * UpdateActivity.
+     * Edit an existing activity.
+     Some channels allow you to edit an existing activity to reflect the new state of a bot conversation.
+     For example, you can remove buttons after someone has clicked "Approve" button.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId activityId to update
+     * @param activity replacement Activity
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    CompletableFuture<ResourceResponse> updateActivityFuture(String conversationId, String activityId, Activity activity);
+
     /**
      * ReplyToActivity.
      * This method allows you to reply to an activity.
@@ -427,6 +508,23 @@ public interface Conversations {
      */
     Observable<ServiceResponse<ResourceResponse>> replyToActivityWithServiceResponseAsync(String conversationId, String activityId, Activity activity);
 
+    /**
+     * ReplyToActivity.
+     * This method allows you to reply to an activity.
+     This is slightly different from SendToConversation().
+     * SendToConverstion(conversationId) - will append the activity to the end of the conversation according to the timestamp or semantics of the channel.
+     * ReplyToActivity(conversationId,ActivityId) - adds the activity as a reply to another activity, if the channel supports it. If the channel does not support nested replies, ReplyToActivity falls back to SendToConversation.
+     Use ReplyToActivity when replying to a specific activity in the conversation.
+     Use SendToConversation in all other cases.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId activityId the reply is to (OPTIONAL)
+     * @param activity Activity to send
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    CompletableFuture<ResourceResponse> replyToActivityFuture(String conversationId, String activityId, Activity activity);
+
     /**
      * DeleteActivity.
      * Delete an existing activity.
@@ -477,6 +575,18 @@ public interface Conversations {
      */
     Observable<ServiceResponse<Void>> deleteActivityWithServiceResponseAsync(String conversationId, String activityId);
 
+    /**
+     * DeleteActivity.
+     * Delete an existing activity.
+     Some channels allow you to delete an existing activity, and if successful this method will remove the specified activity.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId activityId to delete
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future completed when the request succeeds
+     */
+    CompletableFuture<Void> deleteActivityFuture(String conversationId, String activityId);
+
     /**
      * GetConversationMembers.
      * Enumerate the members of a converstion.
@@ -524,6 +634,17 @@ public interface Conversations {
      */
     Observable<ServiceResponse<List<ChannelAccount>>> getConversationMembersWithServiceResponseAsync(String conversationId);
 
+    /**
+     * GetConversationMembers.
+     * Enumerate the members of a converstion.
+     This REST API takes a ConversationId and returns an array of ChannelAccount objects representing the members of the conversation.
+     *
+     * @param conversationId Conversation ID
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the List&lt;ChannelAccount&gt; object
+     */
+    CompletableFuture<List<ChannelAccount>> getConversationMembersFuture(String conversationId);
+
     /**
      * DeleteConversationMember.
      * Deletes a member from a converstion.
@@ -629,6 +750,18 @@ public interface Conversations {
      */
     Observable<ServiceResponse<List<ChannelAccount>>> getActivityMembersWithServiceResponseAsync(String conversationId, String activityId);
 
+    /**
+     * GetActivityMembers.
+     * Enumerate the members of an activity.
+     This REST API takes a ConversationId and a ActivityId, returning an array of ChannelAccount objects representing the members of the particular activity in the conversation.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId Activity ID
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the List&lt;ChannelAccount&gt; object
+     */
+    CompletableFuture<List<ChannelAccount>> getActivityMembersFuture(String conversationId, String activityId);
+
     /**
      * UploadAttachment.
      * Upload an attachment directly into a channel's blob storage.
@@ -684,4 +817,78 @@ public interface Conversations {
      */
     Observable<ServiceResponse<ResourceResponse>> uploadAttachmentWithServiceResponseAsync(String conversationId, AttachmentData attachmentUpload);
 
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage.
+     This is useful because it allows you to store data in a compliant store when dealing with enterprises.
+     The response is a ResourceResponse which contains an AttachmentId which is suitable for using with the attachments API.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload Attachment data
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    CompletableFuture<ResourceResponse> uploadAttachmentFuture(String conversationId, AttachmentData attachmentUpload);
+
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content
+     from an InputStream and base64 encoding it as the request is sent, so the content is never held in memory.
+     The response is a ResourceResponse which contains an AttachmentId which is suitable for using with the attachments API.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the original content, closed once it has been read or the request has ended without sending it
+     * @param originalLength the length of the original content, or -1 when it is not known
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws RuntimeException all other wrapped checked exceptions if the request fails to be sent
+     * @return the ResourceResponse object if successful.
+     */
+    ResourceResponse uploadAttachment(String conversationId, AttachmentData attachmentUpload, InputStream original, long originalLength);
+
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content
+     from an InputStream and base64 encoding it as the request is sent, so the content is never held in memory.
+     The stream can be sent once, so the request is not retried.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the original content, closed once it has been read or the request has ended without sending it
+     * @param originalLength the length of the original content, or -1 when it is not known
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the observable to the ResourceResponse object
+     */
+    Observable<ResourceResponse> uploadAttachmentAsync(String conversationId, AttachmentData attachmentUpload, InputStream original, long originalLength);
+
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content
+     from a file and base64 encoding it as the request is sent, so the content is never held in memory.
+     The response is a ResourceResponse which contains an AttachmentId which is suitable for using with the attachments API.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the file holding the original content
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws RuntimeException all other wrapped checked exceptions if the request fails to be sent
+     * @return the ResourceResponse object if successful.
+     */
+    ResourceResponse uploadAttachment(String conversationId, AttachmentData attachmentUpload, Path original);
+
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content
+     from a file and base64 encoding it as the request is sent, so the content is never held in memory.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the file holding the original content
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the observable to the ResourceResponse object
+     */
+    Observable<ResourceResponse> uploadAttachmentAsync(String conversationId, AttachmentData attachmentUpload, Path original);
+
 }
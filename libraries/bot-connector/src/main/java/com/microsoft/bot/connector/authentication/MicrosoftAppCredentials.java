@@ -4,7 +4,8 @@
 package com.microsoft.bot.connector.authentication;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.microsoft.bot.schema.Serialization;
 import com.microsoft.rest.credentials.ServiceClientCredentials;
 import okhttp3.*;
 
@@ -24,8 +25,9 @@ public class MicrosoftAppCredentials implements ServiceClientCredentials {
     private String appId;
     private String appPassword;
 
+    private static final ObjectReader authResponseReader = Serialization.ReaderFor(AuthenticationResponse.class);
+
     private OkHttpClient client;
-    private ObjectMapper mapper;
     public static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     public static final MediaType FORM_ENCODE = MediaType.parse("application/x-www-form-urlencoded");
 
@@ -46,7 +48,6 @@ public class MicrosoftAppCredentials implements ServiceClientCredentials {
         this.appId = appId;
         this.appPassword = appPassword;
         this.client = new OkHttpClient.Builder().build();
-        this.mapper = new ObjectMapper().findAndRegisterModules();
     }
 
     public static final MicrosoftAppCredentials Empty = new MicrosoftAppCredentials(null, null);
@@ -75,7 +76,7 @@ public class MicrosoftAppCredentials implements ServiceClientCredentials {
         Response response = this.client.newCall(reqToken).execute();
         if (response.isSuccessful()) {
             String payload = response.body().string();
-            AuthenticationResponse authResponse = this.mapper.readValue(payload, AuthenticationResponse.class);
+            AuthenticationResponse authResponse = authResponseReader.readValue(payload);
             this.expiredTime = System.currentTimeMillis() + (authResponse.expiresIn * 1000);
             this.currentToken = authResponse.accessToken;
         }
@@ -1,9 +1,11 @@
 package com.microsoft.bot.connector.authentication;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.microsoft.bot.connector.UserAgent;
 import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import com.microsoft.bot.schema.Serialization;
 import com.microsoft.bot.schema.TokenExchangeState;
 import com.microsoft.bot.schema.models.Activity;
 import com.microsoft.bot.schema.models.ConversationReference;
@@ -41,11 +43,12 @@ import static java.util.stream.Collectors.joining;
  * Uses the MicrosoftInterceptor class to add Authorization header from idp.
  */
 public class OAuthClient extends ServiceClient {
+    private static final ObjectReader tokenResponseReader = Serialization.ReaderFor(TokenResponse.class);
+    private static final ObjectWriter tokenExchangeStateWriter = Serialization.WriterFor(TokenExchangeState.class);
+
     private final ConnectorClientImpl client;
     private final String uri;
 
-    private ObjectMapper mapper;
-
 
     public OAuthClient(ConnectorClientImpl client, String uri) throws URISyntaxException, MalformedURLException {
         super(client.restClient());
@@ -60,7 +63,6 @@ public class OAuthClient extends ServiceClient {
             throw new IllegalArgumentException("client");
         this.client = client;
         this.uri = uri + (uri.endsWith("/") ? "" : "/");
-        this.mapper = new ObjectMapper();
     }
 
     /**
@@ -145,7 +147,7 @@ public class OAuthClient extends ServiceClient {
                 response = client.newCall(request).execute();
                 int statusCode = response.code();
                 if (statusCode == HTTP_OK) {
-                    return this.mapper.readValue(response.body().string(), TokenResponse.class);
+                    return tokenResponseReader.readValue(response.body().string());
                 } else if (statusCode == HTTP_NOT_FOUND) {
                     return null;
                 } else {
@@ -250,7 +252,7 @@ public class OAuthClient extends ServiceClient {
                         .withUser(activity.from()))
                 .withMsAppId((creds == null) ? null : creds.microsoftAppId());
 
-        String serializedState = this.mapper.writeValueAsString(tokenExchangeState);
+        String serializedState = tokenExchangeStateWriter.writeValueAsString(tokenExchangeState);
 
         // Construct URL
         String encoded = Base64.getEncoder().encodeToString(serializedState.getBytes(StandardCharsets.UTF_8));
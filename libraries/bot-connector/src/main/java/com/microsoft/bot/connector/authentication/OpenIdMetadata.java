@@ -8,7 +8,8 @@ import com.auth0.jwk.JwkException;
 import com.auth0.jwk.JwkProvider;
 import com.auth0.jwk.UrlJwkProvider;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.microsoft.bot.schema.Serialization;
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
@@ -21,15 +22,14 @@ import java.util.logging.Logger;
 
 class OpenIdMetadata {
     private static final Logger LOGGER = Logger.getLogger( OpenIdMetadata.class.getName() );
+    private static final ObjectReader configReader = Serialization.ReaderFor(new TypeReference<HashMap<String, Object>>(){});
 
     private String url;
     private long lastUpdated;
     private JwkProvider cacheKeys;
-    private ObjectMapper mapper;
 
     OpenIdMetadata(String url) {
         this.url = url;
-        this.mapper = new ObjectMapper().findAndRegisterModules();
     }
 
     public OpenIdMetadataKey getKey(String keyId) {
@@ -45,7 +45,7 @@ class OpenIdMetadata {
     private String refreshCache() {
         try {
             URL openIdUrl = new URL(this.url);
-            HashMap<String, String> openIdConf = this.mapper.readValue(openIdUrl, new TypeReference<HashMap<String, Object>>(){});
+            HashMap<String, String> openIdConf = configReader.readValue(openIdUrl);
             URL keysUrl = new URL(openIdConf.get("jwks_uri"));
             this.lastUpdated = System.currentTimeMillis();
             this.cacheKeys = new UrlJwkProvider(keysUrl);
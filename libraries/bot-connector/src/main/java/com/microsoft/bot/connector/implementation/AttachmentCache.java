@@ -0,0 +1,545 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.implementation;
+
+import com.microsoft.bot.schema.models.AttachmentData;
+import com.microsoft.bot.schema.models.AttachmentInfo;
+import com.microsoft.bot.schema.models.AttachmentView;
+import okio.BufferedSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches attachment content, attachment info and upload results for a {@link ConnectorClientImpl},
+ * so a bot that sends and reads the same images and clips does not move the same bytes again.
+ * <p>
+ * Content is addressed by its SHA-256 hash: views with the same bytes are stored once. Small
+ * content, attachment info and upload results are kept in memory; larger content is kept in
+ * files in the cache directory and read through a memory mapping. Each tier is bounded by bytes
+ * and evicts the least recently used entries first.
+ * <p>
+ * A view is served from the cache for the max age after it was downloaded or revalidated. After
+ * that it is revalidated with If-None-Match and If-Modified-Since, from the ETag and Last-Modified
+ * the service sent, and downloaded again only if it changed. Attachment info is fetched again
+ * after the max age, and is shared between callers, so it must not be changed. An upload of the
+ * same name, type and bytes to the same conversation returns the id of the first upload.
+ * <p>
+ * The cache directory belongs to the cache: files left in it by an earlier process are deleted.
+ * To use a cache:
+ * <pre>
+ * ConnectorClientImpl connector = new ConnectorClientImpl(baseUrl, credentials)
+ *     .withAttachmentCache(new AttachmentCache(directory, 16 * 1024 * 1024, 512 * 1024 * 1024));
+ * </pre>
+ */
+public class AttachmentCache {
+    private static final Logger LOGGER = Logger.getLogger(AttachmentCache.class.getName());
+
+    private static final String CONTENT_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    // The estimated size of an entry without its content, for the memory bound.
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final Path directory;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private int smallPayloadLimit = 64 * 1024;
+    private long maxAgeNanos = TimeUnit.MINUTES.toNanos(10);
+
+    /** Content, attachment info, views and uploads kept in memory, least recently used first. */
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<String, MemoryEntry>(64, 0.75f, true);
+    private long memoryBytes;
+    /** The lengths of the content files, by hash, least recently used first. */
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<String, Long>(64, 0.75f, true);
+    private long diskBytes;
+
+    /**
+     * Initializes an instance of AttachmentCache.
+     *
+     * @param directory the directory to keep large content in; created if it does not exist
+     * @param maxMemoryBytes the bytes of small content, attachment info and uploads to keep in memory
+     * @param maxDiskBytes the bytes of large content to keep in the directory
+     * @throws IOException the directory cannot be created or cleared
+     */
+    public AttachmentCache(Path directory, long maxMemoryBytes, long maxDiskBytes) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Parameter directory is required and cannot be null.");
+        }
+        if (maxMemoryBytes < 0) {
+            throw new IllegalArgumentException("Parameter maxMemoryBytes cannot be negative.");
+        }
+        if (maxDiskBytes < 0) {
+            throw new IllegalArgumentException("Parameter maxDiskBytes cannot be negative.");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*{" + CONTENT_SUFFIX + "," + TEMP_SUFFIX + "}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Gets the largest content kept in memory rather than in a file. Default is 64 KiB.
+     *
+     * @return the smallPayloadLimit value.
+     */
+    public int smallPayloadLimit() {
+        return this.smallPayloadLimit;
+    }
+
+    /**
+     * Sets the largest content kept in memory rather than in a file.
+     *
+     * @param smallPayloadLimit the smallPayloadLimit value.
+     * @return the cache itself
+     */
+    public AttachmentCache withSmallPayloadLimit(int smallPayloadLimit) {
+        if (smallPayloadLimit < 0) {
+            throw new IllegalArgumentException("Parameter smallPayloadLimit cannot be negative.");
+        }
+        this.smallPayloadLimit = smallPayloadLimit;
+        return this;
+    }
+
+    /**
+     * Gets how long a view or attachment info is used before it is revalidated. Default is 10 minutes.
+     *
+     * @param unit the unit to return the max age in
+     * @return the maxAge value.
+     */
+    public long maxAge(TimeUnit unit) {
+        return unit.convert(this.maxAgeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets how long a view or attachment info is used before it is revalidated.
+     *
+     * @param maxAge the maxAge value
+     * @param unit the unit of the max age
+     * @return the cache itself
+     */
+    public AttachmentCache withMaxAge(long maxAge, TimeUnit unit) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("Parameter maxAge cannot be negative.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Parameter unit is required and cannot be null.");
+        }
+        this.maxAgeNanos = unit.toNanos(maxAge);
+        return this;
+    }
+
+    /**
+     * Gets the estimated bytes kept in memory.
+     *
+     * @return the memory size.
+     */
+    public synchronized long memorySize() {
+        return this.memoryBytes;
+    }
+
+    /**
+     * Gets the bytes of content kept in the cache directory.
+     *
+     * @return the disk size.
+     */
+    public synchronized long diskSize() {
+        return this.diskBytes;
+    }
+
+    /**
+     * The attachment info cached for an attachment, or null when there is none or it is older
+     * than the max age. The info is shared and must not be changed.
+     */
+    synchronized AttachmentInfo getInfo(String attachmentId) {
+        MemoryEntry entry = this.memory.get(infoKey(attachmentId));
+        if (entry == null || !isFresh(entry.storedAt)) {
+            return null;
+        }
+        return (AttachmentInfo) entry.value;
+    }
+
+    synchronized void putInfo(String attachmentId, AttachmentInfo info) {
+        if (info == null) {
+            return;
+        }
+        long size = ENTRY_OVERHEAD + chars(info.name()) + chars(info.type());
+        if (info.views() != null) {
+            for (AttachmentView view : info.views()) {
+                size += ENTRY_OVERHEAD + chars(view.viewId());
+            }
+        }
+        putMemory(infoKey(attachmentId), new MemoryEntry(info, size));
+    }
+
+    /**
+     * The id an attachment with the same name, type and content was uploaded to a conversation
+     * as, or null.
+     */
+    synchronized String getUpload(String uploadKey) {
+        MemoryEntry entry = this.memory.get(uploadKey);
+        return (entry == null) ? null : (String) entry.value;
+    }
+
+    synchronized void putUpload(String uploadKey, String attachmentId) {
+        if (attachmentId == null) {
+            return;
+        }
+        putMemory(uploadKey, new MemoryEntry(attachmentId, ENTRY_OVERHEAD + chars(uploadKey) + chars(attachmentId)));
+    }
+
+    /**
+     * The key of an upload: its conversation and a hash of its name, type and content.
+     */
+    static String uploadKey(String conversationId, AttachmentData upload) {
+        MessageDigest digest = newDigest();
+        digest.update(bytes(upload.name()));
+        digest.update((byte) 0);
+        digest.update(bytes(upload.type()));
+        digest.update((byte) 0);
+        if (upload.originalBase64() != null) {
+            digest.update(upload.originalBase64());
+        }
+        digest.update((byte) 0);
+        if (upload.thumbnailBase64() != null) {
+            digest.update(upload.thumbnailBase64());
+        }
+        return "upload:" + conversationId + "\n" + hex(digest.digest());
+    }
+
+    /**
+     * The cached view of an attachment, fresh or not, or null.
+     */
+    synchronized CachedView getView(String attachmentId, String viewId) {
+        MemoryEntry entry = this.memory.get(viewKey(attachmentId, viewId));
+        if (entry == null) {
+            return null;
+        }
+        ViewEntry view = (ViewEntry) entry.value;
+        return new CachedView(attachmentId, viewId, view, isFresh(entry.storedAt));
+    }
+
+    /**
+     * Marks a view as revalidated, so it is used for another max age.
+     */
+    synchronized void revalidated(CachedView view) {
+        MemoryEntry entry = this.memory.get(viewKey(view.attachmentId, view.viewId));
+        if (entry != null && entry.value == view.entry) {
+            entry.storedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Opens the content of a cached view, or returns null when the content has been evicted.
+     */
+    InputStream open(CachedView view) throws IOException {
+        String hash = view.entry.hash;
+        synchronized (this) {
+            MemoryEntry entry = this.memory.get(contentKey(hash));
+            if (entry != null) {
+                return new ByteArrayInputStream((byte[]) entry.value);
+            }
+            if (this.disk.get(hash) == null) {
+                return null;
+            }
+        }
+        MappedByteBuffer content;
+        try (FileChannel channel = FileChannel.open(contentFile(hash), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed and the file is deleted.
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                Long length = this.disk.remove(hash);
+                if (length != null) {
+                    this.diskBytes -= length;
+                }
+            }
+            return null;
+        }
+        return new MappedInputStream(content);
+    }
+
+    /**
+     * Reads the content of a view from the service, stores it, and opens it. Content too large
+     * for the disk tier is not kept, and is read from a file deleted when the stream is closed.
+     *
+     * @param contentLength the length of the content, or -1 when it is not known
+     */
+    InputStream store(String attachmentId, String viewId, String etag, String lastModified, BufferedSource source, long contentLength) throws IOException {
+        MessageDigest digest = newDigest();
+        if (contentLength >= 0 && contentLength <= this.smallPayloadLimit) {
+            byte[] content = source.readByteArray();
+            digest.update(content);
+            String hash = hex(digest.digest());
+            synchronized (this) {
+                if (content.length <= this.smallPayloadLimit) {
+                    putMemory(contentKey(hash), new MemoryEntry(content, ENTRY_OVERHEAD + content.length));
+                    putView(attachmentId, viewId, new ViewEntry(hash, etag, lastModified));
+                }
+            }
+            return new ByteArrayInputStream(content);
+        }
+
+        Path temp = Files.createTempFile(this.directory, "download", TEMP_SUFFIX);
+        long length = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+                int read;
+                while ((read = source.read(chunk, 0, chunk.length)) != -1) {
+                    digest.update(chunk, 0, read);
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    length += read;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        String hash = hex(digest.digest());
+        ViewEntry view = new ViewEntry(hash, etag, lastModified);
+
+        if (length <= this.smallPayloadLimit) {
+            byte[] content = Files.readAllBytes(temp);
+            Files.delete(temp);
+            synchronized (this) {
+                putMemory(contentKey(hash), new MemoryEntry(content, ENTRY_OVERHEAD + content.length));
+                putView(attachmentId, viewId, view);
+            }
+            return new ByteArrayInputStream(content);
+        }
+        if (length > this.maxDiskBytes) {
+            return Channels.newInputStream(FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE));
+        }
+
+        synchronized (this) {
+            if (this.disk.get(hash) == null) {
+                Files.move(temp, contentFile(hash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                this.disk.put(hash, length);
+                this.diskBytes += length;
+                evictDisk(hash);
+            } else {
+                Files.delete(temp);
+            }
+            putView(attachmentId, viewId, view);
+        }
+        InputStream stream = open(new CachedView(attachmentId, viewId, view, true));
+        if (stream == null) {
+            throw new NoSuchFileException(contentFile(hash).toString());
+        }
+        return stream;
+    }
+
+    private void putView(String attachmentId, String viewId, ViewEntry view) {
+        String key = viewKey(attachmentId, viewId);
+        putMemory(key, new MemoryEntry(view, ENTRY_OVERHEAD + chars(key) + chars(view.etag) + chars(view.lastModified)));
+    }
+
+    private void putMemory(String key, MemoryEntry entry) {
+        MemoryEntry previous = this.memory.put(key, entry);
+        if (previous != null) {
+            this.memoryBytes -= previous.size;
+        }
+        this.memoryBytes += entry.size;
+        Iterator<Map.Entry<String, MemoryEntry>> eldest = this.memory.entrySet().iterator();
+        while (this.memoryBytes > this.maxMemoryBytes && eldest.hasNext()) {
+            this.memoryBytes -= eldest.next().getValue().size;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Deletes the least recently used content files until the disk tier fits, keeping the one just stored.
+     */
+    private void evictDisk(String keep) {
+        Iterator<Map.Entry<String, Long>> eldest = this.disk.entrySet().iterator();
+        while (this.diskBytes > this.maxDiskBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            this.diskBytes -= entry.getValue();
+            eldest.remove();
+            try {
+                Files.deleteIfExists(contentFile(entry.getKey()));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete cached attachment content " + entry.getKey(), e);
+            }
+        }
+    }
+
+    private boolean isFresh(long storedAt) {
+        return System.nanoTime() - storedAt < this.maxAgeNanos;
+    }
+
+    private Path contentFile(String hash) {
+        return this.directory.resolve(hash + CONTENT_SUFFIX);
+    }
+
+    private static String infoKey(String attachmentId) {
+        return "info:" + attachmentId;
+    }
+
+    private static String viewKey(String attachmentId, String viewId) {
+        return "view:" + attachmentId + "\n" + viewId;
+    }
+
+    private static String contentKey(String hash) {
+        return "content:" + hash;
+    }
+
+    private static long chars(String value) {
+        return (value == null) ? 0 : 2L * value.length();
+    }
+
+    private static byte[] bytes(String value) {
+        return (value == null) ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * A value kept in memory, with its estimated size and when it was stored or revalidated.
+     */
+    private static final class MemoryEntry {
+        final Object value;
+        final long size;
+        long storedAt = System.nanoTime();
+
+        MemoryEntry(Object value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The content hash and validators of a view.
+     */
+    static final class ViewEntry {
+        final String hash;
+        final String etag;
+        final String lastModified;
+
+        ViewEntry(String hash, String etag, String lastModified) {
+            this.hash = hash;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * A view found in the cache, and whether it can be used without revalidating it.
+     */
+    static final class CachedView {
+        final String attachmentId;
+        final String viewId;
+        final ViewEntry entry;
+        final boolean fresh;
+
+        CachedView(String attachmentId, String viewId, ViewEntry entry, boolean fresh) {
+            this.attachmentId = attachmentId;
+            this.viewId = viewId;
+            this.entry = entry;
+            this.fresh = fresh;
+        }
+
+        String etag() {
+            return this.entry.etag;
+        }
+
+        String lastModified() {
+            return this.entry.lastModified;
+        }
+
+        boolean revalidatable() {
+            return this.entry.etag != null || this.entry.lastModified != null;
+        }
+    }
+
+    /**
+     * Reads mapped content.
+     */
+    private static final class MappedInputStream extends InputStream {
+        private final ByteBuffer content;
+
+        MappedInputStream(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read() {
+            return this.content.hasRemaining() ? (this.content.get() & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.content.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, this.content.remaining());
+            this.content.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, this.content.remaining()));
+            // Through Buffer, which declares position(int) on every Java version.
+            ((Buffer) this.content).position(this.content.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.content.remaining();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.implementation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.microsoft.bot.schema.Serialization;
+import com.microsoft.bot.schema.models.AttachmentData;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The JSON body of an attachment upload whose original content is read from a stream or a file
+ * and base64 encoded as the request is written, so the content is never held in memory.
+ * <p>
+ * The body is the JSON of an {@link AttachmentData}: its type, name and thumbnail come from the
+ * upload, and its originalBase64 from the content. When the length of the content is known and
+ * fits in an int, the length of the body is sent; otherwise the body is sent chunked. A body
+ * read from a stream can be written once; one read from a file reopens the file each time, so
+ * the request can be retried.
+ * <p>
+ * The stream is closed once it has been read. A request can end without writing its body, when
+ * it is rejected, canceled or fails to connect, so the caller calls {@link #close()} when the
+ * request ends to close a stream that was never read.
+ */
+final class AttachmentUploadBody extends RequestBody {
+    private static final Logger LOGGER = Logger.getLogger(AttachmentUploadBody.class.getName());
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final AttachmentData upload;
+    private final InputStream stream;
+    private final Path file;
+    private final long length;
+    private final long contentLength;
+    private final AtomicBoolean written = new AtomicBoolean();
+    private volatile IOException failure;
+
+    private AttachmentUploadBody(AttachmentData upload, InputStream stream, Path file, long length) throws IOException {
+        this.upload = upload;
+        this.stream = stream;
+        this.file = file;
+        this.length = length;
+        this.contentLength = contentLength(upload, length);
+    }
+
+    /**
+     * A body that reads the content from a stream, which is closed once it has been read or the body is closed.
+     *
+     * @param length the length of the content, or -1 when it is not known
+     */
+    static AttachmentUploadBody fromStream(AttachmentData upload, InputStream original, long length) throws IOException {
+        return new AttachmentUploadBody(upload, original, null, length);
+    }
+
+    /**
+     * A body that reads the content from a file.
+     */
+    static AttachmentUploadBody fromFile(AttachmentData upload, Path original) throws IOException {
+        return new AttachmentUploadBody(upload, null, original, Files.size(original));
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return this.contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        if (this.file != null) {
+            try (InputStream original = Files.newInputStream(this.file)) {
+                write(sink.outputStream(), this.upload, original, this.length);
+            }
+            return;
+        }
+        if (!this.written.compareAndSet(false, true)) {
+            // OkHttp retries a request whose body failed to be written; report why it failed.
+            IOException failure = this.failure;
+            throw new IOException("The attachment stream has already been sent and cannot be sent again"
+                    + ((failure != null) ? ": " + failure.getMessage() : "."), failure);
+        }
+        try (InputStream original = this.stream) {
+            write(sink.outputStream(), this.upload, original, this.length);
+        } catch (IOException e) {
+            this.failure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the stream if the body has not been written, so it cannot be written afterwards.
+     * A body being written closes the stream itself once it is done.
+     */
+    void close() {
+        if (this.stream == null || !this.written.compareAndSet(false, true)) {
+            return;
+        }
+        this.failure = new IOException("The request ended before the body was written.");
+        try {
+            this.stream.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close an attachment stream that was not sent", e);
+        }
+    }
+
+    /**
+     * Writes the JSON of an upload with the content of a stream as its originalBase64.
+     */
+    private static void write(OutputStream out, AttachmentData upload, InputStream original, long length) throws IOException {
+        try (JsonGenerator generator = Serialization.getFactory().createGenerator(out)) {
+            // The sink belongs to the request.
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            if (upload.type() != null) {
+                generator.writeStringField("type", upload.type());
+            }
+            if (upload.name() != null) {
+                generator.writeStringField("name", upload.name());
+            }
+            generator.writeFieldName("originalBase64");
+            // With the length, the generator checks the stream has exactly that many bytes.
+            generator.writeBinary(original, fitsInt(length) ? (int) length : -1);
+            if (upload.thumbnailBase64() != null) {
+                generator.writeFieldName("thumbnailBase64");
+                generator.writeBinary(upload.thumbnailBase64());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * The length of the body: the JSON of the upload with empty content, and the base64 of the
+     * content inside its quotes. -1 when the length of the content is not known.
+     */
+    private static long contentLength(AttachmentData upload, long length) throws IOException {
+        if (!fitsInt(length)) {
+            return -1;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        write(counter, upload, new ByteArrayInputStream(new byte[0]), 0);
+        return counter.count + 4 * ((length + 2) / 3);
+    }
+
+    private static boolean fitsInt(long length) {
+        return length >= 0 && length <= Integer.MAX_VALUE;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
@@ -20,13 +20,22 @@ import com.microsoft.rest.ServiceFuture;
 import com.microsoft.rest.ServiceResponse;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 import retrofit2.http.GET;
 import retrofit2.http.Header;
 import retrofit2.http.Headers;
 import retrofit2.http.Path;
 import retrofit2.http.Streaming;
+import retrofit2.Call;
 import retrofit2.Response;
+import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.Observable;
 
@@ -35,6 +44,9 @@ import rx.Observable;
  * in Attachments.
  */
 public class AttachmentsImpl implements Attachments {
+    /** The size of the buffer attachment content is streamed through. */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     /** The Retrofit service to perform REST calls. */
     private AttachmentsService service;
     /** The service client containing this operation class. */
@@ -60,11 +72,25 @@ public class AttachmentsImpl implements Attachments {
         @GET("v3/attachments/{attachmentId}")
         Observable<Response<ResponseBody>> getAttachmentInfo(@Path("attachmentId") String attachmentId, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
 
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Attachments getAttachmentInfo" })
+        @GET("v3/attachments/{attachmentId}")
+        Call<ResponseBody> getAttachmentInfoCall(@Path("attachmentId") String attachmentId, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
         @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Attachments getAttachment" })
         @GET("v3/attachments/{attachmentId}/views/{viewId}")
         @Streaming
         Observable<Response<ResponseBody>> getAttachment(@Path("attachmentId") String attachmentId, @Path("viewId") String viewId, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
 
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Attachments getAttachmentTo" })
+        @GET("v3/attachments/{attachmentId}/views/{viewId}")
+        @Streaming
+        Call<ResponseBody> getAttachmentRange(@Path("attachmentId") String attachmentId, @Path("viewId") String viewId, @Header("Range") String range, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Attachments getAttachment" })
+        @GET("v3/attachments/{attachmentId}/views/{viewId}")
+        @Streaming
+        Call<ResponseBody> getAttachmentIfChanged(@Path("attachmentId") String attachmentId, @Path("viewId") String viewId, @Header("If-None-Match") String ifNoneMatch, @Header("If-Modified-Since") String ifModifiedSince, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
     }
 
     /**
@@ -77,8 +103,25 @@ public class AttachmentsImpl implements Attachments {
      * @throws RuntimeException all other wrapped checked exceptions if the request fails to be sent
      * @return the AttachmentInfo object if successful.
      */
-    public AttachmentInfo getAttachmentInfo(String attachmentId) {
-        return getAttachmentInfoWithServiceResponseAsync(attachmentId).toBlocking().single().body();
+    public AttachmentInfo getAttachmentInfo(final String attachmentId) {
+        if (attachmentId == null) {
+            throw new IllegalArgumentException("Parameter attachmentId is required and cannot be null.");
+        }
+        final AttachmentCache cache = this.client.attachmentCache();
+        if (cache != null) {
+            AttachmentInfo cached = cache.getInfo(attachmentId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return CallFutures.execute(service.getAttachmentInfoCall(attachmentId, this.client.acceptLanguage(), this.client.userAgent()),
+            response -> {
+                AttachmentInfo body = getAttachmentInfoDelegate(response).body();
+                if (cache != null) {
+                    cache.putInfo(attachmentId, body);
+                }
+                return body;
+            });
     }
 
     /**
@@ -91,7 +134,7 @@ public class AttachmentsImpl implements Attachments {
      * @return the {@link ServiceFuture} object
      */
     public ServiceFuture<AttachmentInfo> getAttachmentInfoAsync(String attachmentId, final ServiceCallback<AttachmentInfo> serviceCallback) {
-        return ServiceFuture.fromResponse(getAttachmentInfoWithServiceResponseAsync(attachmentId), serviceCallback);
+        return ServiceFuture.fromBody(getAttachmentInfoAsync(attachmentId), serviceCallback);
     }
 
     /**
@@ -102,10 +145,20 @@ public class AttachmentsImpl implements Attachments {
      * @throws IllegalArgumentException thrown if parameters fail the validation
      * @return the observable to the AttachmentInfo object
      */
-    public Observable<AttachmentInfo> getAttachmentInfoAsync(String attachmentId) {
+    public Observable<AttachmentInfo> getAttachmentInfoAsync(final String attachmentId) {
+        final AttachmentCache cache = this.client.attachmentCache();
+        if (cache != null && attachmentId != null) {
+            AttachmentInfo cached = cache.getInfo(attachmentId);
+            if (cached != null) {
+                return Observable.just(cached);
+            }
+        }
         return getAttachmentInfoWithServiceResponseAsync(attachmentId).map(new Func1<ServiceResponse<AttachmentInfo>, AttachmentInfo>() {
             @Override
             public AttachmentInfo call(ServiceResponse<AttachmentInfo> response) {
+                if (cache != null) {
+                    cache.putInfo(attachmentId, response.body());
+                }
                 return response.body();
             }
         });
@@ -137,6 +190,35 @@ public class AttachmentsImpl implements Attachments {
             });
     }
 
+    /**
+     * GetAttachmentInfo.
+     * Get AttachmentInfo structure describing the attachment views.
+     *
+     * @param attachmentId attachment id
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the AttachmentInfo object
+     */
+    public CompletableFuture<AttachmentInfo> getAttachmentInfoFuture(final String attachmentId) {
+        if (attachmentId == null) {
+            throw new IllegalArgumentException("Parameter attachmentId is required and cannot be null.");
+        }
+        final AttachmentCache cache = this.client.attachmentCache();
+        if (cache != null) {
+            AttachmentInfo cached = cache.getInfo(attachmentId);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        return CallFutures.enqueue(service.getAttachmentInfoCall(attachmentId, this.client.acceptLanguage(), this.client.userAgent()),
+            response -> {
+                AttachmentInfo body = getAttachmentInfoDelegate(response).body();
+                if (cache != null) {
+                    cache.putInfo(attachmentId, body);
+                }
+                return body;
+            });
+    }
+
     private ServiceResponse<AttachmentInfo> getAttachmentInfoDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<AttachmentInfo, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<AttachmentInfo>() { }.getType())
@@ -156,7 +238,7 @@ public class AttachmentsImpl implements Attachments {
      * @return the InputStream object if successful.
      */
     public InputStream getAttachment(String attachmentId, String viewId) {
-        return getAttachmentWithServiceResponseAsync(attachmentId, viewId).toBlocking().single().body();
+        return getAttachmentAsync(attachmentId, viewId).toBlocking().single();
     }
 
     /**
@@ -170,7 +252,7 @@ public class AttachmentsImpl implements Attachments {
      * @return the {@link ServiceFuture} object
      */
     public ServiceFuture<InputStream> getAttachmentAsync(String attachmentId, String viewId, final ServiceCallback<InputStream> serviceCallback) {
-        return ServiceFuture.fromResponse(getAttachmentWithServiceResponseAsync(attachmentId, viewId), serviceCallback);
+        return ServiceFuture.fromBody(getAttachmentAsync(attachmentId, viewId), serviceCallback);
     }
 
     /**
@@ -182,7 +264,26 @@ public class AttachmentsImpl implements Attachments {
      * @throws IllegalArgumentException thrown if parameters fail the validation
      * @return the observable to the InputStream object
      */
-    public Observable<InputStream> getAttachmentAsync(String attachmentId, String viewId) {
+    public Observable<InputStream> getAttachmentAsync(final String attachmentId, final String viewId) {
+        final AttachmentCache cache = this.client.attachmentCache();
+        if (cache != null) {
+            if (attachmentId == null) {
+                throw new IllegalArgumentException("Parameter attachmentId is required and cannot be null.");
+            }
+            if (viewId == null) {
+                throw new IllegalArgumentException("Parameter viewId is required and cannot be null.");
+            }
+            return Observable.defer(new Func0<Observable<InputStream>>() {
+                @Override
+                public Observable<InputStream> call() {
+                    try {
+                        return Observable.just(getCachedAttachment(cache, attachmentId, viewId));
+                    } catch (Throwable t) {
+                        return Observable.error(t);
+                    }
+                }
+            });
+        }
         return getAttachmentWithServiceResponseAsync(attachmentId, viewId).map(new Func1<ServiceResponse<InputStream>, InputStream>() {
             @Override
             public InputStream call(ServiceResponse<InputStream> response) {
@@ -230,4 +331,250 @@ public class AttachmentsImpl implements Attachments {
                 .build(response);
     }
 
+    /**
+     * GetAttachmentTo.
+     * Stream the named view into a channel, without holding it in memory.
+     *
+     * @param attachmentId attachment id
+     * @param viewId View id from attachmentInfo
+     * @param target the channel to write the content to; it is not closed
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws IOException thrown if the content cannot be read or written to the channel
+     * @return the number of bytes written.
+     */
+    public long getAttachmentTo(String attachmentId, String viewId, WritableByteChannel target) throws IOException {
+        return getAttachmentTo(attachmentId, viewId, 0, target);
+    }
+
+    /**
+     * GetAttachmentTo.
+     * Stream the named view into a channel from an offset, without holding it in memory.
+     *
+     * @param attachmentId attachment id
+     * @param viewId View id from attachmentInfo
+     * @param offset the number of bytes at the start of the view to leave out
+     * @param target the channel to write the content to; it is not closed
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws IOException thrown if the content cannot be read or written to the channel, or a partial response does not start at the offset
+     * @return the number of bytes written, 0 when the offset is at or past the end of the view.
+     */
+    public long getAttachmentTo(String attachmentId, String viewId, long offset, WritableByteChannel target) throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Parameter offset cannot be negative.");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Parameter target is required and cannot be null.");
+        }
+        Response<ResponseBody> response = getAttachmentView(attachmentId, viewId, offset);
+        if (response.code() == 416) {
+            response.errorBody().close();
+            return 0;
+        }
+        try (ResponseBody body = response.body()) {
+            BufferedSource source = body.source();
+            if (response.code() == 206) {
+                checkContentRange(response, offset);
+            } else if (!skip(source, offset)) {
+                // The server sent the whole view, and it ends before the offset.
+                return 0;
+            }
+            return copy(source, target);
+        }
+    }
+
+    /**
+     * GetAttachmentTo.
+     * Download the named view to a file, resuming after the last byte of an existing file.
+     *
+     * @param attachmentId attachment id
+     * @param viewId View id from attachmentInfo
+     * @param file the file to write the content to
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws IOException thrown if the content cannot be read or written to the file, or a partial response does not start at the end of the file
+     * @return the length of the file.
+     */
+    public long getAttachmentTo(String attachmentId, String viewId, java.nio.file.Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Parameter file is required and cannot be null.");
+        }
+        long offset = Files.exists(file) ? Files.size(file) : 0;
+        Response<ResponseBody> response = getAttachmentView(attachmentId, viewId, offset);
+        if (response.code() == 416) {
+            response.errorBody().close();
+            if (offset == rangeTotal(response.headers().get("Content-Range"))) {
+                // The file is already complete.
+                return offset;
+            }
+            // The file is longer than the view, so it is not a part of it.
+            offset = 0;
+            response = getAttachmentView(attachmentId, viewId, offset);
+        }
+        try (ResponseBody body = response.body()) {
+            boolean resume = response.code() == 206;
+            if (resume) {
+                checkContentRange(response, offset);
+            }
+            try (FileChannel channel = resume
+                    ? FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                    : FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long written = copy(body.source(), channel);
+                return resume ? offset + written : written;
+            }
+        }
+    }
+
+    /**
+     * Requests the named view from an offset, and returns the response for a 200, 206 or 416
+     * status; a 416 only when a range was asked for.
+     */
+    private Response<ResponseBody> getAttachmentView(String attachmentId, String viewId, long offset) throws ErrorResponseException, IOException {
+        if (attachmentId == null) {
+            throw new IllegalArgumentException("Parameter attachmentId is required and cannot be null.");
+        }
+        if (viewId == null) {
+            throw new IllegalArgumentException("Parameter viewId is required and cannot be null.");
+        }
+        String range = offset > 0 ? "bytes=" + offset + "-" : null;
+        // A Call rather than an Observable, which cancels the call, and so closes the body, once it has emitted the response.
+        Response<ResponseBody> response = service.getAttachmentRange(attachmentId, viewId, range, this.client.acceptLanguage(), this.client.userAgent())
+            .execute();
+        int code = response.code();
+        if (code == 200 || code == 206 || (code == 416 && range != null)) {
+            return response;
+        }
+        throw errorResponse(response, attachmentId);
+    }
+
+    /**
+     * Serves the named view from the cache, revalidating it once it is older than the cache's
+     * max age, and stores it when it is downloaded.
+     */
+    private InputStream getCachedAttachment(AttachmentCache cache, String attachmentId, String viewId) throws ErrorResponseException, IOException {
+        AttachmentCache.CachedView cached = cache.getView(attachmentId, viewId);
+        if (cached != null && cached.fresh) {
+            InputStream content = cache.open(cached);
+            if (content != null) {
+                return content;
+            }
+            cached = null;
+        }
+        boolean conditional = cached != null && cached.revalidatable();
+        Response<ResponseBody> response = service.getAttachmentIfChanged(attachmentId, viewId,
+                conditional ? cached.etag() : null, conditional ? cached.lastModified() : null,
+                this.client.acceptLanguage(), this.client.userAgent()).execute();
+        if (conditional && response.code() == 304) {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+            cache.revalidated(cached);
+            InputStream content = cache.open(cached);
+            if (content != null) {
+                return content;
+            }
+            // The content was evicted after the view was looked up.
+            response = service.getAttachmentIfChanged(attachmentId, viewId, null, null, this.client.acceptLanguage(), this.client.userAgent()).execute();
+        }
+        if (response.code() != 200) {
+            throw errorResponse(response, attachmentId);
+        }
+        try (ResponseBody body = response.body()) {
+            return cache.store(attachmentId, viewId, response.headers().get("ETag"), response.headers().get("Last-Modified"),
+                    body.source(), body.contentLength());
+        }
+    }
+
+    /**
+     * The ErrorResponseException for a response the streaming operations do not handle, as
+     * getAttachment raises it.
+     */
+    private ErrorResponseException errorResponse(Response<ResponseBody> response, String attachmentId) throws ErrorResponseException, IOException {
+        try {
+            getAttachmentDelegate(response);
+        } finally {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+        }
+        return new ErrorResponseException("Unexpected status code " + response.code() + " for attachment " + attachmentId, response);
+    }
+
+    /**
+     * Copies a source to a channel through one bounded buffer, so the content is never held
+     * in memory as a whole.
+     */
+    private static long copy(BufferedSource source, WritableByteChannel target) throws IOException {
+        byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = source.read(chunk, 0, chunk.length)) != -1) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Skips the bytes of a source before an offset.
+     *
+     * @return false if the source ended first.
+     */
+    private static boolean skip(BufferedSource source, long offset) throws IOException {
+        long remaining = offset;
+        while (remaining > 0) {
+            if (!source.request(1)) {
+                return false;
+            }
+            long skipped = Math.min(remaining, source.buffer().size());
+            source.skip(skipped);
+            remaining -= skipped;
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a 206 response starts at the offset that was asked for.
+     */
+    private static void checkContentRange(Response<ResponseBody> response, long offset) throws IOException {
+        String contentRange = response.headers().get("Content-Range");
+        if (rangeStart(contentRange) != offset) {
+            throw new IOException("Unexpected Content-Range: " + contentRange);
+        }
+    }
+
+    /**
+     * The first byte of a "bytes first-last/total" Content-Range, or -1.
+     */
+    private static long rangeStart(String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return -1;
+        }
+        int dash = contentRange.indexOf('-');
+        try {
+            return dash < 0 ? -1 : Long.parseLong(contentRange.substring(6, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The total length after the slash of a Content-Range, or -1.
+     */
+    private static long rangeTotal(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        try {
+            return slash < 0 ? -1 : Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
 }
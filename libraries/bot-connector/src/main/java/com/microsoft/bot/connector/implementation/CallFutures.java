@@ -0,0 +1,89 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.implementation;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs Retrofit calls on OkHttp's dispatcher and completes a CompletableFuture with the parsed
+ * response. The response is parsed on the thread that received it; cancelling the future cancels
+ * the call. Synchronous operations run their calls on the calling thread through {@link #execute}.
+ */
+final class CallFutures {
+    private CallFutures() {
+    }
+
+    /**
+     * Turns the raw response of a call into the body of an operation, or throws the error the
+     * operation reports.
+     */
+    interface Parser<T> {
+        T parse(Response<ResponseBody> response) throws Exception;
+    }
+
+    /**
+     * Enqueues a call.
+     *
+     * @return a future completed with the parsed response, or with the exception the call or
+     * the parser failed with
+     */
+    static <T> CompletableFuture<T> enqueue(Call<ResponseBody> call, final Parser<T> parser) {
+        final CallFuture<T> future = new CallFuture<>(call);
+        call.enqueue(new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                try {
+                    future.complete(parser.parse(response));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executes a call on the calling thread.
+     *
+     * @return the parsed response
+     * @throws RuntimeException the exception the parser failed with, or the checked exception the
+     * call or the parser failed with wrapped
+     */
+    static <T> T execute(Call<ResponseBody> call, Parser<T> parser) {
+        try {
+            return parser.parse(call.execute());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class CallFuture<T> extends CompletableFuture<T> {
+        private final Call<ResponseBody> call;
+
+        CallFuture(Call<ResponseBody> call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                this.call.cancel();
+            }
+            return cancelled;
+        }
+    }
+}
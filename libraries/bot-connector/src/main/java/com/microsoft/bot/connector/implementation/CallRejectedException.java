@@ -0,0 +1,57 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.implementation;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a {@link CircuitBreakerInterceptor} does not send a call: the circuit of its service
+ * URL is open, or the service URL already has as many calls in flight as it may have.
+ */
+public class CallRejectedException extends IOException {
+    /**
+     * Why a call was not sent.
+     */
+    public enum Reason {
+        /** The service URL failed too often and is not called until the circuit closes. */
+        CIRCUIT_OPEN,
+        /** The service URL has as many calls in flight as it may have. */
+        BULKHEAD_FULL
+    }
+
+    private final String serviceUrl;
+    private final Reason reason;
+
+    /**
+     * Initializes an instance of CallRejectedException.
+     *
+     * @param serviceUrl the service URL the call was to
+     * @param reason why the call was not sent
+     */
+    public CallRejectedException(String serviceUrl, Reason reason) {
+        super(String.format((reason == Reason.CIRCUIT_OPEN)
+                ? "The circuit for %s is open; the call was not sent."
+                : "Too many calls to %s are in flight; the call was not sent.", serviceUrl));
+        this.serviceUrl = serviceUrl;
+        this.reason = reason;
+    }
+
+    /**
+     * Gets the service URL the call was to.
+     *
+     * @return the serviceUrl value.
+     */
+    public String serviceUrl() {
+        return this.serviceUrl;
+    }
+
+    /**
+     * Gets why the call was not sent.
+     *
+     * @return the reason value.
+     */
+    public Reason reason() {
+        return this.reason;
+    }
+}
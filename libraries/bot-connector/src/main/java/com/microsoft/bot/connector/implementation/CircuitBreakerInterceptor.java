@@ -0,0 +1,529 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.implementation;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Isolates the service URLs a bot calls from each other, so one slow or failing channel cannot
+ * tie up the threads every other channel needs.
+ * <p>
+ * Each service URL (scheme, host and port) has a bulkhead: at most the max concurrent calls are
+ * in flight to it at once. A call that finds the bulkhead full waits up to the max wait for a
+ * call to finish, and is otherwise rejected.
+ * <p>
+ * Each service URL also has a circuit breaker. A call fails when it cannot be completed, when the
+ * service answers 408, 500, 502, 503 or 504, or when it takes longer than the slow call threshold.
+ * After the failure threshold of consecutive failures the circuit opens, and calls to the service
+ * URL are rejected without being sent. When the circuit has been open for the open duration, a
+ * single trial call is sent: if it succeeds the circuit closes, otherwise it opens again.
+ * <p>
+ * A rejected call throws a {@link CallRejectedException}, unless a {@link Fallback} answers it.
+ * {@link #metrics()} reports the state of each service URL.
+ * <p>
+ * State is kept per interceptor, so share one interceptor between all the clients that call the
+ * same service URLs:
+ * <pre>
+ * CircuitBreakerInterceptor circuitBreaker = new CircuitBreakerInterceptor().withMaxConcurrentCalls(16);
+ * ConnectorClientImpl connector = new ConnectorClientImpl(serviceUrl, credentials, circuitBreaker);
+ * </pre>
+ * Such a client installs the interceptor inside its {@link RetryInterceptor}: each attempt of a
+ * call takes a place in the bulkhead, and none is held while waiting to retry.
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreakerInterceptor.class.getName());
+
+    /**
+     * The state of the circuit of a service URL.
+     */
+    public enum State {
+        /** Calls are sent. */
+        CLOSED,
+        /** Calls are rejected. */
+        OPEN,
+        /** A trial call is sent to find out whether the service URL has recovered; others are rejected. */
+        HALF_OPEN
+    }
+
+    /**
+     * Answers the calls the interceptor rejects, for example with a response the caller handles.
+     */
+    public interface Fallback {
+        /**
+         * Answers a rejected call.
+         *
+         * @param request the request that was not sent
+         * @param rejection why it was not sent
+         * @return the response to return for the call, or null to throw the rejection
+         * @throws IOException to fail the call
+         */
+        Response onRejected(Request request, CallRejectedException rejection) throws IOException;
+    }
+
+    private volatile int maxConcurrentCalls = 64;
+    private volatile long maxWaitNanos = 0;
+    private volatile int failureThreshold = 5;
+    private volatile long openNanos = TimeUnit.SECONDS.toNanos(30);
+    private volatile long slowCallNanos = 0;
+    private volatile Fallback fallback;
+
+    /** The circuits, by service URL. */
+    private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+
+    /**
+     * Gets the most calls in flight to a service URL at once. Default is 64.
+     *
+     * @return the maxConcurrentCalls value.
+     */
+    public int maxConcurrentCalls() {
+        return this.maxConcurrentCalls;
+    }
+
+    /**
+     * Sets the most calls in flight to a service URL at once. Service URLs already called keep
+     * their limit.
+     *
+     * @param maxConcurrentCalls the maxConcurrentCalls value.
+     * @return the interceptor itself
+     */
+    public CircuitBreakerInterceptor withMaxConcurrentCalls(int maxConcurrentCalls) {
+        if (maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException("Parameter maxConcurrentCalls must be positive.");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        return this;
+    }
+
+    /**
+     * Gets how long a call waits for a full bulkhead before it is rejected. Default is 0.
+     *
+     * @param unit the unit to return the wait in
+     * @return the maxWait value.
+     */
+    public long maxWait(TimeUnit unit) {
+        return unit.convert(this.maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets how long a call waits for a full bulkhead before it is rejected.
+     *
+     * @param maxWait the maxWait value; 0 to reject at once.
+     * @param unit the unit of the wait
+     * @return the interceptor itself
+     */
+    public CircuitBreakerInterceptor withMaxWait(long maxWait, TimeUnit unit) {
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("Parameter maxWait cannot be negative.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Parameter unit is required and cannot be null.");
+        }
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        return this;
+    }
+
+    /**
+     * Gets the consecutive failures that open the circuit of a service URL. Default is 5.
+     *
+     * @return the failureThreshold value.
+     */
+    public int failureThreshold() {
+        return this.failureThreshold;
+    }
+
+    /**
+     * Sets the consecutive failures that open the circuit of a service URL.
+     *
+     * @param failureThreshold the failureThreshold value.
+     * @return the interceptor itself
+     */
+    public CircuitBreakerInterceptor withFailureThreshold(int failureThreshold) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Parameter failureThreshold must be positive.");
+        }
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    /**
+     * Gets how long a circuit stays open before a trial call is sent. Default is 30 seconds.
+     *
+     * @param unit the unit to return the duration in
+     * @return the openDuration value.
+     */
+    public long openDuration(TimeUnit unit) {
+        return unit.convert(this.openNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets how long a circuit stays open before a trial call is sent.
+     *
+     * @param openDuration the openDuration value.
+     * @param unit the unit of the duration
+     * @return the interceptor itself
+     */
+    public CircuitBreakerInterceptor withOpenDuration(long openDuration, TimeUnit unit) {
+        if (openDuration < 0) {
+            throw new IllegalArgumentException("Parameter openDuration cannot be negative.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Parameter unit is required and cannot be null.");
+        }
+        this.openNanos = unit.toNanos(openDuration);
+        return this;
+    }
+
+    /**
+     * Gets how long a call may take before it counts as a failure. Default is 0, for no limit.
+     *
+     * @param unit the unit to return the threshold in
+     * @return the slowCallThreshold value.
+     */
+    public long slowCallThreshold(TimeUnit unit) {
+        return unit.convert(this.slowCallNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets how long a call may take before it counts as a failure. The response of a slow call is
+     * still returned.
+     *
+     * @param slowCallThreshold the slowCallThreshold value; 0 for no limit.
+     * @param unit the unit of the threshold
+     * @return the interceptor itself
+     */
+    public CircuitBreakerInterceptor withSlowCallThreshold(long slowCallThreshold, TimeUnit unit) {
+        if (slowCallThreshold < 0) {
+            throw new IllegalArgumentException("Parameter slowCallThreshold cannot be negative.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Parameter unit is required and cannot be null.");
+        }
+        this.slowCallNanos = unit.toNanos(slowCallThreshold);
+        return this;
+    }
+
+    /**
+     * Gets the fallback answering rejected calls, or null.
+     *
+     * @return the fallback value.
+     */
+    public Fallback fallback() {
+        return this.fallback;
+    }
+
+    /**
+     * Sets the fallback answering rejected calls.
+     *
+     * @param fallback the fallback value, or null to throw a {@link CallRejectedException}.
+     * @return the interceptor itself
+     */
+    public CircuitBreakerInterceptor withFallback(Fallback fallback) {
+        this.fallback = fallback;
+        return this;
+    }
+
+    /**
+     * Gets the state of the circuit of a service URL.
+     *
+     * @param serviceUrl the service URL
+     * @return the state; CLOSED for a service URL that was not called.
+     */
+    public State state(String serviceUrl) {
+        CircuitMetrics metrics = metrics(serviceUrl);
+        return (metrics != null) ? metrics.state() : State.CLOSED;
+    }
+
+    /**
+     * Gets the metrics of a service URL.
+     *
+     * @param serviceUrl the service URL
+     * @return the metrics, or null for a service URL that was not called.
+     */
+    public CircuitMetrics metrics(String serviceUrl) {
+        if (serviceUrl == null) {
+            throw new IllegalArgumentException("Parameter serviceUrl is required and cannot be null.");
+        }
+        HttpUrl url = HttpUrl.parse(serviceUrl);
+        if (url == null) {
+            throw new IllegalArgumentException("Parameter serviceUrl is not an http or https URL.");
+        }
+        Circuit circuit = this.circuits.get(key(url));
+        return (circuit != null) ? circuit.metrics() : null;
+    }
+
+    /**
+     * Gets the metrics of each service URL that was called.
+     *
+     * @return the metrics.
+     */
+    public List<CircuitMetrics> metrics() {
+        List<CircuitMetrics> metrics = new ArrayList<CircuitMetrics>();
+        for (Circuit circuit : this.circuits.values()) {
+            metrics.add(circuit.metrics());
+        }
+        return metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Circuit circuit = circuit(request.url());
+
+        boolean trial;
+        synchronized (circuit) {
+            if (!circuit.admit(this.openNanos)) {
+                return reject(request, circuit, CallRejectedException.Reason.CIRCUIT_OPEN);
+            }
+            trial = circuit.trialInFlight;
+        }
+        boolean entered;
+        try {
+            entered = (this.maxWaitNanos > 0)
+                    ? circuit.permits.tryAcquire(this.maxWaitNanos, TimeUnit.NANOSECONDS)
+                    : circuit.permits.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entered = false;
+        }
+        if (!entered) {
+            if (trial) {
+                synchronized (circuit) {
+                    circuit.trialInFlight = false;
+                }
+            }
+            return reject(request, circuit, CallRejectedException.Reason.BULKHEAD_FULL);
+        }
+
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Response response = chain.proceed(request);
+            succeeded = !isFailure(response.code()) && !isSlow(start);
+            return response;
+        } finally {
+            circuit.permits.release();
+            synchronized (circuit) {
+                circuit.record(succeeded, trial, this.failureThreshold);
+            }
+        }
+    }
+
+    private boolean isSlow(long start) {
+        long threshold = this.slowCallNanos;
+        return threshold > 0 && System.nanoTime() - start > threshold;
+    }
+
+    private static boolean isFailure(int code) {
+        return code == 408 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    private Response reject(Request request, Circuit circuit, CallRejectedException.Reason reason) throws IOException {
+        synchronized (circuit) {
+            circuit.rejected++;
+        }
+        CallRejectedException rejection = new CallRejectedException(circuit.serviceUrl, reason);
+        Fallback fallback = this.fallback;
+        if (fallback != null) {
+            Response response = fallback.onRejected(request, rejection);
+            if (response != null) {
+                return response;
+            }
+        }
+        throw rejection;
+    }
+
+    private Circuit circuit(HttpUrl url) {
+        String key = key(url);
+        Circuit circuit = this.circuits.get(key);
+        if (circuit == null) {
+            Circuit created = new Circuit(key, this.maxConcurrentCalls);
+            circuit = this.circuits.putIfAbsent(key, created);
+            if (circuit == null) {
+                circuit = created;
+            }
+        }
+        return circuit;
+    }
+
+    private static String key(HttpUrl url) {
+        return url.scheme() + "://" + url.host() + ":" + url.port();
+    }
+
+    /**
+     * The bulkhead and circuit of a service URL. The state and counters are guarded by the circuit.
+     */
+    private static final class Circuit {
+        final String serviceUrl;
+        final int maxConcurrentCalls;
+        final Semaphore permits;
+        State state = State.CLOSED;
+        int consecutiveFailures;
+        long openedAt;
+        boolean trialInFlight;
+        long succeeded;
+        long failed;
+        long rejected;
+
+        Circuit(String serviceUrl, int maxConcurrentCalls) {
+            this.serviceUrl = serviceUrl;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.permits = new Semaphore(maxConcurrentCalls);
+        }
+
+        /**
+         * Whether a call may be sent. In a half open circuit, the call admitted is the trial.
+         */
+        boolean admit(long openNanos) {
+            switch (this.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - this.openedAt < openNanos) {
+                        return false;
+                    }
+                    this.state = State.HALF_OPEN;
+                    this.trialInFlight = true;
+                    return true;
+                default:
+                    if (this.trialInFlight) {
+                        return false;
+                    }
+                    this.trialInFlight = true;
+                    return true;
+            }
+        }
+
+        void record(boolean succeeded, boolean trial, int failureThreshold) {
+            if (succeeded) {
+                this.succeeded++;
+                this.consecutiveFailures = 0;
+                if (trial && this.state == State.HALF_OPEN) {
+                    this.state = State.CLOSED;
+                    this.trialInFlight = false;
+                    LOGGER.info(String.format("The circuit for %s is closed.", this.serviceUrl));
+                }
+                return;
+            }
+            this.failed++;
+            this.consecutiveFailures++;
+            if ((trial && this.state == State.HALF_OPEN)
+                    || (this.state == State.CLOSED && this.consecutiveFailures >= failureThreshold)) {
+                this.state = State.OPEN;
+                this.openedAt = System.nanoTime();
+                this.trialInFlight = false;
+                LOGGER.warning(String.format("The circuit for %s is open after %d consecutive failures.",
+                        this.serviceUrl, this.consecutiveFailures));
+            }
+        }
+
+        synchronized CircuitMetrics metrics() {
+            return new CircuitMetrics(this.serviceUrl, this.state, this.maxConcurrentCalls - this.permits.availablePermits(),
+                    this.consecutiveFailures, this.succeeded, this.failed, this.rejected);
+        }
+    }
+
+    /**
+     * The state and call counts of a service URL at one moment.
+     */
+    public static final class CircuitMetrics {
+        private final String serviceUrl;
+        private final State state;
+        private final int activeCalls;
+        private final int consecutiveFailures;
+        private final long succeededCalls;
+        private final long failedCalls;
+        private final long rejectedCalls;
+
+        CircuitMetrics(String serviceUrl, State state, int activeCalls, int consecutiveFailures,
+                       long succeededCalls, long failedCalls, long rejectedCalls) {
+            this.serviceUrl = serviceUrl;
+            this.state = state;
+            this.activeCalls = activeCalls;
+            this.consecutiveFailures = consecutiveFailures;
+            this.succeededCalls = succeededCalls;
+            this.failedCalls = failedCalls;
+            this.rejectedCalls = rejectedCalls;
+        }
+
+        /**
+         * Gets the service URL: its scheme, host and port.
+         *
+         * @return the serviceUrl value.
+         */
+        public String serviceUrl() {
+            return this.serviceUrl;
+        }
+
+        /**
+         * Gets the state of the circuit.
+         *
+         * @return the state value.
+         */
+        public State state() {
+            return this.state;
+        }
+
+        /**
+         * Gets the calls in flight.
+         *
+         * @return the activeCalls value.
+         */
+        public int activeCalls() {
+            return this.activeCalls;
+        }
+
+        /**
+         * Gets the failures since the last success.
+         *
+         * @return the consecutiveFailures value.
+         */
+        public int consecutiveFailures() {
+            return this.consecutiveFailures;
+        }
+
+        /**
+         * Gets the calls that succeeded.
+         *
+         * @return the succeededCalls value.
+         */
+        public long succeededCalls() {
+            return this.succeededCalls;
+        }
+
+        /**
+         * Gets the calls that failed.
+         *
+         * @return the failedCalls value.
+         */
+        public long failedCalls() {
+            return this.failedCalls;
+        }
+
+        /**
+         * Gets the calls that were rejected without being sent.
+         *
+         * @return the rejectedCalls value.
+         */
+        public long rejectedCalls() {
+            return this.rejectedCalls;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s: %d active, %d succeeded, %d failed, %d rejected",
+                    this.serviceUrl, this.state, this.activeCalls, this.succeededCalls, this.failedCalls, this.rejectedCalls);
+        }
+    }
+}
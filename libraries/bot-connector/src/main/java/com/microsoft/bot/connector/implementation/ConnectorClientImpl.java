@@ -8,13 +8,21 @@
 package com.microsoft.bot.connector.implementation;
 
 import com.microsoft.azure.AzureClient;
+import com.microsoft.azure.AzureResponseBuilder;
 import com.microsoft.azure.AzureServiceClient;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import com.microsoft.bot.connector.Attachments;
 import com.microsoft.bot.connector.ConnectorClient;
 import com.microsoft.bot.connector.Conversations;
 import com.microsoft.rest.credentials.ServiceClientCredentials;
 import com.microsoft.rest.RestClient;
+import com.microsoft.rest.retry.RetryHandler;
 import com.microsoft.rest.retry.RetryStrategy;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -62,18 +70,46 @@ public class ConnectorClientImpl extends AzureServiceClient implements Connector
     }
 
     /**
-     * RetryStrategy as defined in Microsoft Rest Retry
-     * TODO: Use this.
+     * RetryStrategy as defined in Microsoft Rest Retry. The {@link RetryInterceptor} of the client
+     * asks it which responses to retry.
      */
     private RetryStrategy retryStrategy = null;
     public ConnectorClientImpl withRestRetryStrategy(RetryStrategy retryStrategy) {
         this.retryStrategy = retryStrategy;
+        if (this.retryInterceptor != null) {
+            this.retryInterceptor.withRetryStrategy(retryStrategy);
+        }
         return this;
     }
     public RetryStrategy restRetryStrategy() {
         return this.retryStrategy;
     }
 
+    /** The interceptor retrying failed calls, or null. */
+    private RetryInterceptor retryInterceptor;
+
+    /**
+     * Gets the interceptor retrying failed calls. A client built from a base URL has one; a client
+     * built from a RestClient has one if the RestClient was built with it.
+     *
+     * @return the retryInterceptor value, or null.
+     */
+    public RetryInterceptor retryInterceptor() {
+        return this.retryInterceptor;
+    }
+
+    /** The circuit breaker and bulkhead of the service URLs, or null. */
+    private CircuitBreakerInterceptor circuitBreaker;
+
+    /**
+     * Gets the circuit breaker and bulkhead the calls of the client go through.
+     *
+     * @return the circuitBreaker value, or null.
+     */
+    public CircuitBreakerInterceptor circuitBreaker() {
+        return this.circuitBreaker;
+    }
+
     /** Gets or sets the retry timeout in seconds for Long Running Operations. Default value is 30. */
     private int longRunningOperationRetryTimeout;
 
@@ -120,6 +156,31 @@ public class ConnectorClientImpl extends AzureServiceClient implements Connector
         return this;
     }
 
+    /** The cache of attachment content, attachment info and uploads, or null. Default is null. */
+    private AttachmentCache attachmentCache;
+
+    /**
+     * Gets the cache of attachment content, attachment info and uploads, or null. Default is null.
+     *
+     * @return the attachmentCache value.
+     */
+    public AttachmentCache attachmentCache() {
+        return this.attachmentCache;
+    }
+
+    /**
+     * Sets the cache of attachment content, attachment info and uploads. With a cache, the
+     * operations returning the attachment, attachment info or upload response are served from it
+     * when they can; the operations returning the ServiceResponse always call the service.
+     *
+     * @param attachmentCache the attachmentCache value, or null for none.
+     * @return the service client itself
+     */
+    public ConnectorClientImpl withAttachmentCache(AttachmentCache attachmentCache) {
+        this.attachmentCache = attachmentCache;
+        return this;
+    }
+
     /**
      * The Attachments object to access its operations.
      */
@@ -160,11 +221,91 @@ public class ConnectorClientImpl extends AzureServiceClient implements Connector
      * Initializes an instance of ConnectorClient client.
      *
      * @param baseUrl the base URL of the host
-     * @param credentials the management credentials for Azure
+     * @param credentials the management credentials for Azure, or null for none
      */
     public ConnectorClientImpl(String baseUrl, ServiceClientCredentials credentials) {
-        super(baseUrl, credentials);
-        initialize();
+        this(buildRestClient(baseUrl, credentials, null));
+    }
+
+    /**
+     * Initializes an instance of ConnectorClient client whose calls go through a circuit breaker.
+     *
+     * @param baseUrl the base URL of the host
+     * @param credentials the management credentials for Azure, or null for none
+     * @param circuitBreaker the circuit breaker and bulkhead of the service URLs, shared with other clients
+     */
+    public ConnectorClientImpl(String baseUrl, ServiceClientCredentials credentials, CircuitBreakerInterceptor circuitBreaker) {
+        this(buildRestClient(baseUrl, credentials, circuitBreaker));
+    }
+
+    /**
+     * Builds the REST client of a client built from a base URL: that of an {@link AzureServiceClient},
+     * with a {@link RetryInterceptor} in place of the immediate retries of the runtime. The circuit
+     * breaker comes inside the retries, so each attempt takes its own place in the bulkhead and
+     * gives it back before the wait for the next one.
+     */
+    private static RestClient buildRestClient(String baseUrl, ServiceClientCredentials credentials, CircuitBreakerInterceptor circuitBreaker) {
+        RestClient.Builder builder = new RestClient.Builder()
+                .withBaseUrl(baseUrl)
+                .withSerializerAdapter(new AzureJacksonAdapter())
+                .withResponseBuilderFactory(new AzureResponseBuilder.Factory());
+        builder.withInterceptor(new RetryInterceptor());
+        if (circuitBreaker != null) {
+            builder.withInterceptor(circuitBreaker);
+        }
+        if (credentials != null) {
+            builder.withCredentials(credentials);
+        }
+        return builder.build();
+    }
+
+    /** The HTTP client and Retrofit the operations of the client use. */
+    private OkHttpClient httpClient;
+    private Retrofit retrofit;
+
+    @Override
+    public OkHttpClient httpClient() {
+        return this.httpClient;
+    }
+
+    @Override
+    public Retrofit retrofit() {
+        return this.retrofit;
+    }
+
+    /**
+     * Leaves the runtime's retry handler out of the calls when a {@link RetryInterceptor} does the
+     * retrying. The runtime always installs one after the other interceptors, and
+     * {@link RestClient.Builder#withRetryStrategy} does not set its strategy, so it would otherwise
+     * send 408 and 5xx responses again at once, ignoring their Retry-After. The HTTP client it
+     * returns shares the connection pool and dispatcher of the REST client, which closes them.
+     */
+    private static OkHttpClient withoutRuntimeRetries(OkHttpClient httpClient) {
+        if (httpClient.interceptors().stream().noneMatch(interceptor -> interceptor instanceof RetryInterceptor)) {
+            return httpClient;
+        }
+        OkHttpClient.Builder builder = httpClient.newBuilder();
+        builder.interceptors().removeIf(interceptor -> interceptor instanceof RetryHandler);
+        return builder.build();
+    }
+
+    /**
+     * Builds a Retrofit like the given one whose calls go through another HTTP client.
+     */
+    private static Retrofit withHttpClient(Retrofit retrofit, OkHttpClient httpClient) {
+        Retrofit.Builder builder = new Retrofit.Builder()
+                .baseUrl(retrofit.baseUrl())
+                .client(httpClient);
+        for (Converter.Factory factory : retrofit.converterFactories()) {
+            builder.addConverterFactory(factory);
+        }
+        for (CallAdapter.Factory factory : retrofit.callAdapterFactories()) {
+            builder.addCallAdapterFactory(factory);
+        }
+        if (retrofit.callbackExecutor() != null) {
+            builder.callbackExecutor(retrofit.callbackExecutor());
+        }
+        return builder.build();
     }
 
     /**
@@ -181,9 +322,20 @@ public class ConnectorClientImpl extends AzureServiceClient implements Connector
         this.acceptLanguage = "en-US";
         this.longRunningOperationRetryTimeout = 30;
         this.generateClientRequestId = true;
-        this.attachments = new AttachmentsImpl(restClient().retrofit(), this);
-        this.conversations = new ConversationsImpl(restClient().retrofit(), this);
+        this.httpClient = withoutRuntimeRetries(restClient().httpClient());
+        this.retrofit = this.httpClient == restClient().httpClient()
+                ? restClient().retrofit()
+                : withHttpClient(restClient().retrofit(), this.httpClient);
+        this.attachments = new AttachmentsImpl(this.retrofit, this);
+        this.conversations = new ConversationsImpl(this.retrofit, this);
         this.azureClient = new AzureClient(this);
+        for (Interceptor interceptor : httpClient().interceptors()) {
+            if (interceptor instanceof RetryInterceptor) {
+                this.retryInterceptor = (RetryInterceptor) interceptor;
+            } else if (interceptor instanceof CircuitBreakerInterceptor) {
+                this.circuitBreaker = (CircuitBreakerInterceptor) interceptor;
+            }
+        }
 
 
         // Format according to https://github.com/Microsoft/botbuilder-dotnet/blob/d342cd66d159a023ac435aec0fdf791f93118f5f/doc/UserAgents.md
@@ -25,10 +25,13 @@ import com.microsoft.rest.ServiceFuture;
 import com.microsoft.rest.ServiceResponse;
 import com.microsoft.rest.Validator;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
@@ -39,7 +42,9 @@ import retrofit2.http.Path;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Query;
+import retrofit2.Call;
 import retrofit2.Response;
+import rx.functions.Action0;
 import rx.functions.Func1;
 import rx.Observable;
 
@@ -109,6 +114,50 @@ public class ConversationsImpl implements Conversations {
         @POST("v3/conversations/{conversationId}/attachments")
         Observable<Response<ResponseBody>> uploadAttachment(@Path("conversationId") String conversationId, @Body AttachmentData attachmentUpload, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
 
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations uploadAttachment" })
+        @POST("v3/conversations/{conversationId}/attachments")
+        Observable<Response<ResponseBody>> uploadAttachmentStream(@Path("conversationId") String conversationId, @Body RequestBody attachmentUpload, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations getConversations" })
+        @GET("v3/conversations")
+        Call<ResponseBody> getConversationsCall(@Query("continuationToken") String continuationToken, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations createConversation" })
+        @POST("v3/conversations")
+        Call<ResponseBody> createConversationCall(@Body ConversationParameters parameters, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations sendToConversation" })
+        @POST("v3/conversations/{conversationId}/activities")
+        Call<ResponseBody> sendToConversationCall(@Path("conversationId") String conversationId, @Body Activity activity, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations updateActivity" })
+        @PUT("v3/conversations/{conversationId}/activities/{activityId}")
+        Call<ResponseBody> updateActivityCall(@Path("conversationId") String conversationId, @Path("activityId") String activityId, @Body Activity activity, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations replyToActivity" })
+        @POST("v3/conversations/{conversationId}/activities/{activityId}")
+        Call<ResponseBody> replyToActivityCall(@Path("conversationId") String conversationId, @Path("activityId") String activityId, @Body Activity activity, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations deleteActivity" })
+        @HTTP(path = "v3/conversations/{conversationId}/activities/{activityId}", method = "DELETE", hasBody = true)
+        Call<ResponseBody> deleteActivityCall(@Path("conversationId") String conversationId, @Path("activityId") String activityId, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations getConversationMembers" })
+        @GET("v3/conversations/{conversationId}/members")
+        Call<ResponseBody> getConversationMembersCall(@Path("conversationId") String conversationId, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations deleteConversationMember" })
+        @HTTP(path = "v3/conversations/{conversationId}/members/{memberId}", method = "DELETE", hasBody = true)
+        Call<ResponseBody> deleteConversationMemberCall(@Path("conversationId") String conversationId, @Path("memberId") String memberId, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations getActivityMembers" })
+        @GET("v3/conversations/{conversationId}/activities/{activityId}/members")
+        Call<ResponseBody> getActivityMembersCall(@Path("conversationId") String conversationId, @Path("activityId") String activityId, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
+        @Headers({ "Content-Type: application/json; charset=utf-8", "x-ms-logging-context: com.microsoft.bot.schema.Conversations uploadAttachment" })
+        @POST("v3/conversations/{conversationId}/attachments")
+        Call<ResponseBody> uploadAttachmentCall(@Path("conversationId") String conversationId, @Body AttachmentData attachmentUpload, @Header("accept-language") String acceptLanguage, @Header("User-Agent") String userAgent);
+
     }
 
     public static <T> CompletableFuture<List<T>> completableFutureFromObservable(Observable<T> observable) {
@@ -134,7 +183,8 @@ public class ConversationsImpl implements Conversations {
      * @return the ConversationsResult object if successful.
      */
     public ConversationsResult getConversations() {
-        return getConversationsWithServiceResponseAsync().toBlocking().single().body();
+        return CallFutures.execute(service.getConversationsCall(null, this.client.acceptLanguage(), this.client.userAgent()),
+            response -> getConversationsDelegate(response).body());
     }
 
     /**
@@ -200,6 +250,22 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * GetConversations.
+     * List the Conversations in which this bot has participated.
+     GET from this method with a skip token
+     The return value is a ConversationsResult, which contains an array of ConversationMembers and a skip token.  If the skip token is not empty, then
+     there are further values to be returned. Call this method again with the returned token to get more values.
+     Each ConversationMembers object contains the ID of the conversation and an array of ChannelAccounts that describe the members of the conversation.
+     *
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ConversationsResult object
+     */
+    public CompletableFuture<ConversationsResult> getConversationsFuture() {
+        return CallFutures.enqueue(service.getConversationsCall(null, this.client.acceptLanguage(), this.client.userAgent()),
+            response -> getConversationsDelegate(response).body());
+    }
+
     /**
      * GetConversations.
      * List the Conversations in which this bot has participated.
@@ -215,7 +281,8 @@ public class ConversationsImpl implements Conversations {
      * @return the ConversationsResult object if successful.
      */
     public ConversationsResult getConversations(String continuationToken) {
-        return getConversationsWithServiceResponseAsync(continuationToken).toBlocking().single().body();
+        return CallFutures.execute(service.getConversationsCall(continuationToken, this.client.acceptLanguage(), this.client.userAgent()),
+            response -> getConversationsDelegate(response).body());
     }
 
     /**
@@ -283,6 +350,23 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * GetConversations.
+     * List the Conversations in which this bot has participated.
+     GET from this method with a skip token
+     The return value is a ConversationsResult, which contains an array of ConversationMembers and a skip token.  If the skip token is not empty, then
+     there are further values to be returned. Call this method again with the returned token to get more values.
+     Each ConversationMembers object contains the ID of the conversation and an array of ChannelAccounts that describe the members of the conversation.
+     *
+     * @param continuationToken skip or continuation token
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ConversationsResult object
+     */
+    public CompletableFuture<ConversationsResult> getConversationsFuture(String continuationToken) {
+        return CallFutures.enqueue(service.getConversationsCall(continuationToken, this.client.acceptLanguage(), this.client.userAgent()),
+            response -> getConversationsDelegate(response).body());
+    }
+
     private ServiceResponse<ConversationsResult> getConversationsDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException {
         return this.client.restClient().responseBuilderFactory().<ConversationsResult, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<ConversationsResult>() { }.getType())
@@ -312,7 +396,7 @@ public class ConversationsImpl implements Conversations {
      * @return the ConversationResourceResponse object if successful.
      */
     public ConversationResourceResponse createConversation(ConversationParameters parameters) {
-        return createConversationWithServiceResponseAsync(parameters).toBlocking().single().body();
+        return CallFutures.execute(newCreateConversationCall(parameters), response -> createConversationDelegate(response).body());
     }
 
     /**
@@ -368,8 +452,7 @@ public class ConversationsImpl implements Conversations {
     }
 
     public CompletableFuture<List<ConversationResourceResponse>> CreateConversationAsync(ConversationParameters parameters) {
-        CompletableFuture<List<ConversationResourceResponse>> future_result = completableFutureFromObservable(createConversationAsync(parameters));
-        return future_result;
+        return createConversationFuture(parameters).thenApply(Collections::singletonList);
     }
 
 
@@ -411,6 +494,38 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * CreateConversation.
+     * Create a new Conversation.
+     POST to this method with a
+     * Bot being the bot creating the conversation
+     * IsGroup set to true if this is not a direct message (default is false)
+     * Members array contining the members you want to have be in the conversation.
+     The return value is a ResourceResponse which contains a conversation id which is suitable for use
+     in the message payload and REST API uris.
+     Most channels only support the semantics of bots initiating a direct message conversation.  An example of how to do that would be:
+     ```
+     var resource = await connector.conversations.CreateConversation(new ConversationParameters(){ Bot = bot, members = new ChannelAccount[] { new ChannelAccount("user1") } );
+     await connect.Conversations.SendToConversationAsync(resource.Id, new Activity() ... ) ;
+     ```.
+     *
+     * @param parameters Parameters to create the conversation from
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ConversationResourceResponse object
+     */
+    public CompletableFuture<ConversationResourceResponse> createConversationFuture(ConversationParameters parameters) {
+        return CallFutures.enqueue(newCreateConversationCall(parameters),
+            response -> createConversationDelegate(response).body());
+    }
+
+    private Call<ResponseBody> newCreateConversationCall(ConversationParameters parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("Parameter parameters is required and cannot be null.");
+        }
+        Validator.validate(parameters);
+        return service.createConversationCall(parameters, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<ConversationResourceResponse> createConversationDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<ConversationResourceResponse, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<ConversationResourceResponse>() { }.getType())
@@ -437,7 +552,7 @@ public class ConversationsImpl implements Conversations {
      * @return the ResourceResponse object if successful.
      */
     public ResourceResponse sendToConversation(String conversationId, Activity activity) {
-        return sendToConversationWithServiceResponseAsync(conversationId, activity).toBlocking().single().body();
+        return CallFutures.execute(newSendToConversationCall(conversationId, activity), response -> sendToConversationDelegate(response).body());
     }
 
     /**
@@ -518,6 +633,36 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * SendToConversation.
+     * This method allows you to send an activity to the end of a conversation.
+     This is slightly different from ReplyToActivity().
+     * SendToConverstion(conversationId) - will append the activity to the end of the conversation according to the timestamp or semantics of the channel.
+     * ReplyToActivity(conversationId,ActivityId) - adds the activity as a reply to another activity, if the channel supports it. If the channel does not support nested replies, ReplyToActivity falls back to SendToConversation.
+     Use ReplyToActivity when replying to a specific activity in the conversation.
+     Use SendToConversation in all other cases.
+     *
+     * @param conversationId Conversation ID
+     * @param activity Activity to send
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    public CompletableFuture<ResourceResponse> sendToConversationFuture(String conversationId, Activity activity) {
+        return CallFutures.enqueue(newSendToConversationCall(conversationId, activity),
+            response -> sendToConversationDelegate(response).body());
+    }
+
+    private Call<ResponseBody> newSendToConversationCall(String conversationId, Activity activity) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (activity == null) {
+            throw new IllegalArgumentException("Parameter activity is required and cannot be null.");
+        }
+        Validator.validate(activity);
+        return service.sendToConversationCall(conversationId, activity, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<ResourceResponse> sendToConversationDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<ResourceResponse, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<ResourceResponse>() { }.getType())
@@ -542,7 +687,7 @@ public class ConversationsImpl implements Conversations {
      * @return the ResourceResponse object if successful.
      */
     public ResourceResponse updateActivity(String conversationId, String activityId, Activity activity) {
-        return updateActivityWithServiceResponseAsync(conversationId, activityId, activity).toBlocking().single().body();
+        return CallFutures.execute(newUpdateActivityCall(conversationId, activityId, activity), response -> updateActivityDelegate(response).body());
     }
 
     /**
@@ -620,6 +765,37 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * UpdateActivity.
+     * Edit an existing activity.
+     Some channels allow you to edit an existing activity to reflect the new state of a bot conversation.
+     For example, you can remove buttons after someone has clicked "Approve" button.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId activityId to update
+     * @param activity replacement Activity
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    public CompletableFuture<ResourceResponse> updateActivityFuture(String conversationId, String activityId, Activity activity) {
+        return CallFutures.enqueue(newUpdateActivityCall(conversationId, activityId, activity),
+            response -> updateActivityDelegate(response).body());
+    }
+
+    private Call<ResponseBody> newUpdateActivityCall(String conversationId, String activityId, Activity activity) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (activityId == null) {
+            throw new IllegalArgumentException("Parameter activityId is required and cannot be null.");
+        }
+        if (activity == null) {
+            throw new IllegalArgumentException("Parameter activity is required and cannot be null.");
+        }
+        Validator.validate(activity);
+        return service.updateActivityCall(conversationId, activityId, activity, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<ResourceResponse> updateActivityDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<ResourceResponse, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<ResourceResponse>() { }.getType())
@@ -647,7 +823,7 @@ public class ConversationsImpl implements Conversations {
      * @return the ResourceResponse object if successful.
      */
     public ResourceResponse replyToActivity(String conversationId, String activityId, Activity activity) {
-        return replyToActivityWithServiceResponseAsync(conversationId, activityId, activity).toBlocking().single().body();
+        return CallFutures.execute(newReplyToActivityCall(conversationId, activityId, activity), response -> replyToActivityDelegate(response).body());
     }
 
     /**
@@ -734,6 +910,40 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * ReplyToActivity.
+     * This method allows you to reply to an activity.
+     This is slightly different from SendToConversation().
+     * SendToConverstion(conversationId) - will append the activity to the end of the conversation according to the timestamp or semantics of the channel.
+     * ReplyToActivity(conversationId,ActivityId) - adds the activity as a reply to another activity, if the channel supports it. If the channel does not support nested replies, ReplyToActivity falls back to SendToConversation.
+     Use ReplyToActivity when replying to a specific activity in the conversation.
+     Use SendToConversation in all other cases.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId activityId the reply is to (OPTIONAL)
+     * @param activity Activity to send
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    public CompletableFuture<ResourceResponse> replyToActivityFuture(String conversationId, String activityId, Activity activity) {
+        return CallFutures.enqueue(newReplyToActivityCall(conversationId, activityId, activity),
+            response -> replyToActivityDelegate(response).body());
+    }
+
+    private Call<ResponseBody> newReplyToActivityCall(String conversationId, String activityId, Activity activity) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (activityId == null) {
+            throw new IllegalArgumentException("Parameter activityId is required and cannot be null.");
+        }
+        if (activity == null) {
+            throw new IllegalArgumentException("Parameter activity is required and cannot be null.");
+        }
+        Validator.validate(activity);
+        return service.replyToActivityCall(conversationId, activityId, activity, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<ResourceResponse> replyToActivityDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<ResourceResponse, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<ResourceResponse>() { }.getType())
@@ -755,7 +965,7 @@ public class ConversationsImpl implements Conversations {
      * @throws RuntimeException all other wrapped checked exceptions if the request fails to be sent
      */
     public void deleteActivity(String conversationId, String activityId) {
-        deleteActivityWithServiceResponseAsync(conversationId, activityId).toBlocking().single().body();
+        CallFutures.execute(newDeleteActivityCall(conversationId, activityId), response -> deleteActivityDelegate(response).body());
     }
 
     /**
@@ -823,6 +1033,31 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * DeleteActivity.
+     * Delete an existing activity.
+     Some channels allow you to delete an existing activity, and if successful this method will remove the specified activity.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId activityId to delete
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future completed when the request succeeds
+     */
+    public CompletableFuture<Void> deleteActivityFuture(String conversationId, String activityId) {
+        return CallFutures.enqueue(newDeleteActivityCall(conversationId, activityId),
+            response -> deleteActivityDelegate(response).body());
+    }
+
+    private Call<ResponseBody> newDeleteActivityCall(String conversationId, String activityId) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (activityId == null) {
+            throw new IllegalArgumentException("Parameter activityId is required and cannot be null.");
+        }
+        return service.deleteActivityCall(conversationId, activityId, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<Void> deleteActivityDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<Void, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<Void>() { }.getType())
@@ -843,7 +1078,7 @@ public class ConversationsImpl implements Conversations {
      * @return the List&lt;ChannelAccount&gt; object if successful.
      */
     public List<ChannelAccount> getConversationMembers(String conversationId) {
-        return getConversationMembersWithServiceResponseAsync(conversationId).toBlocking().single().body();
+        return CallFutures.execute(newGetConversationMembersCall(conversationId), response -> getConversationMembersDelegate(response).body());
     }
 
     /**
@@ -905,6 +1140,27 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * GetConversationMembers.
+     * Enumerate the members of a converstion.
+     This REST API takes a ConversationId and returns an array of ChannelAccount objects representing the members of the conversation.
+     *
+     * @param conversationId Conversation ID
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the List&lt;ChannelAccount&gt; object
+     */
+    public CompletableFuture<List<ChannelAccount>> getConversationMembersFuture(String conversationId) {
+        return CallFutures.enqueue(newGetConversationMembersCall(conversationId),
+            response -> getConversationMembersDelegate(response).body());
+    }
+
+    private Call<ResponseBody> newGetConversationMembersCall(String conversationId) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        return service.getConversationMembersCall(conversationId, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<List<ChannelAccount>> getConversationMembersDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<List<ChannelAccount>, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<List<ChannelAccount>>() { }.getType())
@@ -925,7 +1181,7 @@ public class ConversationsImpl implements Conversations {
      * @throws RuntimeException all other wrapped checked exceptions if the request fails to be sent
      */
     public void deleteConversationMember(String conversationId, String memberId) {
-        deleteConversationMemberWithServiceResponseAsync(conversationId, memberId).toBlocking().single().body();
+        CallFutures.execute(newDeleteConversationMemberCall(conversationId, memberId), response -> deleteConversationMemberDelegate(response).body());
     }
 
     /**
@@ -975,8 +1231,18 @@ public class ConversationsImpl implements Conversations {
      * @return CompletableFuture of List < Void ></>
      */
     public CompletableFuture<List<Void>> deleteConversationMemberFuture(String conversationId, String memberId) throws ExecutionException, InterruptedException {
-        CompletableFuture<List<Void>> future_result = completableFutureFromObservable(deleteConversationMemberAsync(conversationId, memberId));
-        return future_result;
+        return CallFutures.enqueue(newDeleteConversationMemberCall(conversationId, memberId),
+            response -> Collections.<Void>singletonList(deleteConversationMemberDelegate(response).body()));
+    }
+
+    private Call<ResponseBody> newDeleteConversationMemberCall(String conversationId, String memberId) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (memberId == null) {
+            throw new IllegalArgumentException("Parameter memberId is required and cannot be null.");
+        }
+        return service.deleteConversationMemberCall(conversationId, memberId, this.client.acceptLanguage(), this.client.userAgent());
     }
     /**
      * DeleteConversationMember.
@@ -1032,7 +1298,7 @@ public class ConversationsImpl implements Conversations {
      * @return the List&lt;ChannelAccount&gt; object if successful.
      */
     public List<ChannelAccount> getActivityMembers(String conversationId, String activityId) {
-        return getActivityMembersWithServiceResponseAsync(conversationId, activityId).toBlocking().single().body();
+        return CallFutures.execute(newGetActivityMembersCall(conversationId, activityId), response -> getActivityMembersDelegate(response).body());
     }
 
     /**
@@ -1100,6 +1366,31 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * GetActivityMembers.
+     * Enumerate the members of an activity.
+     This REST API takes a ConversationId and a ActivityId, returning an array of ChannelAccount objects representing the members of the particular activity in the conversation.
+     *
+     * @param conversationId Conversation ID
+     * @param activityId Activity ID
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the List&lt;ChannelAccount&gt; object
+     */
+    public CompletableFuture<List<ChannelAccount>> getActivityMembersFuture(String conversationId, String activityId) {
+        return CallFutures.enqueue(newGetActivityMembersCall(conversationId, activityId),
+            response -> getActivityMembersDelegate(response).body());
+    }
+
+    private Call<ResponseBody> newGetActivityMembersCall(String conversationId, String activityId) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (activityId == null) {
+            throw new IllegalArgumentException("Parameter activityId is required and cannot be null.");
+        }
+        return service.getActivityMembersCall(conversationId, activityId, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<List<ChannelAccount>> getActivityMembersDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<List<ChannelAccount>, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<List<ChannelAccount>>() { }.getType())
@@ -1121,7 +1412,23 @@ public class ConversationsImpl implements Conversations {
      * @return the ResourceResponse object if successful.
      */
     public ResourceResponse uploadAttachment(String conversationId, AttachmentData attachmentUpload) {
-        return uploadAttachmentWithServiceResponseAsync(conversationId, attachmentUpload).toBlocking().single().body();
+        Call<ResponseBody> call = newUploadAttachmentCall(conversationId, attachmentUpload);
+        final AttachmentCache cache = this.client.attachmentCache();
+        if (cache == null) {
+            return CallFutures.execute(call, response -> uploadAttachmentDelegate(response).body());
+        }
+        final String uploadKey = AttachmentCache.uploadKey(conversationId, attachmentUpload);
+        String attachmentId = cache.getUpload(uploadKey);
+        if (attachmentId != null) {
+            return new ResourceResponse().withId(attachmentId);
+        }
+        return CallFutures.execute(call, response -> {
+            ResourceResponse body = uploadAttachmentDelegate(response).body();
+            if (body != null) {
+                cache.putUpload(uploadKey, body.id());
+            }
+            return body;
+        });
     }
 
     /**
@@ -1137,7 +1444,7 @@ public class ConversationsImpl implements Conversations {
      * @return the {@link ServiceFuture} object
      */
     public ServiceFuture<ResourceResponse> uploadAttachmentAsync(String conversationId, AttachmentData attachmentUpload, final ServiceCallback<ResourceResponse> serviceCallback) {
-        return ServiceFuture.fromResponse(uploadAttachmentWithServiceResponseAsync(conversationId, attachmentUpload), serviceCallback);
+        return ServiceFuture.fromBody(uploadAttachmentAsync(conversationId, attachmentUpload), serviceCallback);
     }
 
     /**
@@ -1152,10 +1459,35 @@ public class ConversationsImpl implements Conversations {
      * @return the observable to the ResourceResponse object
      */
     public Observable<ResourceResponse> uploadAttachmentAsync(String conversationId, AttachmentData attachmentUpload) {
+        final AttachmentCache cache = this.client.attachmentCache();
+        if (cache == null) {
+            return uploadAttachmentWithServiceResponseAsync(conversationId, attachmentUpload).map(new Func1<ServiceResponse<ResourceResponse>, ResourceResponse>() {
+                @Override
+                public ResourceResponse call(ServiceResponse<ResourceResponse> response) {
+                    return response.body();
+                }
+            });
+        }
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (attachmentUpload == null) {
+            throw new IllegalArgumentException("Parameter attachmentUpload is required and cannot be null.");
+        }
+        // The same name, type and content uploaded to the same conversation again gets the same attachment.
+        final String uploadKey = AttachmentCache.uploadKey(conversationId, attachmentUpload);
+        String attachmentId = cache.getUpload(uploadKey);
+        if (attachmentId != null) {
+            return Observable.just(new ResourceResponse().withId(attachmentId));
+        }
         return uploadAttachmentWithServiceResponseAsync(conversationId, attachmentUpload).map(new Func1<ServiceResponse<ResourceResponse>, ResourceResponse>() {
             @Override
             public ResourceResponse call(ServiceResponse<ResourceResponse> response) {
-                return response.body();
+                ResourceResponse body = response.body();
+                if (body != null) {
+                    cache.putUpload(uploadKey, body.id());
+                }
+                return body;
             }
         });
     }
@@ -1193,6 +1525,49 @@ public class ConversationsImpl implements Conversations {
             });
     }
 
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage.
+     This is useful because it allows you to store data in a compliant store when dealing with enterprises.
+     The response is a ResourceResponse which contains an AttachmentId which is suitable for using with the attachments API.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload Attachment data
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the future to the ResourceResponse object
+     */
+    public CompletableFuture<ResourceResponse> uploadAttachmentFuture(String conversationId, AttachmentData attachmentUpload) {
+        Call<ResponseBody> call = newUploadAttachmentCall(conversationId, attachmentUpload);
+        final AttachmentCache cache = this.client.attachmentCache();
+        if (cache == null) {
+            return CallFutures.enqueue(call, response -> uploadAttachmentDelegate(response).body());
+        }
+        final String uploadKey = AttachmentCache.uploadKey(conversationId, attachmentUpload);
+        String attachmentId = cache.getUpload(uploadKey);
+        if (attachmentId != null) {
+            return CompletableFuture.completedFuture(new ResourceResponse().withId(attachmentId));
+        }
+        return CallFutures.enqueue(call,
+            response -> {
+                ResourceResponse body = uploadAttachmentDelegate(response).body();
+                if (body != null) {
+                    cache.putUpload(uploadKey, body.id());
+                }
+                return body;
+            });
+    }
+
+    private Call<ResponseBody> newUploadAttachmentCall(String conversationId, AttachmentData attachmentUpload) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (attachmentUpload == null) {
+            throw new IllegalArgumentException("Parameter attachmentUpload is required and cannot be null.");
+        }
+        Validator.validate(attachmentUpload);
+        return service.uploadAttachmentCall(conversationId, attachmentUpload, this.client.acceptLanguage(), this.client.userAgent());
+    }
+
     private ServiceResponse<ResourceResponse> uploadAttachmentDelegate(Response<ResponseBody> response) throws ErrorResponseException, IOException, IllegalArgumentException {
         return this.client.restClient().responseBuilderFactory().<ResourceResponse, ErrorResponseException>newInstance(this.client.serializerAdapter())
                 .register(200, new TypeToken<ResourceResponse>() { }.getType())
@@ -1202,4 +1577,135 @@ public class ConversationsImpl implements Conversations {
                 .build(response);
     }
 
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content from an InputStream.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the original content, closed once it has been read or the request has ended without sending it
+     * @param originalLength the length of the original content, or -1 when it is not known
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws RuntimeException all other wrapped checked exceptions if the request fails to be sent
+     * @return the ResourceResponse object if successful.
+     */
+    public ResourceResponse uploadAttachment(String conversationId, AttachmentData attachmentUpload, InputStream original, long originalLength) {
+        return uploadAttachmentAsync(conversationId, attachmentUpload, original, originalLength).toBlocking().single();
+    }
+
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content from an InputStream.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the original content, closed once it has been read or the request has ended without sending it
+     * @param originalLength the length of the original content, or -1 when it is not known
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the observable to the ResourceResponse object
+     */
+    public Observable<ResourceResponse> uploadAttachmentAsync(String conversationId, AttachmentData attachmentUpload, InputStream original, long originalLength) {
+        if (original == null) {
+            throw new IllegalArgumentException("Parameter original is required and cannot be null.");
+        }
+        final AttachmentUploadBody body;
+        try {
+            validateStreamedUpload(conversationId, attachmentUpload);
+            if (originalLength < -1) {
+                throw new IllegalArgumentException("Parameter originalLength must be -1 or the length of original.");
+            }
+            body = AttachmentUploadBody.fromStream(attachmentUpload, original, originalLength);
+        } catch (IOException e) {
+            closeQuietly(original, e);
+            return Observable.error(e);
+        } catch (RuntimeException e) {
+            closeQuietly(original, e);
+            throw e;
+        }
+        // The request can end without reading the stream, when it is rejected, canceled or fails to connect.
+        Action0 close = new Action0() {
+            @Override
+            public void call() {
+                body.close();
+            }
+        };
+        return uploadAttachmentStreamAsync(conversationId, body)
+            .doAfterTerminate(close)
+            .doOnUnsubscribe(close);
+    }
+
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content from a file.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the file holding the original content
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @throws ErrorResponseException thrown if the request is rejected by server
+     * @throws RuntimeException all other wrapped checked exceptions if the request fails to be sent
+     * @return the ResourceResponse object if successful.
+     */
+    public ResourceResponse uploadAttachment(String conversationId, AttachmentData attachmentUpload, java.nio.file.Path original) {
+        return uploadAttachmentAsync(conversationId, attachmentUpload, original).toBlocking().single();
+    }
+
+    /**
+     * UploadAttachment.
+     * Upload an attachment directly into a channel's blob storage, streaming its original content from a file.
+     *
+     * @param conversationId Conversation ID
+     * @param attachmentUpload the name, type and thumbnail of the attachment; its originalBase64 must be null
+     * @param original the file holding the original content
+     * @throws IllegalArgumentException thrown if parameters fail the validation
+     * @return the observable to the ResourceResponse object
+     */
+    public Observable<ResourceResponse> uploadAttachmentAsync(String conversationId, AttachmentData attachmentUpload, java.nio.file.Path original) {
+        validateStreamedUpload(conversationId, attachmentUpload);
+        if (original == null) {
+            throw new IllegalArgumentException("Parameter original is required and cannot be null.");
+        }
+        try {
+            return uploadAttachmentStreamAsync(conversationId, AttachmentUploadBody.fromFile(attachmentUpload, original));
+        } catch (IOException e) {
+            return Observable.error(e);
+        }
+    }
+
+    private static void closeQuietly(InputStream stream, Exception failure) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static void validateStreamedUpload(String conversationId, AttachmentData attachmentUpload) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Parameter conversationId is required and cannot be null.");
+        }
+        if (attachmentUpload == null) {
+            throw new IllegalArgumentException("Parameter attachmentUpload is required and cannot be null.");
+        }
+        if (attachmentUpload.originalBase64() != null) {
+            throw new IllegalArgumentException("Parameter attachmentUpload must not have originalBase64 when the original content is streamed.");
+        }
+        Validator.validate(attachmentUpload);
+    }
+
+    private Observable<ResourceResponse> uploadAttachmentStreamAsync(String conversationId, AttachmentUploadBody body) {
+        return service.uploadAttachmentStream(conversationId, body, this.client.acceptLanguage(), this.client.userAgent())
+            .flatMap(new Func1<Response<ResponseBody>, Observable<ResourceResponse>>() {
+                @Override
+                public Observable<ResourceResponse> call(Response<ResponseBody> response) {
+                    try {
+                        return Observable.just(uploadAttachmentDelegate(response).body());
+                    } catch (Throwable t) {
+                        return Observable.error(t);
+                    }
+                }
+            });
+    }
+
 }
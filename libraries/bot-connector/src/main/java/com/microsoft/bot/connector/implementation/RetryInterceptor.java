@@ -0,0 +1,380 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.implementation;
+
+import com.microsoft.rest.retry.RetryStrategy;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Retries connector calls that failed with a transient error, waiting between attempts so a
+ * throttled or recovering channel is not sent more load than it asked for.
+ * <p>
+ * Only idempotent calls (GET, HEAD, PUT, DELETE and OPTIONS) are retried: a POST that failed may
+ * still have sent the activity, so it is never sent twice. A call is retried when it fails to
+ * complete or the service answers 408, 429, 500, 502, 503 or 504. With a {@link RetryStrategy},
+ * the strategy decides which responses other than 429 are retried.
+ * <p>
+ * Before a retry the interceptor waits for the Retry-After the service sent, or else for a random
+ * time up to the base delay doubled for each earlier retry, bounded by the max delay. When the
+ * service asks for a wait longer than the max Retry-After, its response is returned as is.
+ * <p>
+ * Each host has a retry budget of tokens: a failed attempt spends a token and a successful one
+ * earns back a fraction of one. Calls to a host are retried only while more than half of its
+ * tokens are left, so when most calls to a host fail, they fail fast instead of multiplying.
+ * <p>
+ * A {@link ConnectorClientImpl} built from a base URL installs a RetryInterceptor, which
+ * {@link ConnectorClientImpl#retryInterceptor()} returns for configuration. To use one with a
+ * {@link com.microsoft.rest.RestClient} of your own, add it as an interceptor:
+ * <pre>
+ * RestClient restClient = new RestClient.Builder()
+ *     ...
+ *     .withInterceptor(new RetryInterceptor().withMaxRetries(5))
+ *     .build();
+ * </pre>
+ */
+public class RetryInterceptor implements Interceptor {
+    private static final Logger LOGGER = Logger.getLogger(RetryInterceptor.class.getName());
+
+    private volatile int maxRetries = 3;
+    private volatile long baseDelayNanos = TimeUnit.MILLISECONDS.toNanos(500);
+    private volatile long maxDelayNanos = TimeUnit.SECONDS.toNanos(30);
+    private volatile long maxRetryAfterNanos = TimeUnit.MINUTES.toNanos(1);
+    private volatile int budgetTokens = 10;
+    private volatile double budgetRatio = 0.1;
+    private volatile RetryStrategy retryStrategy;
+
+    /** The retry budgets, by host and port. */
+    private final ConcurrentHashMap<String, RetryBudget> budgets = new ConcurrentHashMap<String, RetryBudget>();
+
+    /**
+     * Gets the most times a call is retried. Default is 3.
+     *
+     * @return the maxRetries value.
+     */
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    /**
+     * Sets the most times a call is retried.
+     *
+     * @param maxRetries the maxRetries value; 0 to never retry.
+     * @return the interceptor itself
+     */
+    public RetryInterceptor withMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Parameter maxRetries cannot be negative.");
+        }
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Gets the longest wait before the first retry. Default is 500 milliseconds.
+     *
+     * @param unit the unit to return the delay in
+     * @return the baseDelay value.
+     */
+    public long baseDelay(TimeUnit unit) {
+        return unit.convert(this.baseDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the longest wait before a retry the service did not send a Retry-After for. Default is 30 seconds.
+     *
+     * @param unit the unit to return the delay in
+     * @return the maxDelay value.
+     */
+    public long maxDelay(TimeUnit unit) {
+        return unit.convert(this.maxDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the exponential backoff: the wait before a retry is random, up to the base delay doubled
+     * for each earlier retry and no more than the max delay.
+     *
+     * @param baseDelay the longest wait before the first retry
+     * @param maxDelay the longest wait before any retry
+     * @param unit the unit of the delays
+     * @return the interceptor itself
+     */
+    public RetryInterceptor withBackoff(long baseDelay, long maxDelay, TimeUnit unit) {
+        if (baseDelay < 0) {
+            throw new IllegalArgumentException("Parameter baseDelay cannot be negative.");
+        }
+        if (maxDelay < baseDelay) {
+            throw new IllegalArgumentException("Parameter maxDelay cannot be less than baseDelay.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Parameter unit is required and cannot be null.");
+        }
+        this.baseDelayNanos = unit.toNanos(baseDelay);
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        return this;
+    }
+
+    /**
+     * Gets the longest Retry-After that is waited for before a retry. Default is 1 minute.
+     *
+     * @param unit the unit to return the wait in
+     * @return the maxRetryAfter value.
+     */
+    public long maxRetryAfter(TimeUnit unit) {
+        return unit.convert(this.maxRetryAfterNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the longest Retry-After that is waited for before a retry. A response asking for a longer
+     * wait is returned to the caller.
+     *
+     * @param maxRetryAfter the maxRetryAfter value.
+     * @param unit the unit of the wait
+     * @return the interceptor itself
+     */
+    public RetryInterceptor withMaxRetryAfter(long maxRetryAfter, TimeUnit unit) {
+        if (maxRetryAfter < 0) {
+            throw new IllegalArgumentException("Parameter maxRetryAfter cannot be negative.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Parameter unit is required and cannot be null.");
+        }
+        this.maxRetryAfterNanos = unit.toNanos(maxRetryAfter);
+        return this;
+    }
+
+    /**
+     * Gets the tokens in the retry budget of each host. Default is 10.
+     *
+     * @return the budgetTokens value.
+     */
+    public int budgetTokens() {
+        return this.budgetTokens;
+    }
+
+    /**
+     * Gets the fraction of a token a successful call earns back. Default is 0.1.
+     *
+     * @return the budgetRatio value.
+     */
+    public double budgetRatio() {
+        return this.budgetRatio;
+    }
+
+    /**
+     * Sets the retry budget of each host. Budgets already in use keep their tokens.
+     *
+     * @param budgetTokens the tokens in the budget of each host
+     * @param budgetRatio the fraction of a token a successful call earns back
+     * @return the interceptor itself
+     */
+    public RetryInterceptor withRetryBudget(int budgetTokens, double budgetRatio) {
+        if (budgetTokens < 1) {
+            throw new IllegalArgumentException("Parameter budgetTokens must be positive.");
+        }
+        if (!(budgetRatio >= 0)) {
+            throw new IllegalArgumentException("Parameter budgetRatio cannot be negative.");
+        }
+        this.budgetTokens = budgetTokens;
+        this.budgetRatio = budgetRatio;
+        return this;
+    }
+
+    /**
+     * Gets the strategy deciding which responses other than 429 are retried, or null for the default.
+     *
+     * @return the retryStrategy value.
+     */
+    public RetryStrategy retryStrategy() {
+        return this.retryStrategy;
+    }
+
+    /**
+     * Sets the strategy deciding which responses other than 429 are retried. The strategy is asked
+     * with the number of earlier retries; the waits, the budget and the max retries still apply.
+     *
+     * @param retryStrategy the retryStrategy value, or null for the default.
+     * @return the interceptor itself
+     */
+    public RetryInterceptor withRetryStrategy(RetryStrategy retryStrategy) {
+        this.retryStrategy = retryStrategy;
+        return this;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        boolean idempotent = isIdempotent(request.method());
+        RetryBudget budget = budget(request);
+        for (int retry = 0; ; retry++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (e instanceof CallRejectedException) {
+                    // The call was not sent; a circuit breaker or bulkhead decided it should not be.
+                    throw e;
+                }
+                budget.failed();
+                if (!idempotent || retry >= this.maxRetries || Thread.currentThread().isInterrupted() || !budget.canRetry()) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, String.format("%s %s failed, retrying", request.method(), request.url()), e);
+                sleep(backoff(retry));
+                continue;
+            }
+
+            if (!isTransient(retry, response)) {
+                budget.succeeded();
+                return response;
+            }
+            budget.failed();
+            if (!idempotent || retry >= this.maxRetries || !budget.canRetry()) {
+                return response;
+            }
+            long delay;
+            long retryAfter = retryAfter(response);
+            if (retryAfter < 0) {
+                delay = backoff(retry);
+            } else if (retryAfter <= this.maxRetryAfterNanos) {
+                // Spread the callers the service asked to come back at the same time.
+                delay = retryAfter + random(this.baseDelayNanos);
+            } else {
+                return response;
+            }
+            LOGGER.fine(String.format("%s %s returned %d, retrying in %d ms",
+                    request.method(), request.url(), response.code(), TimeUnit.NANOSECONDS.toMillis(delay)));
+            response.body().close();
+            sleep(delay);
+        }
+    }
+
+    private static boolean isIdempotent(String method) {
+        switch (method) {
+            case "GET":
+            case "HEAD":
+            case "PUT":
+            case "DELETE":
+            case "OPTIONS":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isTransient(int retry, Response response) {
+        int code = response.code();
+        if (code == 429) {
+            return true;
+        }
+        RetryStrategy strategy = this.retryStrategy;
+        if (strategy != null) {
+            return strategy.shouldRetry(retry, response);
+        }
+        return code == 408 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * The wait before a retry: random, up to the base delay doubled for each earlier retry.
+     */
+    private long backoff(int retry) {
+        long ceiling = this.baseDelayNanos;
+        for (int i = 0; i < retry && ceiling < this.maxDelayNanos; i++) {
+            ceiling <<= 1;
+        }
+        return random(Math.min(ceiling, this.maxDelayNanos));
+    }
+
+    private static long random(long bound) {
+        return (bound > 0) ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+    }
+
+    /**
+     * The wait the Retry-After header of a response asks for, in nanoseconds, or -1 when there is
+     * none. The header is either a number of seconds or an HTTP date.
+     */
+    static long retryAfter(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return (seconds < 0) ? -1 : TimeUnit.SECONDS.toNanos(seconds);
+        } catch (NumberFormatException e) {
+            // Not a number of seconds; an HTTP date.
+        }
+        try {
+            long millis = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                    - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static void sleep(long nanos) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting to retry the call.");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+    }
+
+    private RetryBudget budget(Request request) {
+        String host = request.url().host() + ":" + request.url().port();
+        RetryBudget budget = this.budgets.get(host);
+        if (budget == null) {
+            RetryBudget created = new RetryBudget(this.budgetTokens, this.budgetRatio);
+            budget = this.budgets.putIfAbsent(host, created);
+            if (budget == null) {
+                budget = created;
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * The retry budget of a host: failures spend tokens, successes earn back a fraction of one.
+     */
+    private static final class RetryBudget {
+        private final double maxTokens;
+        private final double ratio;
+        private double tokens;
+
+        RetryBudget(int maxTokens, double ratio) {
+            this.maxTokens = maxTokens;
+            this.ratio = ratio;
+            this.tokens = maxTokens;
+        }
+
+        synchronized void failed() {
+            this.tokens = Math.max(this.tokens - 1, 0);
+        }
+
+        synchronized void succeeded() {
+            this.tokens = Math.min(this.tokens + this.ratio, this.maxTokens);
+        }
+
+        synchronized boolean canRetry() {
+            return this.tokens > this.maxTokens / 2;
+        }
+    }
+}
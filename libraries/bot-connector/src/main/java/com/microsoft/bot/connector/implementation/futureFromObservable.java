@@ -1,2 +0,0 @@
-package com.microsoft.bot.connector.implementation;
-
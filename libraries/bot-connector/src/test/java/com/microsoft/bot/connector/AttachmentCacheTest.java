@@ -0,0 +1,265 @@
+package com.microsoft.bot.connector;
+
+import com.microsoft.bot.connector.implementation.AttachmentCache;
+import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import com.microsoft.bot.schema.models.AttachmentData;
+import okhttp3.Request;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class AttachmentCacheTest {
+    private static final String PNG = "image/png";
+    private static final String LAST_MODIFIED = "Fri, 01 Jun 2018 12:00:00 GMT";
+
+    private final ScriptedInterceptor server = new ScriptedInterceptor();
+    private final ConnectorClientImpl connector = server.connector();
+    private Path directory;
+
+    @Before
+    public void CreateDirectory() throws IOException {
+        this.directory = Files.createTempDirectory("attachments");
+    }
+
+    @After
+    public void DeleteDirectory() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.directory);
+    }
+
+    @Test
+    public void FreshViewIsServedWithoutRequest() throws IOException {
+        connector.withAttachmentCache(new AttachmentCache(directory, 1024 * 1024, 1024 * 1024));
+        server.respond(200, PNG, Content('a', 100)).header("ETag", "\"v1\"");
+
+        Assert.assertArrayEquals(Content('a', 100), Read("a1"));
+        Assert.assertArrayEquals(Content('a', 100), Read("a1"));
+        Assert.assertEquals(1, server.requests.size());
+    }
+
+    @Test
+    public void StaleViewIsRevalidatedWithItsValidators() throws IOException {
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 1024 * 1024).withMaxAge(0, TimeUnit.MILLISECONDS);
+        connector.withAttachmentCache(cache);
+        server.respond(200, PNG, Content('a', 100)).header("ETag", "\"v1\"").header("Last-Modified", LAST_MODIFIED);
+        server.respond(304, PNG, new byte[0]);
+
+        Assert.assertArrayEquals(Content('a', 100), Read("a1"));
+        Assert.assertArrayEquals(Content('a', 100), Read("a1"));
+
+        Assert.assertEquals(2, server.requests.size());
+        Request first = server.requests.get(0);
+        Assert.assertNull(first.header("If-None-Match"));
+        Assert.assertNull(first.header("If-Modified-Since"));
+        Request revalidation = server.requests.get(1);
+        Assert.assertEquals("\"v1\"", revalidation.header("If-None-Match"));
+        Assert.assertEquals(LAST_MODIFIED, revalidation.header("If-Modified-Since"));
+    }
+
+    @Test
+    public void RevalidatedViewIsFreshAgain() throws IOException {
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 1024 * 1024).withMaxAge(200, TimeUnit.MILLISECONDS);
+        connector.withAttachmentCache(cache);
+        server.respond(200, PNG, Content('a', 100)).header("ETag", "\"v1\"");
+        server.respond(304, PNG, new byte[0]);
+
+        Read("a1");
+        Sleep(300);
+        Read("a1");
+        Assert.assertEquals(2, server.requests.size());
+
+        // The 304 restarted the max age.
+        Assert.assertArrayEquals(Content('a', 100), Read("a1"));
+        Assert.assertEquals(2, server.requests.size());
+    }
+
+    @Test
+    public void ChangedViewIsDownloadedAgain() throws IOException {
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 1024 * 1024).withMaxAge(0, TimeUnit.MILLISECONDS);
+        connector.withAttachmentCache(cache);
+        server.respond(200, PNG, Content('a', 100)).header("ETag", "\"v1\"");
+        server.respond(200, PNG, Content('b', 100)).header("ETag", "\"v2\"");
+        server.respond(304, PNG, new byte[0]);
+
+        Assert.assertArrayEquals(Content('a', 100), Read("a1"));
+        Assert.assertArrayEquals(Content('b', 100), Read("a1"));
+        Assert.assertArrayEquals(Content('b', 100), Read("a1"));
+
+        Assert.assertEquals("\"v2\"", server.requests.get(2).header("If-None-Match"));
+    }
+
+    @Test
+    public void ViewWithoutValidatorsIsDownloadedUnconditionally() throws IOException {
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 1024 * 1024).withMaxAge(0, TimeUnit.MILLISECONDS);
+        connector.withAttachmentCache(cache);
+        server.respond(200, PNG, Content('a', 100));
+        server.respond(200, PNG, Content('a', 100));
+
+        Read("a1");
+        Read("a1");
+
+        Assert.assertNull(server.requests.get(1).header("If-None-Match"));
+        Assert.assertNull(server.requests.get(1).header("If-Modified-Since"));
+    }
+
+    @Test
+    public void MemoryEvictsLeastRecentlyUsedContentByBytes() throws IOException {
+        // Room for the content and views of two attachments of 1000 bytes, but not of three.
+        AttachmentCache cache = new AttachmentCache(directory, 3000, 1024 * 1024);
+        connector.withAttachmentCache(cache);
+        server.respond(200, PNG, Content('a', 1000));
+        server.respond(200, PNG, Content('b', 1000));
+        server.respond(200, PNG, Content('c', 1000));
+
+        Read("a1");
+        Read("b1");
+        // Using a makes b the least recently used.
+        Read("a1");
+        Read("c1");
+        Assert.assertEquals(3, server.requests.size());
+        Assert.assertTrue("memory size " + cache.memorySize(), cache.memorySize() <= 3000);
+
+        Assert.assertArrayEquals(Content('a', 1000), Read("a1"));
+        Assert.assertArrayEquals(Content('c', 1000), Read("c1"));
+        Assert.assertEquals(3, server.requests.size());
+
+        server.respond(200, PNG, Content('b', 1000));
+        Assert.assertArrayEquals(Content('b', 1000), Read("b1"));
+        Assert.assertEquals(4, server.requests.size());
+    }
+
+    @Test
+    public void DiskEvictsLeastRecentlyUsedContentByBytes() throws IOException {
+        // Every content goes to disk, which has room for two of them.
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 250).withSmallPayloadLimit(0);
+        connector.withAttachmentCache(cache);
+        server.respond(200, PNG, Content('a', 100));
+        server.respond(200, PNG, Content('b', 100));
+        server.respond(200, PNG, Content('c', 100));
+
+        Read("a1");
+        Read("b1");
+        Read("a1");
+        Read("c1");
+        Assert.assertEquals(3, server.requests.size());
+        Assert.assertEquals(200, cache.diskSize());
+        Assert.assertEquals(2, FileCount());
+
+        Read("a1");
+        Read("c1");
+        Assert.assertEquals(3, server.requests.size());
+
+        server.respond(200, PNG, Content('b', 100));
+        Assert.assertArrayEquals(Content('b', 100), Read("b1"));
+        Assert.assertEquals(4, server.requests.size());
+    }
+
+    @Test
+    public void SameContentIsStoredOnce() throws IOException {
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 1024 * 1024).withSmallPayloadLimit(0);
+        connector.withAttachmentCache(cache);
+        server.respond(200, PNG, Content('a', 100));
+        server.respond(200, PNG, Content('a', 100));
+
+        Read("a1");
+        Read("a2");
+
+        Assert.assertEquals(100, cache.diskSize());
+        Assert.assertEquals(1, FileCount());
+    }
+
+    @Test
+    public void SameUploadToSameConversationIsSentOnce() {
+        connector.withAttachmentCache(NewCache());
+        server.respond(200, "application/json", "{\"id\":\"att1\"}".getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertEquals("att1", connector.conversations().uploadAttachment("conv1", Upload("a.png", 'a')).id());
+        Assert.assertEquals("att1", connector.conversations().uploadAttachment("conv1", Upload("a.png", 'a')).id());
+        Assert.assertEquals("att1", connector.conversations().uploadAttachmentFuture("conv1", Upload("a.png", 'a')).join().id());
+
+        Assert.assertEquals(1, server.requests.size());
+    }
+
+    @Test
+    public void DifferentUploadsAreSent() {
+        connector.withAttachmentCache(NewCache());
+        server.respond(200, "application/json", "{\"id\":\"att1\"}".getBytes(StandardCharsets.UTF_8));
+        server.respond(200, "application/json", "{\"id\":\"att2\"}".getBytes(StandardCharsets.UTF_8));
+        server.respond(200, "application/json", "{\"id\":\"att3\"}".getBytes(StandardCharsets.UTF_8));
+        server.respond(200, "application/json", "{\"id\":\"att4\"}".getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertEquals("att1", connector.conversations().uploadAttachment("conv1", Upload("a.png", 'a')).id());
+        Assert.assertEquals("att2", connector.conversations().uploadAttachment("conv2", Upload("a.png", 'a')).id());
+        Assert.assertEquals("att3", connector.conversations().uploadAttachment("conv1", Upload("b.png", 'a')).id());
+        Assert.assertEquals("att4", connector.conversations().uploadAttachment("conv1", Upload("a.png", 'b')).id());
+
+        Assert.assertEquals(4, server.requests.size());
+        Assert.assertEquals(0, server.remaining());
+    }
+
+    private AttachmentCache NewCache() {
+        try {
+            return new AttachmentCache(directory, 1024 * 1024, 1024 * 1024);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] Read(String attachmentId) throws IOException {
+        try (InputStream content = connector.attachments().getAttachment(attachmentId, "original")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private long FileCount() throws IOException {
+        long count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*.bin")) {
+            for (Path ignored : files) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static byte[] Content(char fill, int length) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) fill);
+        return content;
+    }
+
+    private static AttachmentData Upload(String name, char fill) {
+        return new AttachmentData()
+                .withName(name)
+                .withType(PNG)
+                .withOriginalBase64(Content(fill, 100));
+    }
+
+    private static void Sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
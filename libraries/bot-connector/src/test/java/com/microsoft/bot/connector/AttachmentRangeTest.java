@@ -0,0 +1,106 @@
+package com.microsoft.bot.connector;
+
+import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class AttachmentRangeTest {
+    private static final String OCTETS = "application/octet-stream";
+    private static final byte[] VIEW = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private final ScriptedInterceptor server = new ScriptedInterceptor();
+    private final ConnectorClientImpl connector = server.connector();
+
+    @Test
+    public void ChannelSkipsToOffsetOfWholeView() throws IOException {
+        server.respond(200, OCTETS, VIEW);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        long written = connector.attachments().getAttachmentTo("a1", "original", 4, Channels.newChannel(target));
+
+        Assert.assertEquals(6, written);
+        Assert.assertEquals("456789", target.toString("US-ASCII"));
+        Assert.assertEquals("bytes=4-", server.requests.get(0).header("Range"));
+    }
+
+    @Test
+    public void ChannelReturnsZeroWhenWholeViewEndsBeforeOffset() throws IOException {
+        server.respond(200, OCTETS, VIEW);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        Assert.assertEquals(0, connector.attachments().getAttachmentTo("a1", "original", 20, Channels.newChannel(target)));
+        Assert.assertEquals(0, target.size());
+    }
+
+    @Test
+    public void ChannelReturnsZeroWhenRangeIsNotSatisfiable() throws IOException {
+        server.respond(416, OCTETS, new byte[0]).header("Content-Range", "bytes */10");
+
+        Assert.assertEquals(0, connector.attachments().getAttachmentTo("a1", "original", 10, Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    public void ChannelWritesPartialResponse() throws IOException {
+        server.respond(206, OCTETS, Arrays.copyOfRange(VIEW, 4, 10)).header("Content-Range", "bytes 4-9/10");
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        Assert.assertEquals(6, connector.attachments().getAttachmentTo("a1", "original", 4, Channels.newChannel(target)));
+        Assert.assertEquals("456789", target.toString("US-ASCII"));
+    }
+
+    @Test
+    public void ChannelRejectsPartialResponseFromAnotherOffset() {
+        server.respond(206, OCTETS, VIEW).header("Content-Range", "bytes 0-9/10");
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        try {
+            connector.attachments().getAttachmentTo("a1", "original", 4, Channels.newChannel(target));
+            Assert.fail("expected exception was not occurred.");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Content-Range"));
+        }
+        Assert.assertEquals(0, target.size());
+    }
+
+    @Test
+    public void FileResumesFromItsEnd() throws IOException {
+        Path file = Files.createTempFile("attachment", ".bin");
+        try {
+            Files.write(file, Arrays.copyOf(VIEW, 4));
+            server.respond(206, OCTETS, Arrays.copyOfRange(VIEW, 4, 10)).header("Content-Range", "bytes 4-9/10");
+
+            Assert.assertEquals(10, connector.attachments().getAttachmentTo("a1", "original", file));
+            Assert.assertArrayEquals(VIEW, Files.readAllBytes(file));
+            Assert.assertEquals("bytes=4-", server.requests.get(0).header("Range"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void FileRejectsPartialResponseFromAnotherOffset() throws IOException {
+        Path file = Files.createTempFile("attachment", ".bin");
+        try {
+            Files.write(file, Arrays.copyOf(VIEW, 4));
+            server.respond(206, OCTETS, VIEW).header("Content-Range", "bytes 0-9/10");
+
+            try {
+                connector.attachments().getAttachmentTo("a1", "original", file);
+                Assert.fail("expected exception was not occurred.");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("Content-Range"));
+            }
+            Assert.assertArrayEquals(Arrays.copyOf(VIEW, 4), Files.readAllBytes(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
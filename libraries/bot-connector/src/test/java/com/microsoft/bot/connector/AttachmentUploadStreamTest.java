@@ -0,0 +1,102 @@
+package com.microsoft.bot.connector;
+
+import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import com.microsoft.bot.schema.models.AttachmentData;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class AttachmentUploadStreamTest {
+    private static final byte[] CONTENT = "not really a png".getBytes(StandardCharsets.US_ASCII);
+
+    private final ScriptedInterceptor server = new ScriptedInterceptor();
+    private final ConnectorClientImpl connector = server.connector();
+
+    /**
+     * A stream that records whether it was closed.
+     */
+    private static final class TrackedStream extends ByteArrayInputStream {
+        boolean closed;
+
+        TrackedStream() {
+            super(CONTENT);
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+
+    private static AttachmentData Upload() {
+        return new AttachmentData().withName("a.png").withType("image/png");
+    }
+
+    @Test
+    public void SendsAndClosesTheStream() throws IOException {
+        server.writeBodies = true;
+        server.respond(200, "application/json", "{\"id\":\"att1\"}".getBytes(StandardCharsets.UTF_8));
+        TrackedStream original = new TrackedStream();
+
+        Assert.assertEquals("att1", connector.conversations().uploadAttachment("conv1", Upload(), original, CONTENT.length).id());
+
+        Assert.assertTrue(original.closed);
+        Assert.assertEquals("{\"type\":\"image/png\",\"name\":\"a.png\",\"originalBase64\":\"" + Base64.getEncoder().encodeToString(CONTENT) + "\"}",
+                server.bodies.get(0));
+        Assert.assertEquals(server.bodies.get(0).length(), server.requests.get(0).body().contentLength());
+    }
+
+    @Test
+    public void ClosesTheStreamWhenTheRequestEndsWithoutSendingIt() {
+        // The interceptor answers without writing the body.
+        server.respond(200, "application/json", "{\"id\":\"att1\"}".getBytes(StandardCharsets.UTF_8));
+        TrackedStream original = new TrackedStream();
+
+        Assert.assertEquals("att1", connector.conversations().uploadAttachment("conv1", Upload(), original, CONTENT.length).id());
+
+        Assert.assertTrue(original.closed);
+    }
+
+    @Test
+    public void ClosesTheStreamWhenTheRequestFails() {
+        // No response is scripted, so the call fails before the body is written.
+        TrackedStream original = new TrackedStream();
+
+        try {
+            connector.conversations().uploadAttachment("conv1", Upload(), original, CONTENT.length);
+            Assert.fail("expected exception was not occurred.");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(original.closed);
+        }
+    }
+
+    @Test
+    public void ClosesTheStreamWhenTheSubscriptionIsCanceled() {
+        server.respond(200, "application/json", "{\"id\":\"att1\"}".getBytes(StandardCharsets.UTF_8));
+        TrackedStream original = new TrackedStream();
+
+        // Subscribing is what sends the request, so unsubscribing first ends it unsent.
+        connector.conversations().uploadAttachmentAsync("conv1", Upload(), original, CONTENT.length)
+                .take(0)
+                .subscribe();
+
+        Assert.assertTrue(original.closed);
+    }
+
+    @Test
+    public void ClosesTheStreamWhenTheUploadIsRejected() {
+        TrackedStream original = new TrackedStream();
+
+        try {
+            connector.conversations().uploadAttachment("conv1", Upload().withOriginalBase64(CONTENT), original, CONTENT.length);
+            Assert.fail("expected exception was not occurred.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(original.closed);
+        }
+        Assert.assertTrue(server.requests.isEmpty());
+    }
+}
@@ -1,10 +1,15 @@
 package com.microsoft.bot.connector;
 
+import com.microsoft.bot.connector.implementation.AttachmentCache;
 import com.microsoft.bot.schema.models.*;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -31,6 +36,27 @@ public class AttachmentsTest extends BotConnectorTestBase {
         Assert.assertEquals(attachment.name(), response.name());
     }
 
+    @Test
+    public void GetAttachmentInfoFuture() {
+
+        AttachmentData attachment = new AttachmentData()
+                .withName("bot-framework.png")
+                .withType("image/png")
+                .withOriginalBase64(encodeToBase64(new File(getClass().getClassLoader().getResource("bot-framework.png").getFile())));
+
+        ConversationParameters createMessage = new ConversationParameters()
+                .withMembers(Collections.singletonList(user))
+                .withBot(bot);
+
+        ConversationResourceResponse conversation = connector.conversations().createConversation(createMessage);
+
+        AttachmentInfo response = connector.conversations().uploadAttachmentFuture(conversation.id(), attachment)
+                .thenCompose(attachmentResponse -> connector.attachments().getAttachmentInfoFuture(attachmentResponse.id()))
+                .join();
+
+        Assert.assertEquals(attachment.name(), response.name());
+    }
+
     @Test
     public void GetAttachment() {
 
@@ -66,6 +92,141 @@ public class AttachmentsTest extends BotConnectorTestBase {
         }
     }
 
+    @Test
+    public void GetAttachmentToChannel() throws IOException {
+
+        File attachmentFile = new File(getClass().getClassLoader().getResource("bot_icon.png").getFile());
+        byte[] attachmentPayload = encodeToBase64(attachmentFile);
+
+        ResourceResponse attachmentResponse = uploadAttachment(attachmentPayload);
+
+        AttachmentInfo attachmentInfo = connector.attachments().getAttachmentInfo(attachmentResponse.id());
+
+        for (AttachmentView attView : attachmentInfo.views()) {
+            ByteArrayOutputStream retrievedAttachment = new ByteArrayOutputStream();
+            long written = connector.attachments().getAttachmentTo(attachmentResponse.id(), attView.viewId(), Channels.newChannel(retrievedAttachment));
+
+            Assert.assertEquals(attachmentPayload.length, written);
+            Assert.assertArrayEquals(attachmentPayload, retrievedAttachment.toByteArray());
+        }
+    }
+
+    @Test
+    public void GetAttachmentToFile() throws IOException {
+
+        File attachmentFile = new File(getClass().getClassLoader().getResource("bot_icon.png").getFile());
+        byte[] attachmentPayload = encodeToBase64(attachmentFile);
+
+        ResourceResponse attachmentResponse = uploadAttachment(attachmentPayload);
+
+        AttachmentInfo attachmentInfo = connector.attachments().getAttachmentInfo(attachmentResponse.id());
+
+        for (AttachmentView attView : attachmentInfo.views()) {
+            Path file = Files.createTempFile("attachment", ".png");
+            try {
+                // A partial download; the recorded session answers with the whole view.
+                Files.write(file, Arrays.copyOf(attachmentPayload, 100));
+
+                long length = connector.attachments().getAttachmentTo(attachmentResponse.id(), attView.viewId(), file);
+
+                Assert.assertEquals(attachmentPayload.length, length);
+                Assert.assertArrayEquals(attachmentPayload, Files.readAllBytes(file));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void GetAttachmentCachedInMemory() throws IOException {
+        Path directory = Files.createTempDirectory("attachments");
+        try {
+            AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 1024 * 1024);
+
+            AssertServedFromCache(cache);
+
+            Assert.assertTrue(cache.memorySize() > 0);
+            Assert.assertEquals(0, cache.diskSize());
+        } finally {
+            DeleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void GetAttachmentCachedOnDisk() throws IOException {
+        Path directory = Files.createTempDirectory("attachments");
+        try {
+            AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, 1024 * 1024)
+                    .withSmallPayloadLimit(0);
+
+            AssertServedFromCache(cache);
+
+            File attachmentFile = new File(getClass().getClassLoader().getResource("bot_icon.png").getFile());
+            Assert.assertEquals(attachmentFile.length(), cache.diskSize());
+        } finally {
+            DeleteDirectory(directory);
+        }
+    }
+
+    private static void DeleteDirectory(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Uploads, and gets the info and views of, an attachment twice. The recorded session has
+     * each request once, so the second time must come from the cache.
+     */
+    private void AssertServedFromCache(AttachmentCache cache) {
+        connector.withAttachmentCache(cache);
+
+        File attachmentFile = new File(getClass().getClassLoader().getResource("bot_icon.png").getFile());
+        byte[] attachmentPayload = encodeToBase64(attachmentFile);
+
+        AttachmentData attachment = new AttachmentData()
+                .withName("bot_icon.png")
+                .withType("image/png")
+                .withOriginalBase64(attachmentPayload);
+
+        ConversationParameters createMessage = new ConversationParameters()
+                .withMembers(Collections.singletonList(user))
+                .withBot(bot);
+
+        ConversationResourceResponse conversation = connector.conversations().createConversation(createMessage);
+
+        ResourceResponse attachmentResponse = connector.conversations().uploadAttachment(conversation.id(), attachment);
+        Assert.assertEquals(attachmentResponse.id(), connector.conversations().uploadAttachment(conversation.id(), attachment).id());
+
+        for (int i = 0; i < 2; i++) {
+            AttachmentInfo attachmentInfo = connector.attachments().getAttachmentInfo(attachmentResponse.id());
+
+            for (AttachmentView attView : attachmentInfo.views()) {
+                InputStream retrievedAttachment = connector.attachments().getAttachment(attachmentResponse.id(), attView.viewId());
+
+                Assert.assertTrue(isSame(retrievedAttachment, new ByteArrayInputStream(attachmentPayload)));
+            }
+        }
+    }
+
+    private ResourceResponse uploadAttachment(byte[] attachmentPayload) {
+        AttachmentData attachment = new AttachmentData()
+                .withName("bot_icon.png")
+                .withType("image/png")
+                .withOriginalBase64(attachmentPayload);
+
+        ConversationParameters createMessage = new ConversationParameters()
+                .withMembers(Collections.singletonList(user))
+                .withBot(bot);
+
+        ConversationResourceResponse conversation = connector.conversations().createConversation(createMessage);
+
+        return connector.conversations().uploadAttachment(conversation.id(), attachment);
+    }
+
     private byte[] encodeToBase64(File file) {
         try {
             FileInputStream fis = new FileInputStream(file);
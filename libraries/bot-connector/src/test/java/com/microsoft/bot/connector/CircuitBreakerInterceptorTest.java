@@ -0,0 +1,225 @@
+package com.microsoft.bot.connector;
+
+import com.microsoft.bot.connector.implementation.CallRejectedException;
+import com.microsoft.bot.connector.implementation.CircuitBreakerInterceptor;
+import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerInterceptorTest {
+    private static final String TEAMS = "https://smba.trafficmanager.net/emea/";
+    private static final String SLACK = "https://slack.botframework.com/";
+
+    @Test
+    public void OpensAfterConsecutiveFailures() throws IOException {
+        CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor().withFailureThreshold(3);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(503, breaker.intercept(new StatusChain(TEAMS, 503)).code());
+        }
+        Assert.assertEquals(CircuitBreakerInterceptor.State.OPEN, breaker.state(TEAMS));
+
+        StatusChain chain = new StatusChain(TEAMS, 200);
+        try {
+            breaker.intercept(chain);
+            Assert.fail("expected exception was not occurred.");
+        } catch (CallRejectedException e) {
+            Assert.assertEquals(CallRejectedException.Reason.CIRCUIT_OPEN, e.reason());
+        }
+        Assert.assertEquals(0, chain.calls);
+
+        CircuitBreakerInterceptor.CircuitMetrics metrics = breaker.metrics(TEAMS);
+        Assert.assertEquals(3, metrics.failedCalls());
+        Assert.assertEquals(1, metrics.rejectedCalls());
+        Assert.assertEquals(0, metrics.activeCalls());
+    }
+
+    @Test
+    public void SuccessResetsConsecutiveFailures() throws IOException {
+        CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor().withFailureThreshold(2);
+
+        breaker.intercept(new StatusChain(TEAMS, 500));
+        breaker.intercept(new StatusChain(TEAMS, 200));
+        breaker.intercept(new StatusChain(TEAMS, 500));
+
+        Assert.assertEquals(CircuitBreakerInterceptor.State.CLOSED, breaker.state(TEAMS));
+    }
+
+    @Test
+    public void CircuitsArePerServiceUrl() throws IOException {
+        CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor().withFailureThreshold(1);
+
+        breaker.intercept(new StatusChain(TEAMS, 504));
+
+        Assert.assertEquals(CircuitBreakerInterceptor.State.OPEN, breaker.state(TEAMS));
+        Assert.assertEquals(200, breaker.intercept(new StatusChain(SLACK, 200)).code());
+        Assert.assertEquals(2, breaker.metrics().size());
+    }
+
+    @Test
+    public void TrialCallClosesCircuit() throws IOException {
+        CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor()
+                .withFailureThreshold(1)
+                .withOpenDuration(0, TimeUnit.MILLISECONDS);
+
+        breaker.intercept(new StatusChain(TEAMS, 500));
+        Assert.assertEquals(CircuitBreakerInterceptor.State.OPEN, breaker.state(TEAMS));
+
+        Assert.assertEquals(200, breaker.intercept(new StatusChain(TEAMS, 200)).code());
+        Assert.assertEquals(CircuitBreakerInterceptor.State.CLOSED, breaker.state(TEAMS));
+    }
+
+    @Test
+    public void FailedTrialCallOpensCircuit() throws IOException {
+        CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor()
+                .withFailureThreshold(1)
+                .withOpenDuration(0, TimeUnit.MILLISECONDS);
+
+        breaker.intercept(new StatusChain(TEAMS, 500));
+        try {
+            breaker.intercept(new StatusChain(TEAMS, -1));
+            Assert.fail("expected exception was not occurred.");
+        } catch (CallRejectedException e) {
+            Assert.fail("the trial call was rejected");
+        } catch (IOException e) {
+            Assert.assertEquals("Connection reset", e.getMessage());
+        }
+
+        Assert.assertEquals(CircuitBreakerInterceptor.State.OPEN, breaker.state(TEAMS));
+    }
+
+    @Test
+    public void BulkheadRejectsCallsOverTheLimit() throws Exception {
+        CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor().withMaxConcurrentCalls(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StatusChain slow = new StatusChain(TEAMS, 200) {
+            @Override
+            public Response proceed(Request request) throws IOException {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.proceed(request);
+            }
+        };
+
+        CompletableFuture<Response> inFlight = CompletableFuture.supplyAsync(() -> {
+            try {
+                return breaker.intercept(slow);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, breaker.metrics(TEAMS).activeCalls());
+
+        try {
+            breaker.intercept(new StatusChain(TEAMS, 200));
+            Assert.fail("expected exception was not occurred.");
+        } catch (CallRejectedException e) {
+            Assert.assertEquals(CallRejectedException.Reason.BULKHEAD_FULL, e.reason());
+        }
+        // Another service URL has its own bulkhead.
+        Assert.assertEquals(200, breaker.intercept(new StatusChain(SLACK, 200)).code());
+
+        release.countDown();
+        Assert.assertEquals(200, inFlight.get(10, TimeUnit.SECONDS).code());
+        Assert.assertEquals(200, breaker.intercept(new StatusChain(TEAMS, 200)).code());
+    }
+
+    @Test
+    public void FallbackAnswersRejectedCall() throws IOException {
+        CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor()
+                .withFailureThreshold(1)
+                .withFallback((request, rejection) -> response(request, 503));
+
+        breaker.intercept(new StatusChain(TEAMS, 500));
+        StatusChain chain = new StatusChain(TEAMS, 200);
+
+        Assert.assertEquals(503, breaker.intercept(chain).code());
+        Assert.assertEquals(0, chain.calls);
+    }
+
+    @Test
+    public void ConnectorReleasesItsPlaceWhileWaitingToRetry() throws Exception {
+        try (StatusServer server = new StatusServer(503, 200)) {
+            server.retryAfter = "1";
+            CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor().withMaxConcurrentCalls(1);
+            ConnectorClientImpl connector = new ConnectorClientImpl(server.serviceUrl(), null, breaker);
+
+            CompletableFuture<Integer> members = CompletableFuture.supplyAsync(
+                    () -> connector.conversations().getConversationMembers("a").size());
+            while (server.answered.getCount() > 1) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(200);
+
+            // Waiting for the Retry-After, the call holds no place in the bulkhead.
+            Assert.assertEquals(1, server.calls.get());
+            Assert.assertEquals(0, breaker.metrics(server.serviceUrl()).activeCalls());
+            Assert.assertEquals(200, breaker.intercept(new StatusChain(server.serviceUrl(), 200)).code());
+
+            Assert.assertEquals(0, members.get(10, TimeUnit.SECONDS).intValue());
+            Assert.assertEquals(2, server.calls.get());
+            // The breaker saw each attempt.
+            Assert.assertEquals(1, breaker.metrics(server.serviceUrl()).failedCalls());
+        }
+    }
+
+    private static Response response(Request request, int status) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(status)
+                .body(ResponseBody.create(MediaType.parse("application/json"), "{}"))
+                .build();
+    }
+
+    /**
+     * A chain answering its call with a status; -1 fails the call.
+     */
+    private static class StatusChain implements Interceptor.Chain {
+        private final Request request;
+        private final int status;
+        int calls;
+
+        StatusChain(String serviceUrl, int status) {
+            this.request = new Request.Builder().url(serviceUrl + "v3/conversations/a/activities").build();
+            this.status = status;
+        }
+
+        @Override
+        public Request request() {
+            return this.request;
+        }
+
+        @Override
+        public Response proceed(Request request) throws IOException {
+            this.calls++;
+            if (this.status < 0) {
+                throw new IOException("Connection reset");
+            }
+            return response(request, this.status);
+        }
+
+        @Override
+        public Connection connection() {
+            return null;
+        }
+    }
+}
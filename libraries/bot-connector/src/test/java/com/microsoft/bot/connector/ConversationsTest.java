@@ -7,9 +7,12 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 public class ConversationsTest extends BotConnectorTestBase {
 
@@ -185,6 +188,54 @@ public class ConversationsTest extends BotConnectorTestBase {
         }
     }
 
+    @Test
+    public void SendToConversationFuture() {
+
+        Activity activity = new Activity()
+                .withType(ActivityTypes.MESSAGE)
+                .withRecipient(user)
+                .withFrom(bot)
+                .withName("activity")
+                .withText("TEST Send to Conversation");
+
+        ConversationParameters createMessage = new ConversationParameters()
+                .withMembers(Collections.singletonList(user))
+                .withBot(bot);
+
+        ResourceResponse response = connector.conversations().createConversationFuture(createMessage)
+                .thenCompose(conversation -> connector.conversations().sendToConversationFuture(conversation.id(), activity))
+                .join();
+
+        Assert.assertNotNull(response.id());
+    }
+
+    @Test
+    public void SendToConversationFutureWithInvalidConversationId() {
+
+        Activity activity = new Activity()
+                .withType(ActivityTypes.MESSAGE)
+                .withRecipient(user)
+                .withFrom(bot)
+                .withName("activity")
+                .withText("TEST Send to Conversation");
+
+        ConversationParameters createMessage = new ConversationParameters()
+                .withMembers(Collections.singletonList(user))
+                .withBot(bot);
+
+        ConversationResourceResponse conversation = connector.conversations().createConversation(createMessage);
+
+        try {
+            connector.conversations().sendToConversationFuture(conversation.id().concat("M"), activity).join();
+            Assert.fail("expected exception was not occurred.");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof ErrorResponseException);
+            ErrorResponseException error = (ErrorResponseException) e.getCause();
+            Assert.assertEquals("ServiceError", error.body().error().code().toString());
+            Assert.assertTrue(error.body().error().message().contains("The specified channel was not found"));
+        }
+    }
+
     @Test
     public void SendToConversationWithInvalidBotId() {
 
@@ -480,6 +531,47 @@ public class ConversationsTest extends BotConnectorTestBase {
         Assert.assertNotNull(response.id());
     }
 
+    @Test
+    public void UploadAttachmentFromStream() throws IOException {
+
+        File attachmentFile = new File(getClass().getClassLoader().getResource("bot-framework.png").getFile());
+        AttachmentData attachment = new AttachmentData()
+                .withName("bot-framework.png")
+                .withType("image/png");
+
+        ConversationParameters createMessage = new ConversationParameters()
+                .withMembers(Collections.singletonList(user))
+                .withBot(bot);
+
+        ConversationResourceResponse conversation = connector.conversations().createConversation(createMessage);
+
+        ResourceResponse response;
+        try (InputStream original = new FileInputStream(attachmentFile)) {
+            response = connector.conversations().uploadAttachment(conversation.id(), attachment, original, attachmentFile.length());
+        }
+
+        Assert.assertNotNull(response.id());
+    }
+
+    @Test
+    public void UploadAttachmentFromFile() {
+
+        File attachmentFile = new File(getClass().getClassLoader().getResource("bot-framework.png").getFile());
+        AttachmentData attachment = new AttachmentData()
+                .withName("bot-framework.png")
+                .withType("image/png");
+
+        ConversationParameters createMessage = new ConversationParameters()
+                .withMembers(Collections.singletonList(user))
+                .withBot(bot);
+
+        ConversationResourceResponse conversation = connector.conversations().createConversation(createMessage);
+
+        ResourceResponse response = connector.conversations().uploadAttachment(conversation.id(), attachment, attachmentFile.toPath());
+
+        Assert.assertNotNull(response.id());
+    }
+
     private byte[] encodeToBase64(File file) {
         try {
             FileInputStream fis = new FileInputStream(file);
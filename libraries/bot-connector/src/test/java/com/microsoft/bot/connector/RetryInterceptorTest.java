@@ -0,0 +1,195 @@
+package com.microsoft.bot.connector;
+
+import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import com.microsoft.bot.connector.implementation.RetryInterceptor;
+import com.microsoft.bot.connector.models.ErrorResponseException;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+public class RetryInterceptorTest {
+
+    @Test
+    public void RetriesIdempotentCallOnTransientStatus() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor().withBackoff(1, 1, TimeUnit.MILLISECONDS);
+        ScriptedChain chain = new ScriptedChain(get(), 503, 500, 200);
+
+        Response response = retry.intercept(chain);
+
+        Assert.assertEquals(200, response.code());
+        Assert.assertEquals(3, chain.calls);
+    }
+
+    @Test
+    public void DoesNotRetryPost() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor().withBackoff(1, 1, TimeUnit.MILLISECONDS);
+        ScriptedChain chain = new ScriptedChain(post(), 503, 200);
+
+        Response response = retry.intercept(chain);
+
+        Assert.assertEquals(503, response.code());
+        Assert.assertEquals(1, chain.calls);
+    }
+
+    @Test
+    public void DoesNotRetryClientError() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor().withBackoff(1, 1, TimeUnit.MILLISECONDS);
+        ScriptedChain chain = new ScriptedChain(get(), 404, 200);
+
+        Assert.assertEquals(404, retry.intercept(chain).code());
+        Assert.assertEquals(1, chain.calls);
+    }
+
+    @Test
+    public void StopsAfterMaxRetries() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor().withMaxRetries(2).withBackoff(1, 1, TimeUnit.MILLISECONDS);
+        ScriptedChain chain = new ScriptedChain(get(), 500, 500, 500, 200);
+
+        Assert.assertEquals(500, retry.intercept(chain).code());
+        Assert.assertEquals(3, chain.calls);
+    }
+
+    @Test
+    public void RetriesIdempotentCallOnIOException() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor().withBackoff(1, 1, TimeUnit.MILLISECONDS);
+        ScriptedChain chain = new ScriptedChain(get(), -1, 200);
+
+        Assert.assertEquals(200, retry.intercept(chain).code());
+        Assert.assertEquals(2, chain.calls);
+    }
+
+    @Test
+    public void WaitsForRetryAfter() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor().withBackoff(0, 0, TimeUnit.MILLISECONDS);
+        ScriptedChain chain = new ScriptedChain(get(), 429, 200);
+        chain.retryAfter = "1";
+
+        long start = System.nanoTime();
+        Response response = retry.intercept(chain);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(200, response.code());
+        Assert.assertTrue("waited " + elapsed + " ms", elapsed >= 1000);
+    }
+
+    @Test
+    public void ReturnsResponseWhenRetryAfterIsTooLong() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor().withMaxRetryAfter(5, TimeUnit.SECONDS);
+        ScriptedChain chain = new ScriptedChain(get(), 429, 200);
+        chain.retryAfter = "120";
+
+        Assert.assertEquals(429, retry.intercept(chain).code());
+        Assert.assertEquals(1, chain.calls);
+    }
+
+    @Test
+    public void StopsRetryingWhenBudgetIsSpent() throws IOException {
+        RetryInterceptor retry = new RetryInterceptor()
+                .withBackoff(1, 1, TimeUnit.MILLISECONDS)
+                .withRetryBudget(4, 0.1);
+
+        // Two failed attempts spend half of the budget; the second is not retried.
+        Assert.assertEquals(500, retry.intercept(new ScriptedChain(get(), 500, 500)).code());
+        ScriptedChain chain = new ScriptedChain(get(), 500, 200);
+        Assert.assertEquals(500, retry.intercept(chain).code());
+        Assert.assertEquals(1, chain.calls);
+    }
+
+    @Test
+    public void ConnectorSendsFailedPostOnce() throws IOException {
+        try (StatusServer server = new StatusServer(503)) {
+            ConnectorClientImpl connector = new ConnectorClientImpl(server.serviceUrl(), null);
+
+            try {
+                connector.conversations().sendToConversation("a", new Activity().withType(ActivityTypes.MESSAGE));
+                Assert.fail("expected exception was not occurred.");
+            } catch (ErrorResponseException e) {
+                Assert.assertEquals(503, e.response().code());
+            }
+            Assert.assertEquals(1, server.calls.get());
+        }
+    }
+
+    @Test
+    public void ConnectorWaitsForRetryAfter() throws IOException {
+        try (StatusServer server = new StatusServer(503, 200)) {
+            server.retryAfter = "1";
+            ConnectorClientImpl connector = new ConnectorClientImpl(server.serviceUrl(), null);
+
+            long start = System.nanoTime();
+            connector.conversations().getConversationMembers("a");
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Assert.assertEquals(2, server.calls.get());
+            Assert.assertTrue("waited " + elapsed + " ms", elapsed >= 1000);
+        }
+    }
+
+    private static Request get() {
+        return new Request.Builder().url("https://smba.example.com/v3/conversations/a/members").build();
+    }
+
+    private static Request post() {
+        return new Request.Builder().url("https://smba.example.com/v3/conversations/a/activities")
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+                .build();
+    }
+
+    /**
+     * A chain answering each call with the next status of a script; -1 fails the call.
+     */
+    private static final class ScriptedChain implements Interceptor.Chain {
+        private final Request request;
+        private final Deque<Integer> statuses;
+        String retryAfter;
+        int calls;
+
+        ScriptedChain(Request request, Integer... statuses) {
+            this.request = request;
+            this.statuses = new ArrayDeque<Integer>(Arrays.asList(statuses));
+        }
+
+        @Override
+        public Request request() {
+            return this.request;
+        }
+
+        @Override
+        public Response proceed(Request request) throws IOException {
+            this.calls++;
+            int status = this.statuses.remove();
+            if (status < 0) {
+                throw new IOException("Connection reset");
+            }
+            Response.Builder response = new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(status)
+                    .body(ResponseBody.create(MediaType.parse("application/json"), "{}"));
+            if (this.retryAfter != null) {
+                response.header("Retry-After", this.retryAfter);
+            }
+            return response.build();
+        }
+
+        @Override
+        public Connection connection() {
+            return null;
+        }
+    }
+}
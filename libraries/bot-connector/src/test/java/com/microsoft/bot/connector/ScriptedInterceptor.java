@@ -0,0 +1,79 @@
+package com.microsoft.bot.connector;
+
+import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import com.microsoft.rest.RestClient;
+import com.microsoft.rest.ServiceResponseBuilder;
+import com.microsoft.rest.serializer.JacksonAdapter;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Answers the calls of a connector with scripted responses, in order, without a server, and
+ * records the requests. Request bodies are only written, into {@link #bodies}, when {@link #writeBodies} is on.
+ */
+final class ScriptedInterceptor implements Interceptor {
+    private final Deque<Response.Builder> responses = new ArrayDeque<Response.Builder>();
+    final List<Request> requests = Collections.synchronizedList(new ArrayList<Request>());
+    final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+    volatile boolean writeBodies;
+
+    /**
+     * Builds a connector whose calls this interceptor answers.
+     */
+    ConnectorClientImpl connector() {
+        return new ConnectorClientImpl(new RestClient.Builder()
+                .withBaseUrl("https://scripted.example.com/")
+                .withSerializerAdapter(new JacksonAdapter())
+                .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+                .withInterceptor(this)
+                .build());
+    }
+
+    /**
+     * Adds a response to the script.
+     *
+     * @return the response, to add headers to.
+     */
+    synchronized Response.Builder respond(int code, String contentType, byte[] body) {
+        Response.Builder response = new Response.Builder()
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .body(ResponseBody.create(MediaType.parse(contentType), body));
+        this.responses.add(response);
+        return response;
+    }
+
+    synchronized int remaining() {
+        return this.responses.size();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response.Builder response;
+        synchronized (this) {
+            response = this.responses.poll();
+        }
+        if (response == null) {
+            throw new IOException("No response scripted for " + chain.request().url());
+        }
+        this.requests.add(chain.request());
+        if (this.writeBodies && chain.request().body() != null) {
+            Buffer body = new Buffer();
+            chain.request().body().writeTo(body);
+            this.bodies.add(body.readUtf8());
+        }
+        return response.request(chain.request()).build();
+    }
+}
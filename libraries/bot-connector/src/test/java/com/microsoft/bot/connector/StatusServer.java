@@ -0,0 +1,72 @@
+package com.microsoft.bot.connector;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A service on the loopback interface answering each call with the next status of a script, and
+ * the last status once the script is used up. Error statuses carry the Retry-After, if any.
+ */
+final class StatusServer implements AutoCloseable {
+    final AtomicInteger calls = new AtomicInteger();
+    /** Counted down as each call is answered. */
+    final CountDownLatch answered;
+    volatile String retryAfter;
+
+    private final Deque<Integer> statuses;
+    private final HttpServer server;
+
+    StatusServer(Integer... statuses) throws IOException {
+        this.statuses = new ArrayDeque<Integer>(Arrays.asList(statuses));
+        this.answered = new CountDownLatch(statuses.length);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    String serviceUrl() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.calls.incrementAndGet();
+        int status;
+        synchronized (this.statuses) {
+            status = (this.statuses.size() > 1) ? this.statuses.remove() : this.statuses.peek();
+        }
+        try (InputStream body = exchange.getRequestBody()) {
+            while (body.read() != -1) {
+                // Read the request so the connection can be reused.
+            }
+            byte[] response = ((status < 400) ? "[]" : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (status >= 400 && this.retryAfter != null) {
+                exchange.getResponseHeaders().add("Retry-After", this.retryAfter);
+            }
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } finally {
+            exchange.close();
+            this.answered.countDown();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+}
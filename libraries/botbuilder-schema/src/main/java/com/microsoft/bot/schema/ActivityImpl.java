@@ -1,9 +1,7 @@
 package com.microsoft.bot.schema;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.microsoft.bot.schema.ContactRelationUpdateActivity;
 import com.microsoft.bot.schema.TraceActivity;
@@ -15,6 +13,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -31,7 +31,11 @@ public class ActivityImpl extends Activity {
      * Content-type for an Activity
      */
     public final String ContentType = "application/vnd.microsoft.activity";
-    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Entities already resolved by {@link #GetEntities(String, Class)}, by class
+     */
+    private Map<Class<?>, ConvertedEntities> convertedEntities;
 
     void CustomInit() {
     }
@@ -674,27 +678,54 @@ public class ActivityImpl extends Activity {
         return false;
     }
 
-    private Mention convertToMention(JsonNode node) {
-        try {
-            return ActivityImpl.mapper.treeToValue(node, Mention.class);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        }
-        return null;
-
-    }
     /**
      * Resolves the mentions from the entities of this (message) activity.
+     * <p>
+     * The list is new on each call, but the mentions in it are shared with other callers, as
+     * described for {@link #GetEntities(String, Class)}.
      * @return The array of mentions or an empty array, if none found.
-     * TODO: Need to see how mentions are formated in the message
      */
     public ArrayList<Mention> GetMentions() {
-        ArrayList<Mention> list = null;
-//        (ArrayList) this.entities().stream()
-//                .filter(entity -> entity.type().equalsIgnoreCase("mention"))
-//                .map(entity -> convertToMention(entity.getProperties()))
-//                .collect(Collectors.toCollection(ArrayList::new)); // create mutable list
-        return list;
+        return new ArrayList<Mention>(this.GetEntities("mention", Mention.class));
+    }
+
+    /**
+     * Resolves the entities of one type, such as "mention" or "Place", from the entities of this activity.
+     * <p>
+     * Each class is converted once and kept on the activity, so asking again, for example from
+     * several middleware, binds nothing. Asking again does check that the entities of the type
+     * still hold what they held when they were converted, so replacing the list, changing it,
+     * or changing an entity in it leads to a new conversion.
+     * <p>
+     * The returned list cannot be changed, and the converted objects in it are shared by every
+     * caller asking for the same class: treat them as read-only. To change an entity, change
+     * the entities of the activity.
+     * @param entityType The entity type to select, ignoring case.
+     * @param classType The class to convert the entities to.
+     * @return The converted entities or an empty list, if none found.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> GetEntities(String entityType, Class<T> classType) {
+        if (entityType == null)
+            throw new IllegalArgumentException("entityType");
+        if (classType == null)
+            throw new IllegalArgumentException("classType");
+
+        List<EntityImpl> entities = this.entities();
+        if (entities == null || entities.isEmpty())
+            return Collections.emptyList();
+
+        synchronized (this) {
+            if (this.convertedEntities == null)
+                this.convertedEntities = new HashMap<Class<?>, ConvertedEntities>();
+
+            ConvertedEntities converted = this.convertedEntities.get(classType);
+            if (converted == null || !converted.Matches(entityType, entities)) {
+                converted = ConvertedEntities.Of(entityType, classType, entities);
+                this.convertedEntities.put(classType, converted);
+            }
+            return (List<T>) converted.values;
+        }
     }
 
     /**
@@ -710,8 +741,7 @@ public class ActivityImpl extends Activity {
         if (classType.isInstance(this.channelData())) {
             return ((TypeT) this.channelData());
         }
-        JsonNode node = mapper.valueToTree(this.channelData());
-        return mapper.treeToValue((TreeNode) node, classType);
+        return Serialization.Convert(this.channelData(), classType);
     }
 
     /**
@@ -775,4 +805,51 @@ public class ActivityImpl extends Activity {
 
     }
 
+
+    /**
+     * Entities of one type converted to a class, and the JSON trees of the entities they came from
+     */
+    private static final class ConvertedEntities {
+        private final String entityType;
+        private final List<JsonNode> sources;
+        private final List<?> values;
+
+        private ConvertedEntities(String entityType, List<JsonNode> sources, List<?> values) {
+            this.entityType = entityType;
+            this.sources = sources;
+            this.values = values;
+        }
+
+        static <T> ConvertedEntities Of(String entityType, Class<T> classType, List<EntityImpl> entities) {
+            List<JsonNode> sources = Sources(entityType, entities);
+            List<T> values = new ArrayList<T>();
+            for (JsonNode source : sources) {
+                try {
+                    T value = Serialization.TreeToValue(source, classType);
+                    if (value != null)
+                        values.add(value);
+                } catch (JsonProcessingException e) {
+                    e.printStackTrace();
+                }
+            }
+            return new ConvertedEntities(entityType, sources, Collections.unmodifiableList(values));
+        }
+
+        /**
+         * Whether the entities of the type still hold what these were converted from. Building
+         * the trees is much cheaper than binding them to the class again.
+         */
+        boolean Matches(String entityType, List<EntityImpl> entities) {
+            return this.entityType.equalsIgnoreCase(entityType) && this.sources.equals(Sources(entityType, entities));
+        }
+
+        private static List<JsonNode> Sources(String entityType, List<EntityImpl> entities) {
+            List<JsonNode> sources = new ArrayList<JsonNode>();
+            for (EntityImpl entity : entities) {
+                if (entity != null && entityType.equalsIgnoreCase(entity.type))
+                    sources.add(Serialization.ToTree(entity));
+            }
+            return sources;
+        }
+    }
 }
@@ -6,18 +6,14 @@ import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.bot.schema.models.Entity;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 
 
 public class EntityImpl extends Entity {
-    private ObjectMapper objectMapper = new ObjectMapper();
-
     /**
      * Initializes a new instance of the Entity class.
      */
@@ -86,27 +82,14 @@ public class EntityImpl extends Entity {
 
     public <T> T GetAs(Class<T> type)  {
 
-        // Serialize
-        String tempJson;
+        // Convert through a token buffer, without writing JSON text
         try {
-            tempJson = objectMapper.writeValueAsString(this);
+            return Serialization.Convert(this, type);
         } catch (JsonProcessingException e) {
             e.printStackTrace();
             return null;
         }
 
-        // Deserialize
-        T newObj = null;
-        try {
-            newObj = (T) objectMapper.readValue(tempJson, type);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
-
-        return newObj;
-
-
     }
 
 
@@ -117,19 +100,11 @@ public class EntityImpl extends Entity {
      */
 
     public <T> boolean SetAs(T obj) {
-        // Serialize
-        String tempJson;
-        try {
-            tempJson = objectMapper.writeValueAsString(obj);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-            return false;
-        }
-
+        // Convert through a token buffer, without writing JSON text
         EntityImpl tempEntity;
         try {
-            tempEntity = objectMapper.readValue(tempJson, EntityImpl.class);
-        } catch (IOException e) {
+            tempEntity = Serialization.Convert(obj, EntityImpl.class);
+        } catch (JsonProcessingException e) {
             e.printStackTrace();
             return false;
         }
@@ -0,0 +1,356 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.schema;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import com.microsoft.bot.schema.models.Attachment;
+import org.joda.time.DateTime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A read-only view of an activity received as JSON that only binds what is asked for.
+ * <p>
+ * Parsing reads the fields used to route an activity (type, ids, channel, sender, conversation,
+ * recipient, text and a few more) with a streaming parser, and notes where the attachments,
+ * entities and channel data are in the JSON without binding them. Those are bound the first
+ * time they are asked for, and {@link #ToActivity()} binds the whole activity when a turn
+ * needs one. Anything else in the JSON is skipped.
+ * <p>
+ * This lets a host look at an incoming activity, for example to drop it, or to route it by
+ * conversation, without building the full object graph first.
+ */
+public final class LazyActivity {
+    private static final JsonFactory factory = Serialization.getFactory();
+    private static final ObjectReader activityReader = Serialization.ReaderFor(ActivityImpl.class);
+    private static final ObjectReader attachmentsReader = Serialization.ReaderFor(new TypeReference<List<Attachment>>() { });
+    private static final ObjectReader entitiesReader = Serialization.ReaderFor(new TypeReference<List<EntityImpl>>() { });
+    private static final ObjectReader channelDataReader = Serialization.ReaderFor(Object.class);
+
+    private final byte[] json;
+    private String type;
+    private String id;
+    private String timestamp;
+    private String channelId;
+    private String serviceUrl;
+    private String fromId;
+    private String fromName;
+    private String conversationId;
+    private String recipientId;
+    private String recipientName;
+    private String text;
+    private String locale;
+    private String replyToId;
+    private String name;
+    private Range attachmentsRange;
+    private Range entitiesRange;
+    private Range channelDataRange;
+
+    private List<Attachment> attachments;
+    private List<EntityImpl> entities;
+    private Object channelData;
+    private boolean attachmentsBound;
+    private boolean entitiesBound;
+    private boolean channelDataBound;
+
+    private LazyActivity(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Reads the routing fields of an activity.
+     *
+     * @param json The activity as UTF-8 JSON. The view keeps this array; do not change it afterwards.
+     * @return The view.
+     * @throws IOException The JSON is not an activity.
+     */
+    public static LazyActivity Parse(byte[] json) throws IOException {
+        if (json == null)
+            throw new IllegalArgumentException("json");
+
+        LazyActivity activity = new LazyActivity(json);
+        try (JsonParser parser = factory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonParseException(parser, "LazyActivity: an activity must be a JSON object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "type":
+                        activity.type = Text(parser);
+                        break;
+                    case "id":
+                        activity.id = Text(parser);
+                        break;
+                    case "timestamp":
+                        activity.timestamp = Text(parser);
+                        break;
+                    case "channelId":
+                        activity.channelId = Text(parser);
+                        break;
+                    case "serviceUrl":
+                        activity.serviceUrl = Text(parser);
+                        break;
+                    case "text":
+                        activity.text = Text(parser);
+                        break;
+                    case "locale":
+                        activity.locale = Text(parser);
+                        break;
+                    case "replyToId":
+                        activity.replyToId = Text(parser);
+                        break;
+                    case "name":
+                        activity.name = Text(parser);
+                        break;
+                    case "from": {
+                        String[] account = Account(parser);
+                        activity.fromId = account[0];
+                        activity.fromName = account[1];
+                        break;
+                    }
+                    case "recipient": {
+                        String[] account = Account(parser);
+                        activity.recipientId = account[0];
+                        activity.recipientName = account[1];
+                        break;
+                    }
+                    case "conversation":
+                        activity.conversationId = Account(parser)[0];
+                        break;
+                    case "attachments":
+                        activity.attachmentsRange = Range.Of(parser);
+                        break;
+                    case "entities":
+                        activity.entitiesRange = Range.Of(parser);
+                        break;
+                    case "channelData":
+                        activity.channelDataRange = Range.Of(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        }
+        return activity;
+    }
+
+    /**
+     * Reads the routing fields of an activity.
+     *
+     * @param json The activity as JSON.
+     * @return The view.
+     * @throws IOException The JSON is not an activity.
+     */
+    public static LazyActivity Parse(String json) throws IOException {
+        if (json == null)
+            throw new IllegalArgumentException("json");
+        return Parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the routing fields of an activity. The whole stream is read, but not closed.
+     *
+     * @param stream The activity as UTF-8 JSON.
+     * @return The view.
+     * @throws IOException The stream could not be read, or the JSON is not an activity.
+     */
+    public static LazyActivity Parse(InputStream stream) throws IOException {
+        if (stream == null)
+            throw new IllegalArgumentException("stream");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return Parse(bytes.toByteArray());
+    }
+
+    public ActivityTypes type() {
+        return (this.type == null) ? null : ActivityTypes.fromString(this.type);
+    }
+
+    public String id() {
+        return this.id;
+    }
+
+    public DateTime timestamp() {
+        return (this.timestamp == null) ? null : DateTime.parse(this.timestamp);
+    }
+
+    public String channelId() {
+        return this.channelId;
+    }
+
+    public String serviceUrl() {
+        return this.serviceUrl;
+    }
+
+    public String fromId() {
+        return this.fromId;
+    }
+
+    public String fromName() {
+        return this.fromName;
+    }
+
+    public String conversationId() {
+        return this.conversationId;
+    }
+
+    public String recipientId() {
+        return this.recipientId;
+    }
+
+    public String recipientName() {
+        return this.recipientName;
+    }
+
+    public String text() {
+        return this.text;
+    }
+
+    public String locale() {
+        return this.locale;
+    }
+
+    public String replyToId() {
+        return this.replyToId;
+    }
+
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * Gets the attachments, binding them the first time they are asked for.
+     */
+    public synchronized List<Attachment> attachments() {
+        if (!this.attachmentsBound) {
+            this.attachments = Bind(attachmentsReader, this.attachmentsRange, "attachments");
+            this.attachmentsBound = true;
+        }
+        return this.attachments;
+    }
+
+    /**
+     * Gets the entities, binding them the first time they are asked for.
+     */
+    public synchronized List<EntityImpl> entities() {
+        if (!this.entitiesBound) {
+            this.entities = Bind(entitiesReader, this.entitiesRange, "entities");
+            this.entitiesBound = true;
+        }
+        return this.entities;
+    }
+
+    /**
+     * Gets the channel data, binding it the first time it is asked for. Objects are bound as maps.
+     */
+    public synchronized Object channelData() {
+        if (!this.channelDataBound) {
+            this.channelData = Bind(channelDataReader, this.channelDataRange, "channelData");
+            this.channelDataBound = true;
+        }
+        return this.channelData;
+    }
+
+    /**
+     * Binds the whole activity. Each call returns a new object.
+     *
+     * @return The activity.
+     */
+    public ActivityImpl ToActivity() {
+        try {
+            return activityReader.readValue(this.json);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("LazyActivity: failed to bind activity %s: %s", this.id, e.toString()), e);
+        }
+    }
+
+    private <T> T Bind(ObjectReader reader, Range range, String field) {
+        if (range == null)
+            return null;
+        try {
+            return reader.readValue(this.json, range.start, range.end - range.start);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("LazyActivity: failed to bind %s of activity %s: %s", field, this.id, e.toString()), e);
+        }
+    }
+
+    /**
+     * Reads a scalar as text, skipping anything else.
+     */
+    private static String Text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return (parser.currentToken() == JsonToken.VALUE_NULL) ? null : parser.getText();
+    }
+
+    /**
+     * Reads the id and name of an account object, skipping its other fields.
+     */
+    private static String[] Account(JsonParser parser) throws IOException {
+        String[] account = new String[2];
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return account;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("id".equals(field))
+                account[0] = Text(parser);
+            else if ("name".equals(field))
+                account[1] = Text(parser);
+            else
+                parser.skipChildren();
+        }
+        return account;
+    }
+
+    /**
+     * Where a value is in the JSON.
+     */
+    private static final class Range {
+        final int start;
+        final int end;
+
+        private Range(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Skips the value at the parser, returning where it was, or {@code null} for a JSON null.
+         */
+        static Range Of(JsonParser parser) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NULL)
+                return null;
+
+            int start = (int) parser.getTokenLocation().getByteOffset();
+            if (parser.currentToken().isStructStart())
+                parser.skipChildren();
+            else
+                parser.getText();
+            return new Range(start, (int) parser.getCurrentLocation().getByteOffset());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.schema;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.Module;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.Attachment;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+
+/**
+ * Binds the models every activity carries with hand-written serializers and deserializers
+ * instead of reflection.
+ * <p>
+ * The models bound this way are {@link Activity}, {@link ActivityImpl}, {@link ChannelAccount},
+ * {@link ConversationAccount}, {@link Attachment} and {@link EntityImpl}. The JSON is the same
+ * as reflective binding writes and reads, property for property and in the same order. Only
+ * these exact classes are bound this way; subclasses such as {@link com.microsoft.bot.schema.models.Mention}
+ * and every other model keep reflective binding, and the values of their other properties,
+ * such as timestamps and channel data, are handed to the mapper as before.
+ * <p>
+ * A mapper that sorts properties alphabetically, has mix-ins for these classes, or leaves out
+ * properties for any reason other than being {@code null}, keeps reflective binding.
+ * <p>
+ * The module is optional: {@link Serialization} binds by reflection, and a bot that reads and
+ * writes many activities through a mapper of its own can register it there:
+ * <pre>
+ * ObjectMapper mapper = new ObjectMapper().registerModule(new ModelBindingModule());
+ * </pre>
+ */
+public final class ModelBindingModule extends Module {
+    @Override
+    public String getModuleName() {
+        return "ModelBindingModule";
+    }
+
+    @Override
+    public Version version() {
+        return Version.unknownVersion();
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        context.addSerializers(new ModelSerializers());
+        context.addDeserializers(new ModelDeserializers());
+    }
+}
@@ -0,0 +1,472 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.microsoft.bot.schema.models.*;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The deserializers of {@link ModelBindingModule}. Each reads the properties reflective binding
+ * reads for its class, calling the {@code with} methods directly, and passes the properties it
+ * does not know to the class's {@code JsonAnySetter}. Values of other types are read by the
+ * deserializers the mapper has for them, looked up once.
+ */
+final class ModelDeserializers extends Deserializers.Base {
+    @Override
+    public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config, BeanDescription beanDesc) {
+        Class<?> raw = type.getRawClass();
+        if (raw != Activity.class && raw != ActivityImpl.class && raw != ChannelAccount.class
+                && raw != ConversationAccount.class && raw != Attachment.class && raw != EntityImpl.class)
+            return null;
+        if (config.isEnabled(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES) || config.findMixInClassFor(raw) != null
+                || config.getDefaultTyper(type) != null)
+            return null;
+
+        if (raw == Activity.class)
+            return new ActivityDeserializer(Activity.class, Activity::new);
+        if (raw == ActivityImpl.class)
+            return new ActivityDeserializer(ActivityImpl.class, ActivityImpl::new);
+        if (raw == ChannelAccount.class)
+            return new ChannelAccountDeserializer();
+        if (raw == ConversationAccount.class)
+            return new ConversationAccountDeserializer();
+        if (raw == Attachment.class)
+            return new AttachmentDeserializer();
+        return new EntityDeserializer();
+    }
+
+    /**
+     * Reads one model from a JSON object, one property at a time.
+     */
+    abstract static class ModelDeserializer<T> extends StdDeserializer<T> implements ResolvableDeserializer {
+        private JsonDeserializer<Object> nodeDeserializer;
+
+        ModelDeserializer(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            this.nodeDeserializer = Find(ctxt, ctxt.constructType(JsonNode.class));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public final T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.getCurrentToken();
+            if (token == JsonToken.START_OBJECT)
+                token = p.nextToken();
+            else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT)
+                return (T) ctxt.handleUnexpectedToken(handledType(), p);
+
+            T value = Create();
+            p.setCurrentValue(value);
+            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                String name = p.getCurrentName();
+                p.nextToken();
+                ReadField(value, name, p, ctxt);
+            }
+            return value;
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            return typeDeserializer.deserializeTypedFromObject(p, ctxt);
+        }
+
+        abstract T Create();
+
+        /**
+         * Reads the value of one property, with the parser at the value.
+         */
+        abstract void ReadField(T value, String name, JsonParser p, DeserializationContext ctxt) throws IOException;
+
+        /**
+         * Reads the value of a property the model does not define, for its {@code JsonAnySetter}.
+         */
+        final JsonNode ReadNode(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.getCurrentToken() == JsonToken.VALUE_NULL)
+                return NullNode.getInstance();
+            return (JsonNode) this.nodeDeserializer.deserialize(p, ctxt);
+        }
+
+        static JsonDeserializer<Object> Find(DeserializationContext ctxt, JavaType type) throws JsonMappingException {
+            return ctxt.findContextualValueDeserializer(type, null);
+        }
+
+        static JavaType ListOf(DeserializationContext ctxt, Class<?> type) {
+            return ctxt.getTypeFactory().constructCollectionType(List.class, type);
+        }
+
+        static String ReadString(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.getCurrentToken();
+            if (token == JsonToken.VALUE_STRING)
+                return p.getText();
+            if (token == JsonToken.VALUE_NULL)
+                return null;
+            if (token.isScalarValue())
+                return p.getValueAsString();
+            return (String) ctxt.handleUnexpectedToken(String.class, p);
+        }
+
+        static Boolean ReadBoolean(JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (p.getCurrentToken()) {
+                case VALUE_TRUE:
+                    return Boolean.TRUE;
+                case VALUE_FALSE:
+                    return Boolean.FALSE;
+                case VALUE_NULL:
+                    return null;
+                default:
+                    return ctxt.readValue(p, Boolean.class);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> V Read(JsonDeserializer<Object> deserializer, JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.getCurrentToken() == JsonToken.VALUE_NULL)
+                return null;
+            return (V) deserializer.deserialize(p, ctxt);
+        }
+    }
+
+    static final class ActivityDeserializer extends ModelDeserializer<Activity> {
+        private final Supplier<Activity> creator;
+        private final boolean impl;
+        private JsonDeserializer<Object> dateTimeDeserializer;
+        private JsonDeserializer<Object> accountDeserializer;
+        private JsonDeserializer<Object> conversationDeserializer;
+        private JsonDeserializer<Object> accountsDeserializer;
+        private JsonDeserializer<Object> reactionsDeserializer;
+        private JsonDeserializer<Object> suggestedActionsDeserializer;
+        private JsonDeserializer<Object> attachmentsDeserializer;
+        private JsonDeserializer<Object> entitiesDeserializer;
+        private JsonDeserializer<Object> objectDeserializer;
+        private JsonDeserializer<Object> referenceDeserializer;
+        private JsonDeserializer<Object> highlightsDeserializer;
+
+        ActivityDeserializer(Class<? extends Activity> type, Supplier<Activity> creator) {
+            super(type);
+            this.creator = creator;
+            this.impl = (type == ActivityImpl.class);
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            super.resolve(ctxt);
+            this.dateTimeDeserializer = Find(ctxt, ctxt.constructType(DateTime.class));
+            this.accountDeserializer = Find(ctxt, ctxt.constructType(ChannelAccount.class));
+            this.conversationDeserializer = Find(ctxt, ctxt.constructType(ConversationAccount.class));
+            this.accountsDeserializer = Find(ctxt, ListOf(ctxt, ChannelAccount.class));
+            this.reactionsDeserializer = Find(ctxt, ListOf(ctxt, MessageReaction.class));
+            this.suggestedActionsDeserializer = Find(ctxt, ctxt.constructType(SuggestedActions.class));
+            this.attachmentsDeserializer = Find(ctxt, ListOf(ctxt, Attachment.class));
+            this.entitiesDeserializer = Find(ctxt, ListOf(ctxt, EntityImpl.class));
+            this.objectDeserializer = Find(ctxt, ctxt.constructType(Object.class));
+            this.referenceDeserializer = Find(ctxt, ctxt.constructType(ConversationReference.class));
+            this.highlightsDeserializer = Find(ctxt, ListOf(ctxt, TextHighlight.class));
+        }
+
+        @Override
+        Activity Create() {
+            return this.creator.get();
+        }
+
+        @Override
+        void ReadField(Activity activity, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+            String text;
+            switch (name) {
+                case "type":
+                    text = ReadString(p, ctxt);
+                    activity.withType((text == null) ? null : ActivityTypes.fromString(text));
+                    break;
+                case "id":
+                    activity.withId(ReadString(p, ctxt));
+                    break;
+                case "timestamp":
+                    activity.withTimestamp(Read(this.dateTimeDeserializer, p, ctxt));
+                    break;
+                case "localTimestamp":
+                    activity.withLocalTimestamp(Read(this.dateTimeDeserializer, p, ctxt));
+                    break;
+                case "serviceUrl":
+                    activity.withServiceUrl(ReadString(p, ctxt));
+                    break;
+                case "channelId":
+                    activity.withChannelId(ReadString(p, ctxt));
+                    break;
+                case "from":
+                    activity.withFrom(Read(this.accountDeserializer, p, ctxt));
+                    break;
+                case "conversation":
+                    activity.withConversation(Read(this.conversationDeserializer, p, ctxt));
+                    break;
+                case "recipient":
+                    activity.withRecipient(Read(this.accountDeserializer, p, ctxt));
+                    break;
+                case "textFormat":
+                    text = ReadString(p, ctxt);
+                    activity.withTextFormat((text == null) ? null : TextFormatTypes.fromString(text));
+                    break;
+                case "attachmentLayout":
+                    text = ReadString(p, ctxt);
+                    activity.withAttachmentLayout((text == null) ? null : AttachmentLayoutTypes.fromString(text));
+                    break;
+                case "membersAdded":
+                    activity.withMembersAdded(Read(this.accountsDeserializer, p, ctxt));
+                    break;
+                case "membersRemoved":
+                    activity.withMembersRemoved(Read(this.accountsDeserializer, p, ctxt));
+                    break;
+                case "reactionsAdded":
+                    activity.withReactionsAdded(Read(this.reactionsDeserializer, p, ctxt));
+                    break;
+                case "reactionsRemoved":
+                    activity.withReactionsRemoved(Read(this.reactionsDeserializer, p, ctxt));
+                    break;
+                case "topicName":
+                    activity.withTopicName(ReadString(p, ctxt));
+                    break;
+                case "historyDisclosed":
+                    activity.withHistoryDisclosed(ReadBoolean(p, ctxt));
+                    break;
+                case "locale":
+                    activity.withLocale(ReadString(p, ctxt));
+                    break;
+                case "text":
+                    activity.withText(ReadString(p, ctxt));
+                    break;
+                case "speak":
+                    activity.withSpeak(ReadString(p, ctxt));
+                    break;
+                case "inputHint":
+                    text = ReadString(p, ctxt);
+                    activity.withInputHint((text == null) ? null : InputHints.fromString(text));
+                    break;
+                case "summary":
+                    activity.withSummary(ReadString(p, ctxt));
+                    break;
+                case "suggestedActions":
+                    activity.withSuggestedActions(Read(this.suggestedActionsDeserializer, p, ctxt));
+                    break;
+                case "attachments":
+                    activity.withAttachments(Read(this.attachmentsDeserializer, p, ctxt));
+                    break;
+                case "entities":
+                    activity.withEntities(Read(this.entitiesDeserializer, p, ctxt));
+                    break;
+                case "channelData":
+                    activity.withChannelData(Read(this.objectDeserializer, p, ctxt));
+                    break;
+                case "action":
+                    activity.withAction(ReadString(p, ctxt));
+                    break;
+                case "replyToId":
+                    activity.withReplyToId(ReadString(p, ctxt));
+                    break;
+                case "label":
+                    activity.withLabel(ReadString(p, ctxt));
+                    break;
+                case "valueType":
+                    activity.withValueType(ReadString(p, ctxt));
+                    break;
+                case "value":
+                    activity.withValue(Read(this.objectDeserializer, p, ctxt));
+                    break;
+                case "name":
+                    activity.withName(ReadString(p, ctxt));
+                    break;
+                case "relatesTo":
+                    activity.withRelatesTo(Read(this.referenceDeserializer, p, ctxt));
+                    break;
+                case "code":
+                    text = ReadString(p, ctxt);
+                    activity.withCode((text == null) ? null : EndOfConversationCodes.fromString(text));
+                    break;
+                case "expiration":
+                    activity.withExpiration(Read(this.dateTimeDeserializer, p, ctxt));
+                    break;
+                case "importance":
+                    activity.withImportance(ReadString(p, ctxt));
+                    break;
+                case "deliveryMode":
+                    activity.withDeliveryMode(ReadString(p, ctxt));
+                    break;
+                case "textHighlights":
+                    activity.withTextHighlights(Read(this.highlightsDeserializer, p, ctxt));
+                    break;
+                case "ContentType":
+                    // A constant of ActivityImpl, written with it.
+                    if (this.impl) {
+                        p.skipChildren();
+                        break;
+                    }
+                    activity.setProperties(name, ReadNode(p, ctxt));
+                    break;
+                default:
+                    activity.setProperties(name, ReadNode(p, ctxt));
+                    break;
+            }
+        }
+    }
+
+    static final class ChannelAccountDeserializer extends ModelDeserializer<ChannelAccount> {
+        ChannelAccountDeserializer() {
+            super(ChannelAccount.class);
+        }
+
+        @Override
+        ChannelAccount Create() {
+            return new ChannelAccount();
+        }
+
+        @Override
+        void ReadField(ChannelAccount account, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (name) {
+                case "id":
+                    account.withId(ReadString(p, ctxt));
+                    break;
+                case "name":
+                    account.withName(ReadString(p, ctxt));
+                    break;
+                case "role": {
+                    String text = ReadString(p, ctxt);
+                    account.withRole((text == null) ? null : RoleTypes.fromString(text));
+                    break;
+                }
+                default:
+                    account.setProperties(name, ReadNode(p, ctxt));
+                    break;
+            }
+        }
+    }
+
+    static final class ConversationAccountDeserializer extends ModelDeserializer<ConversationAccount> {
+        private static final List<Object> KnownProperties = Arrays.<Object>asList("isGroup", "conversationType", "id", "name", "role");
+
+        ConversationAccountDeserializer() {
+            super(ConversationAccount.class);
+        }
+
+        @Override
+        public Collection<Object> getKnownPropertyNames() {
+            return KnownProperties;
+        }
+
+        @Override
+        ConversationAccount Create() {
+            return new ConversationAccount();
+        }
+
+        @Override
+        void ReadField(ConversationAccount account, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (name) {
+                case "isGroup":
+                    account.withIsGroup(ReadBoolean(p, ctxt));
+                    break;
+                case "conversationType":
+                    account.withConversationType(ReadString(p, ctxt));
+                    break;
+                case "id":
+                    account.withId(ReadString(p, ctxt));
+                    break;
+                case "name":
+                    account.withName(ReadString(p, ctxt));
+                    break;
+                case "role": {
+                    String text = ReadString(p, ctxt);
+                    account.withRole((text == null) ? null : RoleTypes.fromString(text));
+                    break;
+                }
+                default:
+                    // ConversationAccount has no JsonAnySetter.
+                    ctxt.handleUnknownProperty(p, this, account, name);
+                    break;
+            }
+        }
+    }
+
+    static final class AttachmentDeserializer extends ModelDeserializer<Attachment> {
+        private JsonDeserializer<Object> objectDeserializer;
+
+        AttachmentDeserializer() {
+            super(Attachment.class);
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            super.resolve(ctxt);
+            this.objectDeserializer = Find(ctxt, ctxt.constructType(Object.class));
+        }
+
+        @Override
+        Attachment Create() {
+            return new Attachment();
+        }
+
+        @Override
+        void ReadField(Attachment attachment, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (name) {
+                case "contentType":
+                    attachment.withContentType(ReadString(p, ctxt));
+                    break;
+                case "contentUrl":
+                    attachment.withContentUrl(ReadString(p, ctxt));
+                    break;
+                case "content":
+                    attachment.withContent(Read(this.objectDeserializer, p, ctxt));
+                    break;
+                case "name":
+                    attachment.withName(ReadString(p, ctxt));
+                    break;
+                case "thumbnailUrl":
+                    attachment.withThumbnailUrl(ReadString(p, ctxt));
+                    break;
+                default:
+                    attachment.setProperties(name, ReadNode(p, ctxt));
+                    break;
+            }
+        }
+    }
+
+    static final class EntityDeserializer extends ModelDeserializer<EntityImpl> {
+        EntityDeserializer() {
+            super(EntityImpl.class);
+        }
+
+        @Override
+        EntityImpl Create() {
+            return new EntityImpl();
+        }
+
+        @Override
+        void ReadField(EntityImpl entity, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+            if ("type".equals(name))
+                entity.type = ReadString(p, ctxt);
+            else
+                entity.setProperties(name, ReadNode(p, ctxt));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.schema;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.Attachment;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The serializers of {@link ModelBindingModule}. Each writes the properties reflective binding
+ * writes for its class, in the same order, calling the getters directly. Values of other types
+ * are written by the serializers the mapper has for them.
+ */
+final class ModelSerializers extends Serializers.Base {
+    @Override
+    public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+        Class<?> raw = type.getRawClass();
+        if (raw != Activity.class && raw != ActivityImpl.class && raw != ChannelAccount.class
+                && raw != ConversationAccount.class && raw != Attachment.class && raw != EntityImpl.class)
+            return null;
+        if (config.isEnabled(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY) || config.findMixInClassFor(raw) != null
+                || config.getDefaultTyper(type) != null)
+            return null;
+
+        JsonInclude.Value inclusion = beanDesc.findPropertyInclusion(config.getDefaultPropertyInclusion(raw));
+        Boolean writeNulls = WritesNulls(inclusion.getValueInclusion());
+        if (writeNulls == null)
+            return null;
+        boolean nulls = writeNulls;
+
+        if (raw == Activity.class)
+            return new ActivitySerializer(Activity.class, nulls);
+        if (raw == ActivityImpl.class)
+            return new ActivitySerializer(ActivityImpl.class, nulls);
+        if (raw == ChannelAccount.class)
+            return new ChannelAccountSerializer(nulls);
+        if (raw == ConversationAccount.class)
+            return new ConversationAccountSerializer(nulls);
+        if (raw == Attachment.class)
+            return new AttachmentSerializer(nulls);
+        return new EntitySerializer(nulls);
+    }
+
+    /**
+     * Whether an inclusion writes {@code null} values, or {@code null} for one the serializers do not follow.
+     */
+    private static Boolean WritesNulls(JsonInclude.Include inclusion) {
+        switch (inclusion) {
+            case ALWAYS:
+            case USE_DEFAULTS:
+                return true;
+            case NON_NULL:
+            case NON_ABSENT:
+                return false;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Writes one model as a JSON object, leaving out {@code null} values unless the mapper writes them.
+     */
+    abstract static class ModelSerializer<T> extends StdSerializer<T> {
+        private final boolean writeNulls;
+
+        ModelSerializer(Class<T> type, boolean writeNulls) {
+            super(type);
+            this.writeNulls = writeNulls;
+        }
+
+        @Override
+        public final void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            WriteFields(value, gen, provider);
+            gen.writeEndObject();
+        }
+
+        @Override
+        public final void serializeWithType(T value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+            gen.setCurrentValue(value);
+            WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, JsonToken.START_OBJECT));
+            WriteFields(value, gen, provider);
+            typeSer.writeTypeSuffix(gen, typeId);
+        }
+
+        abstract void WriteFields(T value, JsonGenerator gen, SerializerProvider provider) throws IOException;
+
+        final void WriteString(JsonGenerator gen, String name, String value) throws IOException {
+            if (value != null)
+                gen.writeStringField(name, value);
+            else if (this.writeNulls)
+                gen.writeNullField(name);
+        }
+
+        /**
+         * Writes one of the string enumerations, which serialize as their {@code toString()}.
+         */
+        final void WriteEnum(JsonGenerator gen, String name, Object value) throws IOException {
+            WriteString(gen, name, (value == null) ? null : value.toString());
+        }
+
+        final void WriteBoolean(JsonGenerator gen, String name, Boolean value) throws IOException {
+            if (value != null)
+                gen.writeBooleanField(name, value);
+            else if (this.writeNulls)
+                gen.writeNullField(name);
+        }
+
+        /**
+         * Writes a value with the serializer the mapper has for its runtime class.
+         */
+        final void WriteValue(JsonGenerator gen, SerializerProvider provider, String name, Object value) throws IOException {
+            if (value != null)
+                provider.defaultSerializeField(name, value, gen);
+            else if (this.writeNulls)
+                gen.writeNullField(name);
+        }
+
+        /**
+         * Writes the overflow properties, as the {@code JsonAnyGetter} of the models does: its
+         * {@code null} values are written whatever the inclusion.
+         */
+        final void WriteProperties(JsonGenerator gen, SerializerProvider provider, Map<String, JsonNode> properties) throws IOException {
+            if (properties == null)
+                return;
+            for (Map.Entry<String, JsonNode> entry : properties.entrySet()) {
+                JsonNode value = entry.getValue();
+                if (value != null) {
+                    gen.writeFieldName(entry.getKey());
+                    value.serialize(gen, provider);
+                } else {
+                    gen.writeNullField(entry.getKey());
+                }
+            }
+        }
+    }
+
+    static final class ActivitySerializer extends ModelSerializer<Activity> {
+        private final boolean impl;
+
+        @SuppressWarnings("unchecked")
+        ActivitySerializer(Class<? extends Activity> type, boolean writeNulls) {
+            super((Class<Activity>) type, writeNulls);
+            this.impl = (type == ActivityImpl.class);
+        }
+
+        @Override
+        void WriteFields(Activity activity, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (this.impl)
+                WriteString(gen, "ContentType", ((ActivityImpl) activity).ContentType);
+            WriteEnum(gen, "type", activity.type());
+            WriteString(gen, "id", activity.id());
+            WriteValue(gen, provider, "timestamp", activity.timestamp());
+            WriteValue(gen, provider, "localTimestamp", activity.localTimestamp());
+            WriteString(gen, "serviceUrl", activity.serviceUrl());
+            WriteString(gen, "channelId", activity.channelId());
+            WriteValue(gen, provider, "from", activity.from());
+            WriteValue(gen, provider, "conversation", activity.conversation());
+            WriteValue(gen, provider, "recipient", activity.recipient());
+            WriteEnum(gen, "textFormat", activity.textFormat());
+            WriteEnum(gen, "attachmentLayout", activity.attachmentLayout());
+            WriteValue(gen, provider, "membersAdded", activity.membersAdded());
+            WriteValue(gen, provider, "membersRemoved", activity.membersRemoved());
+            WriteValue(gen, provider, "reactionsAdded", activity.reactionsAdded());
+            WriteValue(gen, provider, "reactionsRemoved", activity.reactionsRemoved());
+            WriteString(gen, "topicName", activity.topicName());
+            WriteBoolean(gen, "historyDisclosed", activity.historyDisclosed());
+            WriteString(gen, "locale", activity.locale());
+            WriteString(gen, "text", activity.text());
+            WriteString(gen, "speak", activity.speak());
+            WriteEnum(gen, "inputHint", activity.inputHint());
+            WriteString(gen, "summary", activity.summary());
+            WriteValue(gen, provider, "suggestedActions", activity.suggestedActions());
+            WriteValue(gen, provider, "attachments", activity.attachments());
+            WriteValue(gen, provider, "entities", activity.entities());
+            WriteValue(gen, provider, "channelData", activity.channelData());
+            WriteString(gen, "action", activity.action());
+            WriteString(gen, "replyToId", activity.replyToId());
+            WriteString(gen, "label", activity.label());
+            WriteString(gen, "valueType", activity.valueType());
+            WriteValue(gen, provider, "value", activity.value());
+            WriteString(gen, "name", activity.name());
+            WriteValue(gen, provider, "relatesTo", activity.relatesTo());
+            WriteEnum(gen, "code", activity.code());
+            WriteValue(gen, provider, "expiration", activity.expiration());
+            WriteString(gen, "importance", activity.importance());
+            WriteString(gen, "deliveryMode", activity.deliveryMode());
+            WriteValue(gen, provider, "textHighlights", activity.textHighlights());
+            WriteProperties(gen, provider, activity.properties());
+        }
+    }
+
+    static final class ChannelAccountSerializer extends ModelSerializer<ChannelAccount> {
+        ChannelAccountSerializer(boolean writeNulls) {
+            super(ChannelAccount.class, writeNulls);
+        }
+
+        @Override
+        void WriteFields(ChannelAccount account, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            WriteString(gen, "id", account.id());
+            WriteString(gen, "name", account.name());
+            WriteEnum(gen, "role", account.role());
+            WriteProperties(gen, provider, account.properties());
+        }
+    }
+
+    static final class ConversationAccountSerializer extends ModelSerializer<ConversationAccount> {
+        ConversationAccountSerializer(boolean writeNulls) {
+            super(ConversationAccount.class, writeNulls);
+        }
+
+        @Override
+        void WriteFields(ConversationAccount account, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            // isGroup() is also picked up as a getter of "group".
+            WriteBoolean(gen, "group", account.isGroup());
+            WriteBoolean(gen, "isGroup", account.isGroup());
+            WriteString(gen, "conversationType", account.conversationType());
+            WriteString(gen, "id", account.id());
+            WriteString(gen, "name", account.name());
+            WriteEnum(gen, "role", account.role());
+        }
+    }
+
+    static final class AttachmentSerializer extends ModelSerializer<Attachment> {
+        AttachmentSerializer(boolean writeNulls) {
+            super(Attachment.class, writeNulls);
+        }
+
+        @Override
+        void WriteFields(Attachment attachment, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            WriteString(gen, "contentType", attachment.contentType());
+            WriteString(gen, "contentUrl", attachment.contentUrl());
+            WriteValue(gen, provider, "content", attachment.content());
+            WriteString(gen, "name", attachment.name());
+            WriteString(gen, "thumbnailUrl", attachment.thumbnailUrl());
+            WriteProperties(gen, provider, attachment.properties());
+        }
+    }
+
+    static final class EntitySerializer extends ModelSerializer<EntityImpl> {
+        EntitySerializer(boolean writeNulls) {
+            super(EntityImpl.class, writeNulls);
+        }
+
+        @Override
+        void WriteFields(EntityImpl entity, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            WriteString(gen, "type", entity.type);
+            WriteProperties(gen, provider, entity.properties());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.schema;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The JSON configuration shared by the Bot Framework libraries.
+ * <p>
+ * One mapper is configured, and its modules found, once per process. Code reads and writes
+ * through the {@link ObjectReader}s and {@link ObjectWriter}s handed out here, which are
+ * immutable, safe to share between threads, and cached per type, so neither a mapper nor the
+ * serializers for a type are built more than once.
+ * <p>
+ * Unknown properties are ignored when reading. {@link #WriterFor(Class)} writes every property;
+ * {@link #CompactWriterFor(Class)} leaves out those that are {@code null}, for JSON that is
+ * only read back by these libraries, such as transcripts and logs. Use
+ * {@code writer.withDefaultPrettyPrinter()} and the other {@code with} methods to derive a
+ * variant; the cached writer is not changed.
+ * <p>
+ * The mappers themselves are not handed out, since a change to their configuration would
+ * affect every caller.
+ */
+public final class Serialization {
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .findAndRegisterModules();
+    // A copy keeps the modules already found.
+    private static final ObjectMapper compactMapper = mapper.copy()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static final ConcurrentHashMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<JavaType, ObjectReader>();
+    private static final ConcurrentHashMap<JavaType, ObjectWriter> writers = new ConcurrentHashMap<JavaType, ObjectWriter>();
+    private static final ConcurrentHashMap<JavaType, ObjectWriter> compactWriters = new ConcurrentHashMap<JavaType, ObjectWriter>();
+
+    private Serialization() {
+    }
+
+    /**
+     * Gets the reader for a type.
+     *
+     * @param type The type to read.
+     * @return The reader.
+     */
+    public static ObjectReader ReaderFor(Class<?> type) {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        return ReaderFor(mapper.constructType(type));
+    }
+
+    /**
+     * Gets the reader for a generic type, such as a list of attachments.
+     *
+     * @param type The type to read.
+     * @return The reader.
+     */
+    public static ObjectReader ReaderFor(TypeReference<?> type) {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        return ReaderFor(mapper.getTypeFactory().constructType(type));
+    }
+
+    /**
+     * Gets the reader for a type.
+     *
+     * @param type The type to read.
+     * @return The reader.
+     */
+    public static ObjectReader ReaderFor(JavaType type) {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    /**
+     * Gets the writer for a type that writes every property.
+     *
+     * @param type The declared type of the values to write.
+     * @return The writer.
+     */
+    public static ObjectWriter WriterFor(Class<?> type) {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        return writers.computeIfAbsent(mapper.constructType(type), mapper::writerFor);
+    }
+
+    /**
+     * Gets the writer for a type that leaves out properties that are {@code null}.
+     *
+     * @param type The declared type of the values to write.
+     * @return The writer.
+     */
+    public static ObjectWriter CompactWriterFor(Class<?> type) {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        return compactWriters.computeIfAbsent(compactMapper.constructType(type), compactMapper::writerFor);
+    }
+
+    /**
+     * Gets the factory to create parsers and generators with, for code that streams JSON itself.
+     */
+    public static JsonFactory getFactory() {
+        return mapper.getFactory();
+    }
+
+    /**
+     * Converts a value to a JSON tree, writing every property.
+     *
+     * @param value The value.
+     * @return The tree, or {@code null} for a {@code null} value.
+     */
+    public static JsonNode ToTree(Object value) {
+        return mapper.valueToTree(value);
+    }
+
+    /**
+     * Converts a value to another type by writing it to a token buffer and binding the tokens,
+     * without going through JSON text or a tree. The result is always a new object, even when
+     * the value already has the type.
+     *
+     * @param value The value.
+     * @param type  The type to convert to.
+     * @return The converted value, or {@code null} for a {@code null} value.
+     * @throws JsonProcessingException The value does not fit the type.
+     */
+    public static <T> T Convert(Object value, Class<T> type) throws JsonProcessingException {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        if (value == null)
+            return null;
+
+        TokenBuffer buffer = new TokenBuffer(mapper, false);
+        try {
+            mapper.writeValue(buffer, value);
+            try (JsonParser parser = buffer.asParser()) {
+                return ReaderFor(type).readValue(parser);
+            }
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // A token buffer does no I/O.
+            throw JsonMappingException.fromUnexpectedIOE(e);
+        }
+    }
+
+    /**
+     * Binds a JSON tree to a type.
+     *
+     * @param node The tree.
+     * @param type The type to bind to.
+     * @return The value.
+     * @throws JsonProcessingException The tree does not fit the type.
+     */
+    public static <T> T TreeToValue(TreeNode node, Class<T> type) throws JsonProcessingException {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        return mapper.treeToValue(node, type);
+    }
+}
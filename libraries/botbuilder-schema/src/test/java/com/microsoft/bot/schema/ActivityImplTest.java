@@ -0,0 +1,115 @@
+package com.microsoft.bot.schema;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.bot.schema.models.Mention;
+import com.microsoft.bot.schema.models.Place;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ActivityImplTest {
+
+    private static EntityImpl MentionEntity(String id, String name) {
+        ObjectNode mentioned = JsonNodeFactory.instance.objectNode().put("id", id).put("name", name);
+        EntityImpl entity = new EntityImpl("mention");
+        entity.setProperties("mentioned", mentioned);
+        entity.setProperties("text", JsonNodeFactory.instance.textNode("<at>" + name + "</at>"));
+        return entity;
+    }
+
+    private static EntityImpl PlaceEntity(String name) {
+        EntityImpl entity = new EntityImpl("Place");
+        entity.setProperties("name", JsonNodeFactory.instance.textNode(name));
+        entity.setProperties("address", JsonNodeFactory.instance.textNode("1 Main St"));
+        return entity;
+    }
+
+    private static ActivityImpl CreateActivity(EntityImpl... entities) {
+        ActivityImpl activity = new ActivityImpl();
+        activity.withEntities(new ArrayList<EntityImpl>(Arrays.asList(entities)));
+        return activity;
+    }
+
+    @Test
+    public void GetMentionsReturnsMentions() {
+        ActivityImpl activity = CreateActivity(MentionEntity("bot1", "Bot"), PlaceEntity("Office"), MentionEntity("user1", "Ana"));
+
+        List<Mention> mentions = activity.GetMentions();
+
+        Assert.assertEquals(2, mentions.size());
+        Assert.assertEquals("bot1", mentions.get(0).mentioned().id());
+        Assert.assertEquals("<at>Bot</at>", mentions.get(0).text());
+        Assert.assertEquals("Ana", mentions.get(1).mentioned().name());
+    }
+
+    @Test
+    public void GetMentionsWithoutEntitiesIsEmpty() {
+        Assert.assertTrue(new ActivityImpl().GetMentions().isEmpty());
+        Assert.assertTrue(CreateActivity(PlaceEntity("Office")).GetMentions().isEmpty());
+    }
+
+    @Test
+    public void EntitiesAreConvertedOncePerType() {
+        ActivityImpl activity = CreateActivity(MentionEntity("bot1", "Bot"), PlaceEntity("Office"));
+
+        List<Mention> mentions = activity.GetEntities("mention", Mention.class);
+        List<Place> places = activity.GetEntities("place", Place.class);
+
+        Assert.assertSame(mentions, activity.GetEntities("Mention", Mention.class));
+        Assert.assertSame(places, activity.GetEntities("Place", Place.class));
+        Assert.assertEquals(1, places.size());
+        Assert.assertEquals("1 Main St", places.get(0).address());
+        // Each class has its own conversion.
+        List<EntityImpl> raw = activity.GetEntities("mention", EntityImpl.class);
+        Assert.assertEquals(1, raw.size());
+        Assert.assertSame(mentions, activity.GetEntities("mention", Mention.class));
+    }
+
+    @Test
+    public void ReplacingEntitiesConvertsAgain() {
+        ActivityImpl activity = CreateActivity(MentionEntity("bot1", "Bot"));
+        List<Mention> before = activity.GetEntities("mention", Mention.class);
+
+        activity.withEntities(new ArrayList<EntityImpl>(Arrays.asList(MentionEntity("user1", "Ana"))));
+        List<Mention> after = activity.GetEntities("mention", Mention.class);
+
+        Assert.assertNotSame(before, after);
+        Assert.assertEquals("user1", after.get(0).mentioned().id());
+    }
+
+    @Test
+    public void ChangingTheEntityListConvertsAgain() {
+        ActivityImpl activity = CreateActivity(MentionEntity("bot1", "Bot"));
+        Assert.assertEquals(1, activity.GetMentions().size());
+
+        activity.entities().add(MentionEntity("user1", "Ana"));
+        Assert.assertEquals(2, activity.GetMentions().size());
+
+        activity.entities().remove(0);
+        List<Mention> mentions = activity.GetMentions();
+        Assert.assertEquals(1, mentions.size());
+        Assert.assertEquals("user1", mentions.get(0).mentioned().id());
+    }
+
+    @Test
+    public void ChangingAnEntityInPlaceConvertsAgain() {
+        EntityImpl entity = MentionEntity("bot1", "Bot");
+        ActivityImpl activity = CreateActivity(entity);
+        Assert.assertEquals("bot1", activity.GetMentions().get(0).mentioned().id());
+
+        ((ObjectNode) entity.properties().get("mentioned")).put("id", "bot2");
+        Assert.assertEquals("bot2", activity.GetMentions().get(0).mentioned().id());
+
+        entity.type = "hashtag";
+        Assert.assertTrue(activity.GetMentions().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void ConvertedEntitiesCannotBeChanged() {
+        CreateActivity(MentionEntity("bot1", "Bot")).GetEntities("mention", Mention.class).clear();
+    }
+}
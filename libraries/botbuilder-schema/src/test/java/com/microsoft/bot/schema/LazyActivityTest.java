@@ -0,0 +1,147 @@
+package com.microsoft.bot.schema;
+
+import com.microsoft.bot.schema.models.ActivityTypes;
+import com.microsoft.bot.schema.models.Attachment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class LazyActivityTest {
+    private static final String Message = "{"
+            + "\"type\":\"message\","
+            + "\"id\":\"1234\","
+            + "\"timestamp\":\"2018-06-01T12:00:00.000Z\","
+            + "\"value\":{\"nested\":{\"list\":[1,{\"id\":\"not the activity id\"}],\"text\":\"not the text\"}},"
+            + "\"channelId\":\"msteams\","
+            + "\"serviceUrl\":\"https://smba.trafficmanager.net/emea/\","
+            + "\"from\":{\"id\":\"user1\",\"name\":\"Jörg ✓\",\"extra\":{\"deep\":[\"x\"]}},"
+            + "\"conversation\":{\"isGroup\":true,\"id\":\"conv1\",\"name\":\"General\"},"
+            + "\"recipient\":{\"id\":\"bot1\",\"name\":\"Bot\"},"
+            + "\"text\":\"héllo <at>Bot</at>\","
+            + "\"locale\":\"de-DE\","
+            + "\"replyToId\":\"1233\","
+            + "\"attachments\":[{\"contentType\":\"image/png\",\"contentUrl\":\"https://example.com/a.png\",\"name\":\"a ✓\"},"
+            + "{\"contentType\":\"application/vnd.microsoft.card.hero\",\"content\":{\"title\":\"Hero\",\"buttons\":[{\"type\":\"imBack\",\"value\":\"x\"}]}}],"
+            + "\"entities\":[{\"type\":\"mention\",\"text\":\"<at>Bot</at>\",\"mentioned\":{\"id\":\"bot1\",\"name\":\"Bot\"}}],"
+            + "\"channelData\":{\"tenant\":{\"id\":\"tenant1\"},\"team\":{\"id\":\"team1\",\"channels\":[{\"id\":\"c1\"}]}}"
+            + "}";
+
+    @Test
+    public void ReadsRoutingFields() throws IOException {
+        LazyActivity activity = LazyActivity.Parse(Message);
+
+        Assert.assertEquals(ActivityTypes.MESSAGE, activity.type());
+        Assert.assertEquals("1234", activity.id());
+        Assert.assertEquals(new org.joda.time.DateTime("2018-06-01T12:00:00.000Z").getMillis(), activity.timestamp().getMillis());
+        Assert.assertEquals("msteams", activity.channelId());
+        Assert.assertEquals("https://smba.trafficmanager.net/emea/", activity.serviceUrl());
+        Assert.assertEquals("user1", activity.fromId());
+        Assert.assertEquals("Jörg ✓", activity.fromName());
+        Assert.assertEquals("conv1", activity.conversationId());
+        Assert.assertEquals("bot1", activity.recipientId());
+        Assert.assertEquals("Bot", activity.recipientName());
+        Assert.assertEquals("héllo <at>Bot</at>", activity.text());
+        Assert.assertEquals("de-DE", activity.locale());
+        Assert.assertEquals("1233", activity.replyToId());
+        Assert.assertNull(activity.name());
+    }
+
+    @Test
+    public void BindsSkippedRangesLikeTheFullActivity() throws IOException {
+        // Multi-byte characters before the ranges check that they are byte offsets.
+        LazyActivity lazy = LazyActivity.Parse(Message);
+        ActivityImpl full = Serialization.ReaderFor(ActivityImpl.class).readValue(Message);
+
+        List<Attachment> attachments = lazy.attachments();
+        Assert.assertEquals(2, attachments.size());
+        Assert.assertEquals("a ✓", attachments.get(0).name());
+        Assert.assertEquals(Serialization.ToTree(full.attachments()), Serialization.ToTree(attachments));
+
+        List<EntityImpl> entities = lazy.entities();
+        Assert.assertEquals(1, entities.size());
+        Assert.assertEquals("mention", entities.get(0).type);
+        Assert.assertEquals(Serialization.ToTree(full.entities()), Serialization.ToTree(entities));
+
+        Map<?, ?> channelData = (Map<?, ?>) lazy.channelData();
+        Assert.assertEquals("tenant1", ((Map<?, ?>) channelData.get("tenant")).get("id"));
+        Assert.assertEquals(Serialization.ToTree(full.channelData()), Serialization.ToTree(channelData));
+
+        // Bound once.
+        Assert.assertSame(attachments, lazy.attachments());
+        Assert.assertSame(entities, lazy.entities());
+    }
+
+    @Test
+    public void ToActivityEqualsTheFullActivity() throws IOException {
+        ActivityImpl full = Serialization.ReaderFor(ActivityImpl.class).readValue(Message);
+        LazyActivity lazy = LazyActivity.Parse(new ByteArrayInputStream(Message.getBytes(StandardCharsets.UTF_8)));
+
+        ActivityImpl bound = lazy.ToActivity();
+        Assert.assertEquals(Serialization.ToTree(full), Serialization.ToTree(bound));
+        Assert.assertNotSame(bound, lazy.ToActivity());
+    }
+
+    @Test
+    public void MissingAndNullFieldsAreNull() throws IOException {
+        LazyActivity activity = LazyActivity.Parse("{\"type\":\"typing\",\"text\":null,\"from\":null,"
+                + "\"conversation\":{\"id\":null},\"recipient\":\"bot1\",\"attachments\":null,\"channelData\":null}");
+
+        Assert.assertEquals(ActivityTypes.TYPING, activity.type());
+        Assert.assertNull(activity.id());
+        Assert.assertNull(activity.timestamp());
+        Assert.assertNull(activity.text());
+        Assert.assertNull(activity.fromId());
+        Assert.assertNull(activity.conversationId());
+        Assert.assertNull(activity.recipientId());
+        Assert.assertNull(activity.attachments());
+        Assert.assertNull(activity.entities());
+        Assert.assertNull(activity.channelData());
+    }
+
+    @Test
+    public void ObjectsInPlaceOfScalarsAreSkipped() throws IOException {
+        LazyActivity activity = LazyActivity.Parse("{\"id\":{\"a\":[1,2]},\"text\":[\"x\"],\"channelId\":\"test\","
+                + "\"channelData\":\"opaque\"}");
+
+        Assert.assertNull(activity.id());
+        Assert.assertNull(activity.text());
+        Assert.assertEquals("test", activity.channelId());
+        Assert.assertEquals("opaque", activity.channelData());
+    }
+
+    @Test
+    public void RejectsMalformedInput() {
+        String[] inputs = { "[]", "\"message\"", "{\"type\":\"message\",", "{\"type\":\"message\" \"id\":\"1\"}", "" };
+        for (String input : inputs) {
+            try {
+                LazyActivity.Parse(input);
+                Assert.fail("expected exception was not occurred for " + input);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void FailsToBindMalformedRangeWhenAskedFor() throws IOException {
+        LazyActivity activity = LazyActivity.Parse("{\"id\":\"1\",\"attachments\":{\"contentType\":\"image/png\"}}");
+
+        Assert.assertEquals("1", activity.id());
+        try {
+            activity.attachments();
+            Assert.fail("expected exception was not occurred.");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("attachments"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RejectsNull() throws IOException {
+        LazyActivity.Parse((byte[]) null);
+    }
+}
@@ -0,0 +1,189 @@
+package com.microsoft.bot.schema;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.Attachment;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import com.microsoft.bot.schema.models.RoleTypes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ModelBindingModuleTest {
+    private static final ObjectMapper reflective = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .findAndRegisterModules();
+    private static final ObjectMapper bound = reflective.copy().registerModule(new ModelBindingModule());
+    private static final ObjectMapper compactReflective = reflective.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private static final ObjectMapper compactBound = bound.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static final List<Class<?>> BoundModels = Arrays.<Class<?>>asList(
+            Activity.class, ActivityImpl.class, ChannelAccount.class, ConversationAccount.class, Attachment.class, EntityImpl.class);
+
+    private static final String Message = "{"
+            + "\"type\":\"message\","
+            + "\"id\":\"1234\","
+            + "\"timestamp\":\"2018-06-01T12:00:00.000Z\","
+            + "\"serviceUrl\":\"https://smba.trafficmanager.net/emea/\","
+            + "\"channelId\":\"msteams\","
+            + "\"from\":{\"id\":\"user1\",\"name\":\"User\",\"role\":\"user\",\"aadObjectId\":\"aad1\",\"nothing\":null},"
+            + "\"conversation\":{\"isGroup\":true,\"conversationType\":\"channel\",\"id\":\"conv1\",\"name\":\"General\"},"
+            + "\"recipient\":{\"id\":\"bot1\",\"name\":\"Bot\",\"role\":\"bot\"},"
+            + "\"textFormat\":\"markdown\","
+            + "\"attachmentLayout\":\"carousel\","
+            + "\"membersAdded\":[{\"id\":\"user2\"}],"
+            + "\"historyDisclosed\":false,"
+            + "\"locale\":\"en-US\","
+            + "\"text\":\"hello <at>Bot</at>\","
+            + "\"inputHint\":\"acceptingInput\","
+            + "\"attachments\":[{\"contentType\":\"image/png\",\"contentUrl\":\"https://example.com/a.png\",\"name\":\"a.png\"},"
+            + "{\"contentType\":\"application/vnd.microsoft.card.hero\",\"content\":{\"title\":\"Hero\",\"buttons\":[{\"type\":\"imBack\",\"value\":\"x\"}]},\"layout\":\"wide\"}],"
+            + "\"entities\":[{\"type\":\"mention\",\"text\":\"<at>Bot</at>\",\"mentioned\":{\"id\":\"bot1\",\"name\":\"Bot\"}},{\"type\":\"clientInfo\",\"locale\":null}],"
+            + "\"channelData\":{\"tenant\":{\"id\":\"tenant1\"}},"
+            + "\"replyToId\":\"1233\","
+            + "\"value\":[1,\"two\",{\"three\":3.5}],"
+            + "\"relatesTo\":{\"activityId\":\"1\",\"conversation\":{\"id\":\"conv1\",\"isGroup\":false}},"
+            + "\"code\":\"completedSuccessfully\","
+            + "\"deliveryMode\":\"normal\","
+            + "\"unknownTop\":{\"deep\":[true,null]}"
+            + "}";
+
+    private static void AssertSameJson(Object value, Class<?> type) throws IOException {
+        Assert.assertEquals(reflective.writerFor(type).writeValueAsString(value), bound.writerFor(type).writeValueAsString(value));
+        Assert.assertEquals(compactReflective.writerFor(type).writeValueAsString(value), compactBound.writerFor(type).writeValueAsString(value));
+    }
+
+    private static void AssertSameRead(String json, Class<?> type) throws IOException {
+        Object expected = reflective.readerFor(type).readValue(json);
+        Object actual = bound.readerFor(type).readValue(json);
+        Assert.assertEquals(type, actual.getClass());
+        Assert.assertEquals(reflective.writeValueAsString(expected), reflective.writeValueAsString(actual));
+    }
+
+    @Test
+    public void ReadsAndWritesAnActivityAsReflectionDoes() throws IOException {
+        AssertSameRead(Message, ActivityImpl.class);
+        AssertSameRead(Message, Activity.class);
+
+        ActivityImpl activity = reflective.readerFor(ActivityImpl.class).readValue(Message);
+        AssertSameJson(activity, ActivityImpl.class);
+        AssertSameJson(activity, Activity.class);
+    }
+
+    @Test
+    public void EmptyModelsWriteTheSameProperties() throws IOException {
+        // Every property of a new model is null, so this fails when a property is added to a model but not to its serializer.
+        for (Class<?> type : BoundModels) {
+            try {
+                AssertSameJson(type.newInstance(), type);
+            } catch (ReflectiveOperationException e) {
+                throw new AssertionError(type.getName(), e);
+            }
+        }
+    }
+
+    @Test
+    public void EveryKnownPropertyIsRead() throws IOException {
+        // A fully populated activity written by reflection reads back to the same JSON.
+        ActivityImpl activity = reflective.readerFor(ActivityImpl.class).readValue(Message);
+        String json = reflective.writeValueAsString(activity);
+
+        AssertSameRead(json, ActivityImpl.class);
+        Assert.assertEquals(json, reflective.writeValueAsString(bound.readerFor(ActivityImpl.class).readValue(json)));
+    }
+
+    @Test
+    public void ExplicitNullsReadAsNull() throws IOException {
+        String json = "{\"type\":null,\"id\":null,\"timestamp\":null,\"from\":null,\"conversation\":{\"isGroup\":null,\"id\":null},"
+                + "\"attachments\":null,\"entities\":[{\"type\":null}],\"value\":null,\"channelData\":null,\"code\":null}";
+        AssertSameRead(json, ActivityImpl.class);
+
+        ActivityImpl activity = bound.readerFor(ActivityImpl.class).readValue(json);
+        Assert.assertNull(activity.type());
+        Assert.assertNull(activity.from());
+        Assert.assertNull(activity.conversation().isGroup());
+        Assert.assertNull(activity.attachments());
+    }
+
+    @Test
+    public void OverflowPropertiesAreKeptWithTheirNulls() throws IOException {
+        ChannelAccount account = new ChannelAccount().withId("user1");
+        account.setProperties("aadObjectId", JsonNodeFactory.instance.textNode("aad1"));
+        account.setProperties("nothing", JsonNodeFactory.instance.nullNode());
+        account.setProperties("missing", null);
+        AssertSameJson(account, ChannelAccount.class);
+
+        Attachment attachment = new Attachment().withContentType("text/plain");
+        attachment.setProperties("layout", JsonNodeFactory.instance.objectNode().put("width", 2));
+        AssertSameJson(attachment, Attachment.class);
+
+        EntityImpl entity = new EntityImpl();
+        entity.type = "clientInfo";
+        entity.setProperties("locale", JsonNodeFactory.instance.textNode("en-US"));
+        AssertSameJson(entity, EntityImpl.class);
+
+        AssertSameRead("{\"id\":\"user1\",\"aadObjectId\":\"aad1\",\"nothing\":null,\"nested\":{\"a\":[1,2]}}", ChannelAccount.class);
+        AssertSameRead("{\"type\":\"clientInfo\",\"locale\":\"en-US\",\"country\":null}", EntityImpl.class);
+    }
+
+    @Test
+    public void ConversationAccountWritesGroupAndIsGroup() throws IOException {
+        ConversationAccount account = new ConversationAccount().withIsGroup(true).withId("conv1").withRole(RoleTypes.USER);
+        AssertSameJson(account, ConversationAccount.class);
+        Assert.assertTrue(bound.writeValueAsString(account).contains("\"group\":true,\"isGroup\":true"));
+
+        // "group" is only written: reflective binding has no setter for it and ignores it when reading.
+        AssertSameRead("{\"group\":false,\"isGroup\":true,\"id\":\"conv1\"}", ConversationAccount.class);
+        AssertSameRead("{\"group\":true,\"id\":\"conv1\"}", ConversationAccount.class);
+    }
+
+    @Test
+    public void AttachmentContentIsBoundAsReflectionDoes() throws IOException {
+        AssertSameRead("{\"contentType\":\"application/json\",\"content\":{\"a\":[1,2,{\"b\":null}]}}", Attachment.class);
+        AssertSameRead("{\"contentType\":\"text/plain\",\"content\":\"text\"}", Attachment.class);
+        AssertSameRead("{\"contentType\":\"application/json\",\"content\":42}", Attachment.class);
+
+        Attachment attachment = new Attachment()
+                .withContentType("application/vnd.microsoft.card.hero")
+                .withContent(Collections.singletonMap("title", "Hero"));
+        AssertSameJson(attachment, Attachment.class);
+    }
+
+    @Test
+    public void CompactWriterLeavesOutNulls() throws IOException {
+        ActivityImpl activity = new ActivityImpl();
+        activity.withId("1").withFrom(new ChannelAccount().withId("user1")).withConversation(new ConversationAccount().withId("conv1"));
+        AssertSameJson(activity, ActivityImpl.class);
+
+        // ActivityImpl's constant ContentType is written too, ahead of the Activity properties.
+        Assert.assertEquals("{\"ContentType\":\"application/vnd.microsoft.activity\",\"id\":\"1\",\"from\":{\"id\":\"user1\"},\"conversation\":{\"id\":\"conv1\"}}",
+                compactBound.writeValueAsString(activity));
+    }
+
+    @Test
+    public void UnknownPropertiesFailWhenTheMapperSaysSo() throws IOException {
+        ObjectMapper strictReflective = reflective.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+        ObjectMapper strictBound = bound.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+        String json = "{\"id\":\"conv1\",\"tenantId\":\"tenant1\"}";
+
+        for (ObjectMapper mapper : Arrays.asList(strictReflective, strictBound)) {
+            try {
+                mapper.readerFor(ConversationAccount.class).readValue(json);
+                Assert.fail("expected an unrecognized property");
+            } catch (UnrecognizedPropertyException e) {
+                Assert.assertEquals("tenantId", e.getPropertyName());
+            }
+        }
+        // Models with overflow properties keep them instead.
+        AssertSameRead("{\"id\":\"user1\",\"tenantId\":\"tenant1\"}", ChannelAccount.class);
+    }
+}
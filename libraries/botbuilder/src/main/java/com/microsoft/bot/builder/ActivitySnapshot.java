@@ -0,0 +1,138 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.microsoft.bot.schema.Serialization;
+import com.microsoft.bot.schema.models.Activity;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An activity as it was at one moment, serialized once to JSON (null fields are left out).
+ * <p>Transcript logging captures each activity as a snapshot when it is logged. The snapshot
+ * cannot change afterwards, even if the bot keeps changing the activity or the objects it
+ * shares with other activities, and it can be handed between threads freely. Loggers that
+ * implement {@link SnapshotTranscriptLogger} consume the JSON directly; others are given a
+ * fresh copy of the activity from {@link #ToActivity()}.</p>
+ */
+public final class ActivitySnapshot {
+    private static final ObjectWriter writer = Serialization.CompactWriterFor(Activity.class);
+    private static final ObjectReader reader = Serialization.ReaderFor(Activity.class);
+
+    private final byte[] json;
+    private final String id;
+    private final String channelId;
+    private final String conversationId;
+    private final String fromId;
+    private final String text;
+    private final DateTime timestamp;
+
+    private ActivitySnapshot(byte[] json, Activity activity) {
+        this.json = json;
+        this.id = activity.id();
+        this.channelId = activity.channelId();
+        this.conversationId = (activity.conversation() != null) ? activity.conversation().id() : null;
+        this.fromId = (activity.from() != null) ? activity.from().id() : null;
+        this.text = activity.text();
+        this.timestamp = activity.timestamp();
+    }
+
+    /**
+     * Captures an activity.
+     *
+     * @param activity The activity to capture.
+     * @return The snapshot.
+     */
+    public static ActivitySnapshot Of(Activity activity) {
+        BotAssert.ActivityNotNull(activity);
+        try {
+            return new ActivitySnapshot(writer.writeValueAsBytes(activity), activity);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(String.format("ActivitySnapshot: failed to serialize activity %s: %s", activity.id(), e.toString()), e);
+        }
+    }
+
+    /**
+     * Gets the id of the activity.
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the channel id of the activity.
+     */
+    public String getChannelId() {
+        return this.channelId;
+    }
+
+    /**
+     * Gets the id of the conversation the activity belongs to.
+     */
+    public String getConversationId() {
+        return this.conversationId;
+    }
+
+    /**
+     * Gets the id of the sender of the activity.
+     */
+    public String getFromId() {
+        return this.fromId;
+    }
+
+    /**
+     * Gets the text of the activity.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Gets the timestamp of the activity.
+     */
+    public DateTime getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Gets the activity as JSON, without copying.
+     *
+     * @return A read-only view of the JSON bytes.
+     */
+    public ByteBuffer AsByteBuffer() {
+        return ByteBuffer.wrap(this.json).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the activity as JSON.
+     *
+     * @param stream The stream to write to.
+     */
+    public void WriteTo(OutputStream stream) throws IOException {
+        stream.write(this.json);
+    }
+
+    /**
+     * Gets a new copy of the activity. Each call returns an independent object.
+     */
+    public Activity ToActivity() {
+        try {
+            return reader.readValue(this.json);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("ActivitySnapshot: failed to read activity %s: %s", this.id, e.toString()), e);
+        }
+    }
+
+    /**
+     * Gets the JSON bytes themselves, for code in this package that will not change them.
+     */
+    byte[] Bytes() {
+        return this.json;
+    }
+}
@@ -0,0 +1,322 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.models.Activity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A transcript logger that queues activities and writes them to another transcript logger
+ * from a background thread, so a slow transcript sink does not add to turn latency.
+ * <p>Activities go into a bounded queue. The writer thread takes them off in batches of up
+ * to {@code batchSize}, waiting up to {@code linger} after the first activity for a batch to
+ * fill, and logs each one to the wrapped logger in order; batching only sets how activities
+ * are taken off the queue, and the wrapped logger is still called once per activity. When the
+ * queue is full, the {@link OverflowPolicy} decides whether the newest or oldest activity is
+ * dropped or the caller waits for room.</p>
+ * <p>Once {@link #close()} has been called no activity is accepted, and every activity accepted
+ * before it is written. Callers still waiting for room when the logger closes give up, and
+ * their activities are counted as dropped.</p>
+ *
+ * <example>
+ * <code>
+ * adapter.Use(new TranscriptLoggerMiddleware(new BatchingTranscriptLogger(transcriptStore)));
+ * </code>
+ * </example>
+ */
+public class BatchingTranscriptLogger implements SnapshotTranscriptLogger, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(BatchingTranscriptLogger.class);
+
+    /**
+     * What to do with an activity when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the activity being logged.
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest queued activity to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Wait for room in the queue, until the logger is closed.
+         */
+        BLOCK
+    }
+
+    private final TranscriptLogger transcriptLogger;
+    private final ArrayBlockingQueue<ActivitySnapshot> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final OverflowPolicy policy;
+    private final Thread writer;
+    private volatile boolean closed;
+    /** Held shared while an activity is queued and exclusively to close, so no activity is queued after the writer stops. */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final Object progress = new Object();
+
+    /**
+     * Creates a logger with a queue of 10000 activities, batches of 100, a 50 ms linger,
+     * and {@link OverflowPolicy#DROP_NEWEST}.
+     *
+     * @param transcriptLogger The transcript logger to write to.
+     */
+    public BatchingTranscriptLogger(TranscriptLogger transcriptLogger) {
+        this(transcriptLogger, 10000, 100, Duration.ofMillis(50), OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Creates a logger.
+     *
+     * @param transcriptLogger The transcript logger to write to.
+     * @param capacity         The most activities to hold in the queue.
+     * @param batchSize        The most activities to take off the queue at once.
+     * @param linger           How long to wait for a batch to fill once it has one activity.
+     * @param policy           What to do with an activity when the queue is full.
+     */
+    public BatchingTranscriptLogger(TranscriptLogger transcriptLogger, int capacity, int batchSize, Duration linger, OverflowPolicy policy) {
+        if (transcriptLogger == null)
+            throw new IllegalArgumentException("transcriptLogger");
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize");
+        if (linger == null || linger.isNegative())
+            throw new IllegalArgumentException("linger");
+        if (policy == null)
+            throw new IllegalArgumentException("policy");
+
+        this.transcriptLogger = transcriptLogger;
+        this.queue = new ArrayBlockingQueue<ActivitySnapshot>(capacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.policy = policy;
+        this.writer = new Thread(this::Run, "BatchingTranscriptLogger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues an activity to be logged.
+     *
+     * @param activity The activity to transcribe.
+     */
+    @Override
+    public void LogActivityAsync(Activity activity) {
+        LogSnapshot(ActivitySnapshot.Of(activity));
+    }
+
+    /**
+     * Queues an activity snapshot to be logged.
+     *
+     * @param snapshot The snapshot to transcribe.
+     */
+    @Override
+    public void LogSnapshot(ActivitySnapshot snapshot) {
+        if (snapshot == null)
+            throw new IllegalArgumentException("snapshot");
+
+        this.lock.readLock().lock();
+        try {
+            if (this.closed)
+                throw new IllegalStateException("BatchingTranscriptLogger is closed");
+
+            switch (this.policy) {
+                case DROP_NEWEST:
+                    if (!this.queue.offer(snapshot)) {
+                        Dropped();
+                        return;
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!this.queue.offer(snapshot)) {
+                        if (this.queue.poll() != null)
+                            Dropped();
+                    }
+                    break;
+                case BLOCK:
+                    try {
+                        while (!this.queue.offer(snapshot, 10, TimeUnit.MILLISECONDS)) {
+                            // Let close() in between waits; once it has, stop waiting.
+                            this.lock.readLock().unlock();
+                            this.lock.readLock().lock();
+                            if (this.closed) {
+                                Dropped();
+                                return;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        Dropped();
+                        return;
+                    }
+                    break;
+            }
+            this.enqueued.incrementAndGet();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until every activity queued so far has been written.
+     *
+     * @param timeout How long to wait.
+     * @return {@code true} if the queue was drained; {@code false} if the timeout elapsed first.
+     */
+    public boolean Flush(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (this.progress) {
+            while (getQueueDepth() > 0 || Done() < this.enqueued.get() - DroppedFromQueue()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return false;
+                TimeUnit.NANOSECONDS.timedWait(this.progress, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting activities, writes the ones already queued and stops the writer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        Close();
+        this.writer.join();
+    }
+
+    private void Close() {
+        this.lock.writeLock().lock();
+        try {
+            this.closed = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of activities accepted into the queue.
+     */
+    public long getEnqueuedCount() {
+        return this.enqueued.get();
+    }
+
+    /**
+     * Gets the number of activities dropped because the queue was full, including those still
+     * waiting for room when the logger closed.
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Gets the number of activities written to the wrapped logger.
+     */
+    public long getLoggedCount() {
+        return this.logged.get();
+    }
+
+    /**
+     * Gets the number of activities the wrapped logger failed to write.
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * Gets the number of batches taken off the queue.
+     */
+    public long getBatchCount() {
+        return this.batches.get();
+    }
+
+    /**
+     * Gets the number of activities waiting in the queue.
+     */
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    private void Run() {
+        List<ActivitySnapshot> batch = new ArrayList<ActivitySnapshot>(this.batchSize);
+        while (!this.closed || !this.queue.isEmpty()) {
+            try {
+                ActivitySnapshot first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + this.lingerNanos;
+                while (batch.size() < this.batchSize) {
+                    if (this.queue.drainTo(batch, this.batchSize - batch.size()) > 0)
+                        continue;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || this.closed)
+                        break;
+                    ActivitySnapshot next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Close();
+            }
+
+            if (!batch.isEmpty()) {
+                Write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void Write(List<ActivitySnapshot> batch) {
+        this.batches.incrementAndGet();
+        for (ActivitySnapshot snapshot : batch) {
+            try {
+                if (this.transcriptLogger instanceof SnapshotTranscriptLogger)
+                    ((SnapshotTranscriptLogger) this.transcriptLogger).LogSnapshot(snapshot);
+                else
+                    this.transcriptLogger.LogActivityAsync(snapshot.ToActivity());
+                this.logged.incrementAndGet();
+            } catch (RuntimeException e) {
+                this.failed.incrementAndGet();
+                logger.error(String.format("BatchingTranscriptLogger: failed to log activity %s: %s", snapshot.getId(), e.toString()));
+            }
+        }
+        synchronized (this.progress) {
+            this.progress.notifyAll();
+        }
+    }
+
+    private void Dropped() {
+        long count = this.dropped.incrementAndGet();
+        if (count == 1 || count % 1000 == 0) {
+            logger.warn(String.format("BatchingTranscriptLogger: queue full, %d activities dropped (%s policy)", count, this.policy));
+        }
+    }
+
+    private long Done() {
+        return this.logged.get() + this.failed.get();
+    }
+
+    private long DroppedFromQueue() {
+        return (this.policy == OverflowPolicy.DROP_OLDEST) ? this.dropped.get() : 0;
+    }
+}
@@ -6,8 +6,9 @@ package com.microsoft.bot.builder;
 import com.microsoft.bot.connector.ConnectorClient;
 import com.microsoft.bot.connector.Conversations;
 import com.microsoft.bot.connector.authentication.*;
+import com.microsoft.bot.connector.implementation.AttachmentCache;
+import com.microsoft.bot.connector.implementation.CircuitBreakerInterceptor;
 import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
-import com.microsoft.bot.connector.implementation.ConversationsImpl;
 import com.microsoft.bot.schema.ActivityImpl;
 import com.microsoft.bot.schema.models.*;
 import com.microsoft.rest.retry.RetryStrategy;
@@ -17,11 +18,18 @@ import sun.net.www.http.HttpClient;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
@@ -47,9 +55,13 @@ public class BotFrameworkAdapter extends BotAdapter {
     private final CredentialProvider _credentialProvider;
 
     private final RetryStrategy connectorClientRetryStrategy;
+    private volatile CircuitBreakerInterceptor connectorCircuitBreaker;
+    private volatile AttachmentCache attachmentCache;
+    private volatile SendRateLimiter sendRateLimiter;
     private Map<String, MicrosoftAppCredentials> appCredentialMap = new HashMap<String, MicrosoftAppCredentials>();
 
     private final String InvokeReponseKey = "BotFrameworkAdapter.InvokeResponse";
+    private final String SendRateLimiterKey = "BotFrameworkAdapter.SendRateLimiter";
     private boolean isEmulatingOAuthCards = false;
 
     /**
@@ -89,6 +101,68 @@ public class BotFrameworkAdapter extends BotAdapter {
         }
     }
 
+    /**
+     * Gets the circuit breaker and bulkhead shared by the connector clients of this adapter, if any.
+     *
+     * @return The circuit breaker, or {@code null} when connector calls do not go through one.
+     */
+    public CircuitBreakerInterceptor getConnectorCircuitBreaker() {
+        return this.connectorCircuitBreaker;
+    }
+
+    /**
+     * Sets a circuit breaker and bulkhead for the connector clients this adapter creates from
+     * then on. Each service URL gets its own circuit and concurrency limit, so one slow or failing
+     * channel cannot hold up the others. A call the breaker rejects fails with a
+     * {@link com.microsoft.bot.connector.implementation.CallRejectedException}, so give the
+     * bulkhead a max wait when bursts should queue rather than fail.
+     *
+     * @param connectorCircuitBreaker The circuit breaker, or {@code null} for none.
+     */
+    public void setConnectorCircuitBreaker(CircuitBreakerInterceptor connectorCircuitBreaker) {
+        this.connectorCircuitBreaker = connectorCircuitBreaker;
+    }
+
+    /**
+     * Gets the attachment cache shared by the connector clients of this adapter, if any.
+     *
+     * @return The attachment cache, or {@code null} when attachments are not cached.
+     */
+    public AttachmentCache getAttachmentCache() {
+        return this.attachmentCache;
+    }
+
+    /**
+     * Sets an attachment cache for the connector clients this adapter creates from then on. Each
+     * turn gets its own connector client, so attachments, attachment info and uploads are only
+     * reused across turns through a cache set here.
+     *
+     * @param attachmentCache The attachment cache, or {@code null} for none.
+     */
+    public void setAttachmentCache(AttachmentCache attachmentCache) {
+        this.attachmentCache = attachmentCache;
+    }
+
+    /**
+     * Gets the limiter that paces the activities this adapter sends, if any.
+     *
+     * @return The rate limiter, or {@code null} when sends are not limited.
+     */
+    public SendRateLimiter getSendRateLimiter() {
+        return this.sendRateLimiter;
+    }
+
+    /**
+     * Sets a limiter that paces the activities this adapter sends, per conversation and per channel.
+     * Sends over the rates wait in {@link #SendActivities(TurnContext, Activity[])} instead of being
+     * throttled by the channel, which keeps proactive bursts from turning into retry storms.
+     *
+     * @param sendRateLimiter The rate limiter, or {@code null} to not limit sends.
+     */
+    public void setSendRateLimiter(SendRateLimiter sendRateLimiter) {
+        this.sendRateLimiter = sendRateLimiter;
+    }
+
     /**
      * Sends a proactive message from the bot to a conversation.
      *
@@ -127,12 +201,7 @@ public class BotFrameworkAdapter extends BotAdapter {
             throw new IllegalArgumentException("callback");
 
         try (TurnContextImpl context = new TurnContextImpl(this, new ConversationReferenceHelper(reference).GetPostToBotMessage())) {
-            // Hand craft Claims Identity.
-            HashMap<String, String> claims = new HashMap<String, String>();
-            claims.put(AuthenticationConstants.AudienceClaim, botAppId);
-            claims.put(AuthenticationConstants.AppIdClaim, botAppId);
-            ClaimsIdentityImpl claimsIdentity = new ClaimsIdentityImpl("ExternalBearer", claims);
-
+            ClaimsIdentityImpl claimsIdentity = BotIdentity(botAppId);
             context.getServices().Add("BotIdentity", claimsIdentity);
 
             ConnectorClient connectorClient = this.CreateConnectorClientAsync(reference.serviceUrl(), claimsIdentity).join();
@@ -142,6 +211,108 @@ public class BotFrameworkAdapter extends BotAdapter {
         return;
     }
 
+    /**
+     * Sends a proactive message from the bot to each conversation of a stream, such as a
+     * notification to every user who talked to the bot.
+     * <p>Turns run on up to {@link BroadcastOptions#getMaxConcurrency()} threads, while the stream
+     * is read only as fast as turns finish, so it can be backed by a store cursor. The run creates
+     * one connector client per service URL and shares it between turns, and paces the sends of
+     * all turns with one {@link SendRateLimiter}, so a burst stays within the channels' limits.
+     * Each turn sends on its own thread, so the turns to a service URL are not queued behind
+     * each other by the shared client.</p>
+     * <p>A turn that fails is reported to {@link BroadcastListener#OnFailure} and the run goes on.
+     * The listener also gets the progress of the run: to resume a run that stopped, pass the same
+     * stream with the last progress reported, its checkpoint to {@link BroadcastOptions#withStartAt(long)},
+     * its finished positions to {@link BroadcastOptions#withFinished} and its failed positions to
+     * {@link BroadcastOptions#withRetry}. The resumed run runs the failed turns again, and every
+     * turn that had not run by the time of that report. Turns that ran after it, or that were running
+     * when the run stopped, may run twice: a conversation gets its message at least once.</p>
+     *
+     * @param botAppId   The application ID of the bot.
+     * @param references The conversations to continue.
+     * @param callback   The method to call for each bot turn.
+     * @param options    The settings for the run, or {@code null} for the defaults.
+     * @return The progress of the run once every turn has finished.
+     * @throws IllegalArgumentException {@code botAppId}, {@code references}, or
+     *                                  {@code callback} is {@code null}.
+     * @throws InterruptedException The thread was interrupted. No more turns are started; turns
+     *                              already running finish and still report their checkpoints.
+     */
+    public BroadcastProgress Broadcast(String botAppId, Stream<ConversationReference> references, Consumer<TurnContext> callback, BroadcastOptions options) throws InterruptedException {
+        if (StringUtils.isEmpty(botAppId))
+            throw new IllegalArgumentException("botAppId");
+
+        if (references == null)
+            throw new IllegalArgumentException("references");
+
+        if (callback == null)
+            throw new IllegalArgumentException("callback");
+
+        BroadcastOptions settings = (options != null) ? options : new BroadcastOptions();
+        SendRateLimiter limiter = settings.getRateLimiter();
+        if (limiter == null)
+            limiter = (this.sendRateLimiter != null) ? this.sendRateLimiter : new SendRateLimiter();
+
+        ClaimsIdentityImpl claimsIdentity = BotIdentity(botAppId);
+        MicrosoftAppCredentials appCredentials = this.GetAppCredentialsAsync(botAppId).join();
+        Map<String, ConnectorClient> connectorClients = new ConcurrentHashMap<String, ConnectorClient>();
+        BroadcastTracker tracker = new BroadcastTracker(settings);
+
+        int concurrency = settings.getMaxConcurrency();
+        Semaphore slots = new Semaphore(concurrency);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "Broadcast-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        SendRateLimiter sendRateLimiter = limiter;
+        try {
+            // Failed turns of a previous run may come before the checkpoint.
+            long startAt = settings.getStartAt();
+            long position = settings.getRetry().isEmpty() ? startAt : Math.min(startAt, settings.getRetry().first());
+            Iterator<ConversationReference> iterator = references.skip(position).iterator();
+            while (iterator.hasNext()) {
+                ConversationReference reference = iterator.next();
+                long index = position++;
+                if ((index < startAt) ? !settings.getRetry().contains(index) : settings.getFinished().contains(index))
+                    continue;
+                slots.acquire();
+                tracker.Started();
+                workers.execute(() -> {
+                    try {
+                        if (reference == null || StringUtils.isEmpty(reference.serviceUrl()))
+                            throw new IllegalArgumentException("reference");
+
+                        ConnectorClient connectorClient = connectorClients.computeIfAbsent(reference.serviceUrl(), serviceUrl -> {
+                            try {
+                                return this.CreateConnectorClient(serviceUrl, appCredentials);
+                            } catch (MalformedURLException | URISyntaxException e) {
+                                throw new IllegalArgumentException(String.format("Bad Service URL: %s", serviceUrl), e);
+                            }
+                        });
+                        try (TurnContextImpl context = new TurnContextImpl(this, new ConversationReferenceHelper(reference).GetPostToBotMessage())) {
+                            context.getServices().Add("BotIdentity", claimsIdentity);
+                            context.getServices().Add("ConnectorClient", connectorClient);
+                            context.getServices().Add(SendRateLimiterKey, sendRateLimiter);
+                            RunPipeline(context, callback);
+                        }
+                        tracker.Finished(index, null, null);
+                    } catch (Throwable e) {
+                        tracker.Finished(index, reference, e);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            tracker.Ended();
+            slots.acquire(concurrency);
+        } finally {
+            workers.shutdown();
+        }
+        return tracker.Progress();
+    }
+
     /**
      * Initializes a new instance of the {@link BotFrameworkAdapter} class,
      * using an application ID and secret.
@@ -294,9 +465,11 @@ public class BotFrameworkAdapter extends BotAdapter {
             } else if (activity.type() == ActivityTypes.TRACE && !activity.channelId().equals("emulator")) {
                 // if it is a Trace activity we only send to the channel if it's the emulator.
             } else if (!StringUtils.isEmpty(activity.replyToId())) {
+                AcquireSend(context, activity);
                 ConnectorClient connectorClient = context.getServices().Get("ConnectorClient");
-                response = connectorClient.conversations().replyToActivity(activity.conversation().id(), activity.id(), activity);
+                response = connectorClient.conversations().replyToActivity(activity.conversation().id(), activity.replyToId(), activity);
             } else {
+                AcquireSend(context, activity);
                 ConnectorClient connectorClient = context.getServices().Get("ConnectorClient");
                 response = connectorClient.conversations().sendToConversation(activity.conversation().id(), activity);
             }
@@ -320,6 +493,19 @@ public class BotFrameworkAdapter extends BotAdapter {
         return responses;
     }
 
+    /**
+     * Waits until the send rate limiter of the turn or of the adapter, if any, lets an activity
+     * go to its conversation.
+     */
+    private void AcquireSend(TurnContext context, Activity activity) throws InterruptedException {
+        SendRateLimiter limiter = context.getServices().Get(SendRateLimiterKey);
+        if (limiter == null)
+            limiter = this.sendRateLimiter;
+        if (limiter != null) {
+            limiter.Acquire(activity.channelId(), (activity.conversation() != null) ? activity.conversation().id() : null);
+        }
+    }
+
     /**
      * Replaces an existing activity in the conversation.
      *
@@ -352,15 +538,7 @@ public class BotFrameworkAdapter extends BotAdapter {
      */
     public void DeleteActivity(TurnContext context, ConversationReference reference) {
         ConnectorClientImpl connectorClient = context.getServices().Get("ConnectorClient");
-        try {
-            connectorClient.conversations().deleteConversationMemberFuture(reference.conversation().id(), reference.activityId()).join();
-        } catch (ExecutionException e) {
-            e.printStackTrace();
-            throw new RuntimeException(String.format("Failed deleting activity (%s)", e.toString()));
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-            throw new RuntimeException(String.format("Failed deleting activity (%s)", e.toString()));
-        }
+        connectorClient.conversations().deleteActivity(reference.conversation().id(), reference.activityId());
         return;
     }
 
@@ -591,14 +769,8 @@ public class BotFrameworkAdapter extends BotAdapter {
             }
 
             Conversations conv = connectorClient.conversations();
-            List<ConversationResourceResponse> results = null;
-            if (conv instanceof ConversationsImpl) {
-                ConversationsImpl convImpl = (ConversationsImpl) conv;
-                results = convImpl.CreateConversationAsync(conversationParameters).join();
-            } else {
-                results = new ArrayList<ConversationResourceResponse>();
-                results.add(conv.createConversation(conversationParameters));
-            }
+            List<ConversationResourceResponse> results = new ArrayList<ConversationResourceResponse>();
+            results.add(conv.createConversation(conversationParameters));
             if (results.size() == 1) {
 
                 ConversationResourceResponse result = results.get(0);
@@ -653,6 +825,19 @@ public class BotFrameworkAdapter extends BotAdapter {
         return new OAuthClient(client, AuthenticationConstants.OAuthUrl);
     }
 
+    /**
+     * Hand crafts the claims identity of a bot for a proactive turn.
+     *
+     * @param botAppId The application ID of the bot.
+     * @return The claims identity.
+     */
+    private static ClaimsIdentityImpl BotIdentity(String botAppId) {
+        HashMap<String, String> claims = new HashMap<String, String>();
+        claims.put(AuthenticationConstants.AudienceClaim, botAppId);
+        claims.put(AuthenticationConstants.AppIdClaim, botAppId);
+        return new ClaimsIdentityImpl("ExternalBearer", claims);
+    }
+
     /**
      * Creates the connector client asynchronous.
      *
@@ -735,18 +920,13 @@ public class BotFrameworkAdapter extends BotAdapter {
     }
 
     private ConnectorClient CreateConnectorClient(String serviceUrl, MicrosoftAppCredentials appCredentials) throws MalformedURLException, URISyntaxException {
-        ConnectorClientImpl connectorClient = null;
-        if (appCredentials != null) {
-            connectorClient = new ConnectorClientImpl(new URI(serviceUrl).toURL().toString(), appCredentials);
-        }
-        // TODO: Constructor necessary?
-//        else {
-//
-//            connectorClient = new ConnectorClientImpl(new URI(serviceUrl).toURL().toString());
-//        }
+        // Without credentials, calls are sent unauthenticated (e.g. to the emulator).
+        ConnectorClientImpl connectorClient = new ConnectorClientImpl(new URI(serviceUrl).toURL().toString(), appCredentials, this.connectorCircuitBreaker);
 
         if (this.connectorClientRetryStrategy != null)
             connectorClient.withRestRetryStrategy(this.connectorClientRetryStrategy);
+        if (this.attachmentCache != null)
+            connectorClient.withAttachmentCache(this.attachmentCache);
 
 
         return connectorClient;
@@ -776,4 +956,94 @@ public class BotFrameworkAdapter extends BotAdapter {
         return result;
     }
 
+    /**
+     * Counts the turns of a broadcast and advances its checkpoint past the turns that have
+     * finished, in stream order, however the turns interleave. Keeps the positions finished
+     * ahead of the checkpoint and those whose turns failed, so a resumed run can skip or retry them.
+     */
+    private static final class BroadcastTracker {
+        private final BroadcastListener listener;
+        private final int interval;
+        private final long started = System.nanoTime();
+        private final TreeSet<Long> finishedAhead = new TreeSet<Long>();
+        private final TreeSet<Long> failedPositions = new TreeSet<Long>();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private long checkpoint;
+        private long unreported;
+        private int running;
+        private boolean ended;
+        private boolean endReported;
+
+        BroadcastTracker(BroadcastOptions options) {
+            this.listener = options.getListener();
+            this.interval = options.getCheckpointInterval();
+            this.checkpoint = options.getStartAt();
+            this.finishedAhead.addAll(options.getFinished().tailSet(this.checkpoint));
+            this.failedPositions.addAll(options.getRetry());
+            Advance();
+        }
+
+        void Finished(long position, ConversationReference reference, Throwable error) {
+            if (error == null) {
+                this.succeeded.incrementAndGet();
+            } else {
+                this.failed.incrementAndGet();
+                if (this.listener != null)
+                    this.listener.OnFailure(position, reference, error);
+            }
+
+            synchronized (this) {
+                this.running--;
+                if (error == null) {
+                    this.failedPositions.remove(position);
+                } else {
+                    this.failedPositions.add(position);
+                }
+                // A retried turn comes before the checkpoint and does not move it.
+                if (position >= this.checkpoint) {
+                    this.finishedAhead.add(position);
+                    Advance();
+                }
+                this.unreported++;
+                Report();
+            }
+        }
+
+        synchronized void Started() {
+            this.running++;
+        }
+
+        /**
+         * Records that the stream ended, so the report once the running turns finish is the last.
+         */
+        synchronized void Ended() {
+            this.ended = true;
+            Report();
+        }
+
+        synchronized BroadcastProgress Progress() {
+            return new BroadcastProgress(this.checkpoint,
+                    Collections.unmodifiableList(new ArrayList<Long>(this.finishedAhead)),
+                    Collections.unmodifiableList(new ArrayList<Long>(this.failedPositions)),
+                    this.succeeded.get(), this.failed.get(), Duration.ofNanos(System.nanoTime() - this.started));
+        }
+
+        private void Advance() {
+            while (this.finishedAhead.remove(this.checkpoint)) {
+                this.checkpoint++;
+            }
+        }
+
+        private void Report() {
+            if (this.listener == null)
+                return;
+            boolean last = this.ended && this.running == 0;
+            if (last ? !this.endReported : this.unreported >= this.interval) {
+                this.unreported = 0;
+                this.endReported = last;
+                this.listener.OnCheckpoint(Progress());
+            }
+        }
+    }
 }
@@ -3,14 +3,17 @@
 package com.microsoft.bot.builder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.bot.schema.Serialization;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.StreamSupport;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
@@ -22,12 +25,15 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 //public class BotState<TState> : Middleware
 //    where TState : class, new()
 public class BotState<TState> implements Middleware {
+    private static final Logger logger = LogManager.getLogger(BotState.class);
+    private static final String ETagProperty = "eTag";
 
     private final StateSettings settings;
     private final Storage storage;
     private final Function<TurnContext, String> keyDelegate;
     private final String propertyName;
     private final Supplier<? extends TState> ctor;
+    private StateMigrationReader migrationReader;
 
     /**
      * Creates a new {@link BotState{TState}} middleware object.
@@ -82,34 +88,21 @@ public class BotState<TState> implements Middleware {
 
     protected void ReadToContextService(TurnContext context) throws IllegalArgumentException, JsonProcessingException {
         String key = this.keyDelegate.apply(context);
-        Map<String, ?> items = null;
-        try {
-            CompletableFuture<Map<String, ?>> result = storage.Read(new String[]{key});
-            items = result.get();
-            System.out.println(String.format("BotState:OnTurn(tid:%s) ReadToContextService: Found %s items", Thread.currentThread().getId(), items.size()));
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-            throw new RuntimeException(String.format("Error waiting context storage read: %s", e.toString()));
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } catch (ExecutionException e) {
-            e.printStackTrace();
-        }
-        TState state = StreamSupport.stream(items.entrySet().spliterator(), false)
-                .filter(entry -> entry.getKey() == key)
-                .map(Map.Entry::getValue)
-                .map(entry -> (TState) entry)
-                .findFirst()
-                .orElse(null);
-
-
-        //var state = items.Where(entry => entry.Key == key).Select(entry => entry.Value).OfType<TState>().FirstOrDefault();
-        if (state == null)
-            state = ctor.get();
-        context.getServices().Add(this.propertyName, state);
+        Map<String, ?> items = (key != null) ? storage.Read(key).join() : new HashMap<String, Object>();
+        LoadToContextService(context, items);
     }
 
     protected CompletableFuture WriteFromContextService(TurnContext context) throws Exception {
+        if (getStorageKey(context) == null)
+            return completedFuture(null);
+
+        Map<String, StateDelta> deltas = new HashMap<String, StateDelta>();
+        if (CollectDelta(context, deltas)) {
+            if (!deltas.isEmpty())
+                ((DeltaStorage) this.storage).WriteDelta(deltas).join();
+            return completedFuture(null);
+        }
+
         TState state = context.getServices().Get(this.propertyName);
         return Write(context, state);
     }
@@ -122,17 +115,10 @@ public class BotState<TState> implements Middleware {
      */
     public CompletableFuture<TState> Read(TurnContext context) throws JsonProcessingException {
         String key = this.keyDelegate.apply(context);
-        Map<String, ?> items = storage.Read(new String[]{key}).join();
-        TState state = StreamSupport.stream(items.entrySet().spliterator(), false)
-                .filter(item -> item.getKey() == key)
-                .map(Map.Entry::getValue)
-                .map(item -> (TState) item)
-                .findFirst()
-                .orElse(null);
-        //var state = items.Where(entry => entry.Key == key).Select(entry => entry.Value).OfType<TState>().FirstOrDefault();
-        if (state == null)
-            state = ctor.get();
-        return completedFuture(state);
+        if (key == null)
+            return completedFuture(ctor.get());
+        Map<String, ?> items = storage.Read(key).join();
+        return completedFuture(StateFromItems(context, key, items));
     }
 
     /**
@@ -142,22 +128,162 @@ public class BotState<TState> implements Middleware {
      * @param state   The state object.
      */
     public CompletableFuture Write(TurnContext context, TState state) throws Exception {
-        HashMap<String, TState> changes = new HashMap<String, TState>();
-        //List<Map.Entry<String, ?>> changes = new ArrayList<Map.Entry<String, ?>>();
+        HashMap<String, Object> changes = new HashMap<String, Object>();
+        AddChange(context, state, changes);
+        if (changes.isEmpty())
+            return completedFuture(null);
+        return completedFuture(storage.Write(changes).join());
+    }
+
+    /**
+     * Sets the reader used to find state stored under a previous key scheme when
+     * no state exists under the current key.
+     *
+     * @param migrationReader The migration reader, or {@code null} to disable migration.
+     * @return The updated state object.
+     */
+    public BotState<TState> withMigrationReader(StateMigrationReader migrationReader) {
+        this.migrationReader = migrationReader;
+        return this;
+    }
+
+    /**
+     * Picks the state object for {@code key} out of the items read from storage, falling back
+     * to the migration reader and then to a new state object.
+     */
+    private TState StateFromItems(TurnContext context, String key, Map<String, ?> items) throws JsonProcessingException {
+        TState state = (TState) items.get(key);
+        if (state == null)
+            state = ReadLegacy(context, key);
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("BotState read: property={} key={} items={} found={}",
+                    this.propertyName, key, items.size(), state != null);
+        }
+
         if (state == null)
             state = ctor.get();
-        String key = keyDelegate.apply(context);
-        changes.put(key, state);
+        return state;
+    }
+
+    private TState ReadLegacy(TurnContext context, String key) throws JsonProcessingException {
+        if (this.migrationReader == null)
+            return null;
+        return (TState) this.migrationReader.Read(this.storage, context, key);
+    }
+
+    /**
+     * Gets the storage provider this state object reads from and writes to.
+     */
+    Storage getStorage() {
+        return this.storage;
+    }
+
+    /**
+     * Gets the storage key for this state object in the given turn.
+     *
+     * @param context The context object for this turn.
+     * @return The storage key, or {@code null} if the turn has no stored state of this kind.
+     */
+    String getStorageKey(TurnContext context) {
+        return this.keyDelegate.apply(context);
+    }
+
+    /**
+     * Places the state object for this turn into the turn context services,
+     * taking it from a set of items already read from storage.
+     *
+     * @param context The context object for this turn.
+     * @param items   The items read from storage, keyed by storage key.
+     */
+    void LoadToContextService(TurnContext context, Map<String, ?> items) throws JsonProcessingException {
+        String key = getStorageKey(context);
+        TState state = (key != null) ? StateFromItems(context, key, items) : ctor.get();
+        context.getServices().Add(this.propertyName, state);
+        if (items.get(key) != null)
+            TakeSnapshot(context, state);
+    }
+
+    /**
+     * Adds the state object held in the turn context services to a set of
+     * pending storage changes.
+     *
+     * @param context The context object for this turn.
+     * @param changes The changes to add to, keyed by storage key.
+     */
+    void CollectFromContextService(TurnContext context, Map<String, Object> changes) {
+        TState state = context.getServices().Get(this.propertyName);
+        AddChange(context, state, changes);
+    }
+
+    /**
+     * Adds the changes made to the state object during this turn to a set of pending deltas.
+     *
+     * @param context The context object for this turn.
+     * @param deltas  The deltas to add to, keyed by storage key.
+     * @return {@code true} if the changes were collected (possibly none); {@code false} if the
+     * state object must be written in full, because the storage does not support deltas or the
+     * state object was not loaded from storage this turn.
+     */
+    boolean CollectDelta(TurnContext context, Map<String, StateDelta> deltas) {
+        if (!(this.storage instanceof DeltaStorage))
+            return false;
+        if (getStorageKey(context) == null)
+            return true;
+
+        ObjectNode snapshot = context.getServices().Get(SnapshotKey());
+        TState state = context.getServices().Get(this.propertyName);
+        ObjectNode current = (state != null) ? ToSnapshot(state) : null;
+        if (snapshot == null || current == null)
+            return false;
 
-        if (this.settings.getLastWriterWins()) {
-            for (Map.Entry<String, ?> item : changes.entrySet()) {
-                if (item.getValue() instanceof StoreItem) {
-                    StoreItem valueStoreItem = (StoreItem) item.getValue();
-                    valueStoreItem.seteTag("*");
-                }
-            }
+        ObjectNode patch = JsonMergePatch.Diff(snapshot, current);
+        if (patch != null) {
+            String eTag = null;
+            if (state instanceof StoreItem)
+                eTag = this.settings.getLastWriterWins() ? "*" : ((StoreItem) state).geteTag();
+            deltas.put(getStorageKey(context), new StateDelta(patch, eTag));
         }
-        return completedFuture(storage.Write(changes).join());
+        return true;
+    }
+
+    /**
+     * Records the state object as loaded, so only the fields changed during the turn are written
+     * back. Only done for storage that supports deltas.
+     */
+    private void TakeSnapshot(TurnContext context, TState state) {
+        if (!(this.storage instanceof DeltaStorage))
+            return;
+
+        ObjectNode snapshot = ToSnapshot(state);
+        if (snapshot != null)
+            context.getServices().Add(SnapshotKey(), snapshot);
+    }
+
+    private ObjectNode ToSnapshot(TState state) {
+        JsonNode node = Serialization.ToTree(state);
+        if (!(node instanceof ObjectNode))
+            return null;
+        // The eTag travels with the delta, not in the patch.
+        if (state instanceof StoreItem)
+            ((ObjectNode) node).remove(ETagProperty);
+        return (ObjectNode) node;
+    }
+
+    private String SnapshotKey() {
+        return this.propertyName + ".Snapshot";
+    }
+
+    private void AddChange(TurnContext context, TState state, Map<String, Object> changes) {
+        String key = getStorageKey(context);
+        if (key == null)
+            return;
+        if (state == null)
+            state = ctor.get();
+        if (this.settings.getLastWriterWins() && state instanceof StoreItem) {
+            ((StoreItem) state).seteTag("*");
+        }
+        changes.put(key, state);
     }
 }
 
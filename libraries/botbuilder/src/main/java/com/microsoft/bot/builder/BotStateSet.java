@@ -0,0 +1,121 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Middleware that loads and saves several {@link BotState} objects together.
+ * <p>Adding {@link ConversationState} and {@link UserState} to the adapter
+ * individually costs one storage read and one storage write per state object
+ * per turn. When the state objects are added to a {@link BotStateSet} instead,
+ * the keys of all state objects sharing a {@link Storage} are read with a
+ * single {@link Storage#Read(String...)} on the leading edge of the pipeline
+ * and written with a single {@link Storage#Write(Map)} on the trailing edge (plus a single
+ * {@link DeltaStorage#WriteDelta(Map)} for state objects that were only partly changed).</p>
+ *
+ * <example>
+ * <code>
+ * adapter.Use(new BotStateSet()
+ *         .Use(new ConversationState<MyConversationState>(storage, MyConversationState::new))
+ *         .Use(new UserState<MyUserState>(storage, MyUserState::new)));
+ * </code>
+ * </example>
+ */
+public class BotStateSet implements Middleware {
+    private final List<BotState<?>> botStates = new ArrayList<BotState<?>>();
+
+    /**
+     * Creates a new {@link BotStateSet} middleware object.
+     *
+     * @param botStates The initial state objects to load and save.
+     */
+    public BotStateSet(BotState<?>... botStates) {
+        for (BotState<?> botState : botStates) {
+            this.Use(botState);
+        }
+    }
+
+    /**
+     * Adds a state object to the set.
+     *
+     * @param botState The state object to load and save with the rest of the set.
+     * @return The updated set.
+     */
+    public BotStateSet Use(BotState<?> botState) {
+        if (botState == null)
+            throw new IllegalArgumentException("botState");
+        this.botStates.add(botState);
+        return this;
+    }
+
+    /**
+     * Gets the state objects in the set.
+     */
+    public List<BotState<?>> getBotStates() {
+        return this.botStates;
+    }
+
+    /**
+     * Processess an incoming activity.
+     *
+     * @param context The context object for this turn.
+     * @param next    The delegate to call to continue the bot middleware pipeline.
+     * This middleware loads all state objects on the leading edge of the middleware pipeline
+     * and persists them on the trailing edge, issuing one read and one write per storage provider.
+     */
+    @Override
+    public void OnTurn(TurnContext context, NextDelegate next) throws Exception {
+        Map<Storage, List<BotState<?>>> byStorage = GroupByStorage();
+
+        for (Map.Entry<Storage, List<BotState<?>>> group : byStorage.entrySet()) {
+            List<BotState<?>> states = group.getValue();
+            List<String> keys = new ArrayList<String>(states.size());
+            for (BotState<?> state : states) {
+                String key = state.getStorageKey(context);
+                if (key != null)
+                    keys.add(key);
+            }
+
+            Map<String, ?> items = keys.isEmpty()
+                    ? new HashMap<String, Object>()
+                    : group.getKey().Read(keys.toArray(new String[keys.size()])).join();
+            for (BotState<?> state : states) {
+                state.LoadToContextService(context, items);
+            }
+        }
+
+        next.next();
+
+        for (Map.Entry<Storage, List<BotState<?>>> group : byStorage.entrySet()) {
+            Storage storage = group.getKey();
+            Map<String, Object> changes = new HashMap<String, Object>();
+            Map<String, StateDelta> deltas = new HashMap<String, StateDelta>();
+            for (BotState<?> state : group.getValue()) {
+                if (!state.CollectDelta(context, deltas))
+                    state.CollectFromContextService(context, changes);
+            }
+
+            if (!changes.isEmpty())
+                storage.Write(changes).join();
+            if (!deltas.isEmpty())
+                ((DeltaStorage) storage).WriteDelta(deltas).join();
+        }
+    }
+
+    /**
+     * Groups the state objects by the storage provider instance they use, preserving
+     * the order in which they were added.
+     */
+    private Map<Storage, List<BotState<?>>> GroupByStorage() {
+        Map<Storage, List<BotState<?>>> byStorage = new LinkedHashMap<Storage, List<BotState<?>>>();
+        for (BotState<?> state : this.botStates) {
+            byStorage.computeIfAbsent(state.getStorage(), s -> new ArrayList<BotState<?>>()).add(state);
+        }
+        return byStorage;
+    }
+}
@@ -0,0 +1,32 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.models.ConversationReference;
+
+/**
+ * Receives the progress of a {@link BotFrameworkAdapter#Broadcast} run.
+ * <p>Methods are called from the threads running the turns, so they should be quick and
+ * thread safe.</p>
+ */
+public interface BroadcastListener {
+    /**
+     * Called each time the checkpoint interval of turns has finished, and once at the end of the
+     * run. Store the checkpoint and the finished and failed positions of the progress to resume a
+     * run that stopped; see {@link BotFrameworkAdapter#Broadcast}. Progress is reported in order.
+     *
+     * @param progress The progress of the run.
+     */
+    default void OnCheckpoint(BroadcastProgress progress) {
+    }
+
+    /**
+     * Called when the turn for a conversation fails. The run goes on with the other conversations.
+     *
+     * @param position  The position of the reference in the stream, counting from 0.
+     * @param reference The conversation the turn was for.
+     * @param error     What the turn failed with.
+     */
+    default void OnFailure(long position, ConversationReference reference, Throwable error) {
+    }
+}
@@ -0,0 +1,122 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Settings for a {@link BotFrameworkAdapter#Broadcast} run. Settings left unset use their defaults.
+ */
+public class BroadcastOptions {
+    /**
+     * The most conversations to run turns for at once. Defaults to 16.
+     */
+    private int maxConcurrency = 16;
+
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    public BroadcastOptions withMaxConcurrency(int value) {
+        if (value <= 0)
+            throw new IllegalArgumentException("maxConcurrency");
+        this.maxConcurrency = value;
+        return this;
+    }
+
+    /**
+     * The checkpoint to resume from: the number of references at the start of the stream
+     * whose turns a previous run already ran. Defaults to 0.
+     */
+    private long startAt;
+
+    public long getStartAt() {
+        return this.startAt;
+    }
+
+    public BroadcastOptions withStartAt(long value) {
+        if (value < 0)
+            throw new IllegalArgumentException("startAt");
+        this.startAt = value;
+        return this;
+    }
+
+    /**
+     * The positions at or after the checkpoint to resume from whose turns a previous run already
+     * ran: {@link BroadcastProgress#getFinishedPositions()}. They are skipped. Defaults to none.
+     */
+    private SortedSet<Long> finished = Collections.emptySortedSet();
+
+    public SortedSet<Long> getFinished() {
+        return this.finished;
+    }
+
+    public BroadcastOptions withFinished(Collection<Long> value) {
+        this.finished = (value != null) ? Collections.unmodifiableSortedSet(new TreeSet<Long>(value)) : Collections.<Long>emptySortedSet();
+        return this;
+    }
+
+    /**
+     * The positions whose turns failed in a previous run: {@link BroadcastProgress#getFailedPositions()}.
+     * Their turns run again, even before the checkpoint to resume from. Defaults to none.
+     */
+    private SortedSet<Long> retry = Collections.emptySortedSet();
+
+    public SortedSet<Long> getRetry() {
+        return this.retry;
+    }
+
+    public BroadcastOptions withRetry(Collection<Long> value) {
+        this.retry = (value != null) ? Collections.unmodifiableSortedSet(new TreeSet<Long>(value)) : Collections.<Long>emptySortedSet();
+        return this;
+    }
+
+    /**
+     * How many turns finish between reports to the listener. Defaults to 100.
+     */
+    private int checkpointInterval = 100;
+
+    public int getCheckpointInterval() {
+        return this.checkpointInterval;
+    }
+
+    public BroadcastOptions withCheckpointInterval(int value) {
+        if (value <= 0)
+            throw new IllegalArgumentException("checkpointInterval");
+        this.checkpointInterval = value;
+        return this;
+    }
+
+    /**
+     * The limiter pacing the sends of the run. Defaults to the adapter's
+     * {@link BotFrameworkAdapter#getSendRateLimiter() limiter}, or a {@link SendRateLimiter}
+     * with its default rates when the adapter has none.
+     */
+    private SendRateLimiter rateLimiter;
+
+    public SendRateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+
+    public BroadcastOptions withRateLimiter(SendRateLimiter value) {
+        this.rateLimiter = value;
+        return this;
+    }
+
+    /**
+     * Receives the checkpoints and failures of the run.
+     */
+    private BroadcastListener listener;
+
+    public BroadcastListener getListener() {
+        return this.listener;
+    }
+
+    public BroadcastOptions withListener(BroadcastListener value) {
+        this.listener = value;
+        return this;
+    }
+}
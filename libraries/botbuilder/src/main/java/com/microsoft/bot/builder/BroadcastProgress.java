@@ -0,0 +1,85 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * How far a {@link BotFrameworkAdapter#Broadcast} run has got.
+ */
+public class BroadcastProgress {
+    private final long checkpoint;
+    private final List<Long> finishedPositions;
+    private final List<Long> failedPositions;
+    private final long succeeded;
+    private final long failed;
+    private final Duration elapsed;
+
+    BroadcastProgress(long checkpoint, List<Long> finishedPositions, List<Long> failedPositions, long succeeded, long failed, Duration elapsed) {
+        this.checkpoint = checkpoint;
+        this.finishedPositions = finishedPositions;
+        this.failedPositions = failedPositions;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Gets the number of references at the start of the stream whose turns have all run,
+     * including those skipped on resuming. Failed turns count as run; they are listed by
+     * {@link #getFailedPositions()}.
+     *
+     * @return The checkpoint.
+     */
+    public long getCheckpoint() {
+        return this.checkpoint;
+    }
+
+    /**
+     * Gets the positions after the checkpoint whose turns have run, including those skipped on
+     * resuming, in order. There are some when turns before them are still running.
+     *
+     * @return The finished positions.
+     */
+    public List<Long> getFinishedPositions() {
+        return this.finishedPositions;
+    }
+
+    /**
+     * Gets the positions whose turns failed, in order, including those of a previous run that
+     * were to be retried and have not yet succeeded.
+     *
+     * @return The failed positions.
+     */
+    public List<Long> getFailedPositions() {
+        return this.failedPositions;
+    }
+
+    /**
+     * Gets the number of turns that finished in this run.
+     *
+     * @return The number of turns that succeeded.
+     */
+    public long getSucceededCount() {
+        return this.succeeded;
+    }
+
+    /**
+     * Gets the number of turns that failed in this run.
+     *
+     * @return The number of turns that failed.
+     */
+    public long getFailedCount() {
+        return this.failed;
+    }
+
+    /**
+     * Gets the time since this run started.
+     *
+     * @return The elapsed time.
+     */
+    public Duration getElapsed() {
+        return this.elapsed;
+    }
+}
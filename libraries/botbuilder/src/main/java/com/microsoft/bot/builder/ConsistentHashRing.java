@@ -0,0 +1,93 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Maps keys onto a fixed set of named nodes using consistent hashing.
+ * <p>Each node is placed on the ring several times (virtual nodes) so keys spread
+ * evenly; adding or removing a node only moves the keys owned by that node.</p>
+ */
+public class ConsistentHashRing {
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, String> ring = new TreeMap<Long, String>();
+    private final List<String> nodes;
+
+    /**
+     * Creates a ring over the given nodes with the default number of virtual nodes.
+     *
+     * @param nodes The node names.
+     */
+    public ConsistentHashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates a ring over the given nodes.
+     *
+     * @param nodes        The node names.
+     * @param virtualNodes The number of positions each node takes on the ring.
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes == null || nodes.isEmpty())
+            throw new IllegalArgumentException("nodes");
+        if (virtualNodes <= 0)
+            throw new IllegalArgumentException("virtualNodes");
+
+        this.nodes = Collections.unmodifiableList(new ArrayList<String>(nodes));
+        for (String node : this.nodes) {
+            if (node == null || node.isEmpty() || node.contains("/"))
+                throw new IllegalArgumentException(String.format("Invalid node name: %s", node));
+            for (int i = 0; i < virtualNodes; i++) {
+                this.ring.put(Hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Gets the node names on the ring.
+     */
+    public List<String> getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Gets the node that owns a key.
+     *
+     * @param key The key to place.
+     * @return The name of the owning node.
+     */
+    public String GetNode(String key) {
+        if (key == null)
+            throw new IllegalArgumentException("key");
+
+        SortedMap<Long, String> tail = this.ring.tailMap(Hash(key));
+        Map.Entry<Long, String> owner = tail.isEmpty() ? null : tail.entrySet().iterator().next();
+        return (owner != null) ? owner.getValue() : this.ring.firstEntry().getValue();
+    }
+
+    private static long Hash(String value) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 digest not available", e);
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+}
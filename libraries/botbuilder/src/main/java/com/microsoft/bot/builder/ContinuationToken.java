@@ -0,0 +1,72 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * A continuation token that records a position to resume paging at.
+ * <p>The position is two numbers and an optional string, such as a timestamp, a sequence number
+ * and an id. It is encoded as URL-safe base64 with a leading kind, so a token from one API is
+ * rejected by another and callers cannot come to depend on what is inside.</p>
+ */
+final class ContinuationToken {
+    // kind, first, second
+    private static final int FixedSize = 1 + 8 + 8;
+
+    final long first;
+    final long second;
+    final String text;
+
+    private ContinuationToken(long first, long second, String text) {
+        this.first = first;
+        this.second = second;
+        this.text = text;
+    }
+
+    /**
+     * Encodes a position.
+     *
+     * @param kind   The API the token belongs to.
+     * @param first  The first number.
+     * @param second The second number.
+     * @param text   The string, or {@code null}.
+     * @return The token.
+     */
+    static String Encode(char kind, long first, long second, String text) {
+        byte[] bytes = (text == null) ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(FixedSize + bytes.length)
+                .put((byte) kind)
+                .putLong(first)
+                .putLong(second)
+                .put(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a token.
+     *
+     * @param kind  The API the token must belong to.
+     * @param token The token.
+     * @return The position.
+     * @throws IllegalArgumentException The token is not one this API returned.
+     */
+    static ContinuationToken Decode(char kind, String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("continuationToken", e);
+        }
+        if (bytes.length < FixedSize || bytes[0] != (byte) kind)
+            throw new IllegalArgumentException("continuationToken");
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        long first = buffer.getLong();
+        long second = buffer.getLong();
+        String text = (bytes.length == FixedSize) ? null : new String(bytes, FixedSize, bytes.length - FixedSize, StandardCharsets.UTF_8);
+        return new ContinuationToken(first, second, text);
+    }
+}
@@ -30,9 +30,19 @@ public class ConversationState<TState> extends BotState<TState>
     }
 
     public ConversationState(Storage storage, StateSettings settings, Supplier<? extends TState> ctor)  {
+        this(storage, settings, ctor, StateKeyStrategy.Default);
+    }
+
+    /**
+     * Creates a new {@link ConversationState{TState}} object.
+     * @param storage The storage provider to use.
+     * @param settings The state persistance options to use.
+     * @param keyStrategy The strategy used to build the storage key.
+     */
+    public ConversationState(Storage storage, StateSettings settings, Supplier<? extends TState> ctor, StateKeyStrategy keyStrategy)  {
         super(storage, PropertyName(),
                 (context) -> {
-                    return String.format("conversation/%s/%s", context.getActivity().channelId(), context.getActivity().conversation().id());
+                    return keyStrategy.GetKey("conversation", context.getActivity().channelId(), context.getActivity().conversation().id());
                 },
                 ctor,
                 settings);
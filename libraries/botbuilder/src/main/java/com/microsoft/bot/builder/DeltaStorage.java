@@ -0,0 +1,23 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage that can update part of a stored item instead of rewriting it.
+ * <p>When a {@link BotState} uses a {@link DeltaStorage}, it keeps a snapshot of each state
+ * object it reads and, at the end of the turn, sends only the fields that changed. State
+ * objects that did not change are not written at all; state objects that did not exist yet
+ * are written in full through {@link Storage#Write(Map)}.</p>
+ */
+public interface DeltaStorage extends Storage {
+    /**
+     * Applies field-level changes to existing store items.
+     *
+     * @param deltas The changes to apply, keyed by storage key.
+     * @throws Exception An item does not exist, or its eTag does not match.
+     */
+    CompletableFuture WriteDelta(Map<String, StateDelta> deltas) throws Exception;
+}
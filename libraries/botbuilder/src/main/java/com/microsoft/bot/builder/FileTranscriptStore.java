@@ -0,0 +1,993 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.microsoft.bot.schema.Serialization;
+import com.microsoft.bot.schema.models.Activity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A transcript store that keeps transcripts in append-only segment files on disk.
+ * <p>
+ * Each channel has its own directory of segment files, one per segment duration (an hour by
+ * default) of logging time. A record holds the activity timestamp, the conversation id and the
+ * activity as JSON. Every segment keeps a sparse timestamp index in memory, so reading from a
+ * start date seeks past the records that are all older, and segments are read through
+ * memory-mapped buffers. Activities are returned in the order they were logged, 20 to a page
+ * unless the caller asks for another size; continuation tokens hold the position in the log to
+ * resume at.
+ * <p>
+ * Iterating and exporting read the segments one record at a time. Exports copy each record's
+ * JSON to the stream as it was logged, without reading it back into an activity.
+ * <p>
+ * Deleting a transcript writes a tombstone rather than rewriting segments; the records
+ * themselves go when their segment passes the retention period. When a retention period is
+ * set, a background thread deletes expired segments and tells the
+ * {@link TranscriptRetentionListener}s added to the store. Opening a store scans its segments to
+ * rebuild the indexes and the list of conversations, and truncates a partly written record
+ * at the end of a segment.
+ * <p>
+ * Writes go to the operating system as they are logged; segments are forced to disk when a
+ * new segment is started and when the store is closed.
+ */
+public class FileTranscriptStore implements TranscriptStore, SnapshotTranscriptLogger, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(FileTranscriptStore.class);
+    private static final ObjectReader reader = Serialization.ReaderFor(Activity.class);
+
+    private static final String SegmentExtension = ".seg";
+    private static final String TombstoneFile = "deleted";
+    private static final int DefaultPageSize = 20;
+    private static final char ActivitiesToken = 'f';
+    private static final char TranscriptsToken = 't';
+    private static final int IndexInterval = 4096;
+    // record length, timestamp, conversation id length
+    private static final int HeaderSize = 4 + 8 + 2;
+
+    private final Path directory;
+    private final long segmentMillis;
+    private final long retentionMillis;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, ChannelLog> channels = new ConcurrentHashMap<String, ChannelLog>();
+    private final ExecutorService executor;
+    private final ScheduledExecutorService retention;
+    private final CopyOnWriteArrayList<TranscriptRetentionListener> retentionListeners = new CopyOnWriteArrayList<TranscriptRetentionListener>();
+
+    /**
+     * Creates a store with hourly segments that are kept forever.
+     *
+     * @param directory The directory to keep the segment files in.
+     */
+    public FileTranscriptStore(Path directory) throws IOException {
+        this(directory, Duration.ofHours(1), null);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param directory       The directory to keep the segment files in.
+     * @param segmentDuration How much logging time each segment file covers.
+     * @param retention       How long to keep segments, or {@code null} to keep them forever.
+     */
+    public FileTranscriptStore(Path directory, Duration segmentDuration, Duration retention) throws IOException {
+        this(directory, segmentDuration, retention, Clock.systemUTC());
+    }
+
+    FileTranscriptStore(Path directory, Duration segmentDuration, Duration retention, Clock clock) throws IOException {
+        if (directory == null)
+            throw new IllegalArgumentException("directory");
+        if (segmentDuration == null || segmentDuration.toMillis() <= 0)
+            throw new IllegalArgumentException("segmentDuration");
+        if (retention != null && retention.toMillis() <= 0)
+            throw new IllegalArgumentException("retention");
+
+        this.directory = Files.createDirectories(directory);
+        this.segmentMillis = segmentDuration.toMillis();
+        this.retentionMillis = (retention == null) ? 0 : retention.toMillis();
+        this.clock = clock;
+
+        try (DirectoryStream<Path> channelDirectories = Files.newDirectoryStream(this.directory, Files::isDirectory)) {
+            for (Path channelDirectory : channelDirectories) {
+                String channelId = URLDecoder.decode(channelDirectory.getFileName().toString(), "UTF-8");
+                this.channels.put(channelId, new ChannelLog(channelDirectory).Recover());
+            }
+        }
+
+        this.executor = Executors.newCachedThreadPool(DaemonThreads("FileTranscriptStore-"));
+        if (retention != null) {
+            this.retention = Executors.newSingleThreadScheduledExecutor(DaemonThreads("FileTranscriptRetention-"));
+            long period = Math.min(this.segmentMillis, this.retentionMillis);
+            this.retention.scheduleAtFixedRate(this::RemoveExpiredSegments, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.retention = null;
+        }
+    }
+
+    /**
+     * Logs an activity to the transcript.
+     *
+     * @param activity The activity to log.
+     */
+    @Override
+    public final void LogActivityAsync(Activity activity) {
+        if (activity == null) {
+            throw new NullPointerException("activity cannot be null for LogActivity()");
+        }
+
+        LogSnapshot(ActivitySnapshot.Of(activity));
+    }
+
+    /**
+     * Logs an activity snapshot to the transcript, writing its JSON as it is.
+     *
+     * @param snapshot The snapshot to log.
+     */
+    @Override
+    public final void LogSnapshot(ActivitySnapshot snapshot) {
+        if (snapshot == null) {
+            throw new NullPointerException("snapshot cannot be null for LogSnapshot()");
+        }
+
+        try {
+            long timestamp = (snapshot.getTimestamp() != null) ? snapshot.getTimestamp().getMillis() : this.clock.millis();
+            GetOrCreateChannel(snapshot.getChannelId()).Append(snapshot.getConversationId(), timestamp, snapshot.Bytes());
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("FileTranscriptStore: failed to log activity: %s", e.toString()), e);
+        }
+    }
+
+    @Override
+    public final CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken) {
+        return GetTranscriptActivitiesAsync(channelId, conversationId, continuationToken, null);
+    }
+
+    @Override
+    public final CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId) {
+        return GetTranscriptActivitiesAsync(channelId, conversationId, null, null);
+    }
+
+    @Override
+    public final CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime startDate) {
+        return GetTranscriptActivitiesAsync(channelId, conversationId, continuationToken, startDate, DefaultPageSize);
+    }
+
+    /**
+     * Gets from the store a page of activities that match a set of criteria.
+     *
+     * @param channelId         The ID of the channel the conversation is in.
+     * @param conversationId    The ID of the conversation.
+     * @param continuationToken The token returned with the previous page, if any.
+     * @param startDate         A cutoff date. Activities older than this date are not included.
+     * @param pageSize          The most activities to return.
+     * @return A task that represents the work queued to execute.
+     * If the task completes successfully, the result contains the matching activities.
+     */
+    @Override
+    public final CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime startDate, int pageSize) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (channelId == null) {
+                throw new NullPointerException(String.format("missing %1$s", "channelId"));
+            }
+
+            if (conversationId == null) {
+                throw new NullPointerException(String.format("missing %1$s", "conversationId"));
+            }
+
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize");
+            }
+
+            ChannelLog channel = this.channels.get(channelId);
+            if (channel == null) {
+                return new PagedResult<Activity>();
+            }
+            try {
+                return channel.ReadPage(conversationId, continuationToken, startDate, pageSize);
+            } catch (IOException e) {
+                throw new RuntimeException(String.format("FileTranscriptStore: failed to read transcript: %s", e.toString()), e);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Deletes conversation data from the store.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation to delete.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public final CompletableFuture DeleteTranscriptAsync(String channelId, String conversationId) {
+        return CompletableFuture.runAsync(() -> {
+            if (channelId == null) {
+                throw new NullPointerException(String.format("%1$s should not be null", "channelId"));
+            }
+
+            if (conversationId == null) {
+                throw new NullPointerException(String.format("%1$s should not be null", "conversationId"));
+            }
+
+            ChannelLog channel = this.channels.get(channelId);
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.Delete(conversationId);
+            } catch (IOException e) {
+                throw new RuntimeException(String.format("FileTranscriptStore: failed to delete transcript: %s", e.toString()), e);
+            }
+        }, this.executor);
+    }
+
+    @Override
+    public final CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId) {
+        return ListTranscriptsAsync(channelId, null);
+    }
+
+    @Override
+    public final CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken) {
+        return ListTranscriptsAsync(channelId, continuationToken, DefaultPageSize);
+    }
+
+    /**
+     * Gets a page of the conversations on a channel from the store, in order of creation.
+     *
+     * @param channelId         The ID of the channel.
+     * @param continuationToken The token returned with the previous page, if any.
+     * @param pageSize          The most conversations to return.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public final CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken, int pageSize) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (channelId == null) {
+                throw new NullPointerException(String.format("missing %1$s", "channelId"));
+            }
+
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize");
+            }
+
+            PagedResult<Transcript> pagedResult = new PagedResult<Transcript>();
+            ChannelLog channel = this.channels.get(channelId);
+            if (channel == null) {
+                return pagedResult;
+            }
+
+            NavigableSet<Conversation> page = channel.byCreated;
+            if (continuationToken != null) {
+                // Resume after the position of the last conversation returned, even if it has since been deleted.
+                ContinuationToken after = ContinuationToken.Decode(TranscriptsToken, continuationToken);
+                page = page.tailSet(new Conversation(after.text, after.first), false);
+            }
+
+            List<Transcript> items = new ArrayList<Transcript>();
+            Conversation last = null;
+            Iterator<Conversation> conversations = page.iterator();
+            while (items.size() < pageSize && conversations.hasNext()) {
+                last = conversations.next();
+                items.add(new Transcript()
+                        .withChannelId(channelId)
+                        .withId(last.id)
+                        .withCreated(Instant.ofEpochMilli(last.created).atOffset(ZoneOffset.UTC)));
+            }
+            pagedResult.items(items.toArray(new Transcript[items.size()]));
+            if (items.size() == pageSize) {
+                pagedResult.withContinuationToken(ContinuationToken.Encode(TranscriptsToken, last.created, 0, last.id));
+            }
+            return pagedResult;
+        }, this.executor);
+    }
+
+    /**
+     * Iterates the activities of a conversation, reading the segments one record at a time.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation.
+     * @param startDate      A cutoff date, or {@code null}. Activities older than this date are not included.
+     * @return The activities, in the order they were logged.
+     */
+    @Override
+    public Iterator<Activity> IterateTranscriptActivities(String channelId, String conversationId, DateTime startDate) {
+        if (conversationId == null) {
+            throw new NullPointerException(String.format("missing %1$s", "conversationId"));
+        }
+
+        ChannelLog channel = GetChannel(channelId);
+        if (channel == null) {
+            return Collections.emptyIterator();
+        }
+        return new CursorIterator(channel.new Cursor(conversationId, startDate, null, null));
+    }
+
+    /**
+     * Iterates the activities of every conversation on a channel within a time range, reading
+     * the segments one record at a time.
+     *
+     * @param channelId The ID of the channel.
+     * @param startDate The earliest timestamp to include, or {@code null}.
+     * @param endDate   The timestamp to stop before, or {@code null}.
+     * @return The activities, in the order they were logged.
+     */
+    @Override
+    public Iterator<Activity> IterateChannelActivities(String channelId, DateTime startDate, DateTime endDate) {
+        ChannelLog channel = GetChannel(channelId);
+        if (channel == null) {
+            return Collections.emptyIterator();
+        }
+        return new CursorIterator(channel.new Cursor(null, startDate, endDate, null));
+    }
+
+    /**
+     * Writes the activities of a conversation to a stream as newline-delimited JSON, copying
+     * the JSON of each record as it was logged.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation.
+     * @param startDate      A cutoff date, or {@code null}. Activities older than this date are not included.
+     * @param stream         The stream to write to. It is flushed but not closed.
+     * @return The number of activities written.
+     */
+    @Override
+    public long ExportTranscript(String channelId, String conversationId, DateTime startDate, OutputStream stream) throws IOException {
+        if (conversationId == null) {
+            throw new NullPointerException(String.format("missing %1$s", "conversationId"));
+        }
+
+        ChannelLog channel = GetChannel(channelId);
+        if (channel == null) {
+            return 0;
+        }
+        return Export(channel.new Cursor(conversationId, startDate, null, null), stream);
+    }
+
+    /**
+     * Writes the activities of a channel within a time range to a stream as newline-delimited
+     * JSON, copying the JSON of each record as it was logged.
+     *
+     * @param channelId The ID of the channel.
+     * @param startDate The earliest timestamp to include, or {@code null}.
+     * @param endDate   The timestamp to stop before, or {@code null}.
+     * @param stream    The stream to write to. It is flushed but not closed.
+     * @return The number of activities written.
+     */
+    @Override
+    public long ExportChannel(String channelId, DateTime startDate, DateTime endDate, OutputStream stream) throws IOException {
+        ChannelLog channel = GetChannel(channelId);
+        if (channel == null) {
+            return 0;
+        }
+        return Export(channel.new Cursor(null, startDate, endDate, null), stream);
+    }
+
+    /**
+     * Adds a listener to be told when segments pass the retention period and are deleted.
+     *
+     * @param listener The listener.
+     */
+    public void AddRetentionListener(TranscriptRetentionListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("listener");
+        this.retentionListeners.add(listener);
+    }
+
+    /**
+     * Deletes the segments that are older than the retention period, along with the
+     * conversations and tombstones that only referred to them.
+     */
+    void RemoveExpiredSegments() {
+        if (this.retentionMillis == 0)
+            return;
+
+        long cutoff = this.clock.millis() - this.retentionMillis;
+        for (Map.Entry<String, ChannelLog> channel : this.channels.entrySet()) {
+            long removedThrough;
+            try {
+                removedThrough = channel.getValue().RemoveSegmentsBefore(cutoff);
+            } catch (IOException e) {
+                logger.error(String.format("FileTranscriptStore: retention failed for %s: %s", channel.getValue().directory, e.toString()));
+                continue;
+            }
+            if (removedThrough == Long.MIN_VALUE)
+                continue;
+
+            DateTime before = new DateTime(removedThrough + 1, DateTimeZone.UTC);
+            for (TranscriptRetentionListener listener : this.retentionListeners) {
+                try {
+                    listener.OnExpired(channel.getKey(), before);
+                } catch (RuntimeException e) {
+                    logger.error(String.format("FileTranscriptStore: retention listener failed for %s: %s", channel.getKey(), e.toString()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the retention thread and forces the open segments to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.retention != null)
+            this.retention.shutdownNow();
+        this.executor.shutdown();
+        for (ChannelLog channel : this.channels.values()) {
+            channel.Close();
+        }
+    }
+
+    private ChannelLog GetChannel(String channelId) {
+        if (channelId == null) {
+            throw new NullPointerException(String.format("missing %1$s", "channelId"));
+        }
+        return this.channels.get(channelId);
+    }
+
+    private ChannelLog GetOrCreateChannel(String channelId) throws IOException {
+        ChannelLog channel = this.channels.get(channelId);
+        if (channel != null)
+            return channel;
+
+        Path channelDirectory = Files.createDirectories(this.directory.resolve(URLEncoder.encode(channelId, "UTF-8")));
+        return this.channels.computeIfAbsent(channelId, id -> new ChannelLog(channelDirectory));
+    }
+
+    private static ThreadFactory DaemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The segments, conversations and tombstones of one channel.
+     */
+    private final class ChannelLog {
+        final Path directory;
+        final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<Long, Segment>();
+        final ConcurrentHashMap<String, Conversation> conversations = new ConcurrentHashMap<String, Conversation>();
+        final ConcurrentSkipListSet<Conversation> byCreated = new ConcurrentSkipListSet<Conversation>(
+                Comparator.comparingLong((Conversation c) -> c.created).thenComparing(c -> c.id));
+        final ConcurrentHashMap<String, Position> tombstones = new ConcurrentHashMap<String, Position>();
+        private Segment active;
+        private FileChannel appendChannel;
+
+        ChannelLog(Path directory) {
+            this.directory = directory;
+        }
+
+        synchronized void Append(String conversationId, long timestamp, byte[] json) throws IOException {
+            byte[] id = conversationId.getBytes(StandardCharsets.UTF_8);
+            if (id.length > 0xFFFF)
+                throw new IllegalArgumentException("conversationId");
+
+            long now = clock.millis();
+            long start = now - Math.floorMod(now, segmentMillis);
+            if (this.active == null || start > this.active.start)
+                Roll(start);
+
+            byte[] bytes = new byte[HeaderSize + id.length + json.length];
+            ByteBuffer.wrap(bytes)
+                    .putInt(bytes.length - 4)
+                    .putLong(timestamp)
+                    .putShort((short) id.length)
+                    .put(id)
+                    .put(json);
+            ByteBuffer record = ByteBuffer.wrap(bytes);
+
+            long offset = this.active.length;
+            while (record.hasRemaining()) {
+                this.appendChannel.write(record, offset + record.position());
+            }
+            this.active.Appended(offset, timestamp, record.capacity());
+            Track(conversationId, timestamp, this.active.start);
+        }
+
+        synchronized void Delete(String conversationId) throws IOException {
+            // After a reopen nothing has been appended yet, so the end of the log is the end of the
+            // last recovered segment.
+            Segment last = (this.active != null) ? this.active : (this.segments.isEmpty() ? null : this.segments.lastEntry().getValue());
+            Position end = (last == null) ? new Position(Long.MIN_VALUE, 0) : new Position(last.start, last.length);
+            this.tombstones.put(conversationId, end);
+            String line = String.format("%s\t%d\t%d%n", URLEncoder.encode(conversationId, "UTF-8"), end.segment, end.offset);
+            Files.write(this.directory.resolve(TombstoneFile), line.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            Conversation conversation = this.conversations.remove(conversationId);
+            if (conversation != null)
+                this.byCreated.remove(conversation);
+        }
+
+        PagedResult<Activity> ReadPage(String conversationId, String continuationToken, DateTime startDate, int pageSize) throws IOException {
+            Position from = (continuationToken == null) ? null : Position.Parse(continuationToken);
+            Cursor cursor = new Cursor(conversationId, startDate, null, from);
+
+            PagedResult<Activity> pagedResult = new PagedResult<Activity>();
+            List<Activity> items = new ArrayList<Activity>();
+            ByteBuffer json;
+            while (items.size() < pageSize && (json = cursor.Next()) != null) {
+                items.add(ReadActivity(json));
+            }
+            pagedResult.items(items.toArray(new Activity[items.size()]));
+            if (items.size() == pageSize) {
+                pagedResult.withContinuationToken(cursor.Token());
+            }
+            return pagedResult;
+        }
+
+        /**
+         * @return The latest activity timestamp in the deleted segments, or {@code Long.MIN_VALUE}
+         * if none were deleted.
+         */
+        synchronized long RemoveSegmentsBefore(long cutoff) throws IOException {
+            long removedThrough = Long.MIN_VALUE;
+            Iterator<Segment> expired = this.segments.values().iterator();
+            while (expired.hasNext()) {
+                Segment segment = expired.next();
+                if (segment.start + segmentMillis > cutoff || segment == this.active)
+                    break;
+                expired.remove();
+                Files.deleteIfExists(segment.path);
+                removedThrough = Math.max(removedThrough, segment.MaxTimestamp());
+            }
+
+            long firstSegment = this.segments.isEmpty() ? Long.MAX_VALUE : this.segments.firstKey();
+            for (Conversation conversation : this.conversations.values()) {
+                if (conversation.lastSegment < firstSegment) {
+                    this.conversations.remove(conversation.id);
+                    this.byCreated.remove(conversation);
+                }
+            }
+            if (this.tombstones.values().removeIf(t -> t.segment < firstSegment))
+                WriteTombstones();
+            return removedThrough;
+        }
+
+        synchronized void Close() throws IOException {
+            if (this.appendChannel != null) {
+                this.appendChannel.force(true);
+                this.appendChannel.close();
+                this.appendChannel = null;
+                this.active = null;
+            }
+        }
+
+        /**
+         * Loads the tombstones and scans the segments on disk, rebuilding the segment indexes and
+         * the conversation list.
+         */
+        ChannelLog Recover() throws IOException {
+            Path tombstoneFile = this.directory.resolve(TombstoneFile);
+            if (Files.exists(tombstoneFile)) {
+                for (String line : Files.readAllLines(tombstoneFile, StandardCharsets.UTF_8)) {
+                    String[] fields = line.split("\t");
+                    if (fields.length == 3)
+                        this.tombstones.put(URLDecoder.decode(fields[0], "UTF-8"),
+                                new Position(Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                }
+            }
+
+            List<Path> files = new ArrayList<Path>();
+            try (DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(this.directory, "*" + SegmentExtension)) {
+                segmentFiles.forEach(files::add);
+            }
+            long[] starts = new long[files.size()];
+            for (int i = 0; i < starts.length; i++) {
+                String name = files.get(i).getFileName().toString();
+                starts[i] = Long.parseLong(name.substring(0, name.length() - SegmentExtension.length()));
+            }
+            Arrays.sort(starts);
+
+            for (long start : starts) {
+                Segment segment = new Segment(start, SegmentPath(start));
+                long size = Files.size(segment.path);
+                if (size > 0) {
+                    ByteBuffer buffer;
+                    try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    }
+                    long offset = 0;
+                    while (offset + HeaderSize <= size) {
+                        int position = (int) offset;
+                        int length = buffer.getInt(position);
+                        if (length < HeaderSize - 4 || offset + 4 + length > size)
+                            break;
+                        long timestamp = buffer.getLong(position + 4);
+                        int idLength = buffer.getShort(position + 12) & 0xFFFF;
+                        byte[] id = new byte[idLength];
+                        Slice(buffer, position + HeaderSize, position + HeaderSize + idLength).get(id);
+                        String conversationId = new String(id, StandardCharsets.UTF_8);
+
+                        segment.Appended(offset, timestamp, 4 + length);
+                        if (!IsDeleted(conversationId, start, offset))
+                            Track(conversationId, timestamp, start);
+                        offset += 4 + length;
+                    }
+                    if (offset < size) {
+                        logger.warn(String.format("FileTranscriptStore: truncating partly written record in %s at %d", segment.path, offset));
+                        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                            channel.truncate(offset);
+                        }
+                    }
+                }
+                this.segments.put(start, segment);
+            }
+            return this;
+        }
+
+        private void Roll(long start) throws IOException {
+            if (this.appendChannel != null) {
+                this.appendChannel.force(true);
+                this.appendChannel.close();
+            }
+            Segment segment = this.segments.computeIfAbsent(start, s -> new Segment(s, SegmentPath(s)));
+            this.appendChannel = FileChannel.open(segment.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.active = segment;
+        }
+
+        private void Track(String conversationId, long timestamp, long segmentStart) {
+            Conversation conversation = this.conversations.computeIfAbsent(conversationId, id -> {
+                Conversation created = new Conversation(id, timestamp);
+                this.byCreated.add(created);
+                return created;
+            });
+            conversation.lastSegment = Math.max(conversation.lastSegment, segmentStart);
+        }
+
+        private boolean IsDeleted(String conversationId, long segmentStart, long offset) {
+            Position tombstone = this.tombstones.get(conversationId);
+            return tombstone != null && tombstone.compareTo(new Position(segmentStart, offset)) > 0;
+        }
+
+        private void WriteTombstones() throws IOException {
+            StringBuilder lines = new StringBuilder();
+            for (Map.Entry<String, Position> tombstone : this.tombstones.entrySet()) {
+                lines.append(String.format("%s\t%d\t%d%n", URLEncoder.encode(tombstone.getKey(), "UTF-8"),
+                        tombstone.getValue().segment, tombstone.getValue().offset));
+            }
+            Files.write(this.directory.resolve(TombstoneFile), lines.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private Path SegmentPath(long start) {
+            return this.directory.resolve(start + SegmentExtension);
+        }
+
+        /**
+         * Reads the records of the channel one at a time, in the order they were logged,
+         * skipping records outside a time range, of other conversations or deleted.
+         */
+        final class Cursor {
+            private final String conversationId;
+            private final byte[] id;
+            private final long startMillis;
+            private final long endMillis;
+            private final Position from;
+            private final Iterator<Segment> remaining;
+            private Segment segment;
+            private ByteBuffer buffer;
+            private long offset;
+
+            /**
+             * @param conversationId The conversation to read, or {@code null} for every conversation.
+             * @param startDate      The earliest timestamp to read, or {@code null}.
+             * @param endDate        The timestamp to stop before, or {@code null}.
+             * @param from           The position to start reading at, or {@code null}.
+             */
+            Cursor(String conversationId, DateTime startDate, DateTime endDate, Position from) {
+                this.conversationId = conversationId;
+                this.id = (conversationId == null) ? null : conversationId.getBytes(StandardCharsets.UTF_8);
+                this.startMillis = (startDate == null) ? Long.MIN_VALUE : startDate.getMillis();
+                this.endMillis = (endDate == null) ? Long.MAX_VALUE : endDate.getMillis();
+                this.from = from;
+                this.remaining = ((from == null) ? segments : segments.tailMap(from.segment, true)).values().iterator();
+            }
+
+            /**
+             * Gets the JSON of the next record, or {@code null} when there are no more.
+             */
+            ByteBuffer Next() throws IOException {
+                while (true) {
+                    if (this.buffer == null || this.offset + HeaderSize > this.buffer.limit()) {
+                        if (!NextSegment())
+                            return null;
+                        continue;
+                    }
+
+                    int position = (int) this.offset;
+                    int length = this.buffer.getInt(position);
+                    long timestamp = this.buffer.getLong(position + 4);
+                    int idLength = this.buffer.getShort(position + 12) & 0xFFFF;
+                    this.offset += 4 + length;
+
+                    if (timestamp < this.startMillis || timestamp >= this.endMillis)
+                        continue;
+                    String recordConversationId = this.conversationId;
+                    if (this.id != null) {
+                        if (!IdEquals(this.buffer, position + HeaderSize, this.id))
+                            continue;
+                    } else {
+                        byte[] id = new byte[idLength];
+                        Slice(this.buffer, position + HeaderSize, position + HeaderSize + idLength).get(id);
+                        recordConversationId = new String(id, StandardCharsets.UTF_8);
+                    }
+                    if (IsDeleted(recordConversationId, this.segment.start, position))
+                        continue;
+
+                    return Slice(this.buffer, position + HeaderSize + idLength, (int) this.offset);
+                }
+            }
+
+            /**
+             * Gets a continuation token for the position after the last record read.
+             */
+            String Token() {
+                return new Position(this.segment.start, this.offset).Token();
+            }
+
+            private boolean NextSegment() throws IOException {
+                while (this.remaining.hasNext()) {
+                    Segment next = this.remaining.next();
+                    if (next.MaxTimestamp() < this.startMillis || next.MinTimestamp() >= this.endMillis)
+                        continue;
+                    try {
+                        this.buffer = next.Map();
+                    } catch (NoSuchFileException e) {
+                        // Removed by retention since the segment list was read.
+                        continue;
+                    }
+                    this.segment = next;
+                    this.offset = next.Seek(this.startMillis);
+                    if (this.from != null && next.start == this.from.segment)
+                        this.offset = Math.max(this.offset, this.from.offset);
+                    return true;
+                }
+                this.buffer = null;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Iterates the activities a cursor reads.
+     */
+    private static final class CursorIterator implements Iterator<Activity> {
+        private final ChannelLog.Cursor cursor;
+        private Activity next;
+
+        CursorIterator(ChannelLog.Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null) {
+                try {
+                    ByteBuffer json = this.cursor.Next();
+                    if (json == null)
+                        return false;
+                    this.next = ReadActivity(json);
+                } catch (IOException e) {
+                    throw new RuntimeException(String.format("FileTranscriptStore: failed to read transcript: %s", e.toString()), e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Activity next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Activity activity = this.next;
+            this.next = null;
+            return activity;
+        }
+    }
+
+    private static Activity ReadActivity(ByteBuffer json) throws IOException {
+        return reader.readValue(new ByteBufferBackedInputStream(json));
+    }
+
+    /**
+     * Writes the JSON of every record a cursor reads to a stream, one record per line.
+     */
+    private static long Export(ChannelLog.Cursor cursor, OutputStream stream) throws IOException {
+        WritableByteChannel out = Channels.newChannel(stream);
+        long count = 0;
+        ByteBuffer json;
+        while ((json = cursor.Next()) != null) {
+            while (json.hasRemaining()) {
+                out.write(json);
+            }
+            stream.write('\n');
+            count++;
+        }
+        stream.flush();
+        return count;
+    }
+
+    /**
+     * Gets a view of part of a buffer. Goes through {@link Buffer} so the class still runs on Java 8.
+     */
+    private static ByteBuffer Slice(ByteBuffer buffer, int position, int limit) {
+        Buffer view = buffer.duplicate();
+        view.limit(limit);
+        view.position(position);
+        return (ByteBuffer) view;
+    }
+
+    private static boolean IdEquals(ByteBuffer buffer, int position, byte[] id) {
+        if ((buffer.getShort(position - 2) & 0xFFFF) != id.length)
+            return false;
+        for (int i = 0; i < id.length; i++) {
+            if (buffer.get(position + i) != id[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * One segment file, with a sparse index of the largest timestamp written before every
+     * {@link #IndexInterval} bytes.
+     */
+    private static final class Segment {
+        final long start;
+        final Path path;
+        private volatile long length;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+        private long[] indexTimestamps = new long[16];
+        private long[] indexOffsets = new long[16];
+        private int indexSize;
+        private long nextIndexOffset;
+        private MappedByteBuffer mapped;
+
+        Segment(long start, Path path) {
+            this.start = start;
+            this.path = path;
+        }
+
+        synchronized void Appended(long offset, long timestamp, int size) {
+            if (offset >= this.nextIndexOffset) {
+                if (this.indexSize == this.indexOffsets.length) {
+                    this.indexTimestamps = Arrays.copyOf(this.indexTimestamps, this.indexSize * 2);
+                    this.indexOffsets = Arrays.copyOf(this.indexOffsets, this.indexSize * 2);
+                }
+                this.indexTimestamps[this.indexSize] = this.maxTimestamp;
+                this.indexOffsets[this.indexSize] = offset;
+                this.indexSize++;
+                this.nextIndexOffset = offset + IndexInterval;
+            }
+            this.minTimestamp = Math.min(this.minTimestamp, timestamp);
+            this.maxTimestamp = Math.max(this.maxTimestamp, timestamp);
+            this.length = offset + size;
+        }
+
+        synchronized long MinTimestamp() {
+            return this.minTimestamp;
+        }
+
+        synchronized long MaxTimestamp() {
+            return this.maxTimestamp;
+        }
+
+        /**
+         * Gets an offset before which every record is older than {@code startMillis}.
+         */
+        synchronized long Seek(long startMillis) {
+            int low = 0;
+            int high = this.indexSize;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.indexTimestamps[mid] < startMillis)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return (low == 0) ? 0 : this.indexOffsets[low - 1];
+        }
+
+        /**
+         * Gets a read-only view of the records written so far, mapping the file again if it has grown.
+         */
+        synchronized ByteBuffer Map() throws IOException {
+            long size = this.length;
+            if (this.mapped == null || this.mapped.capacity() < size) {
+                try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+                    this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+            }
+            return Slice(this.mapped, 0, (int) size);
+        }
+    }
+
+    private static final class Conversation {
+        final String id;
+        final long created;
+        volatile long lastSegment = Long.MIN_VALUE;
+
+        Conversation(String id, long created) {
+            this.id = id;
+            this.created = created;
+        }
+    }
+
+    /**
+     * A position in a channel's log: a segment and an offset within it. Also used as the
+     * continuation token for reading activities.
+     */
+    private static final class Position implements Comparable<Position> {
+        final long segment;
+        final long offset;
+
+        Position(long segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        static Position Parse(String token) {
+            ContinuationToken position = ContinuationToken.Decode(ActivitiesToken, token);
+            return new Position(position.first, position.second);
+        }
+
+        String Token() {
+            return ContinuationToken.Encode(ActivitiesToken, this.segment, this.offset, null);
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int bySegment = Long.compare(this.segment, other.segment);
+            return (bySegment != 0) ? bySegment : Long.compare(this.offset, other.offset);
+        }
+
+        @Override
+        public String toString() {
+            return this.segment + ":" + this.offset;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Computes and applies JSON merge patches (RFC 7386).
+ * <p>A merge patch is an object holding only the fields that changed: a field with a
+ * value replaces the target field (objects are merged recursively), and a {@code null}
+ * field removes it. Arrays and scalars are always replaced whole.</p>
+ */
+public final class JsonMergePatch {
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Computes the merge patch that turns {@code source} into {@code target}.
+     *
+     * @param source The original object.
+     * @param target The changed object.
+     * @return The patch, or {@code null} if the objects are equal.
+     */
+    public static ObjectNode Diff(ObjectNode source, ObjectNode target) {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+
+        Iterator<Map.Entry<String, JsonNode>> fields = target.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode before = source.get(field.getKey());
+            JsonNode after = field.getValue();
+
+            if (before == null || !before.equals(after)) {
+                if (before != null && before.isObject() && after.isObject()) {
+                    patch.set(field.getKey(), Diff((ObjectNode) before, (ObjectNode) after));
+                } else {
+                    patch.set(field.getKey(), after);
+                }
+            }
+        }
+
+        Iterator<String> names = source.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!target.has(name))
+                patch.putNull(name);
+        }
+
+        return (patch.size() == 0) ? null : patch;
+    }
+
+    /**
+     * Applies a merge patch to an object in place.
+     *
+     * @param target The object to change.
+     * @param patch  The patch to apply.
+     * @return The changed {@code target}.
+     */
+    public static ObjectNode Apply(ObjectNode target, ObjectNode patch) {
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            JsonNode existing = target.get(field.getKey());
+
+            if (value.isNull()) {
+                target.remove(field.getKey());
+            } else if (value.isObject() && existing != null && existing.isObject()) {
+                Apply((ObjectNode) existing, (ObjectNode) value);
+            } else {
+                target.set(field.getKey(), value);
+            }
+        }
+        return target;
+    }
+}
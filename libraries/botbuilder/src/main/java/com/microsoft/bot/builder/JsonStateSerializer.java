@@ -0,0 +1,73 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.bot.schema.Serialization;
+
+import java.io.IOException;
+
+/**
+ * Serializes state as a JSON object, with the type name stored in a
+ * {@code __type_name_} property next to the state's own properties.
+ * <p>This is the format the in-memory dictionary storage has always used; it is
+ * readable but larger and slower than {@link SmileStateSerializer}.</p>
+ */
+public class JsonStateSerializer implements StateSerializer {
+    /**
+     * The property that holds the type name.
+     */
+    public static final String TypeNameProperty = "__type_name_";
+
+    private static final ObjectReader treeReader = Serialization.ReaderFor(JsonNode.class);
+    private static final ObjectWriter treeWriter = Serialization.WriterFor(JsonNode.class);
+
+    private final StateTypeRegistry registry;
+
+    /**
+     * Creates a JSON serializer with its own type registry.
+     */
+    public JsonStateSerializer() {
+        this(new StateTypeRegistry());
+    }
+
+    /**
+     * Creates a JSON serializer.
+     *
+     * @param registry The registry used to name and resolve state types.
+     */
+    public JsonStateSerializer(StateTypeRegistry registry) {
+        if (registry == null)
+            throw new IllegalArgumentException("registry");
+        this.registry = registry;
+    }
+
+    @Override
+    public byte[] Serialize(Object state) throws IOException {
+        if (state == null)
+            throw new IllegalArgumentException("state");
+
+        JsonNode node = Serialization.ToTree(state);
+        if (!(node instanceof ObjectNode))
+            throw new IOException(String.format("State of type %s does not serialize to a JSON object", state.getClass().getTypeName()));
+        ((ObjectNode) node).put(TypeNameProperty, this.registry.NameOf(state.getClass()));
+        return treeWriter.writeValueAsBytes(node);
+    }
+
+    @Override
+    public Object Deserialize(byte[] data) throws IOException {
+        JsonNode node = treeReader.readValue(data);
+        if (node == null || !node.hasNonNull(TypeNameProperty))
+            throw new IOException("Type info not present");
+
+        String typeName = node.get(TypeNameProperty).textValue();
+        try {
+            return Serialization.TreeToValue(node, this.registry.Resolve(typeName));
+        } catch (ClassNotFoundException e) {
+            throw new IOException(String.format("Could not load class %s", typeName), e);
+        }
+    }
+}
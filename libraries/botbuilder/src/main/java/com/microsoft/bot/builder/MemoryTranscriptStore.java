@@ -14,24 +14,38 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * The memory transcript store stores transcripts in volatile memory in a Dictionary.
  * <p>
+ * Each conversation keeps its activities ordered by timestamp as they are logged, numbering them
+ * in the order they arrive. Continuation tokens record the timestamp and number of the last
+ * activity returned, so a page is found with a binary search instead of sorting and scanning the
+ * whole transcript. Pages hold 20 items unless the caller asks for another size. Channels are held in concurrent maps and each conversation
+ * is locked on its own, so logging to one conversation does not block readers of another.
+ * <p>
+ * Activities are held as {@link ActivitySnapshot}s, so changes the bot makes to an activity after
+ * logging it do not reach the transcript, and each read returns new copies.
  * <p>
  * Because this uses an unbounded volitile dictionary this should only be used for unit tests or non-production environments.
  */
-public class MemoryTranscriptStore implements TranscriptStore {
-    private HashMap<String, HashMap<String, ArrayList<Activity>>> channels = new HashMap<String, HashMap<String, ArrayList<Activity>>>();
+public class MemoryTranscriptStore implements TranscriptStore, SnapshotTranscriptLogger {
+    private static final int DefaultPageSize = 20;
+    private static final char ActivitiesToken = 'a';
+    private static final char TranscriptsToken = 't';
+
+    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<String, Channel>();
     final ForkJoinPool.ForkJoinWorkerThreadFactory factory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
         @Override
         public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
@@ -55,28 +69,22 @@ public class MemoryTranscriptStore implements TranscriptStore {
             throw new NullPointerException("activity cannot be null for LogActivity()");
         }
 
-        synchronized (this.channels) {
-            HashMap<String, ArrayList<Activity>> channel;
-            if (!this.channels.containsKey(activity.channelId())) {
-                channel = new HashMap<String, ArrayList<Activity>>();
-                this.channels.put(activity.channelId(), channel);
-            } else {
-                channel = this.channels.get(activity.channelId());
-            }
-
-            ArrayList<Activity> transcript = null;
-
-
-            if (!channel.containsKey(activity.conversation().id())) {
-                transcript = new ArrayList<Activity>();
-                channel.put(activity.conversation().id(), transcript);
-            } else {
-                transcript = channel.get(activity.conversation().id());
-            }
+        LogSnapshot(ActivitySnapshot.Of(activity));
+    }
 
-            transcript.add(activity);
+    /**
+     * Logs an activity snapshot to the transcript.
+     *
+     * @param snapshot The snapshot to log.
+     */
+    @Override
+    public final void LogSnapshot(ActivitySnapshot snapshot) {
+        if (snapshot == null) {
+            throw new NullPointerException("snapshot cannot be null for LogSnapshot()");
         }
 
+        Channel channel = this.channels.computeIfAbsent(snapshot.getChannelId(), id -> new Channel());
+        channel.GetOrAdd(snapshot.getConversationId(), snapshot).Add(snapshot);
     }
 
     /**
@@ -117,6 +125,22 @@ public class MemoryTranscriptStore implements TranscriptStore {
      * If the task completes successfully, the result contains the matching activities.
      */
     public final CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime startDate) {
+        return GetTranscriptActivitiesAsync(channelId, conversationId, continuationToken, startDate, DefaultPageSize);
+    }
+
+    /**
+     * Gets from the store a page of activities that match a set of criteria.
+     *
+     * @param channelId         The ID of the channel the conversation is in.
+     * @param conversationId    The ID of the conversation.
+     * @param continuationToken The token returned with the previous page, or {@code null} for the first page.
+     * @param startDate         A cutoff date. Activities older than this date are not included.
+     * @param pageSize          The most activities to return.
+     * @return A task that represents the work queued to execute.
+     * If the task completes successfully, the result contains the matching activities.
+     */
+    @Override
+    public final CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime startDate, int pageSize) {
         return CompletableFuture.supplyAsync(() -> {
             if (channelId == null) {
                 throw new NullPointerException(String.format("missing %1$s", "channelId"));
@@ -126,46 +150,31 @@ public class MemoryTranscriptStore implements TranscriptStore {
                 throw new NullPointerException(String.format("missing %1$s", "conversationId"));
             }
 
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize");
+            }
+
             PagedResult<Activity> pagedResult = new PagedResult<Activity>();
-            synchronized (channels) {
-                HashMap<String, ArrayList<Activity>> channel;
-                if (!channels.containsKey(channelId)) {
-                    return pagedResult;
-                }
-                channel = channels.get(channelId);
-                ArrayList<Activity> transcript;
-
-                if (!channel.containsKey(conversationId)) {
-                    return pagedResult;
-                }
-                transcript = channel.get(conversationId);
-                if (continuationToken != null) {
-                    List<Activity> items = transcript.stream()
-                            .sorted(Comparator.comparing(Activity::timestamp))
-                            .filter(a -> a.timestamp().compareTo(startDate) >= 0)
-                            .filter(skipwhile(a -> !a.id().equals(continuationToken)))
-                            .skip(1)
-                            .limit(20)
-                            .collect(Collectors.toList());
-
-                    pagedResult.items(items.toArray(new Activity[items.size()]));
-
-                    if (pagedResult.getItems().length == 20) {
-                        pagedResult.withContinuationToken(items.get(items.size() - 1).id());
-                    }
-                } else {
-                    List<Activity> items = transcript.stream()
-                            .sorted(Comparator.comparing(Activity::timestamp))
-                            .filter(a -> a.timestamp().compareTo((startDate == null) ? new DateTime(Long.MIN_VALUE) : startDate) >= 0)
-                            .limit(20)
-                            .collect(Collectors.toList());
-                    pagedResult.items(items.toArray(new Activity[items.size()]));
-                    if (items.size() == 20) {
-                        pagedResult.withContinuationToken(items.get(items.size() - 1).id());
-                    }
-                }
+            Channel channel = channels.get(channelId);
+            if (channel == null) {
+                return pagedResult;
+            }
+            ConversationTranscript transcript = channel.conversations.get(conversationId);
+            if (transcript == null) {
+                return pagedResult;
             }
 
+            ContinuationToken after = (continuationToken == null) ? null : ContinuationToken.Decode(ActivitiesToken, continuationToken);
+            List<Logged> items = transcript.GetPage(after, startDate, pageSize);
+            Activity[] activities = new Activity[items.size()];
+            for (int i = 0; i < activities.length; i++) {
+                activities[i] = items.get(i).snapshot.ToActivity();
+            }
+            pagedResult.items(activities);
+            if (items.size() == pageSize) {
+                Logged last = items.get(items.size() - 1);
+                pagedResult.withContinuationToken(ContinuationToken.Encode(ActivitiesToken, last.millis, last.sequence, null));
+            }
             return pagedResult;
 
         }, this.executor);
@@ -188,14 +197,9 @@ public class MemoryTranscriptStore implements TranscriptStore {
                 throw new NullPointerException(String.format("%1$s should not be null", "conversationId"));
             }
 
-            synchronized (this.channels) {
-                if (!this.channels.containsKey(channelId)) {
-                    return;
-                }
-                HashMap<String, ArrayList<Activity>> channel = this.channels.get(channelId);
-                if (channel.containsKey(conversationId)) {
-                    channel.remove(conversationId);
-                }
+            Channel channel = this.channels.get(channelId);
+            if (channel != null) {
+                channel.Remove(conversationId);
             }
         }, this.executor);
     }
@@ -220,80 +224,169 @@ public class MemoryTranscriptStore implements TranscriptStore {
      */
 
     public final CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken) {
+        return ListTranscriptsAsync(channelId, continuationToken, DefaultPageSize);
+    }
+
+    /**
+     * Gets a page of the conversations on a channel from the store, in order of creation.
+     *
+     * @param channelId         The ID of the channel.
+     * @param continuationToken The token returned with the previous page, or {@code null} for the first page.
+     * @param pageSize          The most conversations to return.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public final CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken, int pageSize) {
         return CompletableFuture.supplyAsync(() -> {
             if (channelId == null) {
                 throw new NullPointerException(String.format("missing %1$s", "channelId"));
             }
 
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize");
+            }
+
             PagedResult<Transcript> pagedResult = new PagedResult<Transcript>();
-            synchronized (channels) {
-
-                if (!channels.containsKey(channelId)) {
-                    return pagedResult;
-                }
-
-                HashMap<String, ArrayList<Activity>> channel = channels.get(channelId);
-                if (continuationToken != null) {
-                    List<Transcript> items = channel.entrySet().stream()
-                            .map(c -> {
-                                        OffsetDateTime offsetDateTime = null;
-                                        if (c.getValue().stream().findFirst().isPresent()) {
-                                            DateTime dt = c.getValue().stream().findFirst().get().timestamp();
-                                            // convert to DateTime to OffsetDateTime
-                                            Instant instant = Instant.ofEpochMilli(dt.getMillis());
-                                            ZoneOffset offset = ZoneId.of(dt.getZone().getID()).getRules().getOffset(instant);
-                                            offsetDateTime = instant.atOffset(offset);
-                                        } else {
-                                            offsetDateTime = OffsetDateTime.now();
-                                        }
-                                        return new Transcript()
-                                                .withChannelId(channelId)
-                                                .withId(c.getKey())
-                                                .withCreated(offsetDateTime);
-                                    }
-                            )
-                            .sorted(Comparator.comparing(Transcript::getCreated))
-                            .filter(skipwhile(c -> !c.getId().equals(continuationToken)))
-                            .skip(1)
-                            .limit(20)
-                            .collect(Collectors.toList());
-                    pagedResult.items(items.toArray(new Transcript[items.size()]));
-                    if (items.size() == 20) {
-                        pagedResult.withContinuationToken(items.get(items.size() - 1).getId());
-                    }
-                } else {
-
-                    List<Transcript> items = channel.entrySet().stream()
-                            .map(c -> {
-                                        OffsetDateTime offsetDateTime = null;
-                                        if (c.getValue().stream().findFirst().isPresent()) {
-                                            DateTime dt = c.getValue().stream().findFirst().get().timestamp();
-                                            // convert to DateTime to OffsetDateTime
-                                            Instant instant = Instant.ofEpochMilli(dt.getMillis());
-                                            ZoneOffset offset = ZoneId.of(dt.getZone().getID()).getRules().getOffset(instant);
-                                            offsetDateTime = instant.atOffset(offset);
-                                        } else {
-                                            offsetDateTime = OffsetDateTime.now();
-                                        }
-                                        return new Transcript()
-                                                .withChannelId(channelId)
-                                                .withId(c.getKey())
-                                                .withCreated(offsetDateTime);
-                                    }
-                            )
-                            .sorted(Comparator.comparing(Transcript::getCreated))
-                            .limit(20)
-                            .collect(Collectors.toList());
-                    pagedResult.items(items.toArray(new Transcript[items.size()]));
-                    if (items.size() == 20) {
-                        pagedResult.withContinuationToken(items.get(items.size() - 1).getId());
-                    }
-                }
+            Channel channel = channels.get(channelId);
+            if (channel == null) {
+                return pagedResult;
+            }
+
+            NavigableSet<ConversationTranscript> page = channel.byCreated;
+            if (continuationToken != null) {
+                // Resume after the position of the last conversation returned, even if it has since been deleted.
+                ContinuationToken after = ContinuationToken.Decode(TranscriptsToken, continuationToken);
+                page = page.tailSet(new ConversationTranscript(after.text, Instant.ofEpochSecond(after.first, after.second).atOffset(ZoneOffset.UTC)), false);
+            }
+
+            List<Transcript> items = new ArrayList<Transcript>();
+            ConversationTranscript last = null;
+            Iterator<ConversationTranscript> conversations = page.iterator();
+            while (items.size() < pageSize && conversations.hasNext()) {
+                last = conversations.next();
+                items.add(new Transcript()
+                        .withChannelId(channelId)
+                        .withId(last.id)
+                        .withCreated(last.created));
+            }
+            pagedResult.items(items.toArray(new Transcript[items.size()]));
+            if (items.size() == pageSize) {
+                Instant created = last.created.toInstant();
+                pagedResult.withContinuationToken(ContinuationToken.Encode(TranscriptsToken, created.getEpochSecond(), created.getNano(), last.id));
             }
             return pagedResult;
         }, this.executor);
     }
 
+    /**
+     * The conversations of one channel, by id and in order of creation.
+     */
+    private static final class Channel {
+        final ConcurrentHashMap<String, ConversationTranscript> conversations = new ConcurrentHashMap<String, ConversationTranscript>();
+        final ConcurrentSkipListSet<ConversationTranscript> byCreated = new ConcurrentSkipListSet<ConversationTranscript>(
+                Comparator.comparing((ConversationTranscript c) -> c.created.toInstant()).thenComparing(c -> c.id));
+
+        ConversationTranscript GetOrAdd(String conversationId, ActivitySnapshot first) {
+            return this.conversations.computeIfAbsent(conversationId, id -> {
+                ConversationTranscript conversation = new ConversationTranscript(id, ToOffsetDateTime(first.getTimestamp()));
+                this.byCreated.add(conversation);
+                return conversation;
+            });
+        }
+
+        void Remove(String conversationId) {
+            ConversationTranscript conversation = this.conversations.remove(conversationId);
+            if (conversation != null) {
+                this.byCreated.remove(conversation);
+            }
+        }
+    }
+
+    /**
+     * The activities of one conversation, kept ordered by timestamp and then by the order they
+     * were logged.
+     */
+    private static final class ConversationTranscript {
+        final String id;
+        final OffsetDateTime created;
+        private final ArrayList<Logged> activities = new ArrayList<Logged>();
+        private long sequence;
+
+        ConversationTranscript(String id, OffsetDateTime created) {
+            this.id = id;
+            this.created = created;
+        }
+
+        synchronized void Add(ActivitySnapshot snapshot) {
+            Logged logged = new Logged(snapshot, Millis(snapshot.getTimestamp()), ++this.sequence);
+            this.activities.add(After(logged.millis, logged.sequence), logged);
+        }
+
+        synchronized List<Logged> GetPage(ContinuationToken after, DateTime startDate, int pageSize) {
+            int start = (startDate == null) ? 0 : After(startDate.getMillis() - 1, Long.MAX_VALUE);
+            if (after != null) {
+                start = Math.max(start, After(after.first, after.second));
+            }
+
+            int end = (int) Math.min((long) start + pageSize, this.activities.size());
+            return new ArrayList<Logged>(this.activities.subList(Math.min(start, end), end));
+        }
+
+        /**
+         * First position after the activity with {@code millis} and {@code sequence}.
+         */
+        private int After(long millis, long sequence) {
+            int size = this.activities.size();
+            if (size == 0 || Compare(this.activities.get(size - 1), millis, sequence) <= 0)
+                return size;
+
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Compare(this.activities.get(mid), millis, sequence) <= 0)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        private static int Compare(Logged logged, long millis, long sequence) {
+            int byTime = Long.compare(logged.millis, millis);
+            return (byTime != 0) ? byTime : Long.compare(logged.sequence, sequence);
+        }
+
+        private static long Millis(DateTime timestamp) {
+            return (timestamp == null) ? Long.MIN_VALUE : timestamp.getMillis();
+        }
+    }
+
+    /**
+     * An activity with its timestamp and its number within its conversation.
+     */
+    private static final class Logged {
+        final ActivitySnapshot snapshot;
+        final long millis;
+        final long sequence;
+
+        Logged(ActivitySnapshot snapshot, long millis, long sequence) {
+            this.snapshot = snapshot;
+            this.millis = millis;
+            this.sequence = sequence;
+        }
+    }
+
+    private static OffsetDateTime ToOffsetDateTime(DateTime dt) {
+        if (dt == null) {
+            return OffsetDateTime.now();
+        }
+        // convert to DateTime to OffsetDateTime
+        Instant instant = Instant.ofEpochMilli(dt.getMillis());
+        ZoneOffset offset = ZoneId.of(dt.getZone().getID()).getRules().getOffset(instant);
+        return instant.atOffset(offset);
+    }
+
     /**
      * Emulate C# SkipWhile.
      * Stateful
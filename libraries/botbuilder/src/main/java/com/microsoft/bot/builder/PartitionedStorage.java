@@ -0,0 +1,148 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.bot.schema.Serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Storage that routes each key to one of several underlying storage nodes by the
+ * partition prefix of the key ({@code {partition}/...}), as produced by
+ * {@link ShardedStateKeyStrategy}.
+ * <p>Reads, writes and deletes spanning several partitions are split into one call per
+ * partition, and the calls to different partitions run concurrently.</p>
+ * <p>Deltas go to each node through {@link DeltaStorage#WriteDelta(Map)}. A node that is not a
+ * {@link DeltaStorage} has each item read, patched and written back whole.</p>
+ */
+public class PartitionedStorage implements DeltaStorage {
+    private final Map<String, Storage> partitions;
+
+    /**
+     * Creates a partitioned storage.
+     *
+     * @param partitions The storage node for each partition name.
+     */
+    public PartitionedStorage(Map<String, ? extends Storage> partitions) {
+        if (partitions == null || partitions.isEmpty())
+            throw new IllegalArgumentException("partitions");
+        this.partitions = new HashMap<String, Storage>(partitions);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ? extends Object>> Read(String... keys) throws JsonProcessingException {
+        Map<Storage, List<String>> byPartition = new HashMap<Storage, List<String>>();
+        for (String key : keys) {
+            byPartition.computeIfAbsent(GetPartition(key), p -> new ArrayList<String>()).add(key);
+        }
+
+        List<CompletableFuture<Map<String, ? extends Object>>> reads = new ArrayList<CompletableFuture<Map<String, ? extends Object>>>();
+        for (Map.Entry<Storage, List<String>> entry : byPartition.entrySet()) {
+            List<String> partitionKeys = entry.getValue();
+            reads.add(entry.getKey().Read(partitionKeys.toArray(new String[partitionKeys.size()])));
+        }
+
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture[reads.size()]))
+                .thenApply(done -> {
+                    Map<String, Object> items = new HashMap<String, Object>();
+                    for (CompletableFuture<Map<String, ? extends Object>> read : reads) {
+                        items.putAll(read.join());
+                    }
+                    return items;
+                });
+    }
+
+    @Override
+    public CompletableFuture Write(Map<String, ? extends Object> changes) throws Exception {
+        Map<Storage, Map<String, Object>> byPartition = new HashMap<Storage, Map<String, Object>>();
+        for (Map.Entry<String, ? extends Object> change : changes.entrySet()) {
+            byPartition.computeIfAbsent(GetPartition(change.getKey()), p -> new HashMap<String, Object>())
+                    .put(change.getKey(), change.getValue());
+        }
+
+        List<CompletableFuture> writes = new ArrayList<CompletableFuture>();
+        for (Map.Entry<Storage, Map<String, Object>> entry : byPartition.entrySet()) {
+            writes.add(entry.getKey().Write(entry.getValue()));
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[writes.size()]));
+    }
+
+    @Override
+    public CompletableFuture Delete(String... keys) {
+        Map<Storage, List<String>> byPartition = new HashMap<Storage, List<String>>();
+        for (String key : keys) {
+            byPartition.computeIfAbsent(GetPartition(key), p -> new ArrayList<String>()).add(key);
+        }
+
+        List<CompletableFuture> deletes = new ArrayList<CompletableFuture>();
+        for (Map.Entry<Storage, List<String>> entry : byPartition.entrySet()) {
+            List<String> partitionKeys = entry.getValue();
+            deletes.add(entry.getKey().Delete(partitionKeys.toArray(new String[partitionKeys.size()])));
+        }
+        return CompletableFuture.allOf(deletes.toArray(new CompletableFuture[deletes.size()]));
+    }
+
+    @Override
+    public CompletableFuture WriteDelta(Map<String, StateDelta> deltas) throws Exception {
+        Map<Storage, Map<String, StateDelta>> byPartition = new HashMap<Storage, Map<String, StateDelta>>();
+        for (Map.Entry<String, StateDelta> delta : deltas.entrySet()) {
+            byPartition.computeIfAbsent(GetPartition(delta.getKey()), p -> new HashMap<String, StateDelta>())
+                    .put(delta.getKey(), delta.getValue());
+        }
+
+        List<CompletableFuture> writes = new ArrayList<CompletableFuture>();
+        for (Map.Entry<Storage, Map<String, StateDelta>> entry : byPartition.entrySet()) {
+            if (entry.getKey() instanceof DeltaStorage)
+                writes.add(((DeltaStorage) entry.getKey()).WriteDelta(entry.getValue()));
+            else
+                writes.add(WritePatched(entry.getKey(), entry.getValue()));
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[writes.size()]));
+    }
+
+    /**
+     * Applies deltas to a node that only stores whole items. A {@link StoreItem} is written back
+     * with the eTag of its delta, so the node still rejects a change made since it was read.
+     */
+    private static CompletableFuture WritePatched(Storage storage, Map<String, StateDelta> deltas) throws JsonProcessingException {
+        return storage.Read(deltas.keySet().toArray(new String[deltas.size()]))
+                .thenCompose(items -> {
+                    try {
+                        Map<String, Object> changes = new HashMap<String, Object>();
+                        for (Map.Entry<String, StateDelta> delta : deltas.entrySet()) {
+                            Object item = items.get(delta.getKey());
+                            if (item == null)
+                                throw new Exception(String.format("PartitionedStorage.WriteDelta failed: no item for key %s", delta.getKey()));
+
+                            ObjectNode tree = (ObjectNode) Serialization.ToTree(item);
+                            JsonMergePatch.Apply(tree, delta.getValue().getPatch());
+                            Object patched = Serialization.TreeToValue(tree, item.getClass());
+                            if (patched instanceof StoreItem)
+                                ((StoreItem) patched).seteTag(delta.getValue().geteTag());
+                            changes.put(delta.getKey(), patched);
+                        }
+                        return (CompletableFuture<?>) storage.Write(changes);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private Storage GetPartition(String key) {
+        int separator = (key == null) ? -1 : key.indexOf('/');
+        if (separator <= 0)
+            throw new IllegalArgumentException(String.format("Key has no partition prefix: %s", key));
+
+        Storage storage = this.partitions.get(key.substring(0, separator));
+        if (storage == null)
+            throw new IllegalArgumentException(String.format("Unknown partition for key: %s", key));
+        return storage;
+    }
+}
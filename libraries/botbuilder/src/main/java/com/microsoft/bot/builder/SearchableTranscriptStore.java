@@ -0,0 +1,235 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.models.Activity;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A transcript store that keeps a {@link TranscriptIndex} of another transcript store, so its
+ * transcripts can be searched by sender, text and time.
+ * <p>Activities are written to the wrapped store and then added to the index as they are
+ * logged, and deleting a transcript removes it from both. Transcripts already in the wrapped
+ * store when this store is created are not indexed until {@link #RebuildAsync(String)} is
+ * called for their channel. When the wrapped store is a {@link FileTranscriptStore}, the
+ * activities its retention drops are removed from the index as well.</p>
+ *
+ * <example>
+ * <code>
+ * SearchableTranscriptStore transcriptStore = new SearchableTranscriptStore(new MemoryTranscriptStore());
+ * adapter.Use(new TranscriptLoggerMiddleware(transcriptStore));
+ * ...
+ * PagedResult&lt;TranscriptMatch&gt; matches = transcriptStore.SearchAsync(new TranscriptQuery()
+ *         .withFromId(userId)
+ *         .withText("refund")).join();
+ * </code>
+ * </example>
+ */
+public class SearchableTranscriptStore implements TranscriptStore, SnapshotTranscriptLogger {
+    private final TranscriptStore transcriptStore;
+    private final TranscriptIndex index;
+
+    /**
+     * Creates a store with a new, empty index.
+     *
+     * @param transcriptStore The transcript store to index.
+     */
+    public SearchableTranscriptStore(TranscriptStore transcriptStore) {
+        this(transcriptStore, new TranscriptIndex());
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param transcriptStore The transcript store to index.
+     * @param index           The index to keep.
+     */
+    public SearchableTranscriptStore(TranscriptStore transcriptStore, TranscriptIndex index) {
+        if (transcriptStore == null)
+            throw new IllegalArgumentException("transcriptStore");
+        if (index == null)
+            throw new IllegalArgumentException("index");
+
+        this.transcriptStore = transcriptStore;
+        this.index = index;
+        if (transcriptStore instanceof FileTranscriptStore)
+            ((FileTranscriptStore) transcriptStore).AddRetentionListener(index::RemoveBefore);
+    }
+
+    /**
+     * Gets the index of this store.
+     */
+    public TranscriptIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Logs an activity to the wrapped store and indexes it.
+     *
+     * @param activity The activity to transcribe.
+     */
+    @Override
+    public void LogActivityAsync(Activity activity) {
+        BotAssert.ActivityNotNull(activity);
+        if (this.transcriptStore instanceof SnapshotTranscriptLogger) {
+            LogSnapshot(ActivitySnapshot.Of(activity));
+        } else {
+            this.transcriptStore.LogActivityAsync(activity);
+            this.index.Add(activity);
+        }
+    }
+
+    /**
+     * Logs an activity snapshot to the wrapped store and indexes it.
+     *
+     * @param snapshot The snapshot to transcribe.
+     */
+    @Override
+    public void LogSnapshot(ActivitySnapshot snapshot) {
+        if (snapshot == null)
+            throw new IllegalArgumentException("snapshot");
+
+        if (this.transcriptStore instanceof SnapshotTranscriptLogger)
+            ((SnapshotTranscriptLogger) this.transcriptStore).LogSnapshot(snapshot);
+        else
+            this.transcriptStore.LogActivityAsync(snapshot.ToActivity());
+        this.index.Add(snapshot);
+    }
+
+    /**
+     * Finds the activities that match a query.
+     *
+     * @param query The criteria to match.
+     * @return A task that represents the work queued to execute.
+     * If the task completes successfully, the result contains the first page of matches, in timestamp order.
+     */
+    public CompletableFuture<PagedResult<TranscriptMatch>> SearchAsync(TranscriptQuery query) {
+        return SearchAsync(query, null);
+    }
+
+    /**
+     * Finds the activities that match a query.
+     *
+     * @param query             The criteria to match.
+     * @param continuationToken The continuation token of the previous page, or {@code null} for the first page.
+     * @return A task that represents the work queued to execute.
+     * If the task completes successfully, the result contains a page of matches, in timestamp order.
+     */
+    public CompletableFuture<PagedResult<TranscriptMatch>> SearchAsync(TranscriptQuery query, String continuationToken) {
+        return CompletableFuture.supplyAsync(() -> this.index.Search(query, continuationToken));
+    }
+
+    /**
+     * Finds the activities that match a query.
+     *
+     * @param query             The criteria to match.
+     * @param continuationToken The continuation token of the previous page, or {@code null} for the first page.
+     * @param pageSize          The most matches to return.
+     * @return A task that represents the work queued to execute.
+     * If the task completes successfully, the result contains a page of matches, in timestamp order.
+     */
+    public CompletableFuture<PagedResult<TranscriptMatch>> SearchAsync(TranscriptQuery query, String continuationToken, int pageSize) {
+        return CompletableFuture.supplyAsync(() -> this.index.Search(query, continuationToken, pageSize));
+    }
+
+    /**
+     * Indexes every transcript the wrapped store holds for a channel, replacing what the index
+     * held for those conversations. Activities logged while a conversation is rebuilt are
+     * indexed once. This reads the whole channel, so use it once at startup rather than to
+     * answer searches.
+     *
+     * @param channelId The ID of the channel.
+     * @return A task that represents the work queued to execute.
+     */
+    public CompletableFuture<Void> RebuildAsync(String channelId) {
+        if (channelId == null)
+            throw new IllegalArgumentException("channelId");
+
+        return CompletableFuture.runAsync(() -> {
+            String transcriptsToken = null;
+            do {
+                PagedResult<Transcript> transcripts = this.transcriptStore.ListTranscriptsAsync(channelId, transcriptsToken).join();
+                for (Transcript transcript : transcripts.getItems()) {
+                    this.index.Remove(channelId, transcript.getId());
+                    Iterator<Activity> activities = this.transcriptStore.IterateTranscriptActivities(channelId, transcript.getId(), null);
+                    while (activities.hasNext())
+                        this.index.Add(activities.next());
+                }
+                transcriptsToken = transcripts.continuationToken();
+            } while (transcriptsToken != null);
+        });
+    }
+
+    @Override
+    public CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken) {
+        return this.transcriptStore.GetTranscriptActivitiesAsync(channelId, conversationId, continuationToken);
+    }
+
+    @Override
+    public CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId) {
+        return this.transcriptStore.GetTranscriptActivitiesAsync(channelId, conversationId);
+    }
+
+    @Override
+    public CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime localStartDate) {
+        return this.transcriptStore.GetTranscriptActivitiesAsync(channelId, conversationId, continuationToken, localStartDate);
+    }
+
+    @Override
+    public CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime startDate, int pageSize) {
+        return this.transcriptStore.GetTranscriptActivitiesAsync(channelId, conversationId, continuationToken, startDate, pageSize);
+    }
+
+    @Override
+    public CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId) {
+        return this.transcriptStore.ListTranscriptsAsync(channelId);
+    }
+
+    @Override
+    public CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken) {
+        return this.transcriptStore.ListTranscriptsAsync(channelId, continuationToken);
+    }
+
+    @Override
+    public CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken, int pageSize) {
+        return this.transcriptStore.ListTranscriptsAsync(channelId, continuationToken, pageSize);
+    }
+
+    @Override
+    public Iterator<Activity> IterateTranscriptActivities(String channelId, String conversationId, DateTime startDate) {
+        return this.transcriptStore.IterateTranscriptActivities(channelId, conversationId, startDate);
+    }
+
+    @Override
+    public Iterator<Activity> IterateChannelActivities(String channelId, DateTime startDate, DateTime endDate) {
+        return this.transcriptStore.IterateChannelActivities(channelId, startDate, endDate);
+    }
+
+    @Override
+    public long ExportTranscript(String channelId, String conversationId, DateTime startDate, OutputStream stream) throws IOException {
+        return this.transcriptStore.ExportTranscript(channelId, conversationId, startDate, stream);
+    }
+
+    @Override
+    public long ExportChannel(String channelId, DateTime startDate, DateTime endDate, OutputStream stream) throws IOException {
+        return this.transcriptStore.ExportChannel(channelId, startDate, endDate, stream);
+    }
+
+    /**
+     * Deletes a transcript from the wrapped store and from the index.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation to delete.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture DeleteTranscriptAsync(String channelId, String conversationId) {
+        return this.transcriptStore.DeleteTranscriptAsync(channelId, conversationId)
+                .thenRun(() -> this.index.Remove(channelId, conversationId));
+    }
+}
@@ -0,0 +1,243 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the activities a bot sends within the send quotas of its channels, by delaying sends
+ * rather than letting the channel reject them with 429s that are then retried.
+ * <p>Each conversation and each channel has a token bucket: it holds up to its burst of sends
+ * and refills at its rate. A send takes a token from the bucket of its conversation and from
+ * the bucket of its channel. When a bucket is empty the send is queued: it reserves the next
+ * token and waits until the bucket has refilled it, so sends queued together go out one after
+ * another at the rate, in the order they arrived. A send that waits for its conversation reserves
+ * its channel token once that wait is over, so the channel counts it when it goes out rather than
+ * when it was queued.</p>
+ * <p>Sends are never rejected. The queue time metrics report how long sends waited.</p>
+ *
+ * <example>
+ * <code>
+ * adapter.setSendRateLimiter(new SendRateLimiter(1, 3, 30, 30));
+ * </code>
+ * </example>
+ */
+public class SendRateLimiter {
+    /**
+     * The number of buckets above which idle buckets are dropped.
+     */
+    private static final int SWEEP_THRESHOLD = 10000;
+
+    private final double conversationRate;
+    private final int conversationBurst;
+    private final double channelRate;
+    private final int channelBurst;
+
+    private final ConcurrentHashMap<String, TokenBucket> conversations = new ConcurrentHashMap<String, TokenBucket>();
+    private final ConcurrentHashMap<String, TokenBucket> channels = new ConcurrentHashMap<String, TokenBucket>();
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Creates a limiter allowing each conversation 1 send per second in bursts of up to 3,
+     * and each channel 30 sends per second in bursts of up to 30.
+     */
+    public SendRateLimiter() {
+        this(1, 3, 30, 30);
+    }
+
+    /**
+     * Creates a limiter.
+     *
+     * @param conversationRate  The sends per second allowed to each conversation.
+     * @param conversationBurst The most sends to a conversation that go out without waiting.
+     * @param channelRate       The sends per second allowed to each channel.
+     * @param channelBurst      The most sends to a channel that go out without waiting.
+     */
+    public SendRateLimiter(double conversationRate, int conversationBurst, double channelRate, int channelBurst) {
+        if (!(conversationRate > 0))
+            throw new IllegalArgumentException("conversationRate");
+        if (conversationBurst <= 0)
+            throw new IllegalArgumentException("conversationBurst");
+        if (!(channelRate > 0))
+            throw new IllegalArgumentException("channelRate");
+        if (channelBurst <= 0)
+            throw new IllegalArgumentException("channelBurst");
+
+        this.conversationRate = conversationRate;
+        this.conversationBurst = conversationBurst;
+        this.channelRate = channelRate;
+        this.channelBurst = channelBurst;
+    }
+
+    /**
+     * Waits until a send to a conversation is within the rates of the conversation and its channel.
+     *
+     * @param channelId      The channel of the conversation, or null to not limit by channel.
+     * @param conversationId The conversation, or null to not limit by conversation.
+     * @throws InterruptedException The thread was interrupted while waiting.
+     */
+    public void Acquire(String channelId, String conversationId) throws InterruptedException {
+        long now = System.nanoTime();
+        long wait = 0;
+        if (conversationId != null) {
+            String key = (channelId != null) ? channelId + "/" + conversationId : conversationId;
+            wait = Bucket(this.conversations, key, this.conversationRate, this.conversationBurst).Reserve(now);
+        }
+        boolean channelReserved = (channelId == null);
+        if (wait <= 0 && !channelReserved) {
+            wait = Bucket(this.channels, channelId, this.channelRate, this.channelBurst).Reserve(now);
+            channelReserved = true;
+        }
+
+        this.acquired.incrementAndGet();
+        if (wait <= 0) {
+            return;
+        }
+        this.delayed.incrementAndGet();
+        this.waiting.incrementAndGet();
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+            if (!channelReserved) {
+                TimeUnit.NANOSECONDS.sleep(Bucket(this.channels, channelId, this.channelRate, this.channelBurst).Reserve(System.nanoTime()));
+            }
+        } finally {
+            this.waiting.decrementAndGet();
+            long queued = System.nanoTime() - now;
+            this.totalQueueNanos.addAndGet(queued);
+            this.maxQueueNanos.accumulateAndGet(queued, Math::max);
+        }
+    }
+
+    /**
+     * Gets the number of sends that were let through.
+     *
+     * @return The number of sends.
+     */
+    public long getAcquiredCount() {
+        return this.acquired.get();
+    }
+
+    /**
+     * Gets the number of sends that were queued.
+     *
+     * @return The number of queued sends.
+     */
+    public long getDelayedCount() {
+        return this.delayed.get();
+    }
+
+    /**
+     * Gets the number of sends waiting now.
+     *
+     * @return The number of waiting sends.
+     */
+    public int getQueueDepth() {
+        return this.waiting.get();
+    }
+
+    /**
+     * Gets the time sends spent queued, in total.
+     *
+     * @return The total queue time.
+     */
+    public Duration getTotalQueueTime() {
+        return Duration.ofNanos(this.totalQueueNanos.get());
+    }
+
+    /**
+     * Gets the longest time a send spent queued.
+     *
+     * @return The longest queue time.
+     */
+    public Duration getMaxQueueTime() {
+        return Duration.ofNanos(this.maxQueueNanos.get());
+    }
+
+    /**
+     * Gets the average time a queued send spent queued.
+     *
+     * @return The average queue time, or zero when no send was queued.
+     */
+    public Duration getAverageQueueTime() {
+        long delayed = this.delayed.get();
+        return (delayed == 0) ? Duration.ZERO : Duration.ofNanos(this.totalQueueNanos.get() / delayed);
+    }
+
+    private static TokenBucket Bucket(ConcurrentHashMap<String, TokenBucket> buckets, String key, double rate, int burst) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() > SWEEP_THRESHOLD) {
+            Sweep(buckets);
+        }
+        TokenBucket created = new TokenBucket(rate, burst);
+        bucket = buckets.putIfAbsent(key, created);
+        return (bucket != null) ? bucket : created;
+    }
+
+    /**
+     * Drops the buckets that have refilled: they would be created again just as they are.
+     */
+    private static void Sweep(ConcurrentHashMap<String, TokenBucket> buckets) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, TokenBucket>> entries = buckets.entrySet().iterator();
+        while (entries.hasNext()) {
+            if (entries.next().getValue().IsFull(now)) {
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * A token bucket whose tokens can be reserved ahead: a send that finds it empty takes the
+     * next token to be refilled, leaving the bucket in debt, and waits for it.
+     */
+    private static final class TokenBucket {
+        private final double tokensPerNano;
+        private final int burst;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double rate, int burst) {
+            this.tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+            this.burst = burst;
+            this.tokens = burst;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Takes a token.
+         *
+         * @return How long to wait for the token, in nanoseconds.
+         */
+        synchronized long Reserve(long now) {
+            Refill(now);
+            this.tokens -= 1;
+            return (this.tokens >= 0) ? 0 : (long) Math.ceil(-this.tokens / this.tokensPerNano);
+        }
+
+        synchronized boolean IsFull(long now) {
+            Refill(now);
+            return this.tokens >= this.burst;
+        }
+
+        private void Refill(long now) {
+            if (now > this.refilledAt) {
+                this.tokens = Math.min(this.burst, this.tokens + (now - this.refilledAt) * this.tokensPerNano);
+                this.refilledAt = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+/**
+ * A {@link StateKeyStrategy} that prefixes every key with the name of the partition
+ * that owns it, producing keys of the form {@code {partition}/{scope}/{channelId}/{id}}.
+ * <p>The partition is chosen by consistent hashing of {@code {channelId}/{id}}, so all
+ * state of one user (or one conversation) lands on the same partition. Use it together
+ * with {@link PartitionedStorage} to spread state across storage nodes.</p>
+ */
+public class ShardedStateKeyStrategy implements StateKeyStrategy {
+    private final ConsistentHashRing ring;
+    private final StateKeyStrategy inner;
+
+    /**
+     * Creates a sharded key strategy on top of {@link StateKeyStrategy#Default}.
+     *
+     * @param ring The ring that assigns keys to partitions.
+     */
+    public ShardedStateKeyStrategy(ConsistentHashRing ring) {
+        this(ring, StateKeyStrategy.Default);
+    }
+
+    /**
+     * Creates a sharded key strategy.
+     *
+     * @param ring  The ring that assigns keys to partitions.
+     * @param inner The strategy that builds the key below the partition prefix.
+     */
+    public ShardedStateKeyStrategy(ConsistentHashRing ring, StateKeyStrategy inner) {
+        if (ring == null)
+            throw new IllegalArgumentException("ring");
+        if (inner == null)
+            throw new IllegalArgumentException("inner");
+        this.ring = ring;
+        this.inner = inner;
+    }
+
+    @Override
+    public String GetKey(String scope, String channelId, String id) {
+        String partition = this.ring.GetNode(String.format("%s/%s", channelId, id));
+        return String.format("%s/%s", partition, this.inner.GetKey(scope, channelId, id));
+    }
+}
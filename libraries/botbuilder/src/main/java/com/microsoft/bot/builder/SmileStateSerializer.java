@@ -0,0 +1,92 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.microsoft.bot.schema.Serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializes state in the binary Smile encoding of JSON.
+ * <p>Each value is written as a two-field envelope, the type name followed by the state,
+ * and streamed straight between the object and the bytes without building a JSON tree.
+ * Readers and writers are those of {@link Serialization}, with the same modules and features,
+ * switched to the Smile factory, and cached per state type.</p>
+ */
+public class SmileStateSerializer implements StateSerializer {
+    private static final String TypeField = "t";
+    private static final String ValueField = "v";
+
+    private final SmileFactory factory = new SmileFactory();
+    private final StateTypeRegistry registry;
+    private final ConcurrentHashMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<Class<?>, ObjectReader>();
+    private final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+
+    /**
+     * Creates a Smile serializer with its own type registry.
+     */
+    public SmileStateSerializer() {
+        this(new StateTypeRegistry());
+    }
+
+    /**
+     * Creates a Smile serializer.
+     *
+     * @param registry The registry used to name and resolve state types.
+     */
+    public SmileStateSerializer(StateTypeRegistry registry) {
+        if (registry == null)
+            throw new IllegalArgumentException("registry");
+        this.registry = registry;
+    }
+
+    @Override
+    public byte[] Serialize(Object state) throws IOException {
+        if (state == null)
+            throw new IllegalArgumentException("state");
+
+        Class<?> type = state.getClass();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = this.factory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField(TypeField, this.registry.NameOf(type));
+            generator.writeFieldName(ValueField);
+            this.writers.computeIfAbsent(type, t -> Serialization.WriterFor(t).with(this.factory)).writeValue(generator, state);
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object Deserialize(byte[] data) throws IOException {
+        try (JsonParser parser = this.factory.createParser(data)) {
+            Expect(parser, JsonToken.START_OBJECT, null);
+            Expect(parser, JsonToken.FIELD_NAME, TypeField);
+            Expect(parser, JsonToken.VALUE_STRING, null);
+            String typeName = parser.getText();
+            Expect(parser, JsonToken.FIELD_NAME, ValueField);
+            parser.nextToken();
+
+            Class<?> type;
+            try {
+                type = this.registry.Resolve(typeName);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(String.format("Could not load class %s", typeName), e);
+            }
+            return this.readers.computeIfAbsent(type, t -> Serialization.ReaderFor(t).with(this.factory)).readValue(parser);
+        }
+    }
+
+    private static void Expect(JsonParser parser, JsonToken token, String fieldName) throws IOException {
+        if (parser.nextToken() != token || (fieldName != null && !fieldName.equals(parser.getCurrentName())))
+            throw new IOException(String.format("Malformed state envelope: expected %s %s", token, (fieldName != null) ? fieldName : ""));
+    }
+}
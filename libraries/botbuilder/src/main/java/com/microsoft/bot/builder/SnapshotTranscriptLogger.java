@@ -0,0 +1,16 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+/**
+ * A transcript logger that can log an {@link ActivitySnapshot} directly, without the
+ * activity being copied back out of it.
+ */
+public interface SnapshotTranscriptLogger extends TranscriptLogger {
+    /**
+     * Log an activity snapshot to the transcript.
+     *
+     * @param snapshot The snapshot to transcribe.
+     */
+    void LogSnapshot(ActivitySnapshot snapshot);
+}
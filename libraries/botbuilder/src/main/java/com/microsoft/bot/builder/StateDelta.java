@@ -0,0 +1,43 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The changes made to one stored state object during a turn.
+ * {@linkalso DeltaStorage}
+ */
+public class StateDelta {
+    private final ObjectNode patch;
+    private final String eTag;
+
+    /**
+     * Creates a state delta.
+     *
+     * @param patch The JSON merge patch holding the changed fields.
+     * @param eTag  The eTag the stored item must match, {@code "*"} to overwrite
+     *              unconditionally, or {@code null} if the state is not a {@link StoreItem}.
+     */
+    public StateDelta(ObjectNode patch, String eTag) {
+        if (patch == null)
+            throw new IllegalArgumentException("patch");
+        this.patch = patch;
+        this.eTag = eTag;
+    }
+
+    /**
+     * Gets the JSON merge patch holding the changed fields.
+     * {@linkalso JsonMergePatch}
+     */
+    public ObjectNode getPatch() {
+        return this.patch;
+    }
+
+    /**
+     * Gets the eTag the stored item must match.
+     */
+    public String geteTag() {
+        return this.eTag;
+    }
+}
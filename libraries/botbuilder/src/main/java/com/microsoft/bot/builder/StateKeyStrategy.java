@@ -0,0 +1,28 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+/**
+ * Builds the storage keys used by {@link BotState} objects.
+ * <p>The default strategy produces keys of the form {@code {scope}/{channelId}/{id}},
+ * for example {@code conversation/msteams/19:abc} or {@code user/slack/U123}.
+ * Other strategies can add a prefix, for example a shard or partition name,
+ * so state can be spread across storage nodes.</p>
+ * {@linkalso ShardedStateKeyStrategy}
+ */
+public interface StateKeyStrategy {
+    /**
+     * The default key strategy, {@code {scope}/{channelId}/{id}}.
+     */
+    StateKeyStrategy Default = (scope, channelId, id) -> String.format("%s/%s/%s", scope, channelId, id);
+
+    /**
+     * Builds a storage key.
+     *
+     * @param scope     The state scope, such as {@code conversation} or {@code user}.
+     * @param channelId The ID of the channel.
+     * @param id        The ID of the scoped entity (the conversation ID, the user ID, ...).
+     * @return The storage key.
+     */
+    String GetKey(String scope, String channelId, String id);
+}
@@ -0,0 +1,64 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads state that was stored under a previous key scheme.
+ * <p>When a {@link BotState} does not find its state under the current key, it asks
+ * its migration reader for the state under the legacy key. The state found there is
+ * used for the turn and written back under the current key on the trailing edge of the
+ * turn, so every entry migrates on first use. The legacy entry is left in place; remove
+ * legacy keys separately once migration is complete.</p>
+ * {@linkalso UserState#LegacyKey(TurnContext)}
+ */
+public class StateMigrationReader {
+    private final Function<TurnContext, String> legacyKeyDelegate;
+    private final Storage legacyStorage;
+
+    /**
+     * Creates a migration reader that reads legacy state from the state object's own storage.
+     *
+     * @param legacyKeyDelegate Builds the legacy storage key for a turn.
+     */
+    public StateMigrationReader(Function<TurnContext, String> legacyKeyDelegate) {
+        this(legacyKeyDelegate, null);
+    }
+
+    /**
+     * Creates a migration reader.
+     *
+     * @param legacyKeyDelegate Builds the legacy storage key for a turn.
+     * @param legacyStorage     The storage provider holding the legacy state, for example the
+     *                          unpartitioned store when moving to a {@link PartitionedStorage};
+     *                          or {@code null} to use the state object's own storage.
+     */
+    public StateMigrationReader(Function<TurnContext, String> legacyKeyDelegate, Storage legacyStorage) {
+        if (legacyKeyDelegate == null)
+            throw new IllegalArgumentException("legacyKeyDelegate");
+        this.legacyKeyDelegate = legacyKeyDelegate;
+        this.legacyStorage = legacyStorage;
+    }
+
+    /**
+     * Reads the state stored under the legacy key.
+     *
+     * @param storage    The storage provider of the state object; used when no legacy storage was given.
+     * @param context    The context object for this turn.
+     * @param currentKey The key the state is stored under in the current scheme.
+     * @return The legacy state object, or {@code null} if there is none.
+     */
+    public Object Read(Storage storage, TurnContext context, String currentKey) throws JsonProcessingException {
+        String legacyKey = this.legacyKeyDelegate.apply(context);
+        if (legacyKey == null || legacyKey.equals(currentKey))
+            return null;
+
+        Storage source = (this.legacyStorage != null) ? this.legacyStorage : storage;
+        Map<String, ?> items = source.Read(legacyKey).join();
+        return items.get(legacyKey);
+    }
+}
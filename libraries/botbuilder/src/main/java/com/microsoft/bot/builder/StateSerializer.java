@@ -0,0 +1,32 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.io.IOException;
+
+/**
+ * Converts state objects to and from the bytes a {@link Storage} implementation persists.
+ * <p>The serialized form carries the type of the state object, so {@link #Deserialize(byte[])}
+ * returns an instance of the same class that was passed to {@link #Serialize(Object)}.</p>
+ * {@linkalso JsonStateSerializer}
+ * {@linkalso SmileStateSerializer}
+ */
+public interface StateSerializer {
+    /**
+     * Serializes a state object.
+     *
+     * @param state The state object.
+     * @return The serialized state, including its type.
+     * @throws IOException The state object could not be serialized.
+     */
+    byte[] Serialize(Object state) throws IOException;
+
+    /**
+     * Deserializes a state object.
+     *
+     * @param data The serialized state, as returned by {@link #Serialize(Object)}.
+     * @return The state object.
+     * @throws IOException The data could not be read, or names a type that cannot be loaded.
+     */
+    Object Deserialize(byte[] data) throws IOException;
+}
@@ -0,0 +1,65 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the type names stored alongside serialized state to classes, and back.
+ * <p>Class lookups are cached, so {@link Class#forName(String)} runs once per type rather
+ * than once per read. Types can also be registered under a short alias, which is then
+ * written in place of the full class name.</p>
+ */
+public class StateTypeRegistry {
+    private final ConcurrentHashMap<String, Class<?>> typesByName = new ConcurrentHashMap<String, Class<?>>();
+    private final ConcurrentHashMap<Class<?>, String> namesByType = new ConcurrentHashMap<Class<?>, String>();
+
+    /**
+     * Registers a type under a short alias.
+     *
+     * @param alias The name to store in place of the class name.
+     * @param type  The state type.
+     * @return The updated registry.
+     */
+    public StateTypeRegistry Register(String alias, Class<?> type) {
+        if (alias == null || alias.isEmpty())
+            throw new IllegalArgumentException("alias");
+        if (type == null)
+            throw new IllegalArgumentException("type");
+
+        Class<?> existing = this.typesByName.putIfAbsent(alias, type);
+        if (existing != null && existing != type)
+            throw new IllegalArgumentException(String.format("Alias %s is already registered for %s", alias, existing.getTypeName()));
+        this.namesByType.put(type, alias);
+        return this;
+    }
+
+    /**
+     * Gets the name to store for a type: its alias if it has one, otherwise its class name.
+     *
+     * @param type The state type.
+     * @return The stored type name.
+     */
+    public String NameOf(Class<?> type) {
+        String name = this.namesByType.get(type);
+        return (name != null) ? name : type.getTypeName();
+    }
+
+    /**
+     * Resolves a stored type name to its class.
+     *
+     * @param name An alias or class name.
+     * @return The state type.
+     * @throws ClassNotFoundException The name is neither a registered alias nor a loadable class.
+     */
+    public Class<?> Resolve(String name) throws ClassNotFoundException {
+        Class<?> type = this.typesByName.get(name);
+        if (type == null) {
+            type = Class.forName(name);
+            Class<?> existing = this.typesByName.putIfAbsent(name, type);
+            if (existing != null)
+                type = existing;
+        }
+        return type;
+    }
+}
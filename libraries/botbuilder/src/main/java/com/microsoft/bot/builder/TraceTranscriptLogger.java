@@ -6,38 +6,45 @@ package com.microsoft.bot.builder;
 
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.microsoft.bot.schema.Serialization;
 import com.microsoft.bot.schema.models.Activity;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinWorkerThread;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Represents a transcript logger that writes activites to a <see cref="Trace"/> object.
+ * <p>Each activity is written as one line of compact JSON, without null fields, at info level,
+ * through a writer shared by all instances (Jackson recycles its buffers between calls). Nothing
+ * is serialized when info logging is off for this logger. The shipped log4j2 configuration routes this logger through an
+ * async appender so logging does not wait on the console. Pass {@code true} to the constructor to
+ * pretty-print activities while debugging.</p>
  */
-public class TraceTranscriptLogger implements TranscriptLogger {
+public class TraceTranscriptLogger implements SnapshotTranscriptLogger {
     // https://github.com/FasterXML/jackson-databind/wiki/Serialization-Features
-    private static ObjectMapper mapper = new ObjectMapper()
-            .enable(SerializationFeature.INDENT_OUTPUT);
-    private static final Logger logger = LogManager.getLogger("HelloWorld");
-
-    ForkJoinPool.ForkJoinWorkerThreadFactory factory = new ForkJoinPool.ForkJoinWorkerThreadFactory()
-    {
-        @Override
-        public ForkJoinWorkerThread newThread(ForkJoinPool pool)
-        {
-            final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
-            worker.setName("BotTrace-" + worker.getPoolIndex());
-            return worker;
-        }
-    };
+    private static final ObjectWriter compactWriter = Serialization.CompactWriterFor(Activity.class);
+    private static final ObjectWriter prettyWriter = compactWriter.withDefaultPrettyPrinter();
+    private static final Logger logger = LogManager.getLogger(TraceTranscriptLogger.class);
+
+    private final boolean prettyPrint;
+
+    /**
+     * Creates a logger that writes compact JSON.
+     */
+    public TraceTranscriptLogger() {
+        this(false);
+    }
 
-    ExecutorService executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), factory, null, true);
+    /**
+     * Creates a logger.
+     *
+     * @param prettyPrint {@code true} to indent the JSON written for each activity.
+     */
+    public TraceTranscriptLogger(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
 
     /**
      * Log an activity to the transcript.
@@ -47,13 +54,32 @@ public class TraceTranscriptLogger implements TranscriptLogger {
      */
     @Override
     public void LogActivityAsync(Activity activity) {
-            BotAssert.ActivityNotNull(activity);
-            String event = null;
-            try {
-                event = mapper.writeValueAsString(activity);
-            } catch (JsonProcessingException e) {
-                e.printStackTrace();
-            }
-            this.logger.info(event);
+        BotAssert.ActivityNotNull(activity);
+        if (!logger.isInfoEnabled())
+            return;
+
+        try {
+            logger.info((this.prettyPrint ? prettyWriter : compactWriter).writeValueAsString(activity));
+        } catch (JsonProcessingException e) {
+            logger.error(String.format("TraceTranscriptLogger: failed to serialize activity %s: %s", activity.id(), e.toString()));
+        }
+    }
+
+    /**
+     * Log an activity snapshot to the transcript. In compact mode the snapshot's JSON is written as it is.
+     *
+     * @param snapshot The snapshot to transcribe.
+     */
+    @Override
+    public void LogSnapshot(ActivitySnapshot snapshot) {
+        if (snapshot == null)
+            throw new IllegalArgumentException("snapshot");
+        if (!logger.isInfoEnabled())
+            return;
+
+        if (this.prettyPrint)
+            LogActivityAsync(snapshot.ToActivity());
+        else
+            logger.info(new String(snapshot.Bytes(), StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,56 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.microsoft.bot.schema.Serialization;
+import com.microsoft.bot.schema.models.Activity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Writes activities as newline-delimited JSON (NDJSON): one activity per line, each line
+ * ending in {@code \n}.
+ * <p>Activities are written through one generator as they are taken from the iterator, so
+ * exporting holds one activity and the generator's buffer at a time, however long the
+ * transcript is. The stream is flushed at the end but not closed.</p>
+ */
+public final class TranscriptExport {
+    private static final ObjectWriter writer = Serialization.CompactWriterFor(Activity.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private TranscriptExport() {
+    }
+
+    /**
+     * Writes activities as NDJSON.
+     *
+     * @param activities The activities to write.
+     * @param stream     The stream to write to.
+     * @return The number of activities written.
+     */
+    public static long WriteNdjson(Iterator<Activity> activities, OutputStream stream) throws IOException {
+        if (activities == null)
+            throw new IllegalArgumentException("activities");
+        if (stream == null)
+            throw new IllegalArgumentException("stream");
+
+        long count = 0;
+        try (JsonGenerator generator = writer.getFactory().createGenerator(stream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            // Each line ends in its own newline; Jackson would put a space before every value after the first.
+            generator.setRootValueSeparator(null);
+            while (activities.hasNext()) {
+                writer.writeValue(generator, activities.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+            generator.flush();
+        }
+        return count;
+    }
+}
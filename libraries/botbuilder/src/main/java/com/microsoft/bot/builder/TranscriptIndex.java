@@ -0,0 +1,362 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.models.Activity;
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory index of logged activities by time, sender and the words of their text, so
+ * transcripts can be searched without reading every conversation.
+ * <p>Each activity is one entry. Entries are kept in timestamp order in a time index, and in a
+ * posting set per sender id and per word. A search walks the smallest posting set that applies
+ * to the query within its time window, and checks the other criteria against their sets, so its
+ * cost follows the number of candidate entries rather than the size of the transcripts. Results
+ * come back in timestamp order, 20 to a page unless the caller asks for another size.</p>
+ * <p>An activity added again with the same channel, conversation, id and timestamp is indexed
+ * once, so an activity logged while its conversation is being rebuilt is not counted twice.
+ * Updates to an activity have their own timestamps and are indexed as well.</p>
+ * <p>Text is split into words on anything that is not a letter or a digit and compared without
+ * case. The index holds ids and words only; the activities themselves stay in the transcript
+ * store.</p>
+ */
+public class TranscriptIndex {
+    private static final int DefaultPageSize = 20;
+    private static final char SearchToken = 's';
+    private static final Pattern WordSeparator = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<Entry> TimeOrder = Comparator.comparingLong((Entry e) -> e.millis).thenComparingLong(e -> e.sequence);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeSet<Entry> byTime = new TreeSet<Entry>(TimeOrder);
+    private final HashMap<String, TreeSet<Entry>> byFrom = new HashMap<String, TreeSet<Entry>>();
+    private final HashMap<String, TreeSet<Entry>> byWord = new HashMap<String, TreeSet<Entry>>();
+    private final HashMap<String, List<Entry>> byConversation = new HashMap<String, List<Entry>>();
+    private final HashMap<String, Entry> byActivity = new HashMap<String, Entry>();
+    private long sequence;
+
+    /**
+     * Adds an activity to the index.
+     *
+     * @param activity The activity to index.
+     */
+    public void Add(Activity activity) {
+        BotAssert.ActivityNotNull(activity);
+        Add(activity.channelId(),
+                (activity.conversation() != null) ? activity.conversation().id() : null,
+                activity.id(),
+                (activity.from() != null) ? activity.from().id() : null,
+                activity.text(),
+                activity.timestamp());
+    }
+
+    /**
+     * Adds an activity snapshot to the index.
+     *
+     * @param snapshot The snapshot to index.
+     */
+    public void Add(ActivitySnapshot snapshot) {
+        if (snapshot == null)
+            throw new IllegalArgumentException("snapshot");
+        Add(snapshot.getChannelId(), snapshot.getConversationId(), snapshot.getId(), snapshot.getFromId(), snapshot.getText(), snapshot.getTimestamp());
+    }
+
+    /**
+     * Removes every activity of a conversation from the index.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation.
+     */
+    public void Remove(String channelId, String conversationId) {
+        if (channelId == null)
+            throw new IllegalArgumentException("channelId");
+        if (conversationId == null)
+            throw new IllegalArgumentException("conversationId");
+
+        this.lock.writeLock().lock();
+        try {
+            List<Entry> entries = this.byConversation.remove(ConversationKey(channelId, conversationId));
+            if (entries == null)
+                return;
+            for (Entry entry : entries) {
+                this.byTime.remove(entry);
+                RemovePostings(entry);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the activities of a channel with timestamps before a time, such as those a
+     * transcript store has dropped.
+     *
+     * @param channelId The ID of the channel.
+     * @param before    The time to remove the activities before.
+     */
+    public void RemoveBefore(String channelId, DateTime before) {
+        if (channelId == null)
+            throw new IllegalArgumentException("channelId");
+        if (before == null)
+            throw new IllegalArgumentException("before");
+
+        this.lock.writeLock().lock();
+        try {
+            Set<Entry> removed = new HashSet<Entry>();
+            Iterator<Entry> older = this.byTime.headSet(new Entry(Long.MIN_VALUE, before.getMillis()), false).iterator();
+            while (older.hasNext()) {
+                Entry entry = older.next();
+                if (!channelId.equals(entry.channelId))
+                    continue;
+                older.remove();
+                RemovePostings(entry);
+                removed.add(entry);
+            }
+
+            Iterator<List<Entry>> conversations = this.byConversation.values().iterator();
+            while (conversations.hasNext()) {
+                List<Entry> entries = conversations.next();
+                if (entries.removeIf(removed::contains) && entries.isEmpty())
+                    conversations.remove();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of activities in the index.
+     */
+    public int getCount() {
+        this.lock.readLock().lock();
+        try {
+            return this.byTime.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the activities that match a query.
+     *
+     * @param query The criteria to match.
+     * @return The first page of matches, in timestamp order.
+     */
+    public PagedResult<TranscriptMatch> Search(TranscriptQuery query) {
+        return Search(query, null);
+    }
+
+    /**
+     * Finds the activities that match a query.
+     *
+     * @param query             The criteria to match.
+     * @param continuationToken The continuation token of the previous page, or {@code null} for the first page.
+     * @return A page of matches, in timestamp order.
+     */
+    public PagedResult<TranscriptMatch> Search(TranscriptQuery query, String continuationToken) {
+        return Search(query, continuationToken, DefaultPageSize);
+    }
+
+    /**
+     * Finds the activities that match a query.
+     *
+     * @param query             The criteria to match.
+     * @param continuationToken The continuation token of the previous page, or {@code null} for the first page.
+     * @param pageSize          The most matches to return.
+     * @return A page of matches, in timestamp order.
+     */
+    public PagedResult<TranscriptMatch> Search(TranscriptQuery query, String continuationToken, int pageSize) {
+        if (query == null)
+            throw new IllegalArgumentException("query");
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize");
+
+        PagedResult<TranscriptMatch> pagedResult = new PagedResult<TranscriptMatch>();
+        Set<String> words = Words(query.getText());
+        List<TranscriptMatch> items = new ArrayList<TranscriptMatch>();
+        Entry last = null;
+
+        this.lock.readLock().lock();
+        try {
+            // Gather the posting sets the query needs; a missing one means nothing can match.
+            List<NavigableSet<Entry>> postings = new ArrayList<NavigableSet<Entry>>();
+            if (query.getFromId() != null) {
+                TreeSet<Entry> from = this.byFrom.get(query.getFromId());
+                if (from == null)
+                    return pagedResult;
+                postings.add(from);
+            }
+            for (String word : words) {
+                TreeSet<Entry> posting = this.byWord.get(word);
+                if (posting == null)
+                    return pagedResult;
+                postings.add(posting);
+            }
+
+            NavigableSet<Entry> smallest = this.byTime;
+            for (NavigableSet<Entry> posting : postings) {
+                if (posting.size() < smallest.size())
+                    smallest = posting;
+            }
+
+            for (Entry entry : Window(smallest, query, continuationToken)) {
+                if (items.size() == pageSize)
+                    break;
+                if (query.getChannelId() != null && !query.getChannelId().equals(entry.channelId))
+                    continue;
+                if (!ContainedInAll(postings, smallest, entry))
+                    continue;
+                items.add(new TranscriptMatch(entry.channelId, entry.conversationId, entry.activityId, entry.fromId, entry.timestamp));
+                last = entry;
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        pagedResult.items(items.toArray(new TranscriptMatch[items.size()]));
+        if (items.size() == pageSize) {
+            pagedResult.withContinuationToken(ContinuationToken.Encode(SearchToken, last.millis, last.sequence, null));
+        }
+        return pagedResult;
+    }
+
+    private void Add(String channelId, String conversationId, String activityId, String fromId, String text, DateTime timestamp) {
+        DateTime when = (timestamp != null) ? timestamp : DateTime.now();
+        Set<String> words = Words(text);
+
+        this.lock.writeLock().lock();
+        try {
+            String activityKey = (activityId != null) ? ActivityKey(channelId, conversationId, activityId, when.getMillis()) : null;
+            if (activityKey != null && this.byActivity.containsKey(activityKey))
+                return;
+
+            Entry entry = new Entry(++this.sequence, when, channelId, conversationId, activityId, fromId, words.toArray(new String[words.size()]));
+            if (activityKey != null)
+                this.byActivity.put(activityKey, entry);
+            this.byTime.add(entry);
+            if (fromId != null)
+                AddPosting(this.byFrom, fromId, entry);
+            for (String word : entry.words)
+                AddPosting(this.byWord, word, entry);
+            this.byConversation.computeIfAbsent(ConversationKey(channelId, conversationId), k -> new ArrayList<Entry>()).add(entry);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static NavigableSet<Entry> Window(NavigableSet<Entry> entries, TranscriptQuery query, String continuationToken) {
+        NavigableSet<Entry> window = entries;
+        if (continuationToken != null) {
+            window = window.tailSet(Probe(continuationToken), false);
+        } else if (query.getStart() != null) {
+            window = window.tailSet(new Entry(Long.MIN_VALUE, query.getStart().getMillis()), true);
+        }
+        if (query.getEnd() != null) {
+            window = window.headSet(new Entry(Long.MIN_VALUE, query.getEnd().getMillis()), false);
+        }
+        return window;
+    }
+
+    private static boolean ContainedInAll(List<NavigableSet<Entry>> postings, NavigableSet<Entry> walked, Entry entry) {
+        for (NavigableSet<Entry> posting : postings) {
+            if (posting != walked && !posting.contains(entry))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes an entry from every lookup but the time index and its conversation.
+     */
+    private void RemovePostings(Entry entry) {
+        if (entry.fromId != null)
+            RemovePosting(this.byFrom, entry.fromId, entry);
+        for (String word : entry.words)
+            RemovePosting(this.byWord, word, entry);
+        if (entry.activityId != null)
+            this.byActivity.remove(ActivityKey(entry.channelId, entry.conversationId, entry.activityId, entry.millis));
+    }
+
+    private static void AddPosting(Map<String, TreeSet<Entry>> postings, String key, Entry entry) {
+        postings.computeIfAbsent(key, k -> new TreeSet<Entry>(TimeOrder)).add(entry);
+    }
+
+    private static void RemovePosting(Map<String, TreeSet<Entry>> postings, String key, Entry entry) {
+        TreeSet<Entry> posting = postings.get(key);
+        if (posting != null) {
+            posting.remove(entry);
+            if (posting.isEmpty())
+                postings.remove(key);
+        }
+    }
+
+    static Set<String> Words(String text) {
+        Set<String> words = new LinkedHashSet<String>();
+        if (text == null)
+            return words;
+        for (String word : WordSeparator.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty())
+                words.add(word);
+        }
+        return words;
+    }
+
+    private static String ConversationKey(String channelId, String conversationId) {
+        return channelId + "\n" + conversationId;
+    }
+
+    private static String ActivityKey(String channelId, String conversationId, String activityId, long millis) {
+        return ConversationKey(channelId, conversationId) + "\n" + activityId + "\n" + millis;
+    }
+
+    private static Entry Probe(String continuationToken) {
+        ContinuationToken after = ContinuationToken.Decode(SearchToken, continuationToken);
+        return new Entry(after.second, after.first);
+    }
+
+    /**
+     * One indexed activity. Entries are ordered by timestamp, then by the order they were added.
+     */
+    private static final class Entry {
+        final long sequence;
+        final long millis;
+        final DateTime timestamp;
+        final String channelId;
+        final String conversationId;
+        final String activityId;
+        final String fromId;
+        final String[] words;
+
+        Entry(long sequence, DateTime timestamp, String channelId, String conversationId, String activityId, String fromId, String[] words) {
+            this.sequence = sequence;
+            this.millis = timestamp.getMillis();
+            this.timestamp = timestamp;
+            this.channelId = channelId;
+            this.conversationId = conversationId;
+            this.activityId = activityId;
+            this.fromId = fromId;
+            this.words = words;
+        }
+
+        /**
+         * A search bound at a position in time order.
+         */
+        Entry(long sequence, long millis) {
+            this(sequence, new DateTime(millis), null, null, null, null, new String[0]);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.models.Activity;
+import org.joda.time.DateTime;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterators over the paged transcript store APIs, holding one page at a time.
+ */
+final class TranscriptIterators {
+    /**
+     * The page size iterators ask stores for.
+     */
+    static final int PageSize = 100;
+
+    private TranscriptIterators() {
+    }
+
+    /**
+     * Iterates the items of every page, reading the next page when the current one is used up.
+     *
+     * @param readPage Reads the page for a continuation token ({@code null} for the first page).
+     */
+    static <T> Iterator<T> Paged(Function<String, PagedResult<T>> readPage) {
+        return new Iterator<T>() {
+            private T[] items;
+            private String continuationToken;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (this.items == null || this.index == this.items.length) {
+                    if (this.items != null && this.continuationToken == null)
+                        return false;
+                    PagedResult<T> page = readPage.apply(this.continuationToken);
+                    this.items = page.getItems();
+                    this.continuationToken = page.continuationToken();
+                    this.index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return this.items[this.index++];
+            }
+        };
+    }
+
+    /**
+     * Iterates the activities of every conversation on a channel whose timestamp is in a range,
+     * one conversation after another.
+     */
+    static Iterator<Activity> Channel(TranscriptStore store, String channelId, DateTime startDate, DateTime endDate) {
+        Iterator<Transcript> transcripts = Paged(token -> store.ListTranscriptsAsync(channelId, token, PageSize).join());
+        return new Iterator<Activity>() {
+            private Iterator<Activity> activities = Collections.emptyIterator();
+            private Activity next;
+
+            @Override
+            public boolean hasNext() {
+                while (this.next == null) {
+                    if (this.activities.hasNext()) {
+                        Activity activity = this.activities.next();
+                        if (endDate == null || activity.timestamp() == null || activity.timestamp().isBefore(endDate))
+                            this.next = activity;
+                    } else if (transcripts.hasNext()) {
+                        String conversationId = transcripts.next().getId();
+                        this.activities = Paged(token -> store.GetTranscriptActivitiesAsync(channelId, conversationId, token, startDate, PageSize).join());
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Activity next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Activity activity = this.next;
+                this.next = null;
+                return activity;
+            }
+        };
+    }
+}
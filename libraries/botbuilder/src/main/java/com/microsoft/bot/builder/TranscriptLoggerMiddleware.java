@@ -5,12 +5,11 @@ package com.microsoft.bot.builder;
 
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.microsoft.bot.schema.ActivityImpl;
 import com.microsoft.bot.schema.models.Activity;
 import com.microsoft.bot.schema.models.ActivityTypes;
 import com.microsoft.bot.schema.models.ResourceResponse;
+import com.microsoft.bot.schema.models.RoleTypes;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -24,20 +23,9 @@ import java.util.LinkedList;
  * When added, this middleware will log incoming and outgoing activitites to a ITranscriptStore.
  */
 public class TranscriptLoggerMiddleware implements Middleware {
-    // https://github.com/FasterXML/jackson-databind/wiki/Serialization-Features
-    private static ObjectMapper mapper;
-
-    static {
-        mapper = new ObjectMapper()
-                .enable(SerializationFeature.INDENT_OUTPUT);
-        mapper.findAndRegisterModules();
-    }
-
     private TranscriptLogger logger;
     private static final Logger log4j = LogManager.getLogger("BotFx");
 
-    private LinkedList<Activity> transcript = new LinkedList<Activity>();
-
     /**
      * Initializes a new instance of the <see cref="TranscriptLoggerMiddleware"/> class.
      *
@@ -53,6 +41,8 @@ public class TranscriptLoggerMiddleware implements Middleware {
 
     /**
      * initialization for middleware turn.
+     * <p>Activities are buffered per turn and handed to the transcript logger when the turn ends.
+     * To keep a slow transcript sink off the turn, wrap it in a {@link BatchingTranscriptLogger}.</p>
      *
      * @param context
      * @param next
@@ -60,22 +50,21 @@ public class TranscriptLoggerMiddleware implements Middleware {
      */
     @Override
     public void OnTurn(TurnContext context, NextDelegate next) throws Exception {
+        LinkedList<ActivitySnapshot> transcript = new LinkedList<ActivitySnapshot>();
+
         // log incoming activity at beginning of turn
         if (context.getActivity() != null) {
-            JsonNode role = null;
             if (context.getActivity().from() == null) {
                 throw new RuntimeException("Activity does not contain From field");
             }
-            if (context.getActivity().from().properties().containsKey("role")) {
-                role = context.getActivity().from().properties().get("role");
-            }
-
-            if (role == null || StringUtils.isBlank(role.asText())) {
-                context.getActivity().from().properties().put("role", mapper.createObjectNode().with("user"));
+            if (context.getActivity().from().role() == null) {
+                JsonNode role = context.getActivity().from().properties().get("role");
+                if (role == null || StringUtils.isBlank(role.asText())) {
+                    context.getActivity().from().withRole(RoleTypes.USER);
+                }
             }
-            Activity activityTemp = ActivityImpl.CloneActity(context.getActivity());
 
-            LogActivity(ActivityImpl.CloneActity(context.getActivity()));
+            LogActivity(transcript, context.getActivity(), null);
         }
 
         // hook up onSend pipeline
@@ -93,7 +82,7 @@ public class TranscriptLoggerMiddleware implements Middleware {
             }
 
             for (Activity activity : activities) {
-                LogActivity(ActivityImpl.CloneActity(activity));
+                LogActivity(transcript, activity, null);
             }
 
             return responses;
@@ -119,9 +108,7 @@ public class TranscriptLoggerMiddleware implements Middleware {
             }
 
             // add Message Update activity
-            Activity updateActivity = ActivityImpl.CloneActity(activity);
-            updateActivity.withType(ActivityTypes.MESSAGE_UPDATE);
-            LogActivity(updateActivity);
+            LogActivity(transcript, activity, ActivityTypes.MESSAGE_UPDATE);
             return response;
 
 
@@ -133,7 +120,6 @@ public class TranscriptLoggerMiddleware implements Middleware {
 
             try {
                 if (nextDel != null) {
-                    log4j.error(String.format("Transcript logActivity next delegate: %s)", nextDel));
                     nextDel.run();
                 }
             } catch (Exception e) {
@@ -148,9 +134,10 @@ public class TranscriptLoggerMiddleware implements Middleware {
             Activity deleteActivity = new Activity()
                     .withType(ActivityTypes.MESSAGE_DELETE)
                     .withId(reference.activityId())
+                    .withTimestamp(DateTime.now(DateTimeZone.UTC))
                     .applyConversationReference(reference, false);
 
-            LogActivity(deleteActivity);
+            LogActivity(transcript, deleteActivity, null);
             return;
 
         });
@@ -165,10 +152,17 @@ public class TranscriptLoggerMiddleware implements Middleware {
         }
 
         // flush transcript at end of turn
-        while (!transcript.isEmpty()) {
-            Activity activity = transcript.poll();
+        ActivitySnapshot[] entries;
+        synchronized (transcript) {
+            entries = transcript.toArray(new ActivitySnapshot[transcript.size()]);
+            transcript.clear();
+        }
+        for (ActivitySnapshot entry : entries) {
             try {
-                this.logger.LogActivityAsync(activity);
+                if (this.logger instanceof SnapshotTranscriptLogger)
+                    ((SnapshotTranscriptLogger) this.logger).LogSnapshot(entry);
+                else
+                    this.logger.LogActivityAsync(entry.ToActivity());
             } catch (RuntimeException err) {
                 log4j.error(String.format("Transcript poll failed : %1$s", err));
             }
@@ -177,12 +171,26 @@ public class TranscriptLoggerMiddleware implements Middleware {
     }
 
 
-    private void LogActivity(Activity activity) {
-        synchronized (transcript) {
-            if (activity.timestamp() == null) {
+    /**
+     * Captures the activity as it is now, as an {@link ActivitySnapshot}, so later changes the bot
+     * makes to the activity, or to objects it shares with other activities, do not reach the
+     * transcript. Loggers that are not a {@link SnapshotTranscriptLogger} are given a copy read back
+     * from the snapshot. The activity is copied first only when the snapshot needs a timestamp or
+     * type the activity does not have.
+     *
+     * @param type The type to log the activity as, or null for its own type.
+     */
+    private void LogActivity(LinkedList<ActivitySnapshot> transcript, Activity activity, ActivityTypes type) {
+        if (activity.timestamp() == null || type != null) {
+            activity = ActivityImpl.CloneActity(activity);
+            if (activity.timestamp() == null)
                 activity.withTimestamp(DateTime.now(DateTimeZone.UTC));
-            }
-            transcript.offer(activity);
+            if (type != null)
+                activity.withType(type);
+        }
+        ActivitySnapshot entry = ActivitySnapshot.Of(activity);
+        synchronized (transcript) {
+            transcript.offer(entry);
         }
     }
 
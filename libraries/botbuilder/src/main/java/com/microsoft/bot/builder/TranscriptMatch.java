@@ -0,0 +1,60 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import org.joda.time.DateTime;
+
+/**
+ * An activity found by a {@link TranscriptIndex} search. Use the channel and conversation ids
+ * to read the transcript around it from the transcript store.
+ */
+public class TranscriptMatch {
+    private final String channelId;
+    private final String conversationId;
+    private final String activityId;
+    private final String fromId;
+    private final DateTime timestamp;
+
+    TranscriptMatch(String channelId, String conversationId, String activityId, String fromId, DateTime timestamp) {
+        this.channelId = channelId;
+        this.conversationId = conversationId;
+        this.activityId = activityId;
+        this.fromId = fromId;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the id of the channel the activity was logged on.
+     */
+    public String getChannelId() {
+        return this.channelId;
+    }
+
+    /**
+     * Gets the id of the conversation the activity belongs to.
+     */
+    public String getConversationId() {
+        return this.conversationId;
+    }
+
+    /**
+     * Gets the id of the activity.
+     */
+    public String getActivityId() {
+        return this.activityId;
+    }
+
+    /**
+     * Gets the id of the sender of the activity.
+     */
+    public String getFromId() {
+        return this.fromId;
+    }
+
+    /**
+     * Gets the timestamp of the activity.
+     */
+    public DateTime getTimestamp() {
+        return this.timestamp;
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import org.joda.time.DateTime;
+
+/**
+ * Criteria for a {@link TranscriptIndex} search. Every criterion that is set must match;
+ * criteria left unset match every activity.
+ */
+public class TranscriptQuery {
+    /**
+     * The channel the activity was logged on.
+     */
+    private String channelId;
+
+    public String getChannelId() {
+        return this.channelId;
+    }
+
+    public TranscriptQuery withChannelId(String value) {
+        this.channelId = value;
+        return this;
+    }
+
+    /**
+     * The id of the sender of the activity.
+     */
+    private String fromId;
+
+    public String getFromId() {
+        return this.fromId;
+    }
+
+    public TranscriptQuery withFromId(String value) {
+        this.fromId = value;
+        return this;
+    }
+
+    /**
+     * Words that must all appear in the text of the activity, in any order and case.
+     */
+    private String text;
+
+    public String getText() {
+        return this.text;
+    }
+
+    public TranscriptQuery withText(String value) {
+        this.text = value;
+        return this;
+    }
+
+    /**
+     * The earliest timestamp to include.
+     */
+    private DateTime start;
+
+    public DateTime getStart() {
+        return this.start;
+    }
+
+    public TranscriptQuery withStart(DateTime value) {
+        this.start = value;
+        return this;
+    }
+
+    /**
+     * The timestamp to stop before.
+     */
+    private DateTime end;
+
+    public DateTime getEnd() {
+        return this.end;
+    }
+
+    public TranscriptQuery withEnd(DateTime value) {
+        this.end = value;
+        return this;
+    }
+}
@@ -0,0 +1,20 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+package com.microsoft.bot.builder;
+
+import org.joda.time.DateTime;
+
+/**
+ * Receives the activities a {@link FileTranscriptStore} drops when they pass its retention period.
+ * <p>Called from the retention thread, so implementations should be quick and thread safe.</p>
+ */
+public interface TranscriptRetentionListener {
+    /**
+     * Called after the store has removed expired activities of a channel.
+     *
+     * @param channelId The ID of the channel.
+     * @param before    A time after the timestamp of every removed activity. Activities the store
+     *                  kept may also have earlier timestamps.
+     */
+    void OnExpired(String channelId, DateTime before);
+}
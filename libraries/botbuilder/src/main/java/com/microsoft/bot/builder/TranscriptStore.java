@@ -7,6 +7,9 @@ package com.microsoft.bot.builder;
 import com.microsoft.bot.schema.models.Activity;
 import org.joda.time.DateTime;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -32,6 +35,22 @@ public interface TranscriptStore extends TranscriptLogger {
 //ORIGINAL LINE: Task<PagedResult<IActivity>> GetTranscriptActivitiesAsync(string channelId, string conversationId, string continuationToken = null, DateTime startDate = default(DateTime));
     CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime localStartDate);
 
+    /**
+     * Gets from the store a page of activities that match a set of criteria.
+     * <p>Stores that cannot choose the page size return pages of their own size.</p>
+     *
+     * @param channelId         The ID of the channel the conversation is in.
+     * @param conversationId    The ID of the conversation.
+     * @param continuationToken The token returned with the previous page, or {@code null} for the first page.
+     * @param startDate         A cutoff date, or {@code null}. Activities older than this date are not included.
+     * @param pageSize          The most activities to return.
+     * @return A task that represents the work queued to execute.
+     * If the task completes successfully, the result contains the matching activities.
+     */
+    default CompletableFuture<PagedResult<Activity>> GetTranscriptActivitiesAsync(String channelId, String conversationId, String continuationToken, DateTime startDate, int pageSize) {
+        return GetTranscriptActivitiesAsync(channelId, conversationId, continuationToken, startDate);
+    }
+
     /**
      * Gets the conversations on a channel from the store.
      *
@@ -46,6 +65,19 @@ public interface TranscriptStore extends TranscriptLogger {
 //ORIGINAL LINE: Task<PagedResult<Transcript>> ListTranscriptsAsync(string channelId, string continuationToken = null);
     CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken);
 
+    /**
+     * Gets a page of the conversations on a channel from the store.
+     * <p>Stores that cannot choose the page size return pages of their own size.</p>
+     *
+     * @param channelId         The ID of the channel.
+     * @param continuationToken The token returned with the previous page, or {@code null} for the first page.
+     * @param pageSize          The most conversations to return.
+     * @return A task that represents the work queued to execute.
+     */
+    default CompletableFuture<PagedResult<Transcript>> ListTranscriptsAsync(String channelId, String continuationToken, int pageSize) {
+        return ListTranscriptsAsync(channelId, continuationToken);
+    }
+
     /**
      * Deletes conversation data from the store.
      *
@@ -54,4 +86,56 @@ public interface TranscriptStore extends TranscriptLogger {
      * @return A task that represents the work queued to execute.
      */
     CompletableFuture DeleteTranscriptAsync(String channelId, String conversationId);
+
+    /**
+     * Iterates the activities of a conversation, reading them from the store as the iterator
+     * advances rather than a page at a time.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation.
+     * @param startDate      A cutoff date, or {@code null}. Activities older than this date are not included.
+     * @return The activities, in the order the store returns its pages.
+     */
+    default Iterator<Activity> IterateTranscriptActivities(String channelId, String conversationId, DateTime startDate) {
+        return TranscriptIterators.Paged(token -> GetTranscriptActivitiesAsync(channelId, conversationId, token, startDate, TranscriptIterators.PageSize).join());
+    }
+
+    /**
+     * Iterates the activities of every conversation on a channel within a time range, reading
+     * them from the store as the iterator advances.
+     *
+     * @param channelId The ID of the channel.
+     * @param startDate The earliest timestamp to include, or {@code null}.
+     * @param endDate   The timestamp to stop before, or {@code null}.
+     * @return The activities. Unless the store says otherwise, each conversation's activities come together.
+     */
+    default Iterator<Activity> IterateChannelActivities(String channelId, DateTime startDate, DateTime endDate) {
+        return TranscriptIterators.Channel(this, channelId, startDate, endDate);
+    }
+
+    /**
+     * Writes the activities of a conversation to a stream as newline-delimited JSON.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation.
+     * @param startDate      A cutoff date, or {@code null}. Activities older than this date are not included.
+     * @param stream         The stream to write to. It is flushed but not closed.
+     * @return The number of activities written.
+     */
+    default long ExportTranscript(String channelId, String conversationId, DateTime startDate, OutputStream stream) throws IOException {
+        return TranscriptExport.WriteNdjson(IterateTranscriptActivities(channelId, conversationId, startDate), stream);
+    }
+
+    /**
+     * Writes the activities of a channel within a time range to a stream as newline-delimited JSON.
+     *
+     * @param channelId The ID of the channel.
+     * @param startDate The earliest timestamp to include, or {@code null}.
+     * @param endDate   The timestamp to stop before, or {@code null}.
+     * @param stream    The stream to write to. It is flushed but not closed.
+     * @return The number of activities written.
+     */
+    default long ExportChannel(String channelId, DateTime startDate, DateTime endDate, OutputStream stream) throws IOException {
+        return TranscriptExport.WriteNdjson(IterateChannelActivities(channelId, startDate, endDate), stream);
+    }
 }
@@ -38,7 +38,7 @@ public class TurnContextImpl implements TurnContext, AutoCloseable {
     private final List<DeleteActivityHandler> onDeleteActivity = new ArrayList<DeleteActivityHandler>();
 
     private final TurnContextServiceCollection turnServices;
-    ForkJoinPool.ForkJoinWorkerThreadFactory factory = new ForkJoinPool.ForkJoinWorkerThreadFactory()
+    static final ForkJoinPool.ForkJoinWorkerThreadFactory factory = new ForkJoinPool.ForkJoinWorkerThreadFactory()
     {
         @Override
         public ForkJoinWorkerThread newThread(ForkJoinPool pool)
@@ -49,7 +49,9 @@ public class TurnContextImpl implements TurnContext, AutoCloseable {
         }
     };
 
-    ExecutorService executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), factory, null, true);
+    // Shared by all contexts: a pool per context was never shut down, and proactive
+    // broadcasts create a context per conversation.
+    static final ExecutorService executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), factory, null, true);
 
 
 
@@ -233,8 +235,6 @@ public class TurnContextImpl implements TurnContext, AutoCloseable {
         if (activity == null)
             throw new IllegalArgumentException("activity");
 
-        System.out.printf("In SENDEACTIVITYASYNC:");
-        System.out.flush();
         Activity[] activities = {activity};
         ResourceResponse[] responses;
         try {
@@ -9,6 +9,8 @@ import java.util.function.Supplier;
 
 /**
  * Handles persistence of a user state object using the user ID as part of the key.
+ * Activities without a sender ID, such as some conversation updates, have no user state:
+ * the turn gets a new state object that is not read from or written to storage.
  * @param TState The type of the user state object.
  */
 public class UserState<TState> extends BotState<TState>
@@ -31,14 +33,37 @@ public class UserState<TState> extends BotState<TState>
         this(storage, ctor, null);
     }
     public UserState(Storage storage, Supplier<? extends TState> ctor, StateSettings settings) {
+        this(storage, ctor, settings, StateKeyStrategy.Default);
+    }
+
+    /**
+     * Creates a new {@link UserState{TState}} object.
+     * @param storage The storage provider to use.
+     * @param settings The state persistance options to use.
+     * @param keyStrategy The strategy used to build the storage key.
+     */
+    public UserState(Storage storage, Supplier<? extends TState> ctor, StateSettings settings, StateKeyStrategy keyStrategy) {
         super(storage, PropertyName(),
                 (context) -> {
-                    return String.format("user/%s/%s", context.getActivity().channelId(), context.getActivity().conversation().id());
+                    if (context.getActivity().from() == null || context.getActivity().from().id() == null)
+                        return null;
+                    return keyStrategy.GetKey("user", context.getActivity().channelId(), context.getActivity().from().id());
                 },
                 ctor,
                 settings);
     }
 
+    /**
+     * Builds the key under which earlier versions stored user state,
+     * {@code user/{channelId}/{conversation.id}}. Use it with a
+     * {@link StateMigrationReader} to carry state over to the per-user key.
+     * @param context The context object for this turn.
+     * @return The legacy storage key.
+     */
+    public static String LegacyKey(TurnContext context) {
+        return String.format("user/%s/%s", context.getActivity().channelId(), context.getActivity().conversation().id());
+    }
+
     /**
      * Gets the user state object from turn context.
      * @param context The context object for this turn.
@@ -19,6 +19,7 @@ import java.util.function.Function;
 
 public class TestAdapter extends BotAdapter {
     private int nextId = 0;
+    private long lastTimestamp = Long.MIN_VALUE;
     private final Queue<Activity> botReplies = new LinkedList<>();
     private ConversationReference conversationReference;
 
@@ -74,7 +75,7 @@ public class TestAdapter extends BotAdapter {
         }
         // Assume Default DateTime : DateTime(0)
         if (activity.timestamp() == null || activity.timestamp() == new DateTime(0))
-            activity.withTimestamp(DateTime.now());
+            activity.withTimestamp(NextTimestamp());
 
         try (TurnContextImpl context = new TurnContextImpl(this, activity)) {
             super.RunPipeline(context, callback);
@@ -82,6 +83,22 @@ public class TestAdapter extends BotAdapter {
         return;
     }
 
+    /**
+     * The current time, or a millisecond after the last timestamp this adapter handed out or sent,
+     * so the activities of a test keep their order when they are sorted by timestamp.
+     */
+    private synchronized DateTime NextTimestamp() {
+        this.lastTimestamp = Math.max(System.currentTimeMillis(), this.lastTimestamp + 1);
+        return new DateTime(this.lastTimestamp);
+    }
+
+    /**
+     * Records the timestamp of an activity the bot stamped itself, such as a reply.
+     */
+    private synchronized void Stamped(DateTime timestamp) {
+        this.lastTimestamp = Math.max(timestamp.getMillis(), this.lastTimestamp);
+    }
+
     public ConversationReference conversationReference() {
         return conversationReference;
     }
@@ -99,7 +116,9 @@ public class TestAdapter extends BotAdapter {
                 activity.withId(UUID.randomUUID().toString());
 
             if (activity.timestamp() == null)
-                activity.withTimestamp(DateTime.now());
+                activity.withTimestamp(NextTimestamp());
+            else
+                Stamped(activity.timestamp());
 
             responses.add(new ResourceResponse().withId(activity.id()));
             // This is simulating DELAY
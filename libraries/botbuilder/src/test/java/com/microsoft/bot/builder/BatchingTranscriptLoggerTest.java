@@ -0,0 +1,175 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.builder.adapters.TestAdapter;
+import com.microsoft.bot.builder.adapters.TestFlow;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchingTranscriptLoggerTest {
+
+    /**
+     * Transcript logger that records what it is given, optionally waiting on a latch first.
+     */
+    static class RecordingLogger implements TranscriptLogger {
+        final List<Activity> activities = Collections.synchronizedList(new ArrayList<Activity>());
+        final CountDownLatch gate;
+
+        RecordingLogger(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void LogActivityAsync(Activity activity) {
+            try {
+                if (this.gate != null)
+                    this.gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.activities.add(activity);
+        }
+    }
+
+    private static Activity CreateActivity(int i) {
+        return new Activity().withType(ActivityTypes.MESSAGE).withId(String.valueOf(i));
+    }
+
+    @Test
+    public void BatchingTranscriptLogger_WritesInOrderInBatches() throws Exception {
+        RecordingLogger sink = new RecordingLogger(null);
+        try (BatchingTranscriptLogger batching = new BatchingTranscriptLogger(sink, 1000, 10, Duration.ofMillis(20),
+                BatchingTranscriptLogger.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 100; i++)
+                batching.LogActivityAsync(CreateActivity(i));
+
+            Assert.assertTrue(batching.Flush(Duration.ofSeconds(10)));
+            Assert.assertEquals(100, batching.getLoggedCount());
+            Assert.assertTrue(batching.getBatchCount() >= 10);
+            for (int i = 0; i < 100; i++)
+                Assert.assertEquals(String.valueOf(i), sink.activities.get(i).id());
+        }
+    }
+
+    @Test
+    public void BatchingTranscriptLogger_DropsWhenFull() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingLogger sink = new RecordingLogger(gate);
+        try (BatchingTranscriptLogger batching = new BatchingTranscriptLogger(sink, 4, 1, Duration.ZERO,
+                BatchingTranscriptLogger.OverflowPolicy.DROP_NEWEST)) {
+            // The writer holds at most one activity while the sink is blocked; the queue holds four.
+            for (int i = 0; i < 20; i++)
+                batching.LogActivityAsync(CreateActivity(i));
+
+            Assert.assertTrue(batching.getDroppedCount() >= 15);
+            gate.countDown();
+            Assert.assertTrue(batching.Flush(Duration.ofSeconds(10)));
+            Assert.assertEquals(20, batching.getLoggedCount() + batching.getDroppedCount());
+            Assert.assertEquals("0", sink.activities.get(0).id());
+        }
+    }
+
+    @Test
+    public void BatchingTranscriptLogger_WritesEverythingAcceptedBeforeClose() throws Exception {
+        RecordingLogger sink = new RecordingLogger(null);
+        BatchingTranscriptLogger batching = new BatchingTranscriptLogger(sink, 100000, 10, Duration.ZERO,
+                BatchingTranscriptLogger.OverflowPolicy.DROP_NEWEST);
+        AtomicInteger refused = new AtomicInteger();
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    try {
+                        batching.LogActivityAsync(CreateActivity(i));
+                    } catch (IllegalStateException e) {
+                        refused.incrementAndGet();
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        Thread.sleep(20);
+        batching.close();
+        for (Thread producer : producers)
+            producer.join();
+
+        Assert.assertTrue("some activities were logged after close", refused.get() > 0);
+        Assert.assertEquals(80000, batching.getEnqueuedCount() + batching.getDroppedCount() + refused.get());
+        Assert.assertEquals(batching.getEnqueuedCount(), batching.getLoggedCount());
+        Assert.assertEquals(batching.getLoggedCount(), sink.activities.size());
+    }
+
+    @Test
+    public void BatchingTranscriptLogger_CloseReleasesBlockedCallers() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingLogger sink = new RecordingLogger(gate);
+        BatchingTranscriptLogger batching = new BatchingTranscriptLogger(sink, 1, 1, Duration.ZERO,
+                BatchingTranscriptLogger.OverflowPolicy.BLOCK);
+        // The writer holds the first activity in the blocked sink and the queue holds the second.
+        batching.LogActivityAsync(CreateActivity(0));
+        while (batching.getQueueDepth() > 0)
+            Thread.sleep(1);
+        batching.LogActivityAsync(CreateActivity(1));
+
+        Thread blocked = new Thread(() -> batching.LogActivityAsync(CreateActivity(2)));
+        blocked.start();
+        Thread closing = new Thread(() -> {
+            try {
+                batching.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+        closing.start();
+
+        blocked.join(5000);
+        Assert.assertFalse("the waiting caller gave up when the logger closed", blocked.isAlive());
+        Assert.assertEquals(1, batching.getDroppedCount());
+        gate.countDown();
+        closing.join(5000);
+        Assert.assertFalse(closing.isAlive());
+        Assert.assertEquals(2, sink.activities.size());
+    }
+
+    @Test
+    public void TranscriptLoggerMiddleware_LogsThroughBatchingLogger() throws Exception {
+        MemoryTranscriptStore transcriptStore = new MemoryTranscriptStore();
+        BatchingTranscriptLogger batching = new BatchingTranscriptLogger(transcriptStore);
+        TestAdapter adapter = new TestAdapter().Use(new TranscriptLoggerMiddleware(batching));
+        final String[] conversationId = {null};
+
+        new TestFlow(adapter, (context) ->
+        {
+            conversationId[0] = context.getActivity().conversation().id();
+            try {
+                context.SendActivity("echo:" + context.getActivity().text());
+            } catch (Exception e) {
+                e.printStackTrace();
+                Assert.fail();
+            }
+        }).Send("foo")
+                .AssertReply("echo:foo")
+                .StartTest();
+
+        Assert.assertTrue(batching.Flush(Duration.ofSeconds(10)));
+        batching.close();
+        PagedResult pagedResult = transcriptStore.GetTranscriptActivitiesAsync("test", conversationId[0]).join();
+        Assert.assertEquals(2, pagedResult.getItems().length);
+        Assert.assertEquals("foo", ((Activity) pagedResult.getItems()[0]).text());
+        Assert.assertEquals("echo:foo", ((Activity) pagedResult.getItems()[1]).text());
+    }
+}
@@ -0,0 +1,153 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.connector.authentication.SimpleCredentialProvider;
+import com.microsoft.bot.connector.implementation.AttachmentCache;
+import com.microsoft.bot.connector.implementation.CircuitBreakerInterceptor;
+import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import com.microsoft.bot.schema.ActivityImpl;
+import com.microsoft.bot.schema.models.AttachmentData;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import com.microsoft.bot.schema.models.ConversationReference;
+import com.microsoft.bot.schema.models.ResourceResponse;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+
+public class BotFrameworkAdapterSendTest {
+    private static final String APP_ID = "send-bot";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static long DispatcherThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("OkHttp Dispatcher"))
+                .count();
+    }
+
+    @Test
+    public void SendsAndUpdatesOnTheTurnThread() throws Exception {
+        try (ChannelServer channel = new ChannelServer()) {
+            BotFrameworkAdapter adapter = new BotFrameworkAdapter(new SimpleCredentialProvider(APP_ID, "secret"));
+            long dispatchers = DispatcherThreads();
+
+            for (int i = 0; i < 20; i++) {
+                adapter.ContinueConversation(APP_ID, channel.Reference("convo" + i), context -> {
+                    try {
+                        ResourceResponse sent = context.SendActivity("hello");
+                        ActivityImpl update = new ActivityImpl()
+                                .withId(sent.id())
+                                .withConversation(new ConversationAccount().withId(context.getActivity().conversation().id()));
+                        context.UpdateActivity(update.withText("hello again"));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+
+            // A proactive message replies to the activity the adapter made up for the turn.
+            Assert.assertEquals(40, channel.calls.size());
+            Assert.assertEquals(Arrays.asList("POST convo0", "PUT convo0"), channel.calls.subList(0, 2));
+            // Each turn builds its own connector client; none of them started a dispatcher thread.
+            Assert.assertTrue("dispatcher threads " + DispatcherThreads(), DispatcherThreads() <= dispatchers);
+        }
+    }
+
+    @Test
+    public void FailedSendThrowsTheConnectorException() throws Exception {
+        try (ChannelServer channel = new ChannelServer()) {
+            BotFrameworkAdapter adapter = new BotFrameworkAdapter(new SimpleCredentialProvider(APP_ID, "secret"));
+            channel.failing.add("convo1");
+
+            try {
+                adapter.ContinueConversation(APP_ID, channel.Reference("convo1"), context -> {
+                    try {
+                        context.SendActivity("hello");
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                Assert.fail("expected exception was not occurred.");
+            } catch (IllegalStateException e) {
+                // The turn context reports the connector's exception in its message.
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("Status code 400"));
+            }
+            Assert.assertEquals(1, channel.calls.size());
+        }
+    }
+
+    @Test
+    public void SendsThroughTheCircuitBreakerOnlyWhenOneIsSet() throws Exception {
+        try (ChannelServer channel = new ChannelServer()) {
+            BotFrameworkAdapter adapter = new BotFrameworkAdapter(new SimpleCredentialProvider(APP_ID, "secret"));
+            Assert.assertNull(adapter.getConnectorCircuitBreaker());
+            SendHello(adapter, channel.Reference("convo1"));
+
+            CircuitBreakerInterceptor breaker = new CircuitBreakerInterceptor();
+            adapter.setConnectorCircuitBreaker(breaker);
+            SendHello(adapter, channel.Reference("convo2"));
+
+            Assert.assertEquals(Arrays.asList("convo1", "convo2"), channel.Posted());
+            Assert.assertEquals(1, breaker.metrics(channel.getServiceUrl()).succeededCalls());
+        }
+    }
+
+    @Test
+    public void DeletesTheActivityTheReferenceNames() throws Exception {
+        try (ChannelServer channel = new ChannelServer()) {
+            BotFrameworkAdapter adapter = new BotFrameworkAdapter(new SimpleCredentialProvider(APP_ID, "secret"));
+
+            adapter.ContinueConversation(APP_ID, channel.Reference("convo1"), context -> {
+                try {
+                    ConversationReference reference = channel.Reference("convo1").withActivityId("activity1");
+                    context.DeleteActivity(reference);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Assert.assertEquals(Arrays.asList("DELETE /v3/conversations/convo1/activities/activity1"), channel.requests);
+        }
+    }
+
+    @Test
+    public void ConnectorClientsShareTheAdaptersAttachmentCache() throws Exception {
+        try (ChannelServer channel = new ChannelServer()) {
+            BotFrameworkAdapter adapter = new BotFrameworkAdapter(new SimpleCredentialProvider(APP_ID, "secret"));
+            adapter.setAttachmentCache(new AttachmentCache(folder.getRoot().toPath(), 1024 * 1024, 1024 * 1024));
+
+            String[] ids = new String[2];
+            for (int i = 0; i < 2; i++) {
+                int turn = i;
+                adapter.ContinueConversation(APP_ID, channel.Reference("convo1"), context -> {
+                    ConnectorClientImpl connector = context.getServices().Get("ConnectorClient");
+                    AttachmentData picture = new AttachmentData()
+                            .withType("image/png")
+                            .withName("picture.png")
+                            .withOriginalBase64(new byte[] { 1, 2, 3 });
+                    ids[turn] = connector.conversations().uploadAttachment("convo1", picture).id();
+                });
+            }
+
+            // Each turn has its own connector client; the second one finds the upload in the cache.
+            Assert.assertEquals(Arrays.asList("POST /v3/conversations/convo1/attachments"), channel.requests);
+            Assert.assertEquals(ids[0], ids[1]);
+        }
+    }
+
+    private static void SendHello(BotFrameworkAdapter adapter, ConversationReference reference) throws Exception {
+        adapter.ContinueConversation(APP_ID, reference, context -> {
+            try {
+                context.SendActivity("hello");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,107 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.microsoft.bot.builder.adapters.TestAdapter;
+import com.microsoft.bot.builder.adapters.TestFlow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BotStateSetTest {
+
+    /**
+     * Storage that counts the calls made against an underlying {@link MemoryStorage}.
+     */
+    static class CountingStorage implements Storage {
+        private final Storage inner = new MemoryStorage();
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<Map<String, ? extends Object>> Read(String... keys) throws JsonProcessingException {
+            reads.incrementAndGet();
+            return inner.Read(keys);
+        }
+
+        @Override
+        public CompletableFuture Write(Map<String, ? extends Object> changes) throws Exception {
+            writes.incrementAndGet();
+            return inner.Write(changes);
+        }
+
+        @Override
+        public CompletableFuture Delete(String... keys) {
+            return inner.Delete(keys);
+        }
+    }
+
+    @Test
+    public void BotStateSet_SingleReadAndWritePerTurn() throws ExecutionException, InterruptedException {
+        CountingStorage storage = new CountingStorage();
+        TestAdapter adapter = new TestAdapter()
+                .Use(new BotStateSet()
+                        .Use(new ConversationState<TestPocoState>(storage, TestPocoState::new))
+                        .Use(new UserState<TypedObject>(storage, TypedObject::new)));
+
+        new TestFlow(adapter,
+                (context) ->
+                {
+                    TestPocoState conversation = StateTurnContextExtensions.<TestPocoState>GetConversationState(context);
+                    TypedObject user = StateTurnContextExtensions.<TypedObject>GetUserState(context);
+                    Assert.assertNotNull("conversation state should exist", conversation);
+                    Assert.assertNotNull("user state should exist", user);
+                    try {
+                        switch (context.getActivity().text()) {
+                            case "set value":
+                                conversation.setValue("convo");
+                                user.withName("user");
+                                context.SendActivity("value saved");
+                                break;
+                            case "get value":
+                                context.SendActivity(String.format("%s/%s", conversation.getValue(), user.name()));
+                                break;
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        Assert.fail(String.format("Error sending activity! - %s", context.getActivity().text()));
+                    }
+                })
+                .Test("set value", "value saved")
+                .Test("get value", "convo/user")
+                .StartTest();
+
+        Assert.assertEquals("one read per turn", 2, storage.reads.get());
+        Assert.assertEquals("one write per turn", 2, storage.writes.get());
+    }
+
+    @Test
+    public void BotStateSet_SeparateStoragesReadIndependently() throws ExecutionException, InterruptedException {
+        CountingStorage conversationStorage = new CountingStorage();
+        CountingStorage userStorage = new CountingStorage();
+        TestAdapter adapter = new TestAdapter()
+                .Use(new BotStateSet(
+                        new ConversationState<TestPocoState>(conversationStorage, TestPocoState::new),
+                        new UserState<TestPocoState>(userStorage, TestPocoState::new)));
+
+        new TestFlow(adapter,
+                (context) ->
+                {
+                    Assert.assertNotNull(StateTurnContextExtensions.<TestPocoState>GetConversationState(context));
+                    Assert.assertNotNull(StateTurnContextExtensions.<TestPocoState>GetUserState(context));
+                })
+                .Send("hello")
+                .StartTest();
+
+        Assert.assertEquals(1, conversationStorage.reads.get());
+        Assert.assertEquals(1, conversationStorage.writes.get());
+        Assert.assertEquals(1, userStorage.reads.get());
+        Assert.assertEquals(1, userStorage.writes.get());
+    }
+}
@@ -0,0 +1,246 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.connector.ConnectorClient;
+import com.microsoft.bot.connector.authentication.SimpleCredentialProvider;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import com.microsoft.bot.schema.models.ConversationReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class BroadcastTest {
+    private static final String APP_ID = "broadcast-bot";
+
+    private static BotFrameworkAdapter Adapter() {
+        return new BotFrameworkAdapter(new SimpleCredentialProvider(APP_ID, "secret"));
+    }
+
+    private static Stream<ConversationReference> References(int count) {
+        return LongStream.range(0, count).mapToObj(i -> new ConversationReference()
+                .withChannelId("test")
+                .withServiceUrl((i % 2 == 0) ? "https://even.example.com/" : "https://odd.example.com/")
+                .withBot(new ChannelAccount().withId("bot"))
+                .withUser(new ChannelAccount().withId("user" + i))
+                .withConversation(new ConversationAccount().withId("convo" + i)));
+    }
+
+    /**
+     * Records what a broadcast reports.
+     */
+    static class RecordingListener implements BroadcastListener {
+        final List<Long> checkpoints = Collections.synchronizedList(new ArrayList<Long>());
+        final List<BroadcastProgress> reports = Collections.synchronizedList(new ArrayList<BroadcastProgress>());
+        final List<Long> failures = Collections.synchronizedList(new ArrayList<Long>());
+
+        @Override
+        public void OnCheckpoint(BroadcastProgress progress) {
+            this.checkpoints.add(progress.getCheckpoint());
+            this.reports.add(progress);
+        }
+
+        @Override
+        public void OnFailure(long position, ConversationReference reference, Throwable error) {
+            this.failures.add(position);
+        }
+    }
+
+    @Test
+    public void RunsATurnForEachConversation() throws InterruptedException {
+        Set<String> conversations = ConcurrentHashMap.newKeySet();
+        Set<ConnectorClient> clients = ConcurrentHashMap.newKeySet();
+
+        BroadcastProgress progress = Adapter().Broadcast(APP_ID, References(50), context -> {
+            conversations.add(context.getActivity().conversation().id());
+            clients.add(context.getServices().Get("ConnectorClient"));
+            Assert.assertNotNull(context.getServices().Get("BotIdentity"));
+        }, new BroadcastOptions().withMaxConcurrency(4));
+
+        Assert.assertEquals(50, conversations.size());
+        Assert.assertEquals("one connector client per service URL", 2, clients.size());
+        Assert.assertEquals(50, progress.getCheckpoint());
+        Assert.assertEquals(50, progress.getSucceededCount());
+        Assert.assertEquals(0, progress.getFailedCount());
+    }
+
+    @Test
+    public void BoundsConcurrency() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Adapter().Broadcast(APP_ID, References(40), context -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        }, new BroadcastOptions().withMaxConcurrency(3));
+
+        Assert.assertTrue("max running " + maxRunning.get(), maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void ReportsFailuresAndCheckpoints() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+
+        BroadcastProgress progress = Adapter().Broadcast(APP_ID, References(25), context -> {
+            if (context.getActivity().conversation().id().endsWith("7"))
+                throw new IllegalStateException("blocked");
+        }, new BroadcastOptions().withMaxConcurrency(4).withCheckpointInterval(10).withListener(listener));
+
+        Collections.sort(listener.failures);
+        Assert.assertEquals(Arrays.asList(7L, 17L), listener.failures);
+        Assert.assertEquals(23, progress.getSucceededCount());
+        Assert.assertEquals(2, progress.getFailedCount());
+
+        Assert.assertEquals(25L, (long) listener.checkpoints.get(listener.checkpoints.size() - 1));
+        for (int i = 1; i < listener.checkpoints.size(); i++) {
+            Assert.assertTrue(listener.checkpoints.get(i) >= listener.checkpoints.get(i - 1));
+        }
+    }
+
+    @Test
+    public void ResumesFromCheckpoint() throws InterruptedException {
+        Set<String> conversations = ConcurrentHashMap.newKeySet();
+
+        BroadcastProgress progress = Adapter().Broadcast(APP_ID, References(30), context -> {
+            conversations.add(context.getActivity().conversation().id());
+        }, new BroadcastOptions().withStartAt(20));
+
+        Assert.assertEquals(10, conversations.size());
+        Assert.assertFalse(conversations.contains("convo19"));
+        Assert.assertTrue(conversations.contains("convo20"));
+        Assert.assertEquals(30, progress.getCheckpoint());
+    }
+
+    @Test
+    public void EmptyStreamReportsStartCheckpoint() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+
+        BroadcastProgress progress = Adapter().Broadcast(APP_ID, References(5), context -> {
+        }, new BroadcastOptions().withStartAt(5).withListener(listener));
+
+        Assert.assertEquals(5, progress.getCheckpoint());
+        Assert.assertEquals(Collections.singletonList(5L), listener.checkpoints);
+    }
+
+    @Test
+    public void SendsThroughTheConnector() throws Exception {
+        try (ChannelServer channel = new ChannelServer()) {
+            channel.delayMillis = 100;
+            channel.failing.add("convo7");
+            RecordingListener listener = new RecordingListener();
+
+            BroadcastProgress progress = Adapter().Broadcast(APP_ID,
+                    LongStream.range(0, 20).mapToObj(i -> channel.Reference("convo" + i)),
+                    context -> {
+                        try {
+                            context.SendActivity("news");
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, new BroadcastOptions().withMaxConcurrency(8).withListener(listener));
+
+            List<String> posted = channel.Posted();
+            Assert.assertEquals(20, posted.size());
+            Assert.assertEquals(20, new HashSet<String>(posted).size());
+            Assert.assertEquals(Collections.singletonList(7L), listener.failures);
+            Assert.assertEquals(Collections.singletonList(7L), progress.getFailedPositions());
+            Assert.assertEquals(20, progress.getCheckpoint());
+            Assert.assertEquals(19, progress.getSucceededCount());
+            // The turns to the one service URL send at once, beyond OkHttp's 5 async calls per host.
+            Assert.assertTrue("max in flight " + channel.maxInFlight.get(), channel.maxInFlight.get() > 5);
+        }
+    }
+
+    @Test
+    public void ResumeSkipsFinishedTurnsAndRetriesFailedOnes() throws InterruptedException {
+        Set<String> conversations = ConcurrentHashMap.newKeySet();
+
+        BroadcastProgress progress = Adapter().Broadcast(APP_ID, References(20), context -> {
+            conversations.add(context.getActivity().conversation().id());
+        }, new BroadcastOptions()
+                .withStartAt(10)
+                .withFinished(Arrays.asList(12L, 15L))
+                .withRetry(Arrays.asList(4L, 13L)));
+
+        Assert.assertEquals(new HashSet<String>(Arrays.asList(
+                "convo4", "convo10", "convo11", "convo13", "convo14", "convo16", "convo17", "convo18", "convo19")),
+                conversations);
+        Assert.assertEquals(20, progress.getCheckpoint());
+        Assert.assertEquals(Collections.emptyList(), progress.getFinishedPositions());
+        Assert.assertEquals(Collections.emptyList(), progress.getFailedPositions());
+    }
+
+    @Test
+    public void RetryThatFailsAgainStaysFailed() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+
+        BroadcastProgress progress = Adapter().Broadcast(APP_ID, References(10), context -> {
+            if (context.getActivity().conversation().id().equals("convo4"))
+                throw new IllegalStateException("blocked");
+        }, new BroadcastOptions().withStartAt(10).withRetry(Arrays.asList(4L, 6L)).withListener(listener));
+
+        Assert.assertEquals(Collections.singletonList(4L), progress.getFailedPositions());
+        Assert.assertEquals(1, progress.getSucceededCount());
+        // The last report comes once the retries have finished.
+        BroadcastProgress last = listener.reports.get(listener.reports.size() - 1);
+        Assert.assertEquals(Collections.singletonList(4L), last.getFailedPositions());
+        Assert.assertEquals(10, last.getCheckpoint());
+    }
+
+    @Test
+    public void ReportsTurnsFinishedAheadOfTheCheckpoint() throws InterruptedException {
+        CountDownLatch finishedAhead = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener() {
+            @Override
+            public void OnCheckpoint(BroadcastProgress progress) {
+                super.OnCheckpoint(progress);
+                if (progress.getFinishedPositions().size() >= 3)
+                    finishedAhead.countDown();
+            }
+        };
+
+        // The first turn waits until three turns after it have finished and been reported.
+        Adapter().Broadcast(APP_ID, References(8), context -> {
+            if (context.getActivity().conversation().id().equals("convo0")) {
+                try {
+                    Assert.assertTrue(finishedAhead.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, new BroadcastOptions().withMaxConcurrency(4).withCheckpointInterval(1).withListener(listener));
+
+        BroadcastProgress ahead = null;
+        synchronized (listener.reports) {
+            for (BroadcastProgress report : listener.reports) {
+                if (report.getFinishedPositions().size() >= 3) {
+                    ahead = report;
+                    break;
+                }
+            }
+        }
+        Assert.assertNotNull(ahead);
+        Assert.assertEquals(0, ahead.getCheckpoint());
+        Assert.assertFalse(ahead.getFinishedPositions().contains(0L));
+        Assert.assertEquals(8L, (long) listener.checkpoints.get(listener.checkpoints.size() - 1));
+    }
+}
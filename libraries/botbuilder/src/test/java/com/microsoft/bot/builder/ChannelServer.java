@@ -0,0 +1,114 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import com.microsoft.bot.schema.models.ConversationReference;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A channel service on the loopback interface for adapter tests. It answers the activity calls
+ * of the connector, records them as "METHOD conversationId", and counts how many are in flight.
+ */
+final class ChannelServer implements AutoCloseable {
+    final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+    /** The same calls as "METHOD path". */
+    final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    /** Conversations whose calls are answered with a 400. */
+    final Set<String> failing = ConcurrentHashMap.newKeySet();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    volatile long delayMillis;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    ChannelServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/v3/conversations/", this::Handle);
+        this.server.start();
+    }
+
+    String getServiceUrl() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/";
+    }
+
+    ConversationReference Reference(String conversationId) {
+        return new ConversationReference()
+                .withChannelId("test")
+                .withServiceUrl(getServiceUrl())
+                .withBot(new ChannelAccount().withId("bot"))
+                .withUser(new ChannelAccount().withId("user"))
+                .withConversation(new ConversationAccount().withId(conversationId));
+    }
+
+    /**
+     * The conversations activities were posted to, in no particular order.
+     */
+    List<String> Posted() {
+        List<String> conversations = new ArrayList<String>();
+        synchronized (this.calls) {
+            for (String call : this.calls) {
+                if (call.startsWith("POST "))
+                    conversations.add(call.substring(5));
+            }
+        }
+        return conversations;
+    }
+
+    private void Handle(HttpExchange exchange) throws IOException {
+        this.maxInFlight.accumulateAndGet(this.inFlight.incrementAndGet(), Math::max);
+        try (InputStream body = exchange.getRequestBody()) {
+            while (body.read() != -1) {
+                // Read the activity so the connection can be reused.
+            }
+            // The path is /v3/conversations/{conversationId}/activities[/{activityId}].
+            String path = exchange.getRequestURI().getPath();
+            String conversationId = path.split("/")[3];
+            this.calls.add(exchange.getRequestMethod() + " " + conversationId);
+            this.requests.add(exchange.getRequestMethod() + " " + path);
+            if (this.delayMillis > 0)
+                Thread.sleep(this.delayMillis);
+
+            boolean fail = this.failing.contains(conversationId);
+            byte[] response = (fail ? "{\"error\":{\"code\":\"BadArgument\",\"message\":\"failing\"}}" : "{\"id\":\"" + this.ids.incrementAndGet() + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? 400 : 200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+}
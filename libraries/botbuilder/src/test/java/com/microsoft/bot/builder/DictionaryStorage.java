@@ -2,11 +2,10 @@ package com.microsoft.bot.builder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.microsoft.bot.schema.models.Entity;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -16,30 +15,37 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 /**
  * Models IStorage around a dictionary
  */
-public class DictionaryStorage implements Storage {
-    private static ObjectMapper objectMapper;
+public class DictionaryStorage implements DeltaStorage {
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .findAndRegisterModules();
 
-    // TODO: Object needs to be defined
+    // Dictionary stores Key:serialized state (with type information held within the bytes)
     private final Map<String, Object> memory;
+    private final Map<String, String> eTags = new HashMap<String, String>();
+    private final StateSerializer serializer;
     private final Object syncroot = new Object();
     private int _eTag = 0;
-    private final String typeNameForNonEntity = "__type_name_";
 
     public DictionaryStorage() {
-            this(null);
+            this(null, null);
     }
     public DictionaryStorage(Map<String, Object> dictionary ) {
-        DictionaryStorage.objectMapper = new ObjectMapper()
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-                .findAndRegisterModules();
+        this(dictionary, null);
+    }
+    public DictionaryStorage(StateSerializer serializer) {
+        this(null, serializer);
+    }
+    public DictionaryStorage(Map<String, Object> dictionary, StateSerializer serializer) {
         this.memory = (dictionary != null) ? dictionary : new HashMap<String, Object>();
+        this.serializer = (serializer != null) ? serializer : new JsonStateSerializer();
     }
 
     public CompletableFuture Delete(String[] keys) {
         synchronized (this.syncroot) {
                 for (String key : keys)  {
-                        Object o = this.memory.get(key);
-                        this.memory.remove(o);
+                        this.memory.remove(key);
+                        this.eTags.remove(key);
                 }
         }
         return completedFuture(null);
@@ -51,37 +57,23 @@ public class DictionaryStorage implements Storage {
             Map<String, Object> storeItems = new HashMap<String, Object>(keys.length);
             synchronized (this.syncroot) {
                 for (String key : keys) {
-                    if (this.memory.containsKey(key)) {
-                        Object state = this.memory.get(key);
-                        if (state != null) {
-                            try {
-                                if (!(state instanceof JsonNode))
-                                    throw new RuntimeException("DictionaryRead failed: entry not JsonNode");
-                                JsonNode stateNode = (JsonNode) state;
-                                // Check if type info is set for the class
-                                if (!(stateNode.hasNonNull(this.typeNameForNonEntity))) {
-                                    throw new RuntimeException(String.format("DictionaryRead failed: Type info not present"));
-                                }
-                                String clsName = stateNode.get(this.typeNameForNonEntity).textValue();
-
-                                // Load the class info
-                                Class<?> cls;
-                                try {
-                                    cls = Class.forName(clsName);
-                                } catch (ClassNotFoundException e) {
-                                    e.printStackTrace();
-                                    throw new RuntimeException(String.format("DictionaryRead failed: Could not load class %s", clsName));
-                                }
-
-                                // Populate dictionary
-                                storeItems.put(key,DictionaryStorage.objectMapper.treeToValue(stateNode, cls ));
-                            } catch (JsonProcessingException e) {
-                                e.printStackTrace();
-                                throw new RuntimeException(String.format("DictionaryRead failed: %s", e.toString()));
-                            }
+                    Object state = this.memory.get(key);
+                    if (state != null) {
+                        if (!(state instanceof byte[]))
+                            throw new RuntimeException("DictionaryRead failed: entry not serialized state");
+                        Object item;
+                        try {
+                            item = this.serializer.Deserialize((byte[]) state);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                            throw new RuntimeException(String.format("DictionaryRead failed: %s", e.toString()));
                         }
-                    }
+                        if (item instanceof StoreItem)
+                            ((StoreItem) item).seteTag(this.eTags.get(key));
 
+                        // Populate dictionary
+                        storeItems.put(key, item);
+                    }
                 }
             }
 
@@ -92,39 +84,52 @@ public class DictionaryStorage implements Storage {
     @Override
     public CompletableFuture Write(Map<String, ?> changes) throws Exception {
         synchronized (this.syncroot) {
-            for (Map.Entry change : changes.entrySet()) {
+            for (Map.Entry<String, ?> change : changes.entrySet()) {
                 Object newValue = change.getValue();
-
-                String oldStateETag = null; // default(string);
-                if (this.memory.containsValue(change.getKey())) {
-                    Map oldState = (Map) this.memory.get(change.getKey());
-                    if (oldState.containsValue("eTag")) {
-                        Map.Entry eTagToken = (Map.Entry) oldState.get("eTag");
-                        oldStateETag = (String) eTagToken.getValue();
-                    }
-
-                }
-                // Dictionary stores Key:JsonNode (with type information held within the JsonNode)
-                JsonNode newState = DictionaryStorage.objectMapper.valueToTree(newValue);
-                ((ObjectNode)newState).put(this.typeNameForNonEntity, newValue.getClass().getTypeName());
+                String oldStateETag = this.eTags.get(change.getKey());
 
                 // Set ETag if applicable
                 if (newValue instanceof StoreItem) {
-                    StoreItem newStoreItem = (StoreItem) newValue;
-                    if(oldStateETag != null && newStoreItem.geteTag() != "*" &&
-                        newStoreItem.geteTag() != oldStateETag) {
-                        throw new Exception(String.format("Etag conflict.\r\n\r\nOriginal: %s\r\nCurrent: %s",
-                                newStoreItem.geteTag(), oldStateETag));
-                    }
+                    CheckETag(((StoreItem) newValue).geteTag(), oldStateETag);
                     Integer newTag = _eTag++;
-                    ((ObjectNode)newState).put("eTag", newTag.toString());
+                    this.eTags.put(change.getKey(), newTag.toString());
                 }
 
-                this.memory.put((String)change.getKey(), newState);
+                this.memory.put(change.getKey(), this.serializer.Serialize(newValue));
             }
         }
         return completedFuture(null);
     }
 
-}
+    @Override
+    public CompletableFuture WriteDelta(Map<String, StateDelta> deltas) throws Exception {
+        synchronized (this.syncroot) {
+            for (Map.Entry<String, StateDelta> delta : deltas.entrySet()) {
+                Object state = this.memory.get(delta.getKey());
+                if (state == null)
+                    throw new Exception(String.format("DictionaryWriteDelta failed: no item for key %s", delta.getKey()));
+
+                Object oldValue = this.serializer.Deserialize((byte[]) state);
+                if (oldValue instanceof StoreItem) {
+                    CheckETag(delta.getValue().geteTag(), this.eTags.get(delta.getKey()));
+                    Integer newTag = _eTag++;
+                    this.eTags.put(delta.getKey(), newTag.toString());
+                }
 
+                ObjectNode tree = objectMapper.valueToTree(oldValue);
+                JsonMergePatch.Apply(tree, delta.getValue().getPatch());
+                Object newValue = objectMapper.treeToValue(tree, oldValue.getClass());
+                this.memory.put(delta.getKey(), this.serializer.Serialize(newValue));
+            }
+        }
+        return completedFuture(null);
+    }
+
+    private static void CheckETag(String newETag, String oldStateETag) throws Exception {
+        if (oldStateETag != null && !"*".equals(newETag) && !oldStateETag.equals(newETag)) {
+            throw new Exception(String.format("Etag conflict.\r\n\r\nOriginal: %s\r\nCurrent: %s",
+                    newETag, oldStateETag));
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class FileTranscriptStoreTest {
+    private static final DateTime Start = new DateTime(2018, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Clock that only moves when told to.
+     */
+    static class ManualClock extends Clock {
+        long millis = Start.getMillis();
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(this.millis);
+        }
+    }
+
+    private static Activity CreateActivity(String conversationId, int i, DateTime timestamp) {
+        return new Activity()
+                .withType(ActivityTypes.MESSAGE)
+                .withId(String.valueOf(i))
+                .withText("message " + i)
+                .withChannelId("test")
+                .withConversation(new ConversationAccount().withId(conversationId))
+                .withTimestamp(timestamp);
+    }
+
+    private static List<Activity> ReadAll(TranscriptStore store, String conversationId, DateTime startDate) {
+        List<Activity> activities = new ArrayList<Activity>();
+        String token = null;
+        do {
+            PagedResult<Activity> page = store.GetTranscriptActivitiesAsync("test", conversationId, token, startDate).join();
+            for (Object activity : page.getItems())
+                activities.add((Activity) activity);
+            token = page.continuationToken();
+        } while (token != null);
+        return activities;
+    }
+
+    @Test
+    public void FileTranscriptStore_PagesAcrossSegmentsAndReopens() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ManualClock clock = new ManualClock();
+        try (FileTranscriptStore store = new FileTranscriptStore(directory, Duration.ofMinutes(1), null, clock)) {
+            for (int i = 0; i < 300; i++) {
+                clock.millis = Start.plusSeconds(i).getMillis();
+                store.LogActivityAsync(CreateActivity((i % 2 == 0) ? "even" : "odd", i, Start.plusSeconds(i)));
+            }
+
+            PagedResult<Activity> first = store.GetTranscriptActivitiesAsync("test", "even").join();
+            Assert.assertEquals(20, first.getItems().length);
+            Assert.assertNotNull(first.continuationToken());
+            PagedResult<Activity> large = store.GetTranscriptActivitiesAsync("test", "even", first.continuationToken(), null, 100).join();
+            Assert.assertEquals(100, large.getItems().length);
+            Assert.assertEquals("40", ((Activity) large.getItems()[0]).id());
+
+            List<Activity> even = ReadAll(store, "even", null);
+            Assert.assertEquals(150, even.size());
+            Assert.assertEquals("message 298", even.get(149).text());
+
+            List<Activity> recent = ReadAll(store, "odd", Start.plusSeconds(250));
+            Assert.assertEquals(25, recent.size());
+            Assert.assertEquals("251", recent.get(0).id());
+            Assert.assertEquals(Start.plusSeconds(251).getMillis(), recent.get(0).timestamp().getMillis());
+        }
+
+        try (FileTranscriptStore reopened = new FileTranscriptStore(directory, Duration.ofMinutes(1), null, clock)) {
+            Assert.assertEquals(150, ReadAll(reopened, "odd", null).size());
+            PagedResult<Transcript> transcripts = reopened.ListTranscriptsAsync("test").join();
+            Assert.assertEquals(2, transcripts.getItems().length);
+            Assert.assertEquals("even", ((Transcript) transcripts.getItems()[0]).getId());
+        }
+    }
+
+    @Test
+    public void FileTranscriptStore_DeleteAndRetention() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ManualClock clock = new ManualClock();
+        try (FileTranscriptStore store = new FileTranscriptStore(directory, Duration.ofMinutes(1), Duration.ofDays(1), clock)) {
+            store.LogActivityAsync(CreateActivity("old", 0, Start));
+            store.LogActivityAsync(CreateActivity("deleted", 1, Start));
+            store.DeleteTranscriptAsync("test", "deleted").join();
+            Assert.assertEquals(0, ReadAll(store, "deleted", null).size());
+
+            // A conversation logged to again after being deleted starts over.
+            store.LogActivityAsync(CreateActivity("deleted", 2, Start));
+            Assert.assertEquals(1, ReadAll(store, "deleted", null).size());
+
+            clock.millis = Start.plusDays(2).getMillis();
+            store.LogActivityAsync(CreateActivity("new", 3, Start.plusDays(2)));
+            store.RemoveExpiredSegments();
+
+            Assert.assertEquals(0, ReadAll(store, "old", null).size());
+            Assert.assertEquals(1, ReadAll(store, "new", null).size());
+            PagedResult<Transcript> transcripts = store.ListTranscriptsAsync("test").join();
+            Assert.assertEquals(1, transcripts.getItems().length);
+            Assert.assertEquals(1, Files.list(directory.resolve("test")).filter(p -> p.toString().endsWith(".seg")).count());
+        }
+    }
+
+    @Test
+    public void FileTranscriptStore_DeleteAfterReopen() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ManualClock clock = new ManualClock();
+        try (FileTranscriptStore store = new FileTranscriptStore(directory, Duration.ofMinutes(1), null, clock)) {
+            store.LogActivityAsync(CreateActivity("kept", 0, Start));
+            store.LogActivityAsync(CreateActivity("deleted", 1, Start));
+            clock.millis = Start.plusMinutes(1).getMillis();
+            store.LogActivityAsync(CreateActivity("deleted", 2, Start.plusMinutes(1)));
+        }
+
+        try (FileTranscriptStore reopened = new FileTranscriptStore(directory, Duration.ofMinutes(1), null, clock)) {
+            reopened.DeleteTranscriptAsync("test", "deleted").join();
+            Assert.assertEquals(0, ReadAll(reopened, "deleted", null).size());
+            Assert.assertEquals(1, reopened.ListTranscriptsAsync("test").join().getItems().length);
+
+            // Activities logged after the delete are kept.
+            reopened.LogActivityAsync(CreateActivity("deleted", 3, Start.plusMinutes(1)));
+            Assert.assertEquals(1, ReadAll(reopened, "deleted", null).size());
+        }
+
+        try (FileTranscriptStore reopened = new FileTranscriptStore(directory, Duration.ofMinutes(1), null, clock)) {
+            List<Activity> deleted = ReadAll(reopened, "deleted", null);
+            Assert.assertEquals(1, deleted.size());
+            Assert.assertEquals("3", deleted.get(0).id());
+            Assert.assertEquals(1, ReadAll(reopened, "kept", null).size());
+        }
+    }
+
+    @Test
+    public void FileTranscriptStore_IteratesAndExportsNdjson() throws Exception {
+        ManualClock clock = new ManualClock();
+        try (FileTranscriptStore store = new FileTranscriptStore(folder.getRoot().toPath(), Duration.ofMinutes(1), null, clock)) {
+            for (int i = 0; i < 300; i++) {
+                clock.millis = Start.plusSeconds(i).getMillis();
+                store.LogActivityAsync(CreateActivity("conv" + (i % 3), i, Start.plusSeconds(i)));
+            }
+            store.DeleteTranscriptAsync("test", "conv2").join();
+
+            Iterator<Activity> activities = store.IterateTranscriptActivities("test", "conv1", Start.plusSeconds(150));
+            int count = 0;
+            while (activities.hasNext()) {
+                Activity activity = activities.next();
+                Assert.assertEquals("conv1", activity.conversation().id());
+                Assert.assertFalse(activity.timestamp().isBefore(Start.plusSeconds(150)));
+                count++;
+            }
+            Assert.assertEquals(50, count);
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            long written = store.ExportChannel("test", Start.plusSeconds(60), Start.plusSeconds(120), stream);
+            String[] lines = new String(stream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+            // Two of every three activities in the minute; conv2 was deleted.
+            Assert.assertEquals(40, written);
+            Assert.assertEquals(40, lines.length);
+            ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+            Activity first = mapper.readValue(lines[0], Activity.class);
+            Assert.assertEquals("60", first.id());
+            Assert.assertEquals("conv0", first.conversation().id());
+            Assert.assertEquals("118", mapper.readValue(lines[39], Activity.class).id());
+
+            stream.reset();
+            Assert.assertEquals(100, store.ExportTranscript("test", "conv0", null, stream));
+            Assert.assertEquals(0, store.ExportTranscript("missing", "conv0", null, stream));
+        }
+    }
+}
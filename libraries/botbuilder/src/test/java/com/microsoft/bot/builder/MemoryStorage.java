@@ -8,6 +8,6 @@ import com.microsoft.bot.builder.DictionaryStorage;
 public class MemoryStorage extends DictionaryStorage {
 
     public MemoryStorage() {
-            super(null);
+            super();
     }
 }
@@ -0,0 +1,171 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.microsoft.bot.schema.Serialization;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+public class MemoryTranscriptStoreTest {
+    private static final DateTime Start = new DateTime(2018, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private static Activity CreateActivity(String conversationId, int i, DateTime timestamp) {
+        return new Activity()
+                .withType(ActivityTypes.MESSAGE)
+                .withId(String.valueOf(i))
+                .withText(String.valueOf(i))
+                .withChannelId("test")
+                .withConversation(new ConversationAccount().withId(conversationId))
+                .withTimestamp(timestamp);
+    }
+
+    private static List<Activity> ReadAll(TranscriptStore store, String conversationId, DateTime startDate) {
+        List<Activity> activities = new ArrayList<Activity>();
+        String token = null;
+        do {
+            PagedResult<Activity> page = store.GetTranscriptActivitiesAsync("test", conversationId, token, startDate).join();
+            for (Object activity : page.getItems())
+                activities.add((Activity) activity);
+            token = page.continuationToken();
+        } while (token != null);
+        return activities;
+    }
+
+    @Test
+    public void GetTranscriptActivities_PagesInTimestampOrder() {
+        MemoryTranscriptStore store = new MemoryTranscriptStore();
+        for (int i = 0; i < 45; i++) {
+            // Log activity 10 late; it must still come back in its timestamp position.
+            if (i != 10)
+                store.LogActivityAsync(CreateActivity("conv", i, Start.plusSeconds(i)));
+        }
+        store.LogActivityAsync(CreateActivity("conv", 10, Start.plusSeconds(10)));
+
+        PagedResult<Activity> first = store.GetTranscriptActivitiesAsync("test", "conv").join();
+        Assert.assertEquals(20, first.getItems().length);
+        Assert.assertEquals("19", ((Activity) first.getItems()[19]).id());
+        Assert.assertNotNull(first.continuationToken());
+
+        List<Activity> all = ReadAll(store, "conv", null);
+        Assert.assertEquals(45, all.size());
+        for (int i = 0; i < 45; i++)
+            Assert.assertEquals(String.valueOf(i), all.get(i).id());
+
+        List<Activity> recent = ReadAll(store, "conv", Start.plusSeconds(30));
+        Assert.assertEquals(15, recent.size());
+        Assert.assertEquals("30", recent.get(0).id());
+    }
+
+    @Test
+    public void ListTranscripts_PagesInCreationOrder() {
+        MemoryTranscriptStore store = new MemoryTranscriptStore();
+        for (int i = 0; i < 25; i++)
+            store.LogActivityAsync(CreateActivity("conv" + i, i, Start.plusMinutes(i)));
+
+        PagedResult<Transcript> first = store.ListTranscriptsAsync("test").join();
+        Assert.assertEquals(20, first.getItems().length);
+        Assert.assertEquals("conv0", ((Transcript) first.getItems()[0]).getId());
+        Assert.assertNotNull(first.continuationToken());
+
+        PagedResult<Transcript> second = store.ListTranscriptsAsync("test", first.continuationToken()).join();
+        Assert.assertEquals(5, second.getItems().length);
+        Assert.assertNull(second.continuationToken());
+
+        Set<String> ids = new HashSet<String>();
+        for (Object transcript : second.getItems())
+            ids.add(((Transcript) transcript).getId());
+        Assert.assertTrue(ids.contains("conv24"));
+
+        store.DeleteTranscriptAsync("test", "conv24").join();
+        Assert.assertEquals(4, store.ListTranscriptsAsync("test", first.continuationToken()).join().getItems().length);
+        PagedResult deleted = store.GetTranscriptActivitiesAsync("test", "conv24").join();
+        Assert.assertEquals(0, deleted.getItems().length);
+    }
+
+    @Test
+    public void ExportChannel_WritesNdjsonForTimeRange() throws Exception {
+        MemoryTranscriptStore store = new MemoryTranscriptStore();
+        // 25 conversations of 3 activities each, so listing and reading both take several pages.
+        for (int i = 0; i < 75; i++)
+            store.LogActivityAsync(CreateActivity("conv" + (i / 3), i, Start.plusMinutes(i)));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        long written = store.ExportChannel("test", Start.plusMinutes(10), Start.plusMinutes(70), stream);
+        String[] lines = new String(stream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(60, written);
+        Assert.assertEquals(60, lines.length);
+
+        // Conversations are exported in order of creation, so the activities come out in order.
+        ObjectWriter writer = Serialization.CompactWriterFor(Activity.class);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 10; i < 70; i++) {
+            expected.write(writer.writeValueAsBytes(CreateActivity("conv" + (i / 3), i, Start.plusMinutes(i))));
+            expected.write('\n');
+        }
+        Assert.assertArrayEquals(expected.toByteArray(), stream.toByteArray());
+
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Set<String> ids = new HashSet<String>();
+        for (String line : lines)
+            ids.add(mapper.readValue(line, Activity.class).id());
+        for (int i = 10; i < 70; i++)
+            Assert.assertTrue(ids.contains(String.valueOf(i)));
+
+        stream.reset();
+        Assert.assertEquals(3, store.ExportTranscript("test", "conv4", null, stream));
+    }
+
+    @Test
+    public void Paging_UsesPageSizeAndPositionTokens() {
+        MemoryTranscriptStore store = new MemoryTranscriptStore();
+        for (int i = 0; i < 10; i++) {
+            // Activities 5 to 9 share one timestamp; paging must keep them in logging order.
+            store.LogActivityAsync(CreateActivity("conv", i, Start.plusSeconds(Math.min(i, 5))));
+            store.LogActivityAsync(CreateActivity("conv" + i, i, Start.plusMinutes(i)));
+        }
+
+        List<String> ids = new ArrayList<String>();
+        String token = null;
+        do {
+            PagedResult<Activity> page = store.GetTranscriptActivitiesAsync("test", "conv", token, null, 3).join();
+            Assert.assertTrue(page.getItems().length <= 3);
+            for (Object activity : page.getItems())
+                ids.add(((Activity) activity).id());
+            token = page.continuationToken();
+        } while (token != null);
+        Assert.assertEquals(10, ids.size());
+        for (int i = 0; i < 10; i++)
+            Assert.assertEquals(String.valueOf(i), ids.get(i));
+
+        // A token still resumes after its conversation has been deleted.
+        PagedResult<Transcript> first = store.ListTranscriptsAsync("test", null, 4).join();
+        Assert.assertEquals(4, first.getItems().length);
+        Assert.assertEquals("conv2", ((Transcript) first.getItems()[3]).getId());
+        store.DeleteTranscriptAsync("test", "conv2").join();
+        PagedResult<Transcript> second = store.ListTranscriptsAsync("test", first.continuationToken(), 4).join();
+        Assert.assertEquals("conv3", ((Transcript) second.getItems()[0]).getId());
+
+        try {
+            store.ListTranscriptsAsync("test", ids.get(0), 4).join();
+            Assert.fail("expected the activity id to be rejected as a token");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchableTranscriptStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final DateTime Start = new DateTime(2018, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private static Activity CreateActivity(String conversationId, int i, String fromId, String text) {
+        return new Activity()
+                .withType(ActivityTypes.MESSAGE)
+                .withId(String.valueOf(i))
+                .withText(text)
+                .withChannelId("test")
+                .withFrom(new ChannelAccount().withId(fromId))
+                .withConversation(new ConversationAccount().withId(conversationId))
+                .withTimestamp(Start.plusMinutes(i));
+    }
+
+    private static List<TranscriptMatch> SearchAll(SearchableTranscriptStore store, TranscriptQuery query) {
+        List<TranscriptMatch> matches = new ArrayList<TranscriptMatch>();
+        String token = null;
+        do {
+            PagedResult<TranscriptMatch> page = store.SearchAsync(query, token).join();
+            for (Object match : page.getItems())
+                matches.add((TranscriptMatch) match);
+            token = page.continuationToken();
+        } while (token != null);
+        return matches;
+    }
+
+    @Test
+    public void Search_MatchesSenderTextAndTime() {
+        SearchableTranscriptStore store = new SearchableTranscriptStore(new MemoryTranscriptStore());
+        for (int i = 0; i < 60; i++) {
+            String fromId = (i % 2 == 0) ? "alice" : "bot";
+            String text = (i % 3 == 0) ? "I want a Refund, please." : "hello";
+            store.LogActivityAsync(CreateActivity("conv" + (i / 10), i, fromId, text));
+        }
+
+        List<TranscriptMatch> byUser = SearchAll(store, new TranscriptQuery().withFromId("alice"));
+        Assert.assertEquals(30, byUser.size());
+        for (int i = 0; i < byUser.size(); i++)
+            Assert.assertEquals(String.valueOf(i * 2), byUser.get(i).getActivityId());
+
+        // Every sixth activity is from alice and asks for a refund.
+        List<TranscriptMatch> refunds = SearchAll(store, new TranscriptQuery().withFromId("alice").withText("refund PLEASE"));
+        Assert.assertEquals(10, refunds.size());
+        Assert.assertEquals("conv0", refunds.get(0).getConversationId());
+        Assert.assertEquals("54", refunds.get(9).getActivityId());
+
+        List<TranscriptMatch> window = SearchAll(store, new TranscriptQuery()
+                .withText("refund")
+                .withStart(Start.plusMinutes(30))
+                .withEnd(Start.plusMinutes(40)));
+        Assert.assertEquals(4, window.size());
+        Assert.assertEquals("30", window.get(0).getActivityId());
+        Assert.assertEquals("39", window.get(3).getActivityId());
+
+        PagedResult noMatch = store.SearchAsync(new TranscriptQuery().withFromId("alice").withText("chargeback")).join();
+        Assert.assertEquals(0, noMatch.getItems().length);
+        Assert.assertNull(noMatch.continuationToken());
+    }
+
+    @Test
+    public void Search_PagesAndForgetsDeletedTranscripts() {
+        SearchableTranscriptStore store = new SearchableTranscriptStore(new MemoryTranscriptStore());
+        for (int i = 0; i < 25; i++)
+            store.LogActivityAsync(CreateActivity((i < 5) ? "old" : "new", i, "alice", "order status"));
+
+        PagedResult<TranscriptMatch> first = store.SearchAsync(new TranscriptQuery().withText("status")).join();
+        Assert.assertEquals(20, first.getItems().length);
+        Assert.assertNotNull(first.continuationToken());
+        PagedResult<TranscriptMatch> second = store.SearchAsync(new TranscriptQuery().withText("status"), first.continuationToken()).join();
+        Assert.assertEquals(5, second.getItems().length);
+        Assert.assertEquals("20", ((TranscriptMatch) second.getItems()[0]).getActivityId());
+
+        store.DeleteTranscriptAsync("test", "old").join();
+        Assert.assertEquals(20, store.getIndex().getCount());
+        List<TranscriptMatch> remaining = SearchAll(store, new TranscriptQuery().withFromId("alice"));
+        Assert.assertEquals(20, remaining.size());
+        Assert.assertEquals("5", remaining.get(0).getActivityId());
+    }
+
+    @Test
+    public void Rebuild_IndexesExistingTranscripts() {
+        MemoryTranscriptStore transcripts = new MemoryTranscriptStore();
+        for (int i = 0; i < 30; i++)
+            transcripts.LogActivityAsync(CreateActivity("conv" + (i / 4), i, "user" + (i % 3), "message " + i));
+
+        SearchableTranscriptStore store = new SearchableTranscriptStore(transcripts);
+        Assert.assertEquals(0, store.getIndex().getCount());
+        store.RebuildAsync("test").join();
+        store.RebuildAsync("test").join();
+        Assert.assertEquals(30, store.getIndex().getCount());
+
+        List<TranscriptMatch> matches = SearchAll(store, new TranscriptQuery().withChannelId("test").withFromId("user1").withText("message 7"));
+        Assert.assertEquals(1, matches.size());
+        Assert.assertEquals("conv1", matches.get(0).getConversationId());
+    }
+
+    @Test
+    public void Index_AddsEachActivityOnce() {
+        SearchableTranscriptStore store = new SearchableTranscriptStore(new MemoryTranscriptStore());
+        Activity activity = CreateActivity("conv", 0, "alice", "refund");
+        store.LogActivityAsync(activity);
+
+        // An activity logged while its conversation is rebuilt is added by both.
+        store.getIndex().Add(activity);
+        Assert.assertEquals(1, store.getIndex().getCount());
+
+        // An update keeps the activity's id but has its own timestamp.
+        store.LogActivityAsync(CreateActivity("conv", 0, "alice", "refund").withTimestamp(Start.plusMinutes(5)));
+        Assert.assertEquals(2, store.getIndex().getCount());
+
+        store.DeleteTranscriptAsync("test", "conv").join();
+        store.getIndex().Add(activity);
+        Assert.assertEquals(1, store.getIndex().getCount());
+    }
+
+    @Test
+    public void Retention_RemovesExpiredActivitiesFromIndex() throws Exception {
+        FileTranscriptStoreTest.ManualClock clock = new FileTranscriptStoreTest.ManualClock();
+        try (FileTranscriptStore transcripts = new FileTranscriptStore(folder.getRoot().toPath(), Duration.ofMinutes(1), Duration.ofDays(1), clock)) {
+            SearchableTranscriptStore store = new SearchableTranscriptStore(transcripts);
+            store.LogActivityAsync(CreateActivity("old", 0, "alice", "refund"));
+            store.LogActivityAsync(CreateActivity("both", 1, "alice", "refund"));
+
+            clock.millis = Start.plusDays(2).getMillis();
+            store.LogActivityAsync(CreateActivity("both", 2, "alice", "refund").withTimestamp(Start.plusDays(2)));
+            transcripts.RemoveExpiredSegments();
+
+            List<TranscriptMatch> matches = SearchAll(store, new TranscriptQuery().withText("refund"));
+            Assert.assertEquals(1, matches.size());
+            Assert.assertEquals("both", matches.get(0).getConversationId());
+            Assert.assertEquals("2", matches.get(0).getActivityId());
+            Assert.assertEquals(1, store.getIndex().getCount());
+
+            // The index still finds the conversation that kept activities, and forgets it when deleted.
+            store.DeleteTranscriptAsync("test", "both").join();
+            Assert.assertEquals(0, store.getIndex().getCount());
+        }
+    }
+}
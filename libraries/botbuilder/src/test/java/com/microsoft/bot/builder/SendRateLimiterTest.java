@@ -0,0 +1,149 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+
+public class SendRateLimiterTest {
+
+    @Test
+    public void SendsWithinBurstAreNotDelayed() throws InterruptedException {
+        SendRateLimiter limiter = new SendRateLimiter(1, 3, 100, 100);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.Acquire("test", "convo1");
+        }
+
+        Assert.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 500);
+        Assert.assertEquals(3, limiter.getAcquiredCount());
+        Assert.assertEquals(0, limiter.getDelayedCount());
+        Assert.assertEquals(Duration.ZERO, limiter.getAverageQueueTime());
+    }
+
+    @Test
+    public void SendsOverBurstAreSmoothed() throws InterruptedException {
+        // 20 sends per second: after the burst of 1, each send waits about 50ms.
+        SendRateLimiter limiter = new SendRateLimiter(20, 1, 100, 100);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.Acquire("test", "convo1");
+        }
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        Assert.assertTrue("elapsed " + elapsed, elapsed >= 190);
+        Assert.assertEquals(5, limiter.getAcquiredCount());
+        Assert.assertEquals(4, limiter.getDelayedCount());
+        Assert.assertEquals(0, limiter.getQueueDepth());
+        Assert.assertTrue(limiter.getMaxQueueTime().toMillis() >= 40);
+        Assert.assertTrue(limiter.getTotalQueueTime().compareTo(limiter.getMaxQueueTime()) >= 0);
+    }
+
+    @Test
+    public void ConversationsAreLimitedSeparately() throws InterruptedException {
+        SendRateLimiter limiter = new SendRateLimiter(0.1, 1, 100, 100);
+
+        long start = System.nanoTime();
+        limiter.Acquire("test", "convo1");
+        limiter.Acquire("test", "convo2");
+        limiter.Acquire("other", "convo1");
+
+        Assert.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 500);
+        Assert.assertEquals(0, limiter.getDelayedCount());
+    }
+
+    @Test
+    public void ChannelLimitsAllItsConversations() throws InterruptedException {
+        SendRateLimiter limiter = new SendRateLimiter(100, 100, 20, 1);
+
+        limiter.Acquire("test", "convo1");
+        limiter.Acquire("test", "convo2");
+        limiter.Acquire("other", "convo3");
+
+        Assert.assertEquals(1, limiter.getDelayedCount());
+    }
+
+    @Test
+    public void SendWaitingForItsConversationCountsAgainstItsChannelWhenSent() throws InterruptedException {
+        // A conversation send every 500ms, a channel send every 200ms.
+        SendRateLimiter limiter = new SendRateLimiter(2, 1, 5, 1);
+        limiter.Acquire("test", "convo1");
+        Thread.sleep(250);
+
+        // The channel has its token back, but convo1 waits until 500ms.
+        limiter.Acquire("test", "convo1");
+        long start = System.nanoTime();
+        limiter.Acquire("test", "convo2");
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // convo2 goes out a channel interval after convo1's second send, not with it.
+        Assert.assertTrue("elapsed " + elapsed, elapsed >= 100);
+        Assert.assertEquals(2, limiter.getDelayedCount());
+    }
+
+    @Test
+    public void SendDoesNotWaitBehindAnotherConversation() throws InterruptedException {
+        // convo1 waits a second for its conversation; convo2 is within the channel's burst meanwhile.
+        SendRateLimiter limiter = new SendRateLimiter(1, 1, 100, 100);
+        limiter.Acquire("test", "convo1");
+
+        Thread waiting = new Thread(() -> {
+            try {
+                limiter.Acquire("test", "convo1");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        while (limiter.getQueueDepth() == 0 && waiting.isAlive()) {
+            Thread.sleep(5);
+        }
+        long start = System.nanoTime();
+        limiter.Acquire("test", "convo2");
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        waiting.join(10000);
+
+        Assert.assertTrue("elapsed " + elapsed, elapsed < 500);
+        Assert.assertEquals(1, limiter.getDelayedCount());
+    }
+
+    @Test
+    public void QueuedSendsWaitTheirTurn() throws Exception {
+        SendRateLimiter limiter = new SendRateLimiter(20, 1, 100, 100);
+        limiter.Acquire("test", "convo1");
+
+        Thread[] senders = new Thread[4];
+        for (int i = 0; i < senders.length; i++) {
+            senders[i] = new Thread(() -> {
+                try {
+                    limiter.Acquire("test", "convo1");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread sender : senders) {
+            sender.start();
+        }
+        for (Thread sender : senders) {
+            sender.join(10000);
+        }
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // The four queued sends reserve consecutive tokens, so the last goes out about 200ms later.
+        Assert.assertTrue("elapsed " + elapsed, elapsed >= 150);
+        Assert.assertEquals(4, limiter.getDelayedCount());
+        Assert.assertTrue(limiter.getMaxQueueTime().toMillis() >= 150);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RateMustBePositive() {
+        new SendRateLimiter(0, 1, 1, 1);
+    }
+}
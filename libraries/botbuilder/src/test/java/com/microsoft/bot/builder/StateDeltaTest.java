@@ -0,0 +1,124 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.bot.builder.adapters.TestAdapter;
+import com.microsoft.bot.builder.adapters.TestFlow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StateDeltaTest {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Delta storage that records the calls made against it.
+     */
+    static class RecordingStorage extends DictionaryStorage {
+        final AtomicInteger writes = new AtomicInteger();
+        final List<Map<String, StateDelta>> deltas = new ArrayList<Map<String, StateDelta>>();
+
+        @Override
+        public CompletableFuture Write(Map<String, ?> changes) throws Exception {
+            writes.incrementAndGet();
+            return super.Write(changes);
+        }
+
+        @Override
+        public CompletableFuture WriteDelta(Map<String, StateDelta> deltas) throws Exception {
+            this.deltas.add(deltas);
+            return super.WriteDelta(deltas);
+        }
+    }
+
+    private static ObjectNode Json(String json) throws IOException {
+        return (ObjectNode) mapper.readTree(json);
+    }
+
+    @Test
+    public void JsonMergePatch_DiffAndApply() throws IOException {
+        ObjectNode source = Json("{\"a\":1,\"b\":{\"c\":2,\"d\":3},\"e\":[1,2],\"f\":\"x\"}");
+        ObjectNode target = Json("{\"a\":1,\"b\":{\"c\":2,\"d\":4},\"e\":[1,2,3],\"g\":true}");
+
+        ObjectNode patch = JsonMergePatch.Diff(source, target);
+        Assert.assertEquals(Json("{\"b\":{\"d\":4},\"e\":[1,2,3],\"f\":null,\"g\":true}"), patch);
+        Assert.assertEquals(target, JsonMergePatch.Apply(source.deepCopy(), patch));
+        Assert.assertNull(JsonMergePatch.Diff(source, source.deepCopy()));
+    }
+
+    @Test
+    public void DeltaStorage_WritesOnlyChangedState() throws Exception {
+        RecordingStorage storage = new RecordingStorage();
+        TestAdapter adapter = new TestAdapter()
+                .Use(new ConversationState<TestPocoState>(storage, TestPocoState::new));
+
+        new TestFlow(adapter,
+                (context) ->
+                {
+                    TestPocoState state = StateTurnContextExtensions.<TestPocoState>GetConversationState(context);
+                    try {
+                        switch (context.getActivity().text()) {
+                            case "set value":
+                                state.setValue("test");
+                                context.SendActivity("value saved");
+                                break;
+                            case "get value":
+                                context.SendActivity(state.getValue());
+                                break;
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        Assert.fail(String.format("Error sending activity! - %s", context.getActivity().text()));
+                    }
+                })
+                .Test("set value", "value saved")
+                .Test("get value", "test")
+                .Test("set value", "value saved")
+                .Test("get value", "test")
+                .StartTest();
+
+        // The first turn creates the item; later turns leave it as it was.
+        Assert.assertEquals("new state written in full", 1, storage.writes.get());
+        Assert.assertEquals("unchanged turns skip the write", 0, storage.deltas.size());
+    }
+
+    @Test
+    public void DeltaStorage_SendsChangedFieldsOnly() throws Exception {
+        RecordingStorage storage = new RecordingStorage();
+        TestAdapter adapter = new TestAdapter()
+                .Use(new ConversationState<TypedObject>(storage, TypedObject::new));
+
+        new TestFlow(adapter,
+                (context) ->
+                {
+                    TypedObject state = StateTurnContextExtensions.<TypedObject>GetConversationState(context);
+                    try {
+                        state.withName(context.getActivity().text());
+                        context.SendActivity(state.name());
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        Assert.fail(String.format("Error sending activity! - %s", context.getActivity().text()));
+                    }
+                })
+                .Test("first", "first")
+                .Test("second", "second")
+                .StartTest();
+
+        Assert.assertEquals(1, storage.writes.get());
+        Assert.assertEquals(1, storage.deltas.size());
+        StateDelta delta = storage.deltas.get(0).values().iterator().next();
+        Assert.assertEquals(Json("{\"name\":\"second\"}"), delta.getPatch());
+
+        Map<String, ?> items = ((Storage) storage).Read(storage.deltas.get(0).keySet().iterator().next()).join();
+        Assert.assertEquals("second", ((TypedObject) items.values().iterator().next()).name());
+    }
+}
@@ -0,0 +1,218 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.microsoft.bot.builder.adapters.TestAdapter;
+import com.microsoft.bot.builder.adapters.TestFlow;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public class StateKeyStrategyTest {
+
+    private static TestFlow EchoUserState(TestAdapter adapter) {
+        return new TestFlow(adapter,
+                (context) ->
+                {
+                    TestPocoState userState = StateTurnContextExtensions.<TestPocoState>GetUserState(context);
+                    try {
+                        switch (context.getActivity().text()) {
+                            case "set value":
+                                userState.setValue("test");
+                                context.SendActivity("value saved");
+                                break;
+                            case "get value":
+                                context.SendActivity(String.valueOf(userState.getValue()));
+                                break;
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        Assert.fail(String.format("Error sending activity! - %s", context.getActivity().text()));
+                    }
+                });
+    }
+
+    @Test
+    public void UserState_KeyedByUserAcrossConversations() throws Exception {
+        Storage storage = new MemoryStorage();
+        TestAdapter adapter = new TestAdapter()
+                .Use(new UserState<TestPocoState>(storage, TestPocoState::new));
+
+        EchoUserState(adapter)
+                .Test("set value", "value saved")
+                .StartTest();
+
+        adapter.conversationReference().withConversation(new ConversationAccount().withId("Conversation2"));
+        EchoUserState(adapter)
+                .Test("get value", "test")
+                .StartTest();
+
+        Map<String, ?> items = storage.Read("user/test/user1").join();
+        Assert.assertTrue(items.containsKey("user/test/user1"));
+    }
+
+    @Test
+    public void UserState_SkippedWithoutSender() throws Exception {
+        Storage storage = new MemoryStorage();
+        TestAdapter adapter = new TestAdapter()
+                .Use(new UserState<TestPocoState>(storage, TestPocoState::new));
+        adapter.conversationReference().withUser(new ChannelAccount().withName("guest"));
+
+        EchoUserState(adapter)
+                .Test("set value", "value saved")
+                .Test("get value", "null")
+                .StartTest();
+
+        // The user state of a turn without a sender ID is left out of a set, and the rest is stored.
+        TestAdapter setAdapter = new TestAdapter()
+                .Use(new BotStateSet(
+                        new ConversationState<TestPocoState>(storage, TestPocoState::new),
+                        new UserState<TestPocoState>(storage, TestPocoState::new)));
+        setAdapter.conversationReference().withUser(new ChannelAccount().withName("guest"));
+
+        new TestFlow(setAdapter,
+                (context) ->
+                {
+                    StateTurnContextExtensions.<TestPocoState>GetConversationState(context).setValue("conversation");
+                    StateTurnContextExtensions.<TestPocoState>GetUserState(context).setValue("user");
+                })
+                .Send("hi")
+                .StartTest();
+
+        Map<String, ?> items = storage.Read("conversation/test/Conversation1").join();
+        Assert.assertEquals("conversation", ((TestPocoState) items.get("conversation/test/Conversation1")).getValue());
+    }
+
+    @Test
+    public void ConsistentHashRing_StableAndSpread() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("p0", "p1", "p2", "p3"));
+        Set<String> used = new HashSet<String>();
+        for (int i = 0; i < 1000; i++) {
+            String key = "msteams/user" + i;
+            String node = ring.GetNode(key);
+            Assert.assertEquals(node, ring.GetNode(key));
+            used.add(node);
+        }
+        Assert.assertEquals(4, used.size());
+
+        // Removing a node only moves the keys that node owned.
+        ConsistentHashRing smaller = new ConsistentHashRing(Arrays.asList("p0", "p1", "p2"));
+        for (int i = 0; i < 1000; i++) {
+            String key = "msteams/user" + i;
+            String before = ring.GetNode(key);
+            if (!before.equals("p3"))
+                Assert.assertEquals(before, smaller.GetNode(key));
+        }
+    }
+
+    @Test
+    public void ShardedUserState_RoundTripThroughPartitionedStorage() throws Exception {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("p0", "p1"));
+        Map<String, Storage> nodes = new HashMap<String, Storage>();
+        nodes.put("p0", new MemoryStorage());
+        nodes.put("p1", new MemoryStorage());
+
+        TestAdapter adapter = new TestAdapter()
+                .Use(new UserState<TestPocoState>(new PartitionedStorage(nodes), TestPocoState::new, null,
+                        new ShardedStateKeyStrategy(ring)));
+
+        EchoUserState(adapter)
+                .Test("set value", "value saved")
+                .Test("get value", "test")
+                .StartTest();
+
+        String partition = ring.GetNode("test/user1");
+        String key = String.format("%s/user/test/user1", partition);
+        Assert.assertTrue(nodes.get(partition).Read(key).join().containsKey(key));
+    }
+
+    @Test
+    public void PartitionedStorage_WritesDeltasToEachPartition() throws Exception {
+        StateDeltaTest.RecordingStorage deltaNode = new StateDeltaTest.RecordingStorage();
+        Assert.assertEquals("b", ChangeUserStateThrough(deltaNode));
+        Assert.assertEquals("only the change is written as a delta", 1, deltaNode.deltas.size());
+
+        // A node that stores whole items has the item patched and written back.
+        MemoryStorage memory = new MemoryStorage();
+        Storage wholeItemNode = new Storage() {
+            @Override
+            public CompletableFuture<Map<String, ? extends Object>> Read(String... keys) throws JsonProcessingException {
+                return memory.Read(keys);
+            }
+
+            @Override
+            public CompletableFuture Write(Map<String, ? extends Object> changes) throws Exception {
+                return memory.Write(changes);
+            }
+
+            @Override
+            public CompletableFuture Delete(String... keys) {
+                return memory.Delete(keys);
+            }
+        };
+        Assert.assertEquals("b", ChangeUserStateThrough(wholeItemNode));
+    }
+
+    /**
+     * Sets the user's state to "a" and then to "b" through a partitioned storage whose partitions
+     * are all on one node, and reads the stored value back from the node.
+     */
+    private static String ChangeUserStateThrough(Storage node) throws Exception {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("p0", "p1"));
+        Map<String, Storage> nodes = new HashMap<String, Storage>();
+        nodes.put("p0", node);
+        nodes.put("p1", node);
+
+        TestAdapter adapter = new TestAdapter()
+                .Use(new UserState<TestPocoState>(new PartitionedStorage(nodes), TestPocoState::new, null,
+                        new ShardedStateKeyStrategy(ring)));
+        new TestFlow(adapter,
+                (context) ->
+                {
+                    TestPocoState userState = StateTurnContextExtensions.<TestPocoState>GetUserState(context);
+                    userState.setValue(context.getActivity().text());
+                    try {
+                        context.SendActivity("value saved");
+                    } catch (Exception e) {
+                        Assert.fail(e.toString());
+                    }
+                })
+                .Test("a", "value saved")
+                .Test("b", "value saved")
+                .StartTest();
+
+        String key = String.format("%s/user/test/user1", ring.GetNode("test/user1"));
+        return ((TestPocoState) node.Read(key).join().get(key)).getValue();
+    }
+
+    @Test
+    public void UserState_MigratesLegacyConversationKey() throws Exception {
+        Storage storage = new MemoryStorage();
+        TestPocoState legacy = new TestPocoState();
+        legacy.setValue("legacy");
+        Map<String, Object> changes = new HashMap<String, Object>();
+        changes.put("user/test/Conversation1", legacy);
+        storage.Write(changes).join();
+
+        TestAdapter adapter = new TestAdapter()
+                .Use(new UserState<TestPocoState>(storage, TestPocoState::new)
+                        .withMigrationReader(new StateMigrationReader(UserState::LegacyKey)));
+
+        EchoUserState(adapter)
+                .Test("get value", "legacy")
+                .StartTest();
+
+        Map<String, ?> items = storage.Read("user/test/user1").join();
+        Assert.assertEquals("legacy", ((TestPocoState) items.get("user/test/user1")).getValue());
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.builder.adapters.TestAdapter;
+import com.microsoft.bot.builder.adapters.TestFlow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class StateSerializerTest {
+
+    private static void RoundTrip(StateSerializer serializer) throws IOException {
+        TypedObject typed = new TypedObject().withName("typed");
+        Object result = serializer.Deserialize(serializer.Serialize(typed));
+        Assert.assertTrue(result instanceof TypedObject);
+        Assert.assertEquals("typed", ((TypedObject) result).name());
+
+        TestPocoState poco = new TestPocoState();
+        poco.setValue("poco");
+        result = serializer.Deserialize(serializer.Serialize(poco));
+        Assert.assertTrue(result instanceof TestPocoState);
+        Assert.assertEquals("poco", ((TestPocoState) result).getValue());
+    }
+
+    @Test
+    public void JsonStateSerializer_RoundTrip() throws IOException {
+        RoundTrip(new JsonStateSerializer());
+    }
+
+    @Test
+    public void SmileStateSerializer_RoundTrip() throws IOException {
+        RoundTrip(new SmileStateSerializer());
+    }
+
+    @Test
+    public void SmileStateSerializer_AliasIsSmallerThanClassName() throws IOException {
+        TestPocoState poco = new TestPocoState();
+        poco.setValue("poco");
+
+        byte[] byClassName = new SmileStateSerializer().Serialize(poco);
+        SmileStateSerializer aliased = new SmileStateSerializer(new StateTypeRegistry().Register("poco", TestPocoState.class));
+        byte[] byAlias = aliased.Serialize(poco);
+
+        Assert.assertTrue(byAlias.length < byClassName.length);
+        Assert.assertEquals("poco", ((TestPocoState) aliased.Deserialize(byAlias)).getValue());
+    }
+
+    @Test(expected = IOException.class)
+    public void SmileStateSerializer_UnknownTypeFails() throws IOException {
+        SmileStateSerializer writer = new SmileStateSerializer(new StateTypeRegistry().Register("poco", TestPocoState.class));
+        new SmileStateSerializer().Deserialize(writer.Serialize(new TestPocoState()));
+    }
+
+    @Test
+    public void State_RememberPocoConversationStateSmile() throws Exception {
+        TestAdapter adapter = new TestAdapter()
+                .Use(new ConversationState<TestPocoState>(new DictionaryStorage(new SmileStateSerializer()), TestPocoState::new));
+        new TestFlow(adapter,
+                (context) ->
+                {
+                    TestPocoState conversationState = StateTurnContextExtensions.<TestPocoState>GetConversationState(context);
+                    try {
+                        switch (context.getActivity().text()) {
+                            case "set value":
+                                conversationState.setValue("test");
+                                context.SendActivity("value saved");
+                                break;
+                            case "get value":
+                                context.SendActivity(conversationState.getValue());
+                                break;
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        Assert.fail(String.format("Error sending activity! - %s", context.getActivity().text()));
+                    }
+                })
+                .Test("set value", "value saved")
+                .Test("get value", "test")
+                .StartTest();
+    }
+}
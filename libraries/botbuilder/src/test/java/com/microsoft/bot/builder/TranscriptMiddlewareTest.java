@@ -18,6 +18,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -268,5 +269,83 @@ public class TranscriptMiddlewareTest {
         Assert.assertEquals(ActivityTypes.MESSAGE_DELETE, ((Activity)pagedResult.getItems()[3]).type());
         Assert.assertEquals(((Activity)pagedResult.getItems()[1]).id(), ((Activity) pagedResult.getItems()[3]).id());
     }
+
+    @Test
+    public final void Transcript_LogsActivityAsSent() throws Exception {
+        MemoryTranscriptStore transcriptStore = new MemoryTranscriptStore();
+        TestAdapter adapter = (new TestAdapter()).Use(new TranscriptLoggerMiddleware(transcriptStore));
+        final String[] conversationId = {null};
+
+        new TestFlow(adapter, (context) ->
+        {
+                conversationId[0] = context.getActivity().conversation().id();
+                ActivityImpl reply = ((ActivityImpl) context.getActivity()).CreateReply("response");
+                try {
+                    context.SendActivity(reply);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    Assert.fail();
+                }
+                // Changes made after sending must not reach the transcript.
+                reply.withText("changed");
+                context.getActivity().withText("changed");
+        }).Send("foo")
+                .AssertReply("changed")
+                .StartTest();
+
+        PagedResult pagedResult = transcriptStore.GetTranscriptActivitiesAsync("test", conversationId[0]).join();
+        Assert.assertEquals(2, pagedResult.getItems().length);
+        Assert.assertEquals("foo", ((Activity) pagedResult.getItems()[0]).text());
+        Assert.assertEquals("response", ((Activity) pagedResult.getItems()[1]).text());
+    }
+
+    @Test
+    public final void Transcript_LogsObjectsTheActivitySharesAsSent() throws Exception {
+        MemoryTranscriptStore transcriptStore = new MemoryTranscriptStore();
+        TestAdapter adapter = (new TestAdapter()).Use(new TranscriptLoggerMiddleware(transcriptStore));
+        final String[] conversationId = {null};
+
+        new TestFlow(adapter, (context) ->
+        {
+                conversationId[0] = context.getActivity().conversation().id();
+                ActivityImpl reply = ((ActivityImpl) context.getActivity()).CreateReply("response");
+                reply.withAttachments(Collections.singletonList(new Attachment().withName("picture")));
+                try {
+                    context.SendActivity(reply);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    Assert.fail();
+                }
+                // The attachment is shared with the activity the bot keeps; changing it must not reach the transcript.
+                reply.attachments().get(0).withName("changed");
+        }).Send("foo")
+                .AssertReply("response")
+                .StartTest();
+
+        PagedResult pagedResult = transcriptStore.GetTranscriptActivitiesAsync("test", conversationId[0]).join();
+        Assert.assertEquals(2, pagedResult.getItems().length);
+        Assert.assertEquals("picture", ((Activity) pagedResult.getItems()[1]).attachments().get(0).name());
+    }
+
+    @Test
+    public final void ActivitySnapshot_CopiesAreIndependent() {
+        Activity activity = new Activity()
+                .withType(ActivityTypes.MESSAGE)
+                .withId("1")
+                .withText("hello")
+                .withChannelId("test")
+                .withConversation(new ConversationAccount().withId("conv"))
+                .withFrom(new ChannelAccount().withId("user1"));
+        ActivitySnapshot snapshot = ActivitySnapshot.Of(activity);
+        activity.from().withId("user2");
+
+        Activity first = snapshot.ToActivity();
+        Activity second = snapshot.ToActivity();
+        Assert.assertEquals("user1", first.from().id());
+        first.from().withId("user3");
+        Assert.assertEquals("user1", second.from().id());
+        Assert.assertEquals("conv", snapshot.getConversationId());
+        Assert.assertEquals("test", snapshot.getChannelId());
+    }
 }
 
@@ -0,0 +1,89 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.microsoft.bot.schema.ActivityImpl;
+import com.microsoft.bot.schema.LazyActivity;
+import com.microsoft.bot.schema.Serialization;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares binding a whole incoming activity with reading it through {@link LazyActivity},
+ * for a Teams and a Slack message as the channels send them.
+ * <p>Each case reads what routing middleware reads: the type, conversation id, sender id and
+ * text. {@code lazyThenBind} also binds the whole activity afterwards, the cost when a turn
+ * does need it. Run with {@code -prof gc} to see the bytes allocated per activity. See the
+ * {@code benchmarks} package documentation for how to run it.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ActivityBindingBenchmark {
+    @Param({"teams", "slack"})
+    public String channel;
+
+    private ObjectReader reader;
+    private byte[] json;
+
+    @Setup
+    public void Setup() throws IOException {
+        this.reader = Serialization.ReaderFor(ActivityImpl.class);
+
+        try (InputStream stream = getClass().getResourceAsStream("/benchmarks/" + this.channel + "-message.json")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            this.json = bytes.toByteArray();
+        }
+
+        // Both ways must see the same activity.
+        ActivityImpl bound = this.reader.readValue(this.json);
+        LazyActivity lazy = LazyActivity.Parse(this.json);
+        if (!Objects.equals(bound.conversation().id(), lazy.conversationId()) || !Objects.equals(bound.text(), lazy.text())
+                || bound.entities().size() != lazy.entities().size())
+            throw new IllegalStateException("LazyActivity disagrees with full binding for " + this.channel);
+    }
+
+    @Benchmark
+    public void fullBinding(Blackhole blackhole) throws IOException {
+        ActivityImpl activity = this.reader.readValue(this.json);
+        blackhole.consume(activity.type());
+        blackhole.consume(activity.conversation().id());
+        blackhole.consume(activity.from().id());
+        blackhole.consume(activity.text());
+    }
+
+    @Benchmark
+    public void lazyRouting(Blackhole blackhole) throws IOException {
+        LazyActivity activity = LazyActivity.Parse(this.json);
+        blackhole.consume(activity.type());
+        blackhole.consume(activity.conversationId());
+        blackhole.consume(activity.fromId());
+        blackhole.consume(activity.text());
+    }
+
+    @Benchmark
+    public void lazyThenBind(Blackhole blackhole) throws IOException {
+        LazyActivity activity = LazyActivity.Parse(this.json);
+        blackhole.consume(activity.type());
+        blackhole.consume(activity.conversationId());
+        blackhole.consume(activity.fromId());
+        blackhole.consume(activity.text());
+        blackhole.consume(activity.ToActivity());
+    }
+}
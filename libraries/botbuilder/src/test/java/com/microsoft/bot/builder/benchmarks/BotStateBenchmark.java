@@ -0,0 +1,166 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.microsoft.bot.builder.BotState;
+import com.microsoft.bot.builder.ConversationState;
+import com.microsoft.bot.builder.Storage;
+import com.microsoft.bot.builder.TurnContext;
+import com.microsoft.bot.builder.TurnContextImpl;
+import com.microsoft.bot.builder.adapters.TestAdapter;
+import com.microsoft.bot.schema.ActivityImpl;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Measures the per-turn overhead {@link BotState} adds around a storage round trip.
+ * <p>The storage used here is a plain map so the numbers reflect the state middleware
+ * itself rather than serialization. {@code legacyTurn} reproduces the previous read path
+ * (a formatted console line per turn and a stream scan over the items read).</p>
+ * <p>See the {@code benchmarks} package documentation for how to run it.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BotStateBenchmark {
+
+    /**
+     * Storage that hands back the stored objects without copying them.
+     */
+    static class MapStorage implements Storage {
+        private final Map<String, Object> memory = new HashMap<String, Object>();
+
+        @Override
+        public CompletableFuture<Map<String, ? extends Object>> Read(String... keys) {
+            Map<String, Object> items = new HashMap<String, Object>(keys.length);
+            for (String key : keys) {
+                // Copy the key so lookups can't rely on reference equality.
+                Object item = this.memory.get(new String(key));
+                if (item != null)
+                    items.put(new String(key), item);
+            }
+            return completedFuture(items);
+        }
+
+        @Override
+        public CompletableFuture Write(Map<String, ? extends Object> changes) {
+            this.memory.putAll(changes);
+            return completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture Delete(String... keys) {
+            for (String key : keys)
+                this.memory.remove(key);
+            return completedFuture(null);
+        }
+    }
+
+    /**
+     * The previous {@link BotState} read path, kept here for comparison.
+     */
+    static class LegacyState<TState> extends BotState<TState> {
+        private static final PrintStream console = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        private final Storage storage;
+        private final String propertyName;
+        private final Supplier<? extends TState> ctor;
+
+        LegacyState(Storage storage, String propertyName, Supplier<? extends TState> ctor) {
+            super(storage, propertyName,
+                    (context) -> String.format("conversation/%s/%s", context.getActivity().channelId(), context.getActivity().conversation().id()),
+                    ctor);
+            this.storage = storage;
+            this.propertyName = propertyName;
+            this.ctor = ctor;
+        }
+
+        @Override
+        protected void ReadToContextService(TurnContext context) throws JsonProcessingException {
+            String key = String.format("conversation/%s/%s", context.getActivity().channelId(), context.getActivity().conversation().id());
+            Map<String, ?> items = storage.Read(new String[]{key}).join();
+            console.println(String.format("BotState:OnTurn(tid:%s) ReadToContextService: Found %s items", Thread.currentThread().getId(), items.size()));
+            Object state = StreamSupport.stream(items.entrySet().spliterator(), false)
+                    .filter(entry -> entry.getKey().equals(key))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(null);
+            if (state == null)
+                state = this.ctor.get();
+            context.getServices().Add(this.propertyName, state);
+        }
+    }
+
+    public static class Payload {
+        public String value = "test";
+        public int count;
+    }
+
+    private TestAdapter adapter;
+    private ActivityImpl activity;
+    private BotState<Payload> current;
+    private BotState<Payload> legacy;
+
+    @Setup
+    public void setup() {
+        this.adapter = new TestAdapter();
+        this.activity = (ActivityImpl) new ActivityImpl()
+                .withType(ActivityTypes.MESSAGE)
+                .withChannelId("msteams")
+                .withFrom(new ChannelAccount().withId("user1"))
+                .withConversation(new ConversationAccount().withId("conversation1"));
+        this.current = new ConversationState<Payload>(new MapStorage(), Payload::new);
+        this.legacy = new LegacyState<Payload>(new MapStorage(), ConversationState.PropertyName(), Payload::new);
+    }
+
+    @Benchmark
+    public void currentTurn(Blackhole blackhole) throws Exception {
+        try (TurnContextImpl context = new TurnContextImpl(this.adapter, this.activity)) {
+            this.current.OnTurn(context, () -> blackhole.consume(context.getServices().Get(ConversationState.PropertyName())));
+        }
+    }
+
+    @Benchmark
+    public void legacyTurn(Blackhole blackhole) throws Exception {
+        try (TurnContextImpl context = new TurnContextImpl(this.adapter, this.activity)) {
+            this.legacy.OnTurn(context, () -> blackhole.consume(context.getServices().Get(ConversationState.PropertyName())));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BotStateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.microsoft.bot.schema.ActivityImpl;
+import com.microsoft.bot.schema.ModelBindingModule;
+import com.microsoft.bot.schema.Serialization;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading and writing whole activities by reflection with the hand-written bindings of
+ * {@link ModelBindingModule}, for a Teams and a Slack message as the channels send them.
+ * <p>Both mappers are configured as {@link Serialization} is, one with the module added. Run
+ * with {@code -prof gc} to see the bytes allocated per activity. See the {@code benchmarks}
+ * package documentation for how to run it.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBindingBenchmark {
+    @Param({"teams", "slack"})
+    public String channel;
+
+    private ObjectReader reflectiveReader;
+    private ObjectWriter reflectiveWriter;
+    private ObjectReader boundReader;
+    private ObjectWriter boundWriter;
+    private byte[] json;
+    private ActivityImpl activity;
+
+    @Setup
+    public void Setup() throws IOException {
+        ObjectMapper reflective = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .findAndRegisterModules();
+        this.reflectiveReader = reflective.readerFor(ActivityImpl.class);
+        this.reflectiveWriter = reflective.writerFor(ActivityImpl.class);
+        ObjectMapper bound = reflective.copy().registerModule(new ModelBindingModule());
+        this.boundReader = bound.readerFor(ActivityImpl.class);
+        this.boundWriter = bound.writerFor(ActivityImpl.class);
+
+        try (InputStream stream = getClass().getResourceAsStream("/benchmarks/" + this.channel + "-message.json")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            this.json = bytes.toByteArray();
+        }
+        this.activity = this.reflectiveReader.readValue(this.json);
+
+        // Both ways must read and write the same JSON.
+        byte[] reflectiveJson = this.reflectiveWriter.writeValueAsBytes(this.activity);
+        if (!Arrays.equals(reflectiveJson, this.boundWriter.writeValueAsBytes(this.activity))
+                || !Arrays.equals(reflectiveJson, this.reflectiveWriter.writeValueAsBytes(this.boundReader.readValue(this.json))))
+            throw new IllegalStateException("ModelBindingModule disagrees with reflective binding for " + this.channel);
+    }
+
+    @Benchmark
+    public ActivityImpl reflectiveRead() throws IOException {
+        return this.reflectiveReader.readValue(this.json);
+    }
+
+    @Benchmark
+    public ActivityImpl boundRead() throws IOException {
+        return this.boundReader.readValue(this.json);
+    }
+
+    @Benchmark
+    public byte[] reflectiveWrite() throws IOException {
+        return this.reflectiveWriter.writeValueAsBytes(this.activity);
+    }
+
+    @Benchmark
+    public byte[] boundWrite() throws IOException {
+        return this.boundWriter.writeValueAsBytes(this.activity);
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder.benchmarks;
+
+import com.microsoft.bot.builder.JsonStateSerializer;
+import com.microsoft.bot.builder.SmileStateSerializer;
+import com.microsoft.bot.builder.StateSerializer;
+import com.microsoft.bot.builder.StateTypeRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the size and encode/decode time of the JSON tree state format with the
+ * Smile binary format for a typical conversation state payload: a small dialog stack
+ * and a shopping cart.
+ * <p>The encoded sizes are printed once per trial. See the {@code benchmarks} package
+ * documentation for how to run it.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateSerializerBenchmark {
+
+    public static class DialogInstance {
+        public String id;
+        public Map<String, Object> state = new HashMap<String, Object>();
+    }
+
+    public static class CartItem {
+        public String sku;
+        public String description;
+        public int quantity;
+        public double price;
+    }
+
+    public static class ConversationData {
+        public List<DialogInstance> dialogStack = new ArrayList<DialogInstance>();
+        public List<CartItem> cart = new ArrayList<CartItem>();
+        public String locale;
+        public int turnCount;
+    }
+
+    @Param({"json", "smile"})
+    public String format;
+
+    private StateSerializer serializer;
+    private ConversationData state;
+    private byte[] encoded;
+
+    static ConversationData CreateState() {
+        ConversationData data = new ConversationData();
+        data.locale = "en-US";
+        data.turnCount = 42;
+        for (int i = 0; i < 3; i++) {
+            DialogInstance dialog = new DialogInstance();
+            dialog.id = "orderDialog" + i;
+            dialog.state.put("stepIndex", i);
+            dialog.state.put("prompt", "Which size would you like?");
+            dialog.state.put("retries", 0);
+            data.dialogStack.add(dialog);
+        }
+        for (int i = 0; i < 10; i++) {
+            CartItem item = new CartItem();
+            item.sku = "SKU-" + (10000 + i);
+            item.description = "Contoso coffee beans, medium roast, 1kg";
+            item.quantity = 1 + (i % 3);
+            item.price = 12.5 + i;
+            data.cart.add(item);
+        }
+        return data;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        StateTypeRegistry registry = new StateTypeRegistry();
+        this.serializer = this.format.equals("smile") ? new SmileStateSerializer(registry) : new JsonStateSerializer(registry);
+        this.state = CreateState();
+        this.encoded = this.serializer.Serialize(this.state);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return this.serializer.Serialize(this.state);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return this.serializer.Deserialize(this.encoded);
+    }
+}
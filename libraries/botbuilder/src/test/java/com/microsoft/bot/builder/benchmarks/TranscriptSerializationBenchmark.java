@@ -0,0 +1,91 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.microsoft.bot.builder.ActivitySnapshot;
+import com.microsoft.bot.schema.Serialization;
+import com.microsoft.bot.schema.models.Activity;
+import com.microsoft.bot.schema.models.ActivityTypes;
+import com.microsoft.bot.schema.models.ChannelAccount;
+import com.microsoft.bot.schema.models.ConversationAccount;
+import com.microsoft.bot.schema.models.RoleTypes;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways a transcript trace line can be produced for one activity: the indented
+ * {@code ObjectMapper} the trace logger used to create, the shared compact {@code ObjectWriter}
+ * it uses now (which also leaves out null fields), and the JSON already held by an
+ * {@link ActivitySnapshot}.
+ * <p>Run with {@code -prof gc} to see the bytes allocated per activity. See the
+ * {@code benchmarks} package documentation for how to run it.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranscriptSerializationBenchmark {
+    private ObjectMapper indentedMapper;
+    private ObjectWriter compactWriter;
+    private Activity activity;
+    private byte[] snapshotJson;
+
+    @Setup
+    public void Setup() {
+        this.indentedMapper = new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        this.indentedMapper.findAndRegisterModules();
+        this.compactWriter = Serialization.CompactWriterFor(Activity.class);
+
+        this.activity = new Activity()
+                .withType(ActivityTypes.MESSAGE)
+                .withId("1234567890")
+                .withTimestamp(new DateTime(DateTimeZone.UTC))
+                .withChannelId("msteams")
+                .withServiceUrl("https://smba.trafficmanager.net/amer/")
+                .withFrom(new ChannelAccount().withId("29:1a2b3c4d5e6f").withName("Jane Doe").withRole(RoleTypes.USER))
+                .withRecipient(new ChannelAccount().withId("28:bot-app-id").withName("Support Bot"))
+                .withConversation(new ConversationAccount().withId("a:1Xyz-conversation-id").withIsGroup(false))
+                .withLocale("en-US")
+                .withText("I need help resetting the password for my account, it keeps saying it has expired.");
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try {
+            ActivitySnapshot.Of(this.activity).WriteTo(stream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.snapshotJson = stream.toByteArray();
+    }
+
+    @Benchmark
+    public String indented() throws JsonProcessingException {
+        return this.indentedMapper.writeValueAsString(this.activity);
+    }
+
+    @Benchmark
+    public String compact() throws JsonProcessingException {
+        return this.compactWriter.writeValueAsString(this.activity);
+    }
+
+    /**
+     * What the trace logger does with a snapshot: decode the JSON it already holds.
+     */
+    @Benchmark
+    public String snapshot() {
+        return new String(this.snapshotJson, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,13 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+/**
+ * JMH micro-benchmarks for the Bot Builder hot paths. They are compiled with the
+ * test sources but are not run by the unit test build.
+ * <p>To run them from {@code libraries/botbuilder}:</p>
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main BotStateBenchmark
+ * </pre>
+ */
+package com.microsoft.bot.builder.benchmarks;
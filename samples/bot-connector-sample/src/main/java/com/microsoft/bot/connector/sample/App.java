@@ -3,14 +3,14 @@
 
 package com.microsoft.bot.connector.sample;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.microsoft.aad.adal4j.AuthenticationException;
 import com.microsoft.bot.connector.authentication.CredentialProvider;
 import com.microsoft.bot.connector.authentication.CredentialProviderImpl;
 import com.microsoft.bot.connector.authentication.JwtTokenValidation;
 import com.microsoft.bot.connector.authentication.MicrosoftAppCredentials;
 import com.microsoft.bot.connector.implementation.ConnectorClientImpl;
+import com.microsoft.bot.schema.Serialization;
 import com.microsoft.bot.schema.models.Activity;
 import com.microsoft.bot.schema.models.ActivityTypes;
 import com.microsoft.bot.schema.models.ResourceResponse;
@@ -38,14 +38,12 @@ public class App {
     }
 
     static class MessageHandle implements HttpHandler {
-        private ObjectMapper objectMapper;
+        private static final ObjectReader activityReader = Serialization.ReaderFor(Activity.class);
+
         private CredentialProvider credentialProvider;
         private MicrosoftAppCredentials credentials;
 
         MessageHandle(CredentialProvider credentialProvider) {
-            this.objectMapper = new ObjectMapper()
-                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-                    .findAndRegisterModules();
             this.credentialProvider = credentialProvider;
             this.credentials = new MicrosoftAppCredentials(appId, appPassword);
         }
@@ -100,7 +98,7 @@ public class App {
             try {
                 String body = getRequestBody(httpExchange);
                 LOGGER.log(Level.INFO, body);
-                return objectMapper.readValue(body, Activity.class);
+                return activityReader.readValue(body);
             } catch (Exception ex) {
                 LOGGER.log(Level.WARNING, "Failed to get activity", ex);
                 return null;